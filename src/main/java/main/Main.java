@@ -17,8 +17,11 @@
 
 package main;
 
+import main.model.validation.ValidationRules;
 import main.view.ApplicationWindow;
 
+import java.nio.file.Path;
+
 /**
  * Entry point for the application.
  */
@@ -31,6 +34,11 @@ public class Main {
      */
     public static void main(String[] args) {
         try {
+            String rulesFile = System.getProperty(ValidationRules.RULES_FILE_PROPERTY);
+            if(rulesFile != null) {
+                ValidationRules.setDefault(ValidationRules.load(Path.of(rulesFile)));
+            }
+
             ApplicationWindow app = new ApplicationWindow();
         } catch (Exception e) {
             System.err.println("Error occurred.");
@@ -19,10 +19,10 @@ package main.model.document;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import main.model.validation.IValidatable;
-
-import java.util.ArrayList;
-import java.util.List;
+import main.model.validation.ValidationErrors;
+import main.model.validation.ValidationRules;
 
 /**
  * Class that represents an author.
@@ -36,15 +36,16 @@ public class Author implements IValidatable
     private final String lastName;
 
     /**
-     * Constructor. Whitespace will be stripped.
+     * Constructor. Whitespace will be stripped. Names that are decoded from an index are shared through the
+     * {@link StringPool}, since the same authors appear on many documents.
      *
      * @param firstName The first name of the author.
      * @param lastName The last name of the author.
      */
     @JsonCreator
     public Author(
-            @JsonProperty("firstName") String firstName,
-            @JsonProperty("lastName") String lastName
+            @JsonProperty("firstName") @JsonDeserialize(using = InterningStringDeserializer.class) String firstName,
+            @JsonProperty("lastName") @JsonDeserialize(using = InterningStringDeserializer.class) String lastName
     ) {
         this.firstName = (firstName != null) ? firstName.strip() : null;
         this.lastName = (lastName != null) ? lastName.strip() : null;
@@ -65,21 +66,14 @@ public class Author implements IValidatable
     }
 
     /**
-     * Validate the author. The following things will be checked:
+     * Validate the author with the default rule set, see {@link ValidationRules#getDefault()}. The built-in rules check
+     * the following things:
      *  - the last name must not be null,
      *  - the last name must not be an empty string.
      */
     @Override
-    public List<String> validate()
+    public void validate(ValidationErrors errors)
     {
-        List<String> retval = new ArrayList<>();
-
-        if(lastName == null) {
-            retval.add("Lastname must not be 'null'.");
-        } else if (lastName.isEmpty()) {
-            retval.add("Lastname must not be empty.");
-        }
-
-        return retval;
+        ValidationRules.getDefault().validate(this, errors);
     }
 }
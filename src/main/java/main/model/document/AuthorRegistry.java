@@ -0,0 +1,171 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every distinct author, identified by the combination of first and last name, a single shared {@link Author}
+ * instance and an integer ID. The IDs are assigned in the order in which the authors are first seen, starting at zero,
+ * and do not change while the registry exists, so that author-centric operations can work on arrays that are indexed
+ * by ID instead of comparing names.
+ *
+ * The registry keeps every author that it has seen, so it belongs to a single index and is dropped together with it,
+ * see {@link main.model.index.AuthorIndex}. It is thread-safe: lookups of known authors do not lock, while new authors
+ * are registered one at a time.
+ */
+public final class AuthorRegistry
+{
+    private final ConcurrentHashMap<Key, Integer> ids = new ConcurrentHashMap<>();
+    private volatile Author[] authors = new Author[64];
+    private volatile int size = 0;
+
+    /**
+     * Retrieve the shared instance of the author with the specified names, and register the author if it is new.
+     * Whitespace is stripped, in the same way as by the constructor of {@link Author}.
+     */
+    public Author register(String firstName, String lastName) {
+        return this.register(new Author(firstName, lastName));
+    }
+
+    /**
+     * Retrieve the shared instance of the specified author. An author that is not yet known is registered, and is its
+     * own shared instance.
+     */
+    public Author register(Author author) {
+        // the ID is retrieved first, since registering the author may replace the array
+        int id = this.registerId(author);
+        return this.authors[id];
+    }
+
+    /**
+     * Retrieve the ID of the specified author, and register the author if it is new.
+     */
+    public int registerId(Author author) {
+        Key key = new Key(author.getFirstName(), author.getLastName());
+
+        Integer id = this.ids.get(key);
+        if(id == null) {
+            synchronized (this) {
+                id = this.ids.get(key);
+                if(id == null) {
+                    id = this.add(author);
+                    this.ids.put(key, id);
+                }
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Replace the authors in the list by their shared instances.
+     *
+     * @param authors The authors, or null.
+     * @return A new, modifiable list with the shared instances, or null if the list is null.
+     */
+    public List<Author> registerAll(List<Author> authors) {
+        if(authors == null) {
+            return null;
+        }
+
+        List<Author> retval = new ArrayList<>(authors.size());
+        for (Author author : authors) {
+            retval.add((author != null) ? this.register(author) : null);
+        }
+        return retval;
+    }
+
+    /**
+     * Retrieve the ID of the author with the same names as the specified author.
+     *
+     * @return The ID, or -1 if the author is not registered.
+     */
+    public int getId(Author author) {
+        Integer id = this.ids.get(new Key(author.getFirstName(), author.getLastName()));
+        return (id != null) ? id : -1;
+    }
+
+    /**
+     * Retrieve the author with the specified ID.
+     *
+     * @throws IndexOutOfBoundsException If no author has the ID.
+     */
+    public Author getAuthor(int id) {
+        Objects.checkIndex(id, this.size);
+        return this.authors[id];
+    }
+
+    /**
+     * Retrieve the number of registered authors, which is one more than the highest ID.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Store a new author under the next ID. The caller holds the lock.
+     */
+    private int add(Author author) {
+        int id = this.size;
+
+        Author[] array = this.authors;
+        if(id == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[id] = author;
+
+        // publish the array before the new size, so that readers that see the ID also see the author
+        this.authors = array;
+        this.size = id + 1;
+        return id;
+    }
+
+    /**
+     * The names that identify an author. Either name may be null.
+     */
+    private static final class Key
+    {
+        private final String firstName;
+        private final String lastName;
+        private final int hash;
+
+        private Key(String firstName, String lastName) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.hash = 31 * Objects.hashCode(firstName) + Objects.hashCode(lastName);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if(!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return Objects.equals(this.firstName, key.firstName) && Objects.equals(this.lastName, key.lastName);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -25,6 +25,8 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.YearDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.YearSerializer;
 import main.model.validation.IValidatable;
+import main.model.validation.ValidationErrors;
+import main.model.validation.ValidationRules;
 
 import java.net.URI;
 import java.time.Year;
@@ -39,6 +41,14 @@ import java.util.stream.Collectors;
  */
 public class Document implements IValidatable
 {
+    /**
+     * System property that enables eager parsing of the source and notes locations when set to "true", see
+     * {@link #setEagerLocationParsing(boolean)}.
+     */
+    public static final String EAGER_LOCATIONS_PROPERTY = "documentmanager.locations.eager";
+
+    private static volatile boolean eagerLocationParsing = Boolean.getBoolean(EAGER_LOCATIONS_PROPERTY);
+
     private List<Author> authors = new ArrayList<>();
 
     private String title;
@@ -51,14 +61,25 @@ public class Document implements IValidatable
 
     private EnumDocumentType documentType = null;
 
+    // the locations are kept as text, and parsed when they are first retrieved as a URI
+    private String sourceLocationText = null;
+
     private URI sourceLocation = null;
 
+    private String notesLocationText = null;
+
     private URI notesLocation = null;
 
     private EnumReadingStatus readingStatus = null;
 
     private List<String> tags = new ArrayList<>();
 
+    // created when the first listener is added, since most documents have none
+    private List<TagChangeListener> tagListeners = null;
+
+    // created when the first listener is added, since most documents have none
+    private List<DocumentChangeListener> changeListeners = null;
+
     /**
      * Retrieve a list of authors that are associated with the document.
      */
@@ -73,6 +94,7 @@ public class Document implements IValidatable
     @JsonSetter("authors")
     public void setAuthors(List<Author> authors) {
         this.authors = authors;
+        this.fireChanged();
     }
 
     /**
@@ -91,6 +113,7 @@ public class Document implements IValidatable
     public void setTitle(String title) {
         if(title != null) {
             this.title = title.strip();
+            this.fireChanged();
         }
     }
 
@@ -112,6 +135,7 @@ public class Document implements IValidatable
     public void setPublicationYear(Year publicationYear)
     {
         this.publicationYear = publicationYear;
+        this.fireChanged();
     }
 
     /**
@@ -124,12 +148,14 @@ public class Document implements IValidatable
     }
 
     /**
-     * Set the publication venue.
+     * Set the publication venue. Venues that are decoded from an index are shared through the {@link StringPool}.
      */
+    @JsonDeserialize(using = InterningStringDeserializer.class)
     @JsonSetter("publicationVenue")
     public void setPublicationVenue(String publicationVenue) {
         if(publicationVenue != null) {
             this.publicationVenue = publicationVenue.strip();
+            this.fireChanged();
         }
     }
 
@@ -149,6 +175,7 @@ public class Document implements IValidatable
     public void setPageCount(int pageCount)
     {
         this.pageCount = pageCount;
+        this.fireChanged();
     }
 
     @JsonGetter("documentType")
@@ -161,39 +188,104 @@ public class Document implements IValidatable
     public void setDocumentType(EnumDocumentType documentType)
     {
         this.documentType = documentType;
+        this.fireChanged();
+    }
+
+    /**
+     * Enable or disable eager parsing of the source and notes locations. By default, a location that is decoded from
+     * an index is kept as text and parsed by the first call to {@link #getSourceLocation()} or
+     * {@link #getNotesLocation()}, which throws if the location is invalid. With eager parsing, an invalid location
+     * already makes decoding fail. To report invalid locations as validation errors instead, add the location rules
+     * to the validation rules, see {@link ValidationRules#getLocationRules()}.
+     */
+    public static void setEagerLocationParsing(boolean eagerLocationParsing) {
+        Document.eagerLocationParsing = eagerLocationParsing;
     }
 
     /**
      * Retrieve the location of the source of the document (i.e. the filename or URL of a PDF file, description page, etc.)
+     *
+     * @throws IllegalArgumentException If the location was set as text and is not a valid URI. Such a document does not
+     *                                  pass the location rules, see {@link ValidationRules#getLocationRules()}.
      */
-    @JsonGetter("sourceLocation")
     public URI getSourceLocation()
     {
+        if(this.sourceLocation == null && this.sourceLocationText != null) {
+            this.sourceLocation = URI.create(this.sourceLocationText);
+        }
         return this.sourceLocation;
     }
 
     /**
      * Set the location of the source of the document (i.e. the filename or URL of a PDF file, description page, etc.)
      */
-    @JsonSetter("sourceLocation")
     public void setSourceLocation(URI sourceLocation) {
         this.sourceLocation = sourceLocation;
+        this.sourceLocationText = (sourceLocation != null) ? sourceLocation.toString() : null;
+        this.fireChanged();
+    }
+
+    /**
+     * Retrieve the location of the source as text, without parsing it.
+     */
+    @JsonGetter("sourceLocation")
+    public String getSourceLocationText() {
+        return this.sourceLocationText;
+    }
+
+    /**
+     * Set the location of the source as text. The text is parsed when the location is first retrieved, unless eager
+     * parsing is enabled, see {@link #setEagerLocationParsing(boolean)}.
+     *
+     * @throws IllegalArgumentException If eager parsing is enabled and the text is not a valid URI.
+     */
+    @JsonSetter("sourceLocation")
+    public void setSourceLocationText(String sourceLocation) {
+        this.sourceLocationText = sourceLocation;
+        this.sourceLocation = (eagerLocationParsing && sourceLocation != null) ? URI.create(sourceLocation) : null;
+        this.fireChanged();
     }
 
     /**
      * Retrieve the location of the notes that the reader made about the document (i.e. a text file, note-making application, etc.)
+     *
+     * @throws IllegalArgumentException If the location was set as text and is not a valid URI. Such a document does not
+     *                                  pass the location rules, see {@link ValidationRules#getLocationRules()}.
      */
-    @JsonGetter("notesLocation")
     public URI getNotesLocation() {
-        return notesLocation;
+        if(this.notesLocation == null && this.notesLocationText != null) {
+            this.notesLocation = URI.create(this.notesLocationText);
+        }
+        return this.notesLocation;
     }
 
     /**
      * Set the location of the notes.
      */
-    @JsonSetter("notesLocation")
     public void setNotesLocation(URI notesLocation) {
         this.notesLocation = notesLocation;
+        this.notesLocationText = (notesLocation != null) ? notesLocation.toString() : null;
+        this.fireChanged();
+    }
+
+    /**
+     * Retrieve the location of the notes as text, without parsing it.
+     */
+    @JsonGetter("notesLocation")
+    public String getNotesLocationText() {
+        return this.notesLocationText;
+    }
+
+    /**
+     * Set the location of the notes as text, see {@link #setSourceLocationText(String)}.
+     *
+     * @throws IllegalArgumentException If eager parsing is enabled and the text is not a valid URI.
+     */
+    @JsonSetter("notesLocation")
+    public void setNotesLocationText(String notesLocation) {
+        this.notesLocationText = notesLocation;
+        this.notesLocation = (eagerLocationParsing && notesLocation != null) ? URI.create(notesLocation) : null;
+        this.fireChanged();
     }
 
     @JsonGetter("readingStatus")
@@ -207,6 +299,7 @@ public class Document implements IValidatable
     {
         if(readingStatus != null) {
             this.readingStatus = readingStatus;
+            this.fireChanged();
         }
     }
 
@@ -221,60 +314,88 @@ public class Document implements IValidatable
 
     /**
      * Set the tags. Null values will be filtered out. All tags will be stripped of whitespace. Empty tags will be
-     * filtered out.
+     * filtered out. Tags that are decoded from an index are shared through the {@link StringPool}.
      */
+    @JsonDeserialize(contentUsing = InterningStringDeserializer.class)
     @JsonSetter("tags")
     public void setTags(List<String> tags) {
         if(tags != null) {
+            List<String> oldTags = this.tags;
             this.tags = tags.stream()
                     .filter(Objects::nonNull) // remove all null values
                     .map(String::strip) // strip whitespace
                     .filter(Predicate.not(String::isEmpty)) // remove all empty strings
                     .collect(Collectors.toList());
+
+            if(this.tagListeners != null) {
+                for (TagChangeListener listener : List.copyOf(this.tagListeners)) {
+                    listener.tagsChanged(this, oldTags, this.tags);
+                }
+            }
+            this.fireChanged();
         }
     }
 
     /**
-     * Validate the document. The following things will be checked:
-     *  - the list of authors must not be empty,
-     *  - the authors must all be valid,
-     *  - the title must not be null or an empty string,
-     *  - the page count must be bigger than zero,
-     *  - the document type must not be null,
-     *  - the reading status must not be null.
+     * Add a listener that is notified when {@link #setTags(List)} replaces the tags. Changes that are made directly to
+     * the list of {@link #getTags()} are not reported.
      */
-    @Override
-    public List<String> validate() {
-        List<String> retval = new ArrayList<>();
-
-        for (int i = 0; i < this.authors.size(); i++) {
-            Author author = this.authors.get(i);
-
-            for (String errorMsg : author.validate()) {
-                retval.add("Invalid author at index #%d: %s".formatted(i, errorMsg));
-            }
-        }
-
-        if(this.authors.isEmpty()) {
-            retval.add("List of authors must not be empty.");
+    public void addTagListener(TagChangeListener listener) {
+        if(this.tagListeners == null) {
+            this.tagListeners = new ArrayList<>(1);
         }
+        this.tagListeners.add(listener);
+    }
 
-        if(this.title == null || this.title.isEmpty()) {
-            retval.add("Title must not be empty or null.");
+    /**
+     * Remove a listener that was added with {@link #addTagListener(TagChangeListener)}.
+     */
+    public void removeTagListener(TagChangeListener listener) {
+        if(this.tagListeners != null) {
+            this.tagListeners.remove(listener);
         }
+    }
 
-        if(this.pageCount <= 0) {
-            retval.add("Page count must be greater than zero.");
+    /**
+     * Add a listener that is notified whenever a setter changes the document. Changes that are made directly to the
+     * lists of {@link #getAuthors()} and {@link #getTags()} are not reported.
+     */
+    public void addChangeListener(DocumentChangeListener listener) {
+        if(this.changeListeners == null) {
+            this.changeListeners = new ArrayList<>(1);
         }
+        this.changeListeners.add(listener);
+    }
 
-        if(this.documentType == null) {
-            retval.add("Document type must not be null.");
+    /**
+     * Remove a listener that was added with {@link #addChangeListener(DocumentChangeListener)}.
+     */
+    public void removeChangeListener(DocumentChangeListener listener) {
+        if(this.changeListeners != null) {
+            this.changeListeners.remove(listener);
         }
+    }
 
-        if(this.readingStatus == null) {
-            retval.add("Reading status must not be null.");
+    private void fireChanged() {
+        if(this.changeListeners != null) {
+            for (DocumentChangeListener listener : List.copyOf(this.changeListeners)) {
+                listener.documentChanged(this);
+            }
         }
+    }
 
-        return retval;
+    /**
+     * Validate the document and its authors with the default rule set, see {@link ValidationRules#getDefault()}. The
+     * built-in rules check the following things:
+     *  - the list of authors must not be empty,
+     *  - the authors must all be valid,
+     *  - the title must not be null or an empty string,
+     *  - the page count must be bigger than zero,
+     *  - the document type must not be null,
+     *  - the reading status must not be null.
+     */
+    @Override
+    public void validate(ValidationErrors errors) {
+        ValidationRules.getDefault().validate(this, errors);
     }
 }
@@ -0,0 +1,32 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.document;
+
+/**
+ * Receives a notification whenever a setter of a {@link Document} changes it, see
+ * {@link Document#addChangeListener(DocumentChangeListener)}.
+ */
+public interface DocumentChangeListener
+{
+    /**
+     * Called after a setter of the document was called.
+     *
+     * @param document The document.
+     */
+    void documentChanged(Document document);
+}
@@ -0,0 +1,209 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.document;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of a {@link Document}. Snapshots of an index hold immutable documents, so that they can be shared
+ * between versions of the index and read by other threads without copying. The authors are shared with the original
+ * document, since they are immutable themselves.
+ *
+ * A changed document is a new instance, see the with-methods and {@link #toDocument()}.
+ */
+public final class ImmutableDocument
+{
+    private final List<Author> authors;
+    private final String title;
+    private final Year publicationYear;
+    private final String publicationVenue;
+    private final int pageCount;
+    private final EnumDocumentType documentType;
+    private final String sourceLocation;
+    private final String notesLocation;
+    private final EnumReadingStatus readingStatus;
+    private final List<String> tags;
+
+    private ImmutableDocument(Document document) {
+        this.authors = (document.getAuthors() == null) ? null : Collections.unmodifiableList(new ArrayList<>(document.getAuthors()));
+        this.title = document.getTitle();
+        this.publicationYear = document.getPublicationYear();
+        this.publicationVenue = document.getPublicationVenue();
+        this.pageCount = document.getPageCount();
+        this.documentType = document.getDocumentType();
+        this.sourceLocation = document.getSourceLocationText();
+        this.notesLocation = document.getNotesLocationText();
+        this.readingStatus = document.getReadingStatus();
+        this.tags = Collections.unmodifiableList(new ArrayList<>(document.getTags()));
+    }
+
+    /**
+     * Create an immutable copy of the document.
+     */
+    public static ImmutableDocument of(Document document) {
+        return new ImmutableDocument(document);
+    }
+
+    /**
+     * Create a new, mutable document with the same contents.
+     */
+    public Document toDocument() {
+        Document document = new Document();
+        document.setAuthors(this.authors);
+        document.setTitle(this.title);
+        document.setPublicationYear(this.publicationYear);
+        document.setPublicationVenue(this.publicationVenue);
+        document.setPageCount(this.pageCount);
+        document.setDocumentType(this.documentType);
+        document.setSourceLocationText(this.sourceLocation);
+        document.setNotesLocationText(this.notesLocation);
+        document.setReadingStatus(this.readingStatus);
+        document.setTags(this.tags);
+        return document;
+    }
+
+    /**
+     * Retrieve the authors, as an unmodifiable list, or null if the document has no list of authors.
+     */
+    public List<Author> getAuthors() {
+        return this.authors;
+    }
+
+    /**
+     * Retrieve the title.
+     */
+    public String getTitle() {
+        return this.title;
+    }
+
+    /**
+     * Retrieve the year that the document was published.
+     */
+    public Year getPublicationYear() {
+        return this.publicationYear;
+    }
+
+    /**
+     * Retrieve the publication venue.
+     */
+    public String getPublicationVenue() {
+        return this.publicationVenue;
+    }
+
+    /**
+     * Retrieve the number of pages.
+     */
+    public int getPageCount() {
+        return this.pageCount;
+    }
+
+    /**
+     * Retrieve the type of the document.
+     */
+    public EnumDocumentType getDocumentType() {
+        return this.documentType;
+    }
+
+    /**
+     * Retrieve the location of the source of the document, or null if there is no location or if it is not a valid
+     * URI. See {@link #getSourceLocationText()} for the location as it was set.
+     */
+    public URI getSourceLocation() {
+        return parseLocation(this.sourceLocation);
+    }
+
+    /**
+     * Retrieve the location of the source as text, without parsing it.
+     */
+    public String getSourceLocationText() {
+        return this.sourceLocation;
+    }
+
+    /**
+     * Retrieve the location of the notes about the document, or null if there is no location or if it is not a valid
+     * URI. See {@link #getNotesLocationText()} for the location as it was set.
+     */
+    public URI getNotesLocation() {
+        return parseLocation(this.notesLocation);
+    }
+
+    /**
+     * Retrieve the location of the notes as text, without parsing it.
+     */
+    public String getNotesLocationText() {
+        return this.notesLocation;
+    }
+
+    /**
+     * Retrieve the reading status.
+     */
+    public EnumReadingStatus getReadingStatus() {
+        return this.readingStatus;
+    }
+
+    /**
+     * Retrieve the tags, as an unmodifiable list.
+     */
+    public List<String> getTags() {
+        return this.tags;
+    }
+
+    /**
+     * Create a copy with a different title.
+     */
+    public ImmutableDocument withTitle(String title) {
+        Document document = this.toDocument();
+        document.setTitle(title);
+        return of(document);
+    }
+
+    /**
+     * Create a copy with a different reading status.
+     */
+    public ImmutableDocument withReadingStatus(EnumReadingStatus readingStatus) {
+        Document document = this.toDocument();
+        document.setReadingStatus(readingStatus);
+        return of(document);
+    }
+
+    /**
+     * Create a copy with different tags, see {@link Document#setTags(List)}.
+     */
+    public ImmutableDocument withTags(List<String> tags) {
+        Document document = this.toDocument();
+        document.setTags(tags);
+        return of(document);
+    }
+
+    private static URI parseLocation(String text) {
+        if(text == null) {
+            return null;
+        }
+
+        try {
+            return new URI(text);
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.document;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Deserializer for string fields whose values repeat across documents. The value is stripped of whitespace, in the
+ * same way as the setters of {@link Document} and {@link Author} do, and then replaced by its canonical instance from
+ * {@link StringPool#getDefault()}.
+ */
+public class InterningStringDeserializer extends StdScalarDeserializer<String>
+{
+    /**
+     * Constructor.
+     */
+    public InterningStringDeserializer() {
+        super(String.class);
+    }
+
+    @Override
+    public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        String value = parser.hasToken(JsonToken.VALUE_STRING)
+                ? parser.getText()
+                : StringDeserializer.instance.deserialize(parser, context);
+
+        return (value != null) ? StringPool.getDefault().intern(value.strip()) : null;
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.document;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Canonicalizes the strings that repeat across the documents of an index, such as author names, publication venues
+ * and tags, so that every occurrence of the same value shares a single {@link String} instance. The pool holds at most
+ * a fixed number of strings: once it is full, new values are returned as they are, while values that are already in
+ * the pool are still shared. Strings that are longer than {@link #MAX_LENGTH} are never pooled, since long values
+ * rarely repeat.
+ *
+ * The pool is thread-safe, so that documents can be decoded in parallel.
+ */
+public final class StringPool
+{
+    /**
+     * The default maximum number of strings in the pool.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1 << 18;
+
+    /**
+     * The maximum length of a string that is pooled.
+     */
+    public static final int MAX_LENGTH = 128;
+
+    private static final StringPool DEFAULT = new StringPool(DEFAULT_MAX_SIZE);
+
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize The maximum number of strings in the pool. A pool with a maximum size of zero does not share any
+     *                strings.
+     */
+    public StringPool(int maxSize) {
+        this.setMaxSize(maxSize);
+    }
+
+    /**
+     * Retrieve the pool that is used when documents are decoded, see {@link InterningStringDeserializer}.
+     */
+    public static StringPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Set the maximum number of strings in the pool. Strings that are already in the pool are kept if the new maximum
+     * is smaller, see {@link #clear()}.
+     */
+    public void setMaxSize(int maxSize) {
+        if(maxSize < 0) {
+            throw new IllegalArgumentException("The maximum size must not be negative.");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Retrieve the maximum number of strings in the pool.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Retrieve the canonical instance of the specified string.
+     *
+     * @param value The string, or null.
+     * @return The instance in the pool that is equal to the value, or the value itself if it is not pooled.
+     */
+    public String intern(String value) {
+        if(value == null || value.length() > MAX_LENGTH) {
+            return value;
+        }
+
+        String pooled = this.strings.get(value);
+        if(pooled != null) {
+            this.hits.increment();
+            return pooled;
+        }
+
+        this.misses.increment();
+
+        // reserve a place first, so that concurrent callers cannot grow the pool beyond its maximum size
+        if(this.size.incrementAndGet() > this.maxSize) {
+            this.size.decrementAndGet();
+            return value;
+        }
+
+        pooled = this.strings.putIfAbsent(value, value);
+        if(pooled != null) {
+            this.size.decrementAndGet();
+            return pooled;
+        }
+        return value;
+    }
+
+    /**
+     * Remove all strings from the pool and reset the statistics.
+     */
+    public void clear() {
+        this.strings.clear();
+        this.size.set(0);
+        this.hits.reset();
+        this.misses.reset();
+    }
+
+    /**
+     * Retrieve the number of strings in the pool.
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * Retrieve the number of calls to {@link #intern(String)} that returned a string that was already in the pool.
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Retrieve the number of calls to {@link #intern(String)} for a string that was not yet in the pool.
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+}
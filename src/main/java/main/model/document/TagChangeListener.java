@@ -0,0 +1,36 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.document;
+
+import java.util.List;
+
+/**
+ * Receives the changes that {@link Document#setTags(List)} makes to the tags of a document, see
+ * {@link Document#addTagListener(TagChangeListener)}.
+ */
+public interface TagChangeListener
+{
+    /**
+     * Called after the tags of the document were replaced.
+     *
+     * @param document The document.
+     * @param oldTags The previous tags.
+     * @param newTags The new tags.
+     */
+    void tagsChanged(Document document, List<String> oldTags, List<String> newTags);
+}
@@ -0,0 +1,225 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Author;
+import main.model.document.AuthorRegistry;
+import main.model.document.Document;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Posting lists that link the documents of an index to the IDs of their authors in an {@link AuthorRegistry}. For
+ * every author, the positions of its documents are stored in ascending order, and for every document, the IDs of its
+ * authors. Both are kept in flat arrays with offsets, so that author-centric queries are array operations instead of
+ * name comparisons.
+ *
+ * The postings reflect the documents at the time they were built, and must be rebuilt after the index changes.
+ */
+public final class AuthorIndex
+{
+    private static final int[] EMPTY = new int[0];
+
+    private final AuthorRegistry registry;
+    private final int authorCount;
+
+    // the authors of document i are documentAuthors[documentOffsets[i]] to documentAuthors[documentOffsets[i + 1] - 1]
+    private final int[] documentOffsets;
+    private final int[] documentAuthors;
+
+    // the documents of author a are authorDocuments[authorOffsets[a]] to authorDocuments[authorOffsets[a + 1] - 1]
+    private final int[] authorOffsets;
+    private final int[] authorDocuments;
+
+    /**
+     * Build the postings for the documents, with the IDs from a new registry that only holds the authors of the
+     * documents.
+     */
+    public AuthorIndex(List<Document> documents) {
+        this(documents, new AuthorRegistry());
+    }
+
+    /**
+     * Build the postings for the documents. Authors that are not yet in the registry are registered. An author that
+     * occurs more than once on the same document is counted once.
+     *
+     * @param documents The documents of the index.
+     * @param registry The registry that assigns the author IDs.
+     */
+    public AuthorIndex(List<Document> documents, AuthorRegistry registry) {
+        this.registry = registry;
+
+        this.documentOffsets = new int[documents.size() + 1];
+        int[] ids = new int[16];
+        int count = 0;
+
+        for (int i = 0; i < documents.size(); i++) {
+            List<Author> authors = documents.get(i).getAuthors();
+            int start = count;
+
+            for (int a = 0; authors != null && a < authors.size(); a++) {
+                if(authors.get(a) == null) {
+                    continue;
+                }
+                int id = registry.registerId(authors.get(a));
+                if(contains(ids, start, count, id)) {
+                    continue;
+                }
+                if(count == ids.length) {
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                }
+                ids[count++] = id;
+            }
+            this.documentOffsets[i + 1] = count;
+        }
+        this.documentAuthors = Arrays.copyOf(ids, count);
+
+        // invert the postings with a counting sort, which keeps the positions of every author in ascending order
+        this.authorCount = registry.size();
+        this.authorOffsets = new int[this.authorCount + 1];
+        for (int i = 0; i < count; i++) {
+            this.authorOffsets[this.documentAuthors[i] + 1]++;
+        }
+        for (int a = 0; a < this.authorCount; a++) {
+            this.authorOffsets[a + 1] += this.authorOffsets[a];
+        }
+
+        int[] next = Arrays.copyOf(this.authorOffsets, this.authorCount);
+        this.authorDocuments = new int[count];
+        for (int i = 0; i < documents.size(); i++) {
+            for (int p = this.documentOffsets[i]; p < this.documentOffsets[i + 1]; p++) {
+                this.authorDocuments[next[this.documentAuthors[p]]++] = i;
+            }
+        }
+    }
+
+    /**
+     * Retrieve the registry that assigned the author IDs.
+     */
+    public AuthorRegistry getRegistry() {
+        return this.registry;
+    }
+
+    /**
+     * Retrieve the IDs of the authors of the document at the specified position, in the order of the document.
+     */
+    public int[] getAuthorIds(int position) {
+        return Arrays.copyOfRange(this.documentAuthors, this.documentOffsets[position], this.documentOffsets[position + 1]);
+    }
+
+    /**
+     * Retrieve the positions of all documents by the author with the specified ID, in ascending order.
+     */
+    public int[] getDocuments(int authorId) {
+        if(authorId < 0 || authorId >= this.authorCount) {
+            return EMPTY;
+        }
+        return Arrays.copyOfRange(this.authorDocuments, this.authorOffsets[authorId], this.authorOffsets[authorId + 1]);
+    }
+
+    /**
+     * Retrieve the positions of all documents by the author, in ascending order.
+     */
+    public int[] getDocuments(Author author) {
+        return this.getDocuments(this.registry.getId(author));
+    }
+
+    /**
+     * Retrieve the number of documents by the author with the specified ID.
+     */
+    public int getDocumentCount(int authorId) {
+        if(authorId < 0 || authorId >= this.authorCount) {
+            return 0;
+        }
+        return this.authorOffsets[authorId + 1] - this.authorOffsets[authorId];
+    }
+
+    /**
+     * Retrieve the IDs of the authors that share at least one document with the author with the specified ID, in
+     * ascending order. The author itself is not included.
+     */
+    public int[] getCoAuthors(int authorId) {
+        if(authorId < 0 || authorId >= this.authorCount) {
+            return EMPTY;
+        }
+
+        boolean[] seen = new boolean[this.authorCount];
+        seen[authorId] = true;
+        int count = 0;
+
+        for (int d = this.authorOffsets[authorId]; d < this.authorOffsets[authorId + 1]; d++) {
+            int position = this.authorDocuments[d];
+            for (int p = this.documentOffsets[position]; p < this.documentOffsets[position + 1]; p++) {
+                int coAuthor = this.documentAuthors[p];
+                if(!seen[coAuthor]) {
+                    seen[coAuthor] = true;
+                    count++;
+                }
+            }
+        }
+
+        int[] retval = new int[count];
+        int index = 0;
+        for (int a = 0; a < this.authorCount && index < count; a++) {
+            if(seen[a] && a != authorId) {
+                retval[index++] = a;
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Retrieve the co-authors of the author, see {@link #getCoAuthors(int)}.
+     */
+    public int[] getCoAuthors(Author author) {
+        return this.getCoAuthors(this.registry.getId(author));
+    }
+
+    /**
+     * Retrieve the positions of the documents that both authors wrote, in ascending order.
+     */
+    public int[] getSharedDocuments(int firstId, int secondId) {
+        int[] first = this.getDocuments(firstId);
+        int[] second = this.getDocuments(secondId);
+
+        int[] retval = new int[Math.min(first.length, second.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < first.length && j < second.length; ) {
+            if(first[i] < second[j]) {
+                i++;
+            } else if(first[i] > second[j]) {
+                j++;
+            } else {
+                retval[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(retval, count);
+    }
+
+    private static boolean contains(int[] values, int from, int to, int value) {
+        for (int i = from; i < to; i++) {
+            if(values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
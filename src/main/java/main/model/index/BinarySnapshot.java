@@ -0,0 +1,287 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Author;
+import main.model.document.Document;
+import main.model.document.EnumDocumentType;
+import main.model.document.EnumReadingStatus;
+import main.model.document.StringPool;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary copy of a document index that is stored next to the JSON file and loads much faster than the JSON.
+ * The JSON file stays the source of truth: the snapshot records the size and the checksum of the contents of the JSON
+ * file it was made from, and it is only used while those still match. Checksumming the JSON file costs a fraction of
+ * parsing it, and unlike the modification time, it also detects an edit that keeps the size within one clock tick.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   magic          8 bytes  "DMSNAP\r\n"
+ *   version        int
+ *   source size    long     size of the JSON file, in bytes
+ *   source crc     long     CRC32C of the JSON file, see {@link #checksum(Path)}
+ *   checksum       long     CRC32 of the payload
+ *   payload        document count (int), followed by the documents
+ * </pre>
+ * Strings are stored as their UTF-8 length (-1 for null) followed by the bytes.
+ */
+class BinarySnapshot
+{
+    private static final byte[] MAGIC = "DMSNAP\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES + 3 * Long.BYTES;
+    private static final int CHECKSUM_POSITION = HEADER_SIZE - Long.BYTES;
+
+    private static final String SUFFIX = ".snapshot";
+
+    /**
+     * Retrieve the path of the snapshot that belongs to the specified JSON file.
+     */
+    static Path getSnapshotPath(Path jsonFile) {
+        return jsonFile.resolveSibling(jsonFile.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Compute the checksum of the contents of a JSON file, which identifies the version of the file that a snapshot
+     * was made from.
+     */
+    static long checksum(Path jsonFile) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+        try (FileChannel channel = FileChannel.open(jsonFile, StandardOpenOption.READ)) {
+            while(channel.read(buffer) > 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Compute the checksum of the contents of a JSON file that were already read, see {@link #checksum(Path)}.
+     */
+    static long checksum(ByteBuffer content) {
+        CRC32C crc = new CRC32C();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    /**
+     * Read the snapshot of the specified JSON file.
+     *
+     * @param jsonFile The JSON index file.
+     * @param sourceChecksum The current checksum of the JSON file, see {@link #checksum(Path)}.
+     * @return The documents in the snapshot, or null if there is no snapshot, if it is corrupt, or if it is out of
+     *         date with respect to the JSON file.
+     * @throws IOException If the files could not be accessed.
+     */
+    static List<Document> read(Path jsonFile, long sourceChecksum) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(getSnapshotPath(jsonFile));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            if(!Arrays.equals(magic, MAGIC) || buffer.getInt() != VERSION) {
+                return null;
+            }
+
+            if(buffer.getLong() != Files.size(jsonFile) || buffer.getLong() != sourceChecksum) {
+                return null;
+            }
+
+            long checksum = buffer.getLong();
+            CRC32 crc = new CRC32();
+            crc.update(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+            if(crc.getValue() != checksum) {
+                return null;
+            }
+
+            int documentCount = buffer.getInt();
+            List<Document> documents = new ArrayList<>(documentCount);
+            for (int i = 0; i < documentCount; i++) {
+                documents.add(readDocument(buffer));
+            }
+
+            return documents;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            // truncated file or unknown enum constant
+            return null;
+        }
+    }
+
+    /**
+     * Write a snapshot of the documents next to the specified JSON file. The JSON file must already contain the same
+     * documents. The snapshot is written to a temporary file first, so that readers never see a partial snapshot.
+     *
+     * @param jsonFile The JSON index file.
+     * @param documents The documents in the JSON file.
+     * @param sourceChecksum The checksum of the JSON file, computed before the documents were read from it. If the
+     *                       file changed since, the snapshot is never used.
+     * @throws IOException If the snapshot could not be written.
+     */
+    static void write(Path jsonFile, List<Document> documents, long sourceChecksum) throws IOException {
+        Path snapshot = getSnapshotPath(jsonFile);
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC);
+            header.putInt(VERSION);
+            header.putLong(Files.size(jsonFile));
+            header.putLong(sourceChecksum);
+            header.putLong(0); // the checksum is filled in once the payload is written
+            header.flip();
+            channel.write(header);
+
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+            out.writeInt(documents.size());
+            for (Document document : documents) {
+                writeDocument(out, document);
+            }
+            out.flush();
+
+            ByteBuffer checksum = ByteBuffer.allocate(Long.BYTES);
+            checksum.putLong(crc.getValue());
+            checksum.flip();
+            channel.write(checksum, CHECKSUM_POSITION);
+        }
+
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeDocument(DataOutputStream out, Document document) throws IOException {
+        out.writeInt(document.getAuthors().size());
+        for (Author author : document.getAuthors()) {
+            writeString(out, author.getFirstName());
+            writeString(out, author.getLastName());
+        }
+
+        writeString(out, document.getTitle());
+
+        Year year = document.getPublicationYear();
+        out.writeBoolean(year != null);
+        if(year != null) {
+            out.writeInt(year.getValue());
+        }
+
+        writeString(out, document.getPublicationVenue());
+        out.writeInt(document.getPageCount());
+        writeString(out, document.getDocumentType() == null ? null : document.getDocumentType().name());
+        writeString(out, document.getSourceLocationText());
+        writeString(out, document.getNotesLocationText());
+        writeString(out, document.getReadingStatus() == null ? null : document.getReadingStatus().name());
+
+        out.writeInt(document.getTags().size());
+        for (String tag : document.getTags()) {
+            writeString(out, tag);
+        }
+    }
+
+    private static Document readDocument(ByteBuffer buffer) {
+        // the fields that repeat across documents are shared in the same way as when the JSON file is decoded
+        StringPool pool = StringPool.getDefault();
+        Document document = new Document();
+
+        int authorCount = buffer.getInt();
+        List<Author> authors = new ArrayList<>(authorCount);
+        for (int i = 0; i < authorCount; i++) {
+            authors.add(new Author(pool.intern(readString(buffer)), pool.intern(readString(buffer))));
+        }
+        document.setAuthors(authors);
+
+        document.setTitle(readString(buffer));
+
+        if(buffer.get() != 0) {
+            document.setPublicationYear(Year.of(buffer.getInt()));
+        }
+
+        document.setPublicationVenue(pool.intern(readString(buffer)));
+        document.setPageCount(buffer.getInt());
+
+        String documentType = readString(buffer);
+        document.setDocumentType(documentType == null ? null : EnumDocumentType.valueOf(documentType));
+
+        document.setSourceLocationText(readString(buffer));
+        document.setNotesLocationText(readString(buffer));
+
+        String readingStatus = readString(buffer);
+        document.setReadingStatus(readingStatus == null ? null : EnumReadingStatus.valueOf(readingStatus));
+
+        int tagCount = buffer.getInt();
+        List<String> tags = new ArrayList<>(tagCount);
+        for (int i = 0; i < tagCount; i++) {
+            tags.add(pool.intern(readString(buffer)));
+        }
+        document.setTags(tags);
+
+        return document;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if(value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if(length < 0) {
+            return null;
+        }
+
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,415 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Author;
+import main.model.document.AuthorRegistry;
+import main.model.document.Document;
+import main.model.document.EnumDocumentType;
+import main.model.document.EnumReadingStatus;
+import main.model.store.DocumentQuery;
+
+import java.time.Year;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Document index that stores its documents column by column instead of as {@link Document} objects: the page counts,
+ * publication years and enum ordinals in primitive arrays, the venues and tags as codes in a dictionary, and the
+ * authors as IDs in an {@link AuthorRegistry} of the index. Scans over a column, such as
+ * {@link #find(DocumentQuery)} and {@link #countByReadingStatus()}, only touch the arrays they need.
+ *
+ * Every call to get() on {@link #getDocumentList()} builds a new {@link Document} from the columns, so changes to a
+ * document are only stored by calling set() with the changed document. Documents can only be added at the end of the
+ * list, and cannot be removed. Publication years must lie between {@link Short#MIN_VALUE} + 1 and
+ * {@link Short#MAX_VALUE}.
+ */
+public class ColumnarDocumentIndex extends DocumentIndex
+{
+    private static final short NO_YEAR = Short.MIN_VALUE;
+    private static final int NO_AUTHORS = -1;
+
+    private static final EnumDocumentType[] DOCUMENT_TYPES = EnumDocumentType.values();
+    private static final EnumReadingStatus[] READING_STATUSES = EnumReadingStatus.values();
+
+    private AuthorRegistry registry;
+    private final StringDictionary venueDictionary = new StringDictionary();
+    private final StringDictionary tagDictionary = new StringDictionary();
+
+    private int size = 0;
+
+    private String[] titles;
+    private short[] years;
+    private int[] venues;
+    private int[] pageCounts;
+    private byte[] documentTypes;
+    private byte[] readingStatuses;
+    private String[] sourceLocations;
+    private String[] notesLocations;
+
+    // the authors of document i are authorIds[authorStarts[i]] to authorIds[authorStarts[i] + authorCounts[i] - 1],
+    // a changed document gets a new range at the end, and the count is NO_AUTHORS if the document has no author list
+    private int[] authorStarts;
+    private int[] authorCounts;
+    private int[] authorIds = new int[16];
+    private int authorIdCount = 0;
+
+    // the tags of document i are stored in the same way as the authors
+    private int[] tagStarts;
+    private int[] tagCounts;
+    private int[] tagCodes = new int[16];
+    private int tagCodeCount = 0;
+
+    /**
+     * Constructor for an empty index.
+     */
+    public ColumnarDocumentIndex() {
+        this(List.of());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param documents The documents, which are copied into the columns.
+     * @throws IllegalArgumentException If the publication year of a document is out of range.
+     */
+    public ColumnarDocumentIndex(List<Document> documents) {
+        this.setDocumentList(documents);
+    }
+
+    /**
+     * Replace the documents of the index. The documents are copied into the columns.
+     *
+     * @throws IllegalArgumentException If the publication year of a document is out of range.
+     */
+    @Override
+    public void setDocumentList(List<Document> documents) {
+        if(documents instanceof ColumnarDocumentList) {
+            // the list reads from the columns that are about to be overwritten
+            documents = new ArrayList<>(documents);
+        }
+
+        this.titles = null;
+        this.registry = new AuthorRegistry();
+        this.size = 0;
+        this.authorIdCount = 0;
+        this.tagCodeCount = 0;
+        this.allocate(Math.max(16, documents.size()));
+        for (Document document : documents) {
+            this.append(document);
+        }
+
+        super.setDocumentList(new ColumnarDocumentList());
+    }
+
+    /**
+     * Retrieve the number of documents.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Retrieve the title of the document at the specified position, without building the document.
+     */
+    public String getTitle(int position) {
+        return this.titles[Objects.checkIndex(position, this.size)];
+    }
+
+    /**
+     * Retrieve the page count of the document at the specified position, without building the document.
+     */
+    public int getPageCount(int position) {
+        return this.pageCounts[Objects.checkIndex(position, this.size)];
+    }
+
+    /**
+     * Retrieve the publication year of the document at the specified position, without building the document.
+     *
+     * @return The year, or null if the document has no publication year.
+     */
+    public Year getPublicationYear(int position) {
+        short year = this.years[Objects.checkIndex(position, this.size)];
+        return (year == NO_YEAR) ? null : Year.of(year);
+    }
+
+    /**
+     * Retrieve the publication venue of the document at the specified position, without building the document.
+     */
+    public String getPublicationVenue(int position) {
+        return this.venueDictionary.decode(this.venues[Objects.checkIndex(position, this.size)]);
+    }
+
+    /**
+     * Find the documents that meet all the criteria of the query, see {@link DocumentQuery#matches(Document)}. The
+     * criteria are evaluated on the columns, so no documents are built.
+     *
+     * @return The positions of the matching documents, in ascending order.
+     */
+    public int[] find(DocumentQuery query) {
+        int year = (query.getPublicationYear() == null) ? NO_YEAR : query.getPublicationYear().getValue();
+        int documentType = (query.getDocumentType() == null) ? -1 : query.getDocumentType().ordinal();
+        int readingStatus = (query.getReadingStatus() == null) ? -1 : query.getReadingStatus().ordinal();
+        int tag = (query.getTag() == null) ? -1 : this.tagDictionary.find(query.getTag());
+        String titleContains = (query.getTitleContains() == null) ? null : query.getTitleContains().toLowerCase(Locale.ROOT);
+
+        // a year outside of the range of the column, or an unknown tag, cannot match any document
+        if((query.getPublicationYear() != null && year != (short) year) || (query.getTag() != null && tag < 0)) {
+            return new int[0];
+        }
+
+        int[] retval = new int[16];
+        int count = 0;
+
+        for (int i = 0; i < this.size; i++) {
+            if(year != NO_YEAR && this.years[i] != year) {
+                continue;
+            }
+            if(documentType >= 0 && this.documentTypes[i] != documentType) {
+                continue;
+            }
+            if(readingStatus >= 0 && this.readingStatuses[i] != readingStatus) {
+                continue;
+            }
+            if(tag >= 0 && !this.hasTag(i, tag)) {
+                continue;
+            }
+            if(titleContains != null && (this.titles[i] == null || !this.titles[i].toLowerCase(Locale.ROOT).contains(titleContains))) {
+                continue;
+            }
+
+            if(count == retval.length) {
+                retval = Arrays.copyOf(retval, count * 2);
+            }
+            retval[count++] = i;
+        }
+
+        return Arrays.copyOf(retval, count);
+    }
+
+    /**
+     * Count the documents per reading status.
+     *
+     * @return The number of documents for every reading status, indexed by its ordinal.
+     */
+    public int[] countByReadingStatus() {
+        return count(this.readingStatuses, READING_STATUSES.length);
+    }
+
+    /**
+     * Count the documents per document type.
+     *
+     * @return The number of documents for every document type, indexed by its ordinal.
+     */
+    public int[] countByDocumentType() {
+        return count(this.documentTypes, DOCUMENT_TYPES.length);
+    }
+
+    /**
+     * Compute the total number of pages of the documents that were published in or after the specified year.
+     */
+    public long getPageCountSince(int year) {
+        long retval = 0;
+        for (int i = 0; i < this.size; i++) {
+            if(this.years[i] != NO_YEAR && this.years[i] >= year) {
+                retval += this.pageCounts[i];
+            }
+        }
+        return retval;
+    }
+
+    private int[] count(byte[] ordinals, int valueCount) {
+        int[] retval = new int[valueCount];
+        for (int i = 0; i < this.size; i++) {
+            if(ordinals[i] >= 0) {
+                retval[ordinals[i]]++;
+            }
+        }
+        return retval;
+    }
+
+    private boolean hasTag(int position, int tag) {
+        for (int t = this.tagStarts[position]; t < this.tagStarts[position] + this.tagCounts[position]; t++) {
+            if(this.tagCodes[t] == tag) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build a new document from the columns.
+     */
+    private Document build(int position) {
+        Document document = new Document();
+
+        document.setTitle(this.titles[position]);
+        if(this.years[position] != NO_YEAR) {
+            document.setPublicationYear(Year.of(this.years[position]));
+        }
+        document.setPublicationVenue(this.venueDictionary.decode(this.venues[position]));
+        document.setPageCount(this.pageCounts[position]);
+        document.setDocumentType(this.documentTypes[position] < 0 ? null : DOCUMENT_TYPES[this.documentTypes[position]]);
+        document.setReadingStatus(this.readingStatuses[position] < 0 ? null : READING_STATUSES[this.readingStatuses[position]]);
+        document.setSourceLocationText(this.sourceLocations[position]);
+        document.setNotesLocationText(this.notesLocations[position]);
+
+        if(this.authorCounts[position] == NO_AUTHORS) {
+            document.setAuthors(null);
+        } else {
+            List<Author> authors = new ArrayList<>(this.authorCounts[position]);
+            for (int a = this.authorStarts[position]; a < this.authorStarts[position] + this.authorCounts[position]; a++) {
+                authors.add(this.authorIds[a] < 0 ? null : this.registry.getAuthor(this.authorIds[a]));
+            }
+            document.setAuthors(authors);
+        }
+
+        List<String> tags = new ArrayList<>(this.tagCounts[position]);
+        for (int t = this.tagStarts[position]; t < this.tagStarts[position] + this.tagCounts[position]; t++) {
+            tags.add(this.tagDictionary.decode(this.tagCodes[t]));
+        }
+        document.setTags(tags);
+
+        return document;
+    }
+
+    /**
+     * Add a document at the end of the columns.
+     */
+    private void append(Document document) {
+        if(this.size == this.titles.length) {
+            this.allocate(this.size * 2);
+        }
+        this.size++;
+        this.store(this.size - 1, document);
+    }
+
+    /**
+     * Write the fields of a document to the columns at the specified position.
+     */
+    private void store(int position, Document document) {
+        short year = NO_YEAR;
+        if(document.getPublicationYear() != null) {
+            int value = document.getPublicationYear().getValue();
+            if(value != (short) value || value == NO_YEAR) {
+                throw new IllegalArgumentException("Publication year %d cannot be stored in a columnar index".formatted(value));
+            }
+            year = (short) value;
+        }
+
+        this.titles[position] = document.getTitle();
+        this.years[position] = year;
+        this.venues[position] = this.venueDictionary.encode(document.getPublicationVenue());
+        this.pageCounts[position] = document.getPageCount();
+        this.documentTypes[position] = (byte) (document.getDocumentType() == null ? -1 : document.getDocumentType().ordinal());
+        this.readingStatuses[position] = (byte) (document.getReadingStatus() == null ? -1 : document.getReadingStatus().ordinal());
+        this.sourceLocations[position] = document.getSourceLocationText();
+        this.notesLocations[position] = document.getNotesLocationText();
+
+        List<Author> authors = document.getAuthors();
+        this.authorStarts[position] = this.authorIdCount;
+        this.authorCounts[position] = (authors == null) ? NO_AUTHORS : authors.size();
+        for (int a = 0; authors != null && a < authors.size(); a++) {
+            if(this.authorIdCount == this.authorIds.length) {
+                this.authorIds = Arrays.copyOf(this.authorIds, this.authorIdCount * 2);
+            }
+            this.authorIds[this.authorIdCount++] = (authors.get(a) == null) ? -1 : this.registry.registerId(authors.get(a));
+        }
+
+        List<String> tags = document.getTags();
+        this.tagStarts[position] = this.tagCodeCount;
+        this.tagCounts[position] = tags.size();
+        for (String tag : tags) {
+            if(this.tagCodeCount == this.tagCodes.length) {
+                this.tagCodes = Arrays.copyOf(this.tagCodes, this.tagCodeCount * 2);
+            }
+            this.tagCodes[this.tagCodeCount++] = this.tagDictionary.encode(tag);
+        }
+    }
+
+    /**
+     * Resize the per-document columns to the specified capacity.
+     */
+    private void allocate(int capacity) {
+        if(this.titles == null) {
+            this.titles = new String[capacity];
+            this.years = new short[capacity];
+            this.venues = new int[capacity];
+            this.pageCounts = new int[capacity];
+            this.documentTypes = new byte[capacity];
+            this.readingStatuses = new byte[capacity];
+            this.sourceLocations = new String[capacity];
+            this.notesLocations = new String[capacity];
+            this.authorStarts = new int[capacity];
+            this.authorCounts = new int[capacity];
+            this.tagStarts = new int[capacity];
+            this.tagCounts = new int[capacity];
+            return;
+        }
+
+        this.titles = Arrays.copyOf(this.titles, capacity);
+        this.years = Arrays.copyOf(this.years, capacity);
+        this.venues = Arrays.copyOf(this.venues, capacity);
+        this.pageCounts = Arrays.copyOf(this.pageCounts, capacity);
+        this.documentTypes = Arrays.copyOf(this.documentTypes, capacity);
+        this.readingStatuses = Arrays.copyOf(this.readingStatuses, capacity);
+        this.sourceLocations = Arrays.copyOf(this.sourceLocations, capacity);
+        this.notesLocations = Arrays.copyOf(this.notesLocations, capacity);
+        this.authorStarts = Arrays.copyOf(this.authorStarts, capacity);
+        this.authorCounts = Arrays.copyOf(this.authorCounts, capacity);
+        this.tagStarts = Arrays.copyOf(this.tagStarts, capacity);
+        this.tagCounts = Arrays.copyOf(this.tagCounts, capacity);
+    }
+
+    /**
+     * List view that builds the documents from the columns on access.
+     */
+    private class ColumnarDocumentList extends AbstractList<Document> implements RandomAccess
+    {
+        @Override
+        public Document get(int index) {
+            return ColumnarDocumentIndex.this.build(Objects.checkIndex(index, ColumnarDocumentIndex.this.size));
+        }
+
+        @Override
+        public Document set(int index, Document document) {
+            Document retval = this.get(index);
+            ColumnarDocumentIndex.this.store(index, document);
+            return retval;
+        }
+
+        @Override
+        public void add(int index, Document document) {
+            if(index != ColumnarDocumentIndex.this.size) {
+                throw new UnsupportedOperationException("Documents can only be added at the end of a columnar index");
+            }
+            ColumnarDocumentIndex.this.append(document);
+            this.modCount++;
+        }
+
+        @Override
+        public int size() {
+            return ColumnarDocumentIndex.this.size;
+        }
+    }
+}
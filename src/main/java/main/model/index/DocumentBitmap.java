@@ -0,0 +1,487 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import java.util.Arrays;
+
+/**
+ * Compressed set of document positions, in the style of a Roaring bitmap. The positions are split into chunks of
+ * 65536 by their upper 16 bits. A chunk with few positions stores their lower 16 bits in a sorted array, and a chunk
+ * with more than {@link #ARRAY_LIMIT} positions stores a bitmap of 1024 longs, so that neither sparse nor dense sets
+ * waste memory. The boolean operations work chunk by chunk and only combine chunks that both sets have.
+ *
+ * Positions must not be negative. Bitmaps are not thread-safe.
+ */
+public final class DocumentBitmap
+{
+    /**
+     * The maximum number of positions in a chunk that stores an array.
+     */
+    static final int ARRAY_LIMIT = 4096;
+
+    private static final int WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Chunk[] chunks = new Chunk[4];
+    private int chunkCount = 0;
+
+    /**
+     * Create a bitmap with the positions from zero up to, but not including, the specified position.
+     */
+    public static DocumentBitmap range(int end) {
+        DocumentBitmap retval = new DocumentBitmap();
+        for (int start = 0; start < end; start += 1 << 16) {
+            int count = Math.min(1 << 16, end - start);
+
+            long[] words = new long[WORDS];
+            Arrays.fill(words, 0, count >>> 6, -1L);
+            if((count & 63) != 0) {
+                words[count >>> 6] = (1L << count) - 1;
+            }
+            retval.append((char) (start >>> 16), Chunk.of(words, count));
+        }
+        return retval;
+    }
+
+    /**
+     * Create a bitmap with the specified positions.
+     */
+    public static DocumentBitmap of(int... positions) {
+        DocumentBitmap retval = new DocumentBitmap();
+        for (int position : positions) {
+            retval.add(position);
+        }
+        return retval;
+    }
+
+    /**
+     * Add a position.
+     *
+     * @return True if the position was not yet in the bitmap.
+     */
+    public boolean add(int position) {
+        checkPosition(position);
+        char key = (char) (position >>> 16);
+
+        int index = this.find(key);
+        if(index < 0) {
+            index = -index - 1;
+            this.insert(index, key, new Chunk());
+        }
+        return this.chunks[index].add((char) position);
+    }
+
+    /**
+     * Remove a position.
+     *
+     * @return True if the position was in the bitmap.
+     */
+    public boolean remove(int position) {
+        checkPosition(position);
+
+        int index = this.find((char) (position >>> 16));
+        if(index < 0 || !this.chunks[index].remove((char) position)) {
+            return false;
+        }
+        if(this.chunks[index].cardinality == 0) {
+            this.delete(index);
+        }
+        return true;
+    }
+
+    /**
+     * Check whether the bitmap contains the position.
+     */
+    public boolean contains(int position) {
+        if(position < 0) {
+            return false;
+        }
+        int index = this.find((char) (position >>> 16));
+        return index >= 0 && this.chunks[index].contains((char) position);
+    }
+
+    /**
+     * Retrieve the number of positions in the bitmap.
+     */
+    public int cardinality() {
+        int retval = 0;
+        for (int i = 0; i < this.chunkCount; i++) {
+            retval += this.chunks[i].cardinality;
+        }
+        return retval;
+    }
+
+    /**
+     * Check whether the bitmap contains no positions.
+     */
+    public boolean isEmpty() {
+        return this.chunkCount == 0;
+    }
+
+    /**
+     * Compute the positions that are in both this bitmap and the other bitmap.
+     */
+    public DocumentBitmap and(DocumentBitmap other) {
+        DocumentBitmap retval = new DocumentBitmap();
+        for (int i = 0, j = 0; i < this.chunkCount && j < other.chunkCount; ) {
+            if(this.keys[i] < other.keys[j]) {
+                i++;
+            } else if(this.keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                retval.appendIfNotEmpty(this.keys[i], this.chunks[i].and(other.chunks[j]));
+                i++;
+                j++;
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Compute the positions that are in this bitmap, the other bitmap, or both.
+     */
+    public DocumentBitmap or(DocumentBitmap other) {
+        DocumentBitmap retval = new DocumentBitmap();
+        int i = 0;
+        int j = 0;
+        while(i < this.chunkCount || j < other.chunkCount) {
+            if(j == other.chunkCount || (i < this.chunkCount && this.keys[i] < other.keys[j])) {
+                retval.append(this.keys[i], this.chunks[i].copy());
+                i++;
+            } else if(i == this.chunkCount || this.keys[i] > other.keys[j]) {
+                retval.append(other.keys[j], other.chunks[j].copy());
+                j++;
+            } else {
+                retval.append(this.keys[i], this.chunks[i].or(other.chunks[j]));
+                i++;
+                j++;
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Compute the positions that are in this bitmap, but not in the other bitmap.
+     */
+    public DocumentBitmap andNot(DocumentBitmap other) {
+        DocumentBitmap retval = new DocumentBitmap();
+        for (int i = 0, j = 0; i < this.chunkCount; i++) {
+            while(j < other.chunkCount && other.keys[j] < this.keys[i]) {
+                j++;
+            }
+            if(j < other.chunkCount && other.keys[j] == this.keys[i]) {
+                retval.appendIfNotEmpty(this.keys[i], this.chunks[i].andNot(other.chunks[j]));
+            } else {
+                retval.append(this.keys[i], this.chunks[i].copy());
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Create an independent copy of the bitmap.
+     */
+    public DocumentBitmap copy() {
+        DocumentBitmap retval = new DocumentBitmap();
+        for (int i = 0; i < this.chunkCount; i++) {
+            retval.append(this.keys[i], this.chunks[i].copy());
+        }
+        return retval;
+    }
+
+    /**
+     * Retrieve the positions in the bitmap, in ascending order.
+     */
+    public int[] toArray() {
+        int[] retval = new int[this.cardinality()];
+        int count = 0;
+        for (int i = 0; i < this.chunkCount; i++) {
+            count = this.chunks[i].copyTo(this.keys[i] << 16, retval, count);
+        }
+        return retval;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(this.toArray());
+    }
+
+    private static void checkPosition(int position) {
+        if(position < 0) {
+            throw new IllegalArgumentException("Position %d is negative".formatted(position));
+        }
+    }
+
+    /**
+     * Find the chunk with the key, or return -(insertion point) - 1 if there is none.
+     */
+    private int find(char key) {
+        return Arrays.binarySearch(this.keys, 0, this.chunkCount, key);
+    }
+
+    private void insert(int index, char key, Chunk chunk) {
+        if(this.chunkCount == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.chunkCount * 2);
+            this.chunks = Arrays.copyOf(this.chunks, this.chunkCount * 2);
+        }
+        System.arraycopy(this.keys, index, this.keys, index + 1, this.chunkCount - index);
+        System.arraycopy(this.chunks, index, this.chunks, index + 1, this.chunkCount - index);
+        this.keys[index] = key;
+        this.chunks[index] = chunk;
+        this.chunkCount++;
+    }
+
+    private void delete(int index) {
+        System.arraycopy(this.keys, index + 1, this.keys, index, this.chunkCount - index - 1);
+        System.arraycopy(this.chunks, index + 1, this.chunks, index, this.chunkCount - index - 1);
+        this.chunks[--this.chunkCount] = null;
+    }
+
+    /**
+     * Add a chunk after the last chunk, which must have a smaller key.
+     */
+    private void append(char key, Chunk chunk) {
+        this.insert(this.chunkCount, key, chunk);
+    }
+
+    private void appendIfNotEmpty(char key, Chunk chunk) {
+        if(chunk.cardinality > 0) {
+            this.append(key, chunk);
+        }
+    }
+
+    /**
+     * The lower 16 bits of the positions that share their upper 16 bits. Exactly one of values and words is set: the
+     * values are sorted and hold at most ARRAY_LIMIT positions, and chunks with more positions use the words.
+     */
+    private static final class Chunk
+    {
+        private char[] values = new char[4];
+        private long[] words = null;
+        private int cardinality = 0;
+
+        private static Chunk of(long[] words, int cardinality) {
+            Chunk retval = new Chunk();
+            retval.values = null;
+            retval.words = words;
+            retval.cardinality = cardinality;
+            return retval;
+        }
+
+        private static Chunk of(char[] values, int cardinality) {
+            Chunk retval = new Chunk();
+            retval.values = values;
+            retval.cardinality = cardinality;
+            return retval;
+        }
+
+        /**
+         * Create a chunk from a bitmap, as an array if it holds few enough positions.
+         */
+        private static Chunk fromWords(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            if(cardinality > ARRAY_LIMIT) {
+                return of(words, cardinality);
+            }
+
+            char[] values = new char[cardinality];
+            int count = 0;
+            for (int w = 0; w < WORDS; w++) {
+                for (long word = words[w]; word != 0; word &= word - 1) {
+                    values[count++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                }
+            }
+            return of(values, cardinality);
+        }
+
+        private boolean add(char value) {
+            if(this.words != null) {
+                long bit = 1L << value;
+                if((this.words[value >>> 6] & bit) != 0) {
+                    return false;
+                }
+                this.words[value >>> 6] |= bit;
+                this.cardinality++;
+                return true;
+            }
+
+            int index = Arrays.binarySearch(this.values, 0, this.cardinality, value);
+            if(index >= 0) {
+                return false;
+            }
+            if(this.cardinality == ARRAY_LIMIT) {
+                this.words = this.toWords();
+                this.values = null;
+                return this.add(value);
+            }
+
+            index = -index - 1;
+            if(this.cardinality == this.values.length) {
+                this.values = Arrays.copyOf(this.values, Math.min(ARRAY_LIMIT, Math.max(4, this.cardinality * 2)));
+            }
+            System.arraycopy(this.values, index, this.values, index + 1, this.cardinality - index);
+            this.values[index] = value;
+            this.cardinality++;
+            return true;
+        }
+
+        private boolean remove(char value) {
+            if(this.words != null) {
+                long bit = 1L << value;
+                if((this.words[value >>> 6] & bit) == 0) {
+                    return false;
+                }
+                this.words[value >>> 6] &= ~bit;
+                this.cardinality--;
+                if(this.cardinality == ARRAY_LIMIT) {
+                    Chunk array = fromWords(this.words);
+                    this.values = array.values;
+                    this.words = null;
+                }
+                return true;
+            }
+
+            int index = Arrays.binarySearch(this.values, 0, this.cardinality, value);
+            if(index < 0) {
+                return false;
+            }
+            System.arraycopy(this.values, index + 1, this.values, index, this.cardinality - index - 1);
+            this.cardinality--;
+            return true;
+        }
+
+        private boolean contains(char value) {
+            if(this.words != null) {
+                return (this.words[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(this.values, 0, this.cardinality, value) >= 0;
+        }
+
+        private long[] toWords() {
+            if(this.words != null) {
+                return this.words.clone();
+            }
+            long[] retval = new long[WORDS];
+            for (int i = 0; i < this.cardinality; i++) {
+                retval[this.values[i] >>> 6] |= 1L << this.values[i];
+            }
+            return retval;
+        }
+
+        private Chunk and(Chunk other) {
+            if(this.words != null && other.words != null) {
+                long[] words = new long[WORDS];
+                for (int w = 0; w < WORDS; w++) {
+                    words[w] = this.words[w] & other.words[w];
+                }
+                return fromWords(words);
+            }
+
+            // at least one side is an array, and the result is never larger than that array
+            Chunk array = (this.words == null) ? this : other;
+            Chunk rest = (array == this) ? other : this;
+            char[] values = new char[array.cardinality];
+            int count = 0;
+            for (int i = 0; i < array.cardinality; i++) {
+                if(rest.contains(array.values[i])) {
+                    values[count++] = array.values[i];
+                }
+            }
+            return of(values, count);
+        }
+
+        private Chunk or(Chunk other) {
+            if(this.words == null && other.words == null && this.cardinality + other.cardinality <= ARRAY_LIMIT) {
+                char[] values = new char[this.cardinality + other.cardinality];
+                int count = 0;
+                int i = 0;
+                int j = 0;
+                while(i < this.cardinality || j < other.cardinality) {
+                    if(j == other.cardinality || (i < this.cardinality && this.values[i] < other.values[j])) {
+                        values[count++] = this.values[i++];
+                    } else if(i == this.cardinality || this.values[i] > other.values[j]) {
+                        values[count++] = other.values[j++];
+                    } else {
+                        values[count++] = this.values[i++];
+                        j++;
+                    }
+                }
+                return of(values, count);
+            }
+
+            long[] words = this.toWords();
+            if(other.words != null) {
+                for (int w = 0; w < WORDS; w++) {
+                    words[w] |= other.words[w];
+                }
+            } else {
+                for (int i = 0; i < other.cardinality; i++) {
+                    words[other.values[i] >>> 6] |= 1L << other.values[i];
+                }
+            }
+            return fromWords(words);
+        }
+
+        private Chunk andNot(Chunk other) {
+            if(this.words == null) {
+                char[] values = new char[this.cardinality];
+                int count = 0;
+                for (int i = 0; i < this.cardinality; i++) {
+                    if(!other.contains(this.values[i])) {
+                        values[count++] = this.values[i];
+                    }
+                }
+                return of(values, count);
+            }
+
+            long[] words = this.words.clone();
+            if(other.words != null) {
+                for (int w = 0; w < WORDS; w++) {
+                    words[w] &= ~other.words[w];
+                }
+            } else {
+                for (int i = 0; i < other.cardinality; i++) {
+                    words[other.values[i] >>> 6] &= ~(1L << other.values[i]);
+                }
+            }
+            return fromWords(words);
+        }
+
+        private Chunk copy() {
+            return (this.words != null) ? of(this.words.clone(), this.cardinality) : of(Arrays.copyOf(this.values, Math.max(4, this.cardinality)), this.cardinality);
+        }
+
+        private int copyTo(int base, int[] target, int offset) {
+            if(this.words == null) {
+                for (int i = 0; i < this.cardinality; i++) {
+                    target[offset++] = base | this.values[i];
+                }
+                return offset;
+            }
+            for (int w = 0; w < WORDS; w++) {
+                for (long word = this.words[w]; word != 0; word &= word - 1) {
+                    target[offset++] = base | ((w << 6) + Long.numberOfTrailingZeros(word));
+                }
+            }
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Document;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork-join task that decodes a range of documents in parallel. Every document is written to its own slot of the
+ * result array, so the original order is kept.
+ */
+class DocumentDecodeTask extends RecursiveAction
+{
+    /**
+     * Ranges with at most this many documents are decoded by a single task.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 256;
+
+    private final DocumentRanges ranges;
+    private final IndexCodec codec;
+    private final Document[] result;
+    private final int from;
+    private final int to;
+
+    private DocumentDecodeTask(DocumentRanges ranges, IndexCodec codec, Document[] result, int from, int to) {
+        this.ranges = ranges;
+        this.codec = codec;
+        this.result = result;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Decode all the documents in the specified ranges.
+     *
+     * @param ranges The byte ranges of the documents.
+     * @param codec The codec that is used to decode the documents.
+     * @param pool The pool that runs the tasks.
+     * @return The decoded documents, in file order.
+     * @throws IOException If any of the documents could not be decoded.
+     */
+    static Document[] decodeAll(DocumentRanges ranges, IndexCodec codec, ForkJoinPool pool) throws IOException {
+        Document[] result = new Document[ranges.size()];
+
+        try {
+            pool.invoke(new DocumentDecodeTask(ranges, codec, result, 0, ranges.size()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        return result;
+    }
+
+    @Override
+    protected void compute() {
+        if(this.to - this.from <= SEQUENTIAL_THRESHOLD) {
+            for (int i = this.from; i < this.to; i++) {
+                try {
+                    this.result[i] = this.ranges.decode(i, this.codec);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return;
+        }
+
+        int middle = (this.from + this.to) >>> 1;
+        invokeAll(
+                new DocumentDecodeTask(this.ranges, this.codec, this.result, this.from, middle),
+                new DocumentDecodeTask(this.ranges, this.codec, this.result, middle, this.to)
+        );
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Author;
+import main.model.document.Document;
+
+import java.time.Year;
+import java.util.List;
+
+/**
+ * Computes a 64-bit FNV-1a hash over all the fields of a {@link Document}. The hash only depends on the contents of the
+ * document, so it is stable between application runs, and documents with equal contents have equal hashes. Every field
+ * is hashed byte by byte: numbers as their four big-endian bytes, and strings as their length followed by their UTF-8
+ * bytes, so that the boundaries between fields are part of the hash.
+ */
+final class DocumentHasher
+{
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private DocumentHasher() {
+    }
+
+    /**
+     * Compute the hash of the document.
+     */
+    static long hash(Document document) {
+        long hash = OFFSET_BASIS;
+
+        List<Author> authors = document.getAuthors();
+        hash = mix(hash, authors.size());
+        for (Author author : authors) {
+            hash = mix(hash, author.getFirstName());
+            hash = mix(hash, author.getLastName());
+        }
+
+        hash = mix(hash, document.getTitle());
+        Year year = document.getPublicationYear();
+        hash = (year == null) ? mix(hash, -1) : mix(mix(hash, 1), year.getValue());
+        hash = mix(hash, document.getPublicationVenue());
+        hash = mix(hash, document.getPageCount());
+        hash = mix(hash, document.getDocumentType() == null ? null : document.getDocumentType().name());
+        hash = mix(hash, document.getReadingStatus() == null ? null : document.getReadingStatus().name());
+        hash = mix(hash, document.getSourceLocationText());
+        hash = mix(hash, document.getNotesLocationText());
+
+        List<String> tags = document.getTags();
+        hash = mix(hash, tags.size());
+        for (String tag : tags) {
+            hash = mix(hash, tag);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Mix a single byte into the hash.
+     */
+    private static long mixByte(long hash, int value) {
+        return (hash ^ (value & 0xff)) * PRIME;
+    }
+
+    /**
+     * Mix the four bytes of an int into the hash, most significant byte first.
+     */
+    private static long mix(long hash, int value) {
+        hash = mixByte(hash, value >>> 24);
+        hash = mixByte(hash, value >>> 16);
+        hash = mixByte(hash, value >>> 8);
+        return mixByte(hash, value);
+    }
+
+    /**
+     * Mix a string into the hash. The length is mixed in first, so that null (length -1) differs from the empty string
+     * and adjacent fields cannot trade characters. The characters are encoded as UTF-8 on the fly, without copying the
+     * string into a byte array. An unpaired surrogate is encoded as if it were a character of its own.
+     */
+    private static long mix(long hash, String value) {
+        if(value == null) {
+            return mix(hash, -1);
+        }
+
+        hash = mix(hash, value.length());
+        for (int i = 0; i < value.length(); ) {
+            int c = value.codePointAt(i);
+            i += Character.charCount(c);
+
+            if(c < 0x80) {
+                hash = mixByte(hash, c);
+            } else if(c < 0x800) {
+                hash = mixByte(hash, 0xc0 | (c >>> 6));
+                hash = mixByte(hash, 0x80 | (c & 0x3f));
+            } else if(c < 0x10000) {
+                hash = mixByte(hash, 0xe0 | (c >>> 12));
+                hash = mixByte(hash, 0x80 | ((c >>> 6) & 0x3f));
+                hash = mixByte(hash, 0x80 | (c & 0x3f));
+            } else {
+                hash = mixByte(hash, 0xf0 | (c >>> 18));
+                hash = mixByte(hash, 0x80 | ((c >>> 12) & 0x3f));
+                hash = mixByte(hash, 0x80 | ((c >>> 6) & 0x3f));
+                hash = mixByte(hash, 0x80 | (c & 0x3f));
+            }
+        }
+        return hash;
+    }
+}
@@ -18,20 +18,34 @@
 
 package main.model.index;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonSetter;
 import main.model.document.Document;
 import main.model.validation.IValidatable;
+import main.model.validation.ValidationErrors;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Contains a list of documents and a directory in which document files are stored.
  */
 public class DocumentIndex implements IValidatable {
 
+    /**
+     * System property that forces sequential validation of every index when set to "true", e.g. for debugging.
+     */
+    public static final String SEQUENTIAL_VALIDATION_PROPERTY = "documentmanager.validation.sequential";
+
     private List<Document> documents = new ArrayList<>();
 
+    private boolean parallelValidation = true;
+
+    private ForkJoinPool validationPool = ForkJoinPool.commonPool();
+
+    private boolean checkDuplicates = false;
+
     /**
      * Retrieve the documents that are stored in the index.
      */
@@ -49,23 +63,117 @@ public class DocumentIndex implements IValidatable {
         this.documents = documents;
     }
 
+    /**
+     * Enable or disable parallel validation. This is enabled by default, unless the system property
+     * {@link #SEQUENTIAL_VALIDATION_PROPERTY} is "true".
+     */
+    @JsonIgnore
+    public void setParallelValidation(boolean parallelValidation) {
+        this.parallelValidation = parallelValidation;
+    }
+
+    /**
+     * Set the pool that validates the documents in parallel. By default, the common pool is used.
+     */
+    @JsonIgnore
+    public void setValidationPool(ForkJoinPool validationPool) {
+        this.validationPool = validationPool;
+    }
+
+    /**
+     * Enable or disable the duplicate check in {@link #validate()}. When enabled, every document that duplicates an
+     * earlier document is reported, see {@link DuplicateDetector}. This is disabled by default.
+     */
+    @JsonIgnore
+    public void setCheckDuplicates(boolean checkDuplicates) {
+        this.checkDuplicates = checkDuplicates;
+    }
+
+    /**
+     * Find the documents that are duplicates of each other, see {@link DuplicateDetector}.
+     *
+     * @return The clusters of duplicates, ordered by the position of their first document.
+     */
+    public List<DuplicateCluster> findDuplicates() {
+        return DuplicateDetector.findDuplicates(this.documents);
+    }
+
+    /**
+     * Build the posting lists between the documents and their authors, see {@link AuthorIndex}. The postings are not
+     * updated when the index changes.
+     */
+    public AuthorIndex createAuthorIndex() {
+        return new AuthorIndex(this.documents);
+    }
+
+    /**
+     * Build the bitmaps of the tags of the documents, see {@link TagIndex}. The tag index follows changes that are
+     * made with {@link Document#setTags(List)}, but documents that are added to, replaced in or removed from the list
+     * must be passed to it explicitly.
+     */
+    public TagIndex createTagIndex() {
+        return new TagIndex(this.documents);
+    }
+
     /**
      * Validate the document index. The following things will be checked:
-     *  - all the documents must be valid.
+     *  - all the documents must be valid,
+     *  - no document may duplicate an earlier document, if the duplicate check is enabled.
+     *
+     * Large indexes are split over the validation pool, unless parallel validation is disabled. The error messages are
+     * the same, and in the same order, in both modes.
      */
     @Override
-    public List<String> validate() {
-        List<String> retval = new ArrayList<>();
+    public void validate(ValidationErrors errors) {
+        boolean parallel = this.parallelValidation
+                && !Boolean.getBoolean(SEQUENTIAL_VALIDATION_PROPERTY)
+                && this.documents.size() > DocumentValidateTask.SEQUENTIAL_THRESHOLD;
+
+        if(parallel) {
+            errors.addAll(this.validationPool.invoke(new DocumentValidateTask(this.documents, 0, this.documents.size())));
+        } else {
+            validateDocuments(this.documents, 0, errors);
+        }
+
+        if(this.checkDuplicates) {
+            DuplicateDetector.validate(this.documents, errors);
+        }
+    }
 
-        for (int i = 0; i < this.documents.size(); i++) {
-            Document doc = this.documents.get(i);
-            List<String> errorMsgs = doc.validate();
+    /**
+     * Validate a range of documents of an index.
+     *
+     * @param documents The documents that will be validated.
+     * @param offset The position of the first document in the complete index, which is used in the error paths.
+     * @param errors The sink that receives the errors.
+     */
+    static void validateDocuments(List<Document> documents, int offset, ValidationErrors errors) {
+        for (int i = 0; i < documents.size(); i++) {
+            errors.enter("document", offset + i);
+            documents.get(i).validate(errors);
+            errors.leave();
+        }
+    }
 
-            for (String errorMsg : errorMsgs) {
-                retval.add("Invalid document at index #%d: %s".formatted(i, errorMsg));
-            }
+    /**
+     * Validate a range of documents of an index, and add the error messages to a list.
+     *
+     * @param documents The documents that will be validated.
+     * @param offset The position of the first document in the complete index, which is used in the error messages.
+     * @param errorMsgs The list that receives the error messages.
+     */
+    static void validateDocuments(List<Document> documents, int offset, List<String> errorMsgs) {
+        ValidationErrors errors = new ValidationErrors();
+        validateDocuments(documents, offset, errors);
+        if(!errors.isEmpty()) {
+            errorMsgs.addAll(errors.getMessages());
         }
+    }
 
-        return retval;
+    /**
+     * Prefix an error message of a document with the position of the document in the index.
+     */
+    static String formatError(int index, String errorMsg) {
+        return "Invalid document at index #%d: %s".formatted(index, errorMsg);
     }
 }
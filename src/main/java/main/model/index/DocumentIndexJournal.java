@@ -0,0 +1,486 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * Append-only log of changes to a document index, stored next to the index file. Saving a change appends a single
+ * line to the journal, so the cost of a save depends on the size of the change instead of the size of the index.
+ * {@link DocumentIndexReader} replays the journal on top of the index file, whichever way the index is read.
+ *
+ * Once the journal holds more records than the compaction threshold, it is merged into the index file on a background
+ * thread. The journal is first renamed to "*.journal.compacting" so that new changes go to a fresh journal. The
+ * compaction then rebuilds the index from the index file and the renamed journal, records the checksum of the result
+ * in a COMMIT record, replaces the index file, and deletes the renamed journal. The COMMIT record makes sure that the
+ * changes are not applied twice if the application stops between the last two steps. The journal of a sharded index
+ * (see {@link DocumentIndexWriter#setShardSize(int)}) is replayed but never compacted; write the index instead.
+ *
+ * If a compaction fails, the error is passed to the error handler and kept (see {@link #getCompactionError()}), and no
+ * compaction is started automatically until {@link #startCompaction()} is called or the journal is opened again. The
+ * changes are still recorded in the journal meanwhile, and replayed when the index is read.
+ *
+ * Writing the whole index with {@link DocumentIndexWriter} discards the journal, so the journal must be closed first.
+ */
+public class DocumentIndexJournal implements Closeable
+{
+    /**
+     * The default number of records after which the journal is merged into the index file.
+     */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String COMPACTING_SUFFIX = ".journal.compacting";
+
+    private final Path indexFile;
+    private final Path journalFile;
+    private final Path compactingFile;
+    private final IndexCodec codec = IndexCodec.getDefault();
+    private final ExecutorService compactor;
+
+    private FileChannel channel;
+    private int recordCount;
+    private int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private boolean syncOnWrite = false;
+    private Future<?> compaction = CompletableFuture.completedFuture(null);
+    private volatile IOException compactionError = null;
+    private volatile Consumer<IOException> errorHandler = e -> {};
+
+    /**
+     * Constructor. Opens the journal of the specified index file, or creates it if it does not exist yet. An
+     * unfinished compaction from a previous run is resumed in the background.
+     *
+     * @param indexFile The path to the document index JSON file.
+     * @throws IOException If the journal could not be opened.
+     */
+    public DocumentIndexJournal(Path indexFile) throws IOException {
+        this.indexFile = indexFile;
+        this.journalFile = getJournalPath(indexFile);
+        this.compactingFile = getCompactingPath(indexFile);
+
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.openJournal();
+
+        if(Files.exists(this.compactingFile)) {
+            this.compaction = this.compactor.submit(this::compactInBackground);
+        }
+    }
+
+    /**
+     * Set the number of records after which the journal is merged into the index file.
+     */
+    public synchronized void setCompactionThreshold(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Set the function that is called on the background thread when a compaction fails.
+     */
+    public void setErrorHandler(Consumer<IOException> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Retrieve the error of the last compaction, or null if it succeeded or none has run yet.
+     */
+    public IOException getCompactionError() {
+        return this.compactionError;
+    }
+
+    /**
+     * Enable or disable forcing every record to the storage device before the save returns. This makes saves
+     * durable against power loss, at the cost of latency.
+     */
+    public synchronized void setSyncOnWrite(boolean syncOnWrite) {
+        this.syncOnWrite = syncOnWrite;
+    }
+
+    /**
+     * Record that a document was inserted.
+     *
+     * @param position The position at which the document was inserted.
+     * @param document The new document.
+     * @throws IOException If the record could not be written.
+     */
+    public synchronized void recordAdd(int position, Document document) throws IOException {
+        this.append(new JournalRecord(JournalRecord.Operation.ADD, position, document, null));
+    }
+
+    /**
+     * Record that a document was changed or replaced.
+     *
+     * @param position The position of the document.
+     * @param document The new version of the document.
+     * @throws IOException If the record could not be written.
+     */
+    public synchronized void recordUpdate(int position, Document document) throws IOException {
+        this.append(new JournalRecord(JournalRecord.Operation.UPDATE, position, document, null));
+    }
+
+    /**
+     * Record that a document was removed.
+     *
+     * @param position The position of the document before it was removed.
+     * @throws IOException If the record could not be written.
+     */
+    public synchronized void recordDelete(int position) throws IOException {
+        this.append(new JournalRecord(JournalRecord.Operation.DELETE, position, null, null));
+    }
+
+    /**
+     * Merge the journal into the index file on the background thread. If a compaction is already running, no new
+     * compaction is started. This also retries a compaction that failed, after which compactions are started
+     * automatically again.
+     *
+     * @return A future that completes when the compaction has finished, and fails with the error of the compaction.
+     * @throws IOException If the journal could not be rotated.
+     */
+    public synchronized Future<?> startCompaction() throws IOException {
+        if(!this.compaction.isDone()) {
+            return this.compaction;
+        }
+        this.compactionError = null;
+
+        // a compacting file is left behind if a previous compaction failed, that one needs to be finished first
+        if(!Files.exists(this.compactingFile)) {
+            if(this.recordCount == 0) {
+                return this.compaction;
+            }
+
+            this.channel.close();
+            Files.move(this.journalFile, this.compactingFile, StandardCopyOption.ATOMIC_MOVE);
+            this.openJournal();
+        }
+
+        this.compaction = this.compactor.submit(this::compactInBackground);
+        return this.compaction;
+    }
+
+    /**
+     * Close the journal. This waits for a running compaction to finish.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.compactor.shutdown();
+
+        try {
+            this.compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Apply the journal of the specified index file to the documents of that file.
+     *
+     * @param indexFile The path to the document index JSON file.
+     * @param documents The documents in the index file, this list is modified.
+     * @return Whether any changes were applied.
+     * @throws IOException If the journal could not be read, or if it does not match the documents.
+     */
+    static boolean replay(Path indexFile, List<Document> documents) throws IOException {
+        return replay(indexFile, documents, document -> document, null);
+    }
+
+    /**
+     * Apply the journal of the specified index file to a list that stands for the documents of that file, e.g. to
+     * follow the positions of the documents without decoding them.
+     *
+     * @param indexFile The path to the document index JSON file.
+     * @param items The items, one per document in the index file, this list is modified.
+     * @param wrap Function that creates the item for a document that the journal adds or updates.
+     * @param checksum The checksum that is updated with the contents of the journal files that are read, or null.
+     * @return Whether any changes were applied.
+     * @throws IOException If the journal could not be read, or if it does not match the items.
+     */
+    static <T> boolean replay(Path indexFile, List<T> items, Function<Document, ? extends T> wrap, Checksum checksum) throws IOException {
+        boolean changed = false;
+        Path compactingFile = getCompactingPath(indexFile);
+
+        if(Files.exists(compactingFile)) {
+            List<JournalRecord> records = readRecords(compactingFile, checksum);
+
+            if(!isCommitted(records, indexFile)) {
+                apply(records, items, wrap);
+                changed = !records.isEmpty();
+            }
+        }
+
+        Path journalFile = getJournalPath(indexFile);
+
+        if(Files.exists(journalFile)) {
+            List<JournalRecord> records = readRecords(journalFile, checksum);
+            apply(records, items, wrap);
+            changed |= !records.isEmpty();
+        }
+
+        return changed;
+    }
+
+    /**
+     * Create the checksum that identifies a version of an index together with its journal. It starts with the
+     * checksum of the contents of the index file, and {@link #replay(Path, List, Function, Checksum)} adds the
+     * contents of the journal files, so two readers that read the same version compute the same checksum.
+     *
+     * @param fileChecksum The CRC32C of the index file, or for a sharded index, see {@link ShardedIndex#checksum(ShardManifest)}.
+     */
+    static Checksum createVersionChecksum(long fileChecksum) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(ByteBuffer.allocate(Long.BYTES).putLong(0, fileChecksum));
+        return checksum;
+    }
+
+    /**
+     * Remove the journal of the specified index file, e.g. because the complete index was written to the file.
+     */
+    static void delete(Path indexFile) throws IOException {
+        Files.deleteIfExists(getJournalPath(indexFile));
+        Files.deleteIfExists(getCompactingPath(indexFile));
+    }
+
+    /**
+     * Check whether the specified index file has a journal, which may hold changes.
+     */
+    static boolean exists(Path indexFile) {
+        return Files.exists(getJournalPath(indexFile)) || Files.exists(getCompactingPath(indexFile));
+    }
+
+    static Path getJournalPath(Path indexFile) {
+        return indexFile.resolveSibling(indexFile.getFileName() + JOURNAL_SUFFIX);
+    }
+
+    static Path getCompactingPath(Path indexFile) {
+        return indexFile.resolveSibling(indexFile.getFileName() + COMPACTING_SUFFIX);
+    }
+
+    /**
+     * Open the journal for appending. An incomplete last line, left behind by a crash during a write, is cut off.
+     */
+    private void openJournal() throws IOException {
+        byte[] content = Files.exists(this.journalFile) ? Files.readAllBytes(this.journalFile) : new byte[0];
+
+        int end = 0;
+        int lines = 0;
+        for (int i = 0; i < content.length; i++) {
+            if(content[i] == '\n') {
+                end = i + 1;
+                lines++;
+            }
+        }
+
+        this.channel = FileChannel.open(this.journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.truncate(end);
+        this.channel.position(end);
+        this.recordCount = lines;
+    }
+
+    private void append(JournalRecord record) throws IOException {
+        byte[] json = this.codec.getJournalRecordWriter().writeValueAsBytes(record);
+
+        ByteBuffer line = ByteBuffer.allocate(json.length + 1);
+        line.put(json).put((byte) '\n').flip();
+
+        while(line.hasRemaining()) {
+            this.channel.write(line);
+        }
+
+        if(this.syncOnWrite) {
+            this.channel.force(false);
+        }
+
+        this.recordCount++;
+        // a failed compaction would most likely fail again, e.g. for a sharded index, so it is not retried here
+        if(this.recordCount >= this.compactionThreshold && this.compactionError == null) {
+            this.startCompaction();
+        }
+    }
+
+    /**
+     * Run a compaction on the background thread, and record its error.
+     */
+    private Void compactInBackground() throws IOException {
+        try {
+            this.compact();
+            return null;
+        } catch (IOException e) {
+            this.fail(e);
+            throw e;
+        } catch (UncheckedIOException e) {
+            this.fail(e.getCause());
+            throw e.getCause();
+        }
+    }
+
+    private void fail(IOException e) {
+        this.compactionError = e;
+        this.errorHandler.accept(e);
+    }
+
+    /**
+     * Merge the compacting file into the index file. This only touches the index file and the compacting file, so it
+     * can run concurrently with appends to the journal.
+     */
+    private void compact() throws IOException {
+        List<JournalRecord> records = readRecords(this.compactingFile, null);
+
+        if(!isCommitted(records, this.indexFile)) {
+            // the compaction below would replace the manifest of a sharded index with an ordinary index file
+            if(ShardedIndex.readManifest(this.indexFile) != null) {
+                throw new IOException("Cannot compact the journal of sharded index \"%s\"".formatted(this.indexFile));
+            }
+
+            List<Document> documents = new ArrayList<>();
+            // the documents in the file itself, without the records that are about to be merged into it
+            DocumentIndexReader reader = new DocumentIndexReader(this.indexFile);
+            reader.setReplayJournal(false);
+            try (DocumentIterator iterator = reader.iterator()) {
+                iterator.forEachRemaining(documents::add);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            apply(records, documents, document -> document);
+
+            DocumentIndex index = new DocumentIndex();
+            index.setDocumentList(documents);
+            byte[] content = this.codec.getIndexWriter().writeValueAsBytes(index);
+
+            CRC32 crc = new CRC32();
+            crc.update(content);
+
+            byte[] commit = this.codec.getJournalRecordWriter().writeValueAsBytes(new JournalRecord(JournalRecord.Operation.COMMIT, null, null, crc.getValue()));
+            try (FileChannel out = FileChannel.open(this.compactingFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                out.write(ByteBuffer.wrap(commit));
+                out.write(ByteBuffer.wrap(new byte[]{'\n'}));
+                out.force(false);
+            }
+
+            Path temp = this.indexFile.resolveSibling(this.indexFile.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while(buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(false);
+            }
+            Files.move(temp, this.indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        Files.delete(this.compactingFile);
+    }
+
+    /**
+     * Read the complete lines of a journal file.
+     */
+    private static List<JournalRecord> readRecords(Path file, Checksum checksum) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        if(checksum != null) {
+            checksum.update(content);
+        }
+        List<JournalRecord> records = new ArrayList<>();
+
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            if(content[i] == '\n') {
+                if(i > start) {
+                    records.add(IndexCodec.getDefault().getJournalRecordReader().readValue(content, start, i - start));
+                }
+                start = i + 1;
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Check whether the records end with a COMMIT record for the current contents of the index file.
+     */
+    private static boolean isCommitted(List<JournalRecord> records, Path indexFile) throws IOException {
+        if(records.isEmpty()) {
+            return false;
+        }
+
+        JournalRecord last = records.get(records.size() - 1);
+        if(last.operation != JournalRecord.Operation.COMMIT) {
+            return false;
+        }
+
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(indexFile)) {
+            int read;
+            while((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+
+        return Long.valueOf(crc.getValue()).equals(last.checksum);
+    }
+
+    private static <T> void apply(List<JournalRecord> records, List<T> documents, Function<Document, ? extends T> wrap) throws IOException {
+        for (int i = 0; i < records.size(); i++) {
+            JournalRecord record = records.get(i);
+
+            if(record.operation == JournalRecord.Operation.COMMIT) {
+                continue;
+            }
+
+            int position = (record.position != null) ? record.position : -1;
+            int maxPosition = (record.operation == JournalRecord.Operation.ADD) ? documents.size() : documents.size() - 1;
+            if(position < 0 || position > maxPosition) {
+                throw new IOException("Journal record #%d (%s) refers to position %d, but the index has %d documents".formatted(i, record.operation, position, documents.size()));
+            }
+
+            switch (record.operation) {
+                case ADD -> documents.add(position, wrap.apply(record.document));
+                case UPDATE -> documents.set(position, wrap.apply(record.document));
+                case DELETE -> documents.remove(position);
+            }
+        }
+    }
+}
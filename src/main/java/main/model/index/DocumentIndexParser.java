@@ -0,0 +1,165 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import main.model.document.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Pull parser that walks the "documents" array of an index file token by token. Only the document that is currently
+ * being decoded is held in memory.
+ */
+class DocumentIndexParser implements Closeable
+{
+    private static final String DOCUMENTS_FIELD = "documents";
+
+    private final JsonParser parser;
+    private final ObjectReader documentReader;
+
+    private boolean insideDocuments = false;
+    private boolean documentsSeen = false;
+    private boolean finished = false;
+
+    /**
+     * Constructor. This will consume the tokens up to and including the start of the "documents" array.
+     *
+     * @param parser The parser that reads the index file.
+     * @param documentReader The reader that is used to decode the individual documents.
+     * @throws IOException If the file does not start with a valid document index.
+     */
+    DocumentIndexParser(JsonParser parser, ObjectReader documentReader) throws IOException {
+        this.parser = parser;
+        this.documentReader = documentReader;
+
+        JsonToken token = parser.nextToken();
+        if(token == null) {
+            throw new JsonParseException(parser, "No content to map due to end-of-input");
+        }
+        if(token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected the document index to be a JSON object, found %s".formatted(token));
+        }
+
+        this.advanceToDocuments();
+    }
+
+    /**
+     * Decode the next document in the "documents" array.
+     *
+     * @return The next document, or null if all documents have been read.
+     * @throws IOException If the document could not be parsed or decoded.
+     */
+    Document nextDocument() throws IOException {
+        if(!this.nextDocumentStart()) {
+            return null;
+        }
+
+        return this.readDocument();
+    }
+
+    /**
+     * Decode the document at whose start the parser is positioned, see {@link #nextDocumentStart()}.
+     *
+     * @return The document.
+     * @throws IOException If the document could not be parsed or decoded.
+     */
+    Document readDocument() throws IOException {
+        return this.documentReader.readValue(this.parser);
+    }
+
+    /**
+     * Move the parser to the start of the next document object in the "documents" array, without decoding it.
+     *
+     * @return True if the parser is positioned on the start of a document, false if all documents have been read.
+     * @throws IOException If the file could not be parsed.
+     */
+    boolean nextDocumentStart() throws IOException {
+        while(!this.finished) {
+            if(!this.insideDocuments) {
+                this.advanceToDocuments();
+                continue;
+            }
+
+            JsonToken token = this.parser.nextToken();
+
+            if(token == JsonToken.END_ARRAY) {
+                this.insideDocuments = false;
+            } else if(token == JsonToken.START_OBJECT) {
+                return true;
+            } else {
+                throw new JsonParseException(this.parser, "Expected a document object, found %s".formatted(token));
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Retrieve the underlying JSON parser.
+     */
+    JsonParser getJsonParser() {
+        return this.parser;
+    }
+
+    /**
+     * Move to the start of the "documents" array, or to the end of the index object if there is no (further) array.
+     * Unknown top-level fields are rejected, in the same way that the data binding rejects unknown fields.
+     */
+    private void advanceToDocuments() throws IOException {
+        JsonToken token;
+
+        while((token = this.parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String fieldName = this.parser.getCurrentName();
+
+            if(!fieldName.equals(DOCUMENTS_FIELD)) {
+                throw UnrecognizedPropertyException.from(this.parser, DocumentIndex.class, fieldName, List.of(DOCUMENTS_FIELD));
+            }
+
+            if(this.documentsSeen) {
+                throw new JsonParseException(this.parser, "Duplicate field \"%s\"".formatted(DOCUMENTS_FIELD));
+            }
+            this.documentsSeen = true;
+
+            JsonToken valueToken = this.parser.nextToken();
+            if(valueToken == JsonToken.START_ARRAY) {
+                this.insideDocuments = true;
+                return;
+            } else if(valueToken != JsonToken.VALUE_NULL) {
+                throw new JsonParseException(this.parser, "Expected \"%s\" to be an array, found %s".formatted(DOCUMENTS_FIELD, valueToken));
+            }
+        }
+
+        if(token != JsonToken.END_OBJECT) {
+            throw new JsonParseException(this.parser, "Unexpected token %s in document index".formatted(token));
+        }
+
+        this.finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.parser.close();
+    }
+}
@@ -17,20 +17,80 @@
 
 package main.model.index;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import main.model.document.Document;
 import main.model.validation.IndexValidationException;
+import main.model.validation.ValidationErrors;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
 
 /**
- * Class that reads the document index from the filesystem.
+ * Class that reads the document index from the filesystem. Both ordinary index files and the manifests of sharded
+ * indexes (see {@link DocumentIndexWriter#setShardSize(int)}) are accepted.
  */
 public class DocumentIndexReader
 {
+    /**
+     * System property that makes the application keep a binary snapshot next to every index it opens when set to
+     * "true", see {@link #setUseSnapshot(boolean)}.
+     */
+    public static final String SNAPSHOT_PROPERTY = "documentmanager.snapshot";
+
+    /**
+     * Files of at least this size are memory-mapped by default, except on Windows, see
+     * {@link #setMemoryMapThreshold(long)}.
+     */
+    public static final long DEFAULT_MEMORY_MAP_THRESHOLD = 64L * 1024 * 1024;
+
     private final Path path;
 
+    private long memoryMapThreshold = isWindows() ? Long.MAX_VALUE : DEFAULT_MEMORY_MAP_THRESHOLD;
+
+    private boolean parallel = false;
+
+    private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+
+    private boolean useSnapshot = false;
+
+    private boolean replayJournal = true;
+
+    private boolean useValidationCache = false;
+
+    private int maxErrors = Integer.MAX_VALUE;
+
+    private boolean lenient = false;
+
+    private boolean checkDuplicates = false;
+
+    private List<String> skippedErrors = List.of();
+
+    private long sourceChecksum = 0;
+
     /**
      * Constructor.
      *
@@ -41,21 +101,516 @@ public class DocumentIndexReader
     }
 
     /**
-     * Read the file.
+     * Set the file size, in bytes, from which on the file is memory-mapped instead of being read through a buffered
+     * stream. Mapping avoids the read system calls and the copy into a stream buffer, which pays off for large files.
+     * Use 0 to always map the file, and {@link Long#MAX_VALUE} to never map it.
+     *
+     * Java cannot release a mapping explicitly, so the mapping lasts until it is garbage collected, which can be long
+     * after the read. On Windows, a mapped file cannot be replaced or deleted in the meantime, so saving the index
+     * atomically (see {@link DocumentIndexWriter#setAtomic(boolean)}) fails. Files are therefore never mapped on
+     * Windows unless a threshold is set explicitly.
+     *
+     * @throws IllegalArgumentException If the threshold is negative.
+     */
+    public void setMemoryMapThreshold(long memoryMapThreshold) {
+        if(memoryMapThreshold < 0) {
+            throw new IllegalArgumentException("Memory map threshold cannot be negative");
+        }
+        this.memoryMapThreshold = memoryMapThreshold;
+    }
+
+    /**
+     * Enable or disable parallel reading. In parallel mode, the file is first scanned for the byte ranges of the
+     * documents, after which the documents are decoded on a fork-join pool. The order of the documents is kept.
+     * Parallel reading holds the complete file in memory (or memory-maps it), and is limited to files below 2 GB.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Set the pool that decodes the documents in parallel mode, and that reads the shards of a sharded index. By
+     * default, the common pool is used.
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * Enable or disable the binary snapshot. When enabled, {@link #read()} loads the binary snapshot next to the JSON
+     * file if it was made from the current version of the JSON file. Otherwise, the JSON file is read and a new
+     * snapshot is written for the next time. This is disabled by default; the application enables it when the system
+     * property {@link #SNAPSHOT_PROPERTY} is set to "true".
+     */
+    public void setUseSnapshot(boolean useSnapshot) {
+        this.useSnapshot = useSnapshot;
+    }
+
+    /**
+     * Enable or disable replaying the change journal (see {@link DocumentIndexJournal}) on top of the index file, by
+     * every way of reading the index. This is enabled by default; when disabled, only the documents in the file itself
+     * are read.
+     */
+    public void setReplayJournal(boolean replayJournal) {
+        this.replayJournal = replayJournal;
+    }
+
+    /**
+     * Enable or disable the validation cache. When enabled, {@link #read()} stores the validation result of every
+     * document in a file next to the index file, keyed by a hash of the document contents. The next read only
+     * validates the documents that are not in the cache, i.e. the documents that were changed or added.
+     */
+    public void setUseValidationCache(boolean useValidationCache) {
+        this.useValidationCache = useValidationCache;
+    }
+
+    /**
+     * Set the number of validation errors after which reading stops. When a file is read sequentially, the documents
+     * are validated while they are parsed, so a broken file is rejected as soon as this many errors are found instead
+     * of after parsing the complete file. The {@link IndexValidationException} then holds the first errors only. By
+     * default, there is no limit.
+     */
+    public void setMaxErrors(int maxErrors) {
+        if(maxErrors <= 0) {
+            throw new IllegalArgumentException("The maximum number of errors must be positive, got %d".formatted(maxErrors));
+        }
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Enable or disable lenient mode. In lenient mode, invalid documents are left out of the index instead of failing
+     * the read, and their errors can be retrieved with {@link #getSkippedErrors()}. Reading still fails when the
+     * maximum number of errors is reached. Saving an index that was read leniently removes the invalid documents from
+     * the file. The validation cache is not used in lenient mode.
+     */
+    public void setLenient(boolean lenient) {
+        this.lenient = lenient;
+    }
+
+    /**
+     * Enable or disable the duplicate check. When enabled, {@link #read()} reports every document that duplicates an
+     * earlier document as invalid, see {@link DuplicateDetector}. In lenient mode, the first document of every group of
+     * duplicates is kept. This is disabled by default.
+     */
+    public void setCheckDuplicates(boolean checkDuplicates) {
+        this.checkDuplicates = checkDuplicates;
+    }
+
+    /**
+     * Retrieve the errors of the documents that were left out of the index by the last {@link #read()} in lenient
+     * mode.
+     */
+    public List<String> getSkippedErrors() {
+        return this.skippedErrors;
+    }
+
+    /**
+     * Retrieve the checksum of the version of the file, and of its journal, that the last {@link #read()} read. The
+     * checksum is computed over the same bytes that were decoded, so it tells whether another reader, such as an
+     * {@link IndexFileWatcher}, saw the same version (see {@link IndexFileWatcher#getSourceChecksum()}).
+     */
+    public long getSourceChecksum() {
+        return this.sourceChecksum;
+    }
+
+    /**
+     * Read the file. The shards of a sharded index are always read and validated in parallel, on the pool that is set
+     * with {@link #setForkJoinPool(ForkJoinPool)}. A file that is read sequentially is validated while it is parsed,
+     * and the error messages contain the line and column of the invalid documents.
      *
      * @return The document index.
      * @throws IOException If something went wrong while reading the file.
+     * @throws IndexValidationException If the index contains invalid documents, or in lenient mode, if the maximum
+     *                                  number of errors is reached.
      */
     public DocumentIndex read() throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
+        this.skippedErrors = List.of();
+
+        boolean useCache = this.useValidationCache && !this.lenient;
+        // the checksum is taken before the file is parsed, so that a snapshot never claims a later version of the file
+        long sourceChecksum = this.useSnapshot ? BinarySnapshot.checksum(this.path) : 0;
+        List<Document> documents = this.useSnapshot ? BinarySnapshot.read(this.path, sourceChecksum) : null;
+        boolean snapshotOutdated = this.useSnapshot && documents == null;
+        long fileChecksum = sourceChecksum;
+
+        // the errors of the documents, if they were already validated while reading
+        ValidationErrors errors = null;
 
-        DocumentIndex index = objectMapper.readValue(this.path.toFile(), DocumentIndex.class);
+        if(documents == null) {
+            ShardManifest manifest = ShardedIndex.readManifest(this.path);
+
+            if(manifest != null) {
+                // the shards throw all their errors at once, so lenient mode and the error limit validate afterwards
+                boolean validateShards = !useCache && !this.lenient && this.maxErrors == Integer.MAX_VALUE;
+                documents = ShardedIndex.read(this.path, manifest, this.forkJoinPool, validateShards);
+                errors = validateShards ? new ValidationErrors() : null;
+                fileChecksum = ShardedIndex.checksum(manifest);
+            } else {
+                CRC32C crc = new CRC32C();
+                if(this.parallel) {
+                    documents = this.readDocumentsParallel(crc);
+                } else {
+                    errors = useCache ? null : new ValidationErrors();
+                    documents = this.readDocuments(errors, crc);
+                }
+                fileChecksum = crc.getValue();
+            }
+        }
 
-        List<String> errorMsgs = index.validate();
-        if(!errorMsgs.isEmpty()) {
-            throw new IndexValidationException(errorMsgs);
+        // the snapshot mirrors the index file, so it is written before the journal is applied
+        if(snapshotOutdated) {
+            try {
+                BinarySnapshot.write(this.path, documents, sourceChecksum);
+            } catch (IOException ignored) {
+                // the snapshot only speeds up the next read, e.g. a read-only directory is not an error
+            }
         }
 
+        Checksum versionChecksum = DocumentIndexJournal.createVersionChecksum(fileChecksum);
+        if(this.replayJournal && DocumentIndexJournal.replay(this.path, documents, document -> document, versionChecksum)) {
+            errors = null;
+        }
+        this.sourceChecksum = versionChecksum.getValue();
+
+        DocumentIndex index = new DocumentIndex();
+        index.setDocumentList(documents);
+
+        if(errors == null && useCache) {
+            List<String> errorMsgs = ValidationCache.validate(this.path, documents);
+            if(this.checkDuplicates) {
+                // duplicates depend on the other documents, so they are not part of the cache
+                ValidationErrors duplicates = new ValidationErrors();
+                DuplicateDetector.validate(documents, duplicates);
+                errorMsgs.addAll(duplicates.getMessages());
+            }
+            if(!errorMsgs.isEmpty()) {
+                throw this.createValidationException(errorMsgs);
+            }
+            return index;
+        }
+
+        if(errors == null) {
+            errors = new ValidationErrors();
+            index.validate(errors);
+        }
+        if(this.checkDuplicates) {
+            DuplicateDetector.validate(documents, errors);
+        }
+
+        if(errors.isEmpty()) {
+            return index;
+        }
+        if(!this.lenient || errors.size() >= this.maxErrors) {
+            throw this.createValidationException(errors.getMessages());
+        }
+
+        this.skippedErrors = errors.getMessages();
+        index.setDocumentList(removeInvalidDocuments(documents, errors));
         return index;
     }
+
+    /**
+     * Open the file as a lazy index. The file is only scanned for the byte ranges of its documents, and a document is
+     * decoded when it is first accessed. The documents are not validated; use {@link DocumentIndex#validate()} to
+     * validate the index, which will decode every document. A file without byte offsets, e.g. in UTF-16, is read
+     * sequentially once and kept in memory as UTF-8. The journal is replayed on top of the ranges, and the documents
+     * that it adds or updates are kept in memory.
+     *
+     * @param cacheSize The maximum number of decoded documents that are kept in memory.
+     * @return The lazy document index.
+     * @throws IOException If the file could not be read, if it is not a syntactically valid document index, or if it
+     *                     is a sharded index, which cannot be opened lazily.
+     */
+    public LazyDocumentIndex readLazy(int cacheSize) throws IOException {
+        if(ShardedIndex.readManifest(this.path) != null) {
+            throw new IOException("Sharded index \"%s\" cannot be opened lazily".formatted(this.path));
+        }
+
+        IndexCodec codec = IndexCodec.getDefault();
+        DocumentRanges ranges = DocumentRanges.scan(this.readContent(), codec);
+        Path source = this.path;
+
+        if(ranges == null) {
+            // without byte offsets, the documents are read sequentially and kept as UTF-8 in memory
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new DocumentStreamWriter(this.readDocuments(null, null).iterator()).write(out);
+            ranges = DocumentRanges.scan(ByteBuffer.wrap(out.toByteArray()), codec);
+            source = null;
+        }
+
+        if(this.replayJournal && DocumentIndexJournal.exists(this.path)) {
+            // follow the byte range of every document through the journal, the documents of the journal get an index
+            // below zero
+            List<Integer> positions = new ArrayList<>(ranges.size());
+            for (int i = 0; i < ranges.size(); i++) {
+                positions.add(i);
+            }
+            List<Document> replayed = new ArrayList<>();
+            Function<Document, Integer> wrap = document -> {
+                replayed.add(document);
+                return -replayed.size();
+            };
+
+            if(DocumentIndexJournal.replay(this.path, positions, wrap, null)) {
+                int[] array = new int[positions.size()];
+                Map<Integer, Document> documents = new HashMap<>();
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = positions.get(i);
+                    if(array[i] < 0) {
+                        documents.put(i, replayed.get(-array[i] - 1));
+                    }
+                }
+                return new LazyDocumentIndex(ranges, codec, cacheSize, source, array, documents);
+            }
+        }
+
+        return new LazyDocumentIndex(ranges, codec, cacheSize, source);
+    }
+
+    /**
+     * Read the file into a columnar index. The documents are decoded one at a time and copied into the columns, so the
+     * complete index never exists as {@link Document} objects, unless the journal holds changes, see {@link #iterator()}.
+     * Like {@link #readLazy(int)}, the documents are not validated; use {@link DocumentIndex#validate()} to validate
+     * the index.
+     *
+     * @return The columnar document index.
+     * @throws IOException If the file could not be read, or if it is not a syntactically valid document index.
+     * @throws IllegalArgumentException If the publication year of a document cannot be stored in a column.
+     */
+    public ColumnarDocumentIndex readColumnar() throws IOException {
+        ColumnarDocumentIndex index = new ColumnarDocumentIndex();
+
+        try (DocumentIterator iterator = this.iterator()) {
+            while(iterator.hasNext()) {
+                index.getDocumentList().add(iterator.next());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        return index;
+    }
+
+    /**
+     * Open an iterator that decodes the documents in the file one at a time, so that memory use does not depend on
+     * the size of the index. The shards of a sharded index are opened one after the other. The documents are not
+     * validated. The iterator must be closed after use.
+     *
+     * If the index has a journal (see {@link DocumentIndexJournal}) and replaying it is enabled, the changes in the
+     * journal are applied by position, so the documents in the file are decoded into memory first and the iterator
+     * returns them from there. Compact the journal, or write the index, to iterate in constant memory again.
+     *
+     * @return An iterator over the documents in the file.
+     * @throws IOException If the file could not be opened, or if it does not start with a valid document index.
+     */
+    public DocumentIterator iterator() throws IOException {
+        ShardManifest manifest = ShardedIndex.readManifest(this.path);
+        List<Path> files = (manifest == null) ? List.of(this.path) : ShardedIndex.getShardFiles(this.path, manifest);
+
+        if(this.replayJournal && DocumentIndexJournal.exists(this.path)) {
+            List<Document> documents = new ArrayList<>();
+            try (DocumentIterator iterator = new DocumentIterator(files, this::openParser)) {
+                iterator.forEachRemaining(documents::add);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            DocumentIndexJournal.replay(this.path, documents);
+            return new DocumentIterator(documents);
+        }
+
+        return new DocumentIterator(files, this::openParser);
+    }
+
+    /**
+     * Open a sequential stream over the documents in the file. Like {@link #iterator()}, the documents are decoded
+     * lazily unless the journal holds changes, and are not validated. The stream must be closed after use, e.g. with a try-with-resources statement.
+     *
+     * @return A stream of the documents in the file.
+     * @throws IOException If the file could not be opened, or if it does not start with a valid document index.
+     */
+    public Stream<Document> stream() throws IOException {
+        DocumentIterator iterator = this.iterator();
+        Spliterator<Document> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                iterator.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Decode the documents one by one from a streaming parser, and validate every document right after it is decoded.
+     * Reading stops as soon as the maximum number of errors is reached.
+     *
+     * @param errors The sink that receives the errors of the documents, or null if they are not validated.
+     * @param checksum The checksum that is updated with the contents of the file, or null.
+     */
+    private List<Document> readDocuments(ValidationErrors errors, Checksum checksum) throws IOException {
+        List<Document> documents = new ArrayList<>();
+
+        try (DocumentIndexParser parser = new DocumentIndexParser(this.openJsonParser(this.path, checksum), IndexCodec.getDefault().getDocumentReader())) {
+            JsonParser jsonParser = parser.getJsonParser();
+
+            while(parser.nextDocumentStart()) {
+                if(errors == null) {
+                    documents.add(parser.readDocument());
+                    continue;
+                }
+
+                // the location of the start of the document, which is lost once the document has been decoded
+                JsonLocation location = jsonParser.getTokenLocation();
+                Document document = parser.readDocument();
+
+                errors.enter("document", documents.size());
+                errors.setLocation(location.getLineNr(), location.getColumnNr());
+                document.validate(errors);
+                errors.leave();
+
+                if(errors.size() >= this.maxErrors) {
+                    throw this.createValidationException(errors.getMessages());
+                }
+                documents.add(document);
+            }
+        }
+
+        return documents;
+    }
+
+    /**
+     * Create the exception for the specified errors, limited to the maximum number of errors.
+     */
+    private IndexValidationException createValidationException(List<String> errorMsgs) {
+        if(errorMsgs.size() > this.maxErrors) {
+            errorMsgs = new ArrayList<>(errorMsgs.subList(0, this.maxErrors));
+        }
+        return new IndexValidationException(errorMsgs);
+    }
+
+    /**
+     * Retrieve the documents that have no errors.
+     */
+    private static List<Document> removeInvalidDocuments(List<Document> documents, ValidationErrors errors) {
+        BitSet invalid = new BitSet(documents.size());
+        for (int i = 0; i < errors.size(); i++) {
+            invalid.set(errors.getPathIndex(i, 0));
+        }
+
+        List<Document> retval = new ArrayList<>(documents.size() - invalid.cardinality());
+        for (int i = 0; i < documents.size(); i++) {
+            if(!invalid.get(i)) {
+                retval.add(documents.get(i));
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Scan the file for the byte ranges of the documents, and decode the ranges in parallel. A file without byte
+     * offsets (see {@link DocumentRanges#scan(ByteBuffer, IndexCodec)}) is read sequentially instead.
+     *
+     * @param checksum The checksum that is updated with the contents of the file.
+     */
+    private List<Document> readDocumentsParallel(Checksum checksum) throws IOException {
+        IndexCodec codec = IndexCodec.getDefault();
+        ByteBuffer content = this.readContent();
+        DocumentRanges ranges = DocumentRanges.scan(content, codec);
+
+        checksum.update(content.duplicate());
+        if(ranges == null) {
+            // the documents cannot be located without byte offsets, so the contents are parsed sequentially
+            List<Document> documents = new ArrayList<>();
+            JsonParser jsonParser = codec.getJsonFactory().createParser(new ByteBufferBackedInputStream(content.duplicate()));
+            try (DocumentIndexParser parser = new DocumentIndexParser(jsonParser, codec.getDocumentReader())) {
+                Document document;
+                while((document = parser.nextDocument()) != null) {
+                    documents.add(document);
+                }
+            }
+            return documents;
+        }
+
+        return new ArrayList<>(Arrays.asList(DocumentDecodeTask.decodeAll(ranges, codec, this.forkJoinPool)));
+    }
+
+    /**
+     * Retrieve the complete contents of the index file. Files above the memory map threshold are mapped, smaller
+     * files are read into a heap buffer.
+     */
+    private ByteBuffer readContent() throws IOException {
+        long size = Files.size(this.path);
+
+        if(size > Integer.MAX_VALUE) {
+            throw new IOException("Index file \"%s\" is too large to be held in memory".formatted(this.path));
+        }
+
+        if(size >= this.memoryMapThreshold) {
+            return this.mapFile(this.path, size);
+        }
+
+        return ByteBuffer.wrap(Files.readAllBytes(this.path));
+    }
+
+    /**
+     * Map an index file into memory. The mapping stays valid after the channel is closed, and is only released when
+     * the buffer is garbage collected.
+     */
+    private MappedByteBuffer mapFile(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * Open a streaming parser on the specified index file.
+     */
+    private DocumentIndexParser openParser(Path file) throws IOException {
+        return new DocumentIndexParser(this.openJsonParser(file, null), IndexCodec.getDefault().getDocumentReader());
+    }
+
+    /**
+     * Open a JSON parser on the specified index file. Files above the memory map threshold are mapped into memory and
+     * the parser reads directly from the mapped pages. Files that are too large for a single mapping are always
+     * streamed.
+     *
+     * @param checksum The checksum that is updated with the contents of the file, or null. A streamed file is added
+     *                 to the checksum while it is parsed, and the rest of the file when the parser is closed.
+     */
+    private JsonParser openJsonParser(Path file, Checksum checksum) throws IOException {
+        IndexCodec codec = IndexCodec.getDefault();
+        long size = Files.size(file);
+
+        if(size < this.memoryMapThreshold || size > Integer.MAX_VALUE) {
+            if(checksum == null) {
+                return codec.getJsonFactory().createParser(file.toFile());
+            }
+
+            return codec.getJsonFactory().createParser(new CheckedInputStream(Files.newInputStream(file), checksum) {
+                @Override
+                public void close() throws IOException {
+                    // the parser stops after the documents, the checksum covers the whitespace after them as well
+                    try {
+                        this.skip(Long.MAX_VALUE);
+                    } finally {
+                        super.close();
+                    }
+                }
+            });
+        }
+
+        MappedByteBuffer content = this.mapFile(file, size);
+        if(checksum != null) {
+            checksum.update(content.duplicate());
+        }
+        return codec.getJsonFactory().createParser(new ByteBufferBackedInputStream(content));
+    }
+
+    /**
+     * Determine whether the application runs on Windows, where mapped files are locked.
+     */
+    private static boolean isWindows() {
+        return System.getProperty("os.name", "").startsWith("Windows");
+    }
 }
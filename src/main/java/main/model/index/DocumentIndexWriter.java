@@ -17,11 +17,10 @@
 
 package main.model.index;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 /**
  * Class for writing a {@link DocumentIndex} object to the filesystem.
@@ -30,6 +29,12 @@ public class DocumentIndexWriter
 {
     private final DocumentIndex index;
 
+    private boolean writeSnapshot = false;
+
+    private boolean atomic = false;
+
+    private int shardSize = 0;
+
     /**
      * Constructor.
      *
@@ -40,18 +45,72 @@ public class DocumentIndexWriter
     }
 
     /**
-     * Write the file.
+     * Enable or disable writing a binary snapshot next to the JSON file, so that the next read with
+     * {@link DocumentIndexReader#setUseSnapshot(boolean)} enabled does not need to parse the JSON.
+     */
+    public void setWriteSnapshot(boolean writeSnapshot) {
+        this.writeSnapshot = writeSnapshot;
+    }
+
+    /**
+     * Enable or disable atomic writes. An atomic write goes to a temporary file in the same directory, which then
+     * replaces the target file, so that the target file never contains a partially written index. A
+     * {@link LazyDocumentIndex} that is written back to the file that it reads from is always written atomically,
+     * since truncating the file would destroy the documents that it still has to decode.
+     */
+    public void setAtomic(boolean atomic) {
+        this.atomic = atomic;
+    }
+
+    /**
+     * Set the maximum number of documents per shard. A positive value writes a sharded index: the target file becomes a
+     * small manifest, and the documents are split in order over shard files next to it. Only the shards whose contents
+     * changed since the previous write are rewritten, and every file is replaced atomically.
+     *
+     * With the default of 0, a sharded index is written with the shard size that its manifest already has, and any
+     * other target is written as a single index file.
+     */
+    public void setShardSize(int shardSize) {
+        if(shardSize < 0) {
+            throw new IllegalArgumentException("Shard size cannot be negative");
+        }
+        this.shardSize = shardSize;
+    }
+
+    /**
+     * Write the file. An existing binary snapshot of the file is replaced, or removed if snapshots are disabled. The
+     * change journal of the file (see {@link DocumentIndexJournal}) is discarded, since the file now holds all changes.
      *
      * @param filename The {@link Path} that points to the target file.
      *
      * @throws IOException If something went wrong while writing the file.
      */
     public void write(Path filename) throws IOException {
-        try {
-            ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
-            objectMapper.writeValue(filename.toFile(), this.index);
-        } catch (Exception e) {
-            throw new IOException(e);
+        ShardManifest manifest = ShardedIndex.readManifest(filename);
+        int shardSize = (this.shardSize == 0 && manifest != null) ? manifest.shardSize : this.shardSize;
+
+        // the checksum that identifies the written file in the snapshot
+        long checksum;
+
+        if(shardSize > 0) {
+            ShardedIndex.write(filename, this.index.getDocumentList(), shardSize, manifest);
+            checksum = this.writeSnapshot ? BinarySnapshot.checksum(filename) : 0;
+        } else if(this.atomic || (this.index instanceof LazyDocumentIndex lazy && lazy.readsFrom(filename))) {
+            Path temp = filename.resolveSibling(filename.getFileName() + ".tmp");
+            new DocumentStreamWriter(this.index.getDocumentList().iterator()).write(temp);
+            checksum = this.writeSnapshot ? BinarySnapshot.checksum(temp) : 0;
+            Files.move(temp, filename, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            new DocumentStreamWriter(this.index.getDocumentList().iterator()).write(filename);
+            checksum = this.writeSnapshot ? BinarySnapshot.checksum(filename) : 0;
         }
+
+        if(this.writeSnapshot) {
+            BinarySnapshot.write(filename, this.index.getDocumentList(), checksum);
+        } else {
+            Files.deleteIfExists(BinarySnapshot.getSnapshotPath(filename));
+        }
+
+        DocumentIndexJournal.delete(filename);
     }
 }
@@ -0,0 +1,115 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator that decodes the documents of an index file one at a time. The documents of a sharded index are read from
+ * its shard files, one file after the other. The iterator must be closed in order to release the underlying file.
+ * Parse errors are reported as {@link UncheckedIOException}. An index that has changes in its journal is iterated from
+ * memory instead, see {@link DocumentIndexReader#iterator()}.
+ */
+public class DocumentIterator implements Iterator<Document>, Closeable
+{
+    /**
+     * Opens a parser on an index file.
+     */
+    interface ParserFactory
+    {
+        DocumentIndexParser open(Path file) throws IOException;
+    }
+
+    private final Iterator<Path> files;
+    private final ParserFactory parserFactory;
+    private DocumentIndexParser parser;
+    private Document next = null;
+
+    // the documents to return instead of those in the files, or null
+    private Iterator<Document> documents = null;
+
+    /**
+     * Constructor. The first file is opened right away.
+     *
+     * @param files The index files that provide the documents, in order.
+     * @param parserFactory Opens the parser on each of the files.
+     */
+    DocumentIterator(List<Path> files, ParserFactory parserFactory) throws IOException {
+        this.files = files.iterator();
+        this.parserFactory = parserFactory;
+        this.parser = this.files.hasNext() ? parserFactory.open(this.files.next()) : null;
+    }
+
+    /**
+     * Constructor for an iterator over documents that were already decoded.
+     *
+     * @param documents The documents, in order.
+     */
+    DocumentIterator(List<Document> documents) throws IOException {
+        this(List.of(), null);
+        this.documents = documents.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            if(this.next == null && this.documents != null && this.documents.hasNext()) {
+                this.next = this.documents.next();
+            }
+            while(this.next == null && this.parser != null) {
+                this.next = this.parser.nextDocument();
+
+                if(this.next == null) {
+                    this.parser.close();
+                    this.parser = this.files.hasNext() ? this.parserFactory.open(this.files.next()) : null;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return this.next != null;
+    }
+
+    @Override
+    public Document next() {
+        if(!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Document retval = this.next;
+        this.next = null;
+        return retval;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(this.parser != null) {
+            this.parser.close();
+            this.parser = null;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import main.model.document.Document;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The byte ranges of the document objects in the "documents" array of an index file. The ranges are found by a
+ * structural scan that tokenises the file but does not decode any document, after which each document can be decoded
+ * independently of the others.
+ */
+class DocumentRanges
+{
+    private final ByteBuffer content;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int size;
+
+    private DocumentRanges(ByteBuffer content, int[] offsets, int[] lengths, int size) {
+        this.content = content;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.size = size;
+    }
+
+    /**
+     * Scan the contents of an index file for the byte ranges of its documents.
+     *
+     * @param content The complete contents of the index file.
+     * @param codec The codec that provides the JSON parser.
+     * @return The byte ranges, or null if the parser does not report byte offsets. Jackson decodes a file in UTF-16 or
+     *         UTF-32 as characters, so such a file must be read sequentially instead.
+     * @throws IOException If the contents are not a syntactically valid document index.
+     */
+    static DocumentRanges scan(ByteBuffer content, IndexCodec codec) throws IOException {
+        int[] offsets = new int[1024];
+        int[] lengths = new int[1024];
+        int size = 0;
+
+        JsonParser jsonParser = createParser(codec.getJsonFactory(), content, 0, content.limit());
+
+        try (DocumentIndexParser parser = new DocumentIndexParser(jsonParser, codec.getDocumentReader())) {
+            while(parser.nextDocumentStart()) {
+                int start = (int) jsonParser.getTokenLocation().getByteOffset();
+                jsonParser.skipChildren();
+                int end = (int) jsonParser.getCurrentLocation().getByteOffset();
+                if(start < 0 || end < 0) {
+                    return null;
+                }
+
+                if(size == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, size * 2);
+                    lengths = Arrays.copyOf(lengths, size * 2);
+                }
+
+                offsets[size] = start;
+                lengths[size] = end - start;
+                size++;
+            }
+        }
+
+        return new DocumentRanges(content, offsets, lengths, size);
+    }
+
+    /**
+     * Retrieve the number of documents.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Retrieve the offset of the specified document in the file, in bytes.
+     */
+    int getOffset(int index) {
+        return this.offsets[index];
+    }
+
+    /**
+     * Retrieve the length of the specified document in the file, in bytes.
+     */
+    int getLength(int index) {
+        return this.lengths[index];
+    }
+
+    /**
+     * Compute a 64-bit FNV-1a hash of the raw bytes of the specified document. Documents with equal bytes have equal
+     * hashes, so the hash tells which documents changed between two versions of a file without decoding them.
+     */
+    long hash(int index) {
+        long hash = 0xcbf29ce484222325L;
+
+        int end = this.offsets[index] + this.lengths[index];
+        for (int i = this.offsets[index]; i < end; i++) {
+            hash ^= this.content.get(i) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Decode the specified document. This is safe to call from several threads at once.
+     *
+     * @param index The position of the document in the "documents" array.
+     * @param codec The codec that is used to decode the document.
+     * @throws IOException If the document could not be decoded.
+     */
+    Document decode(int index, IndexCodec codec) throws IOException {
+        ObjectReader reader = codec.getDocumentReader();
+
+        try (JsonParser parser = createParser(codec.getJsonFactory(), this.content, this.offsets[index], this.lengths[index])) {
+            return reader.readValue(parser);
+        }
+    }
+
+    /**
+     * Create a parser on a part of the file contents. Heap buffers are parsed in place, other buffers (e.g. memory
+     * mapped files) are read through a view of the buffer, so that the buffer position is never modified.
+     */
+    private static JsonParser createParser(JsonFactory factory, ByteBuffer content, int offset, int length) throws IOException {
+        if(content.hasArray()) {
+            return factory.createParser(content.array(), content.arrayOffset() + offset, length);
+        }
+
+        ByteBuffer view = content.duplicate();
+        view.position(offset).limit(offset + length);
+        return factory.createParser(new ByteBufferBackedInputStream(view));
+    }
+}
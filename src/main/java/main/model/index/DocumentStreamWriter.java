@@ -0,0 +1,106 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import main.model.document.Document;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes documents to an index file one at a time, so that the documents never need to be in memory all at once. The
+ * output is identical to that of {@link DocumentIndexWriter}.
+ */
+public class DocumentStreamWriter
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Iterator<Document> documents;
+
+    /**
+     * Constructor.
+     *
+     * @param documents The documents that will be written. The iterator is consumed by {@link #write(Path)}.
+     */
+    public DocumentStreamWriter(Iterator<Document> documents) {
+        this.documents = documents;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param documents The documents that will be written. The stream is consumed, but not closed, by
+     *                  {@link #write(Path)}.
+     */
+    public DocumentStreamWriter(Stream<Document> documents) {
+        this(documents.iterator());
+    }
+
+    /**
+     * Write the documents to a file. An existing file is overwritten.
+     *
+     * @param filename The {@link Path} that points to the target file.
+     * @throws IOException If something went wrong while writing the file, or while retrieving the documents.
+     */
+    public void write(Path filename) throws IOException {
+        FileChannel channel = FileChannel.open(filename, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+        this.write(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+    }
+
+    /**
+     * Write the documents to a stream. The stream is closed afterwards.
+     *
+     * @param out The stream that receives the UTF-8 encoded index.
+     * @throws IOException If something went wrong while writing to the stream, or while retrieving the documents.
+     */
+    public void write(OutputStream out) throws IOException {
+        IndexCodec codec = IndexCodec.getDefault();
+        ObjectWriter documentWriter = codec.getDocumentWriter();
+
+        try (JsonGenerator generator = codec.getJsonFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            // the same pretty printer that SerializationFeature.INDENT_OUTPUT installs
+            generator.setPrettyPrinter(new DefaultPrettyPrinter());
+
+            generator.writeStartObject();
+            generator.writeFieldName("documents");
+            generator.writeStartArray();
+
+            while(this.documents.hasNext()) {
+                documentWriter.writeValue(generator, this.documents.next());
+            }
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Document;
+import main.model.validation.ValidationErrors;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join task that validates a range of documents in parallel. The errors of the left half of a range are followed
+ * by those of the right half, so the errors come out in the same order as with sequential validation.
+ */
+class DocumentValidateTask extends RecursiveTask<ValidationErrors>
+{
+    /**
+     * Ranges with at most this many documents are validated by a single task.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 1024;
+
+    private final List<Document> documents;
+    private final int from;
+    private final int to;
+
+    /**
+     * Constructor.
+     *
+     * @param documents The documents of the index.
+     * @param from The position of the first document that is validated.
+     * @param to The position after the last document that is validated.
+     */
+    DocumentValidateTask(List<Document> documents, int from, int to) {
+        this.documents = documents;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected ValidationErrors compute() {
+        if(this.to - this.from <= SEQUENTIAL_THRESHOLD) {
+            ValidationErrors errors = new ValidationErrors();
+            DocumentIndex.validateDocuments(this.documents.subList(this.from, this.to), this.from, errors);
+            return errors;
+        }
+
+        int middle = (this.from + this.to) >>> 1;
+        DocumentValidateTask right = new DocumentValidateTask(this.documents, middle, this.to);
+        right.fork();
+
+        ValidationErrors errors = new DocumentValidateTask(this.documents, this.from, middle).compute();
+        ValidationErrors rightErrors = right.join();
+
+        // most indexes are valid, so most merges are of two empty sinks
+        if(errors.isEmpty()) {
+            return rightErrors;
+        }
+        errors.addAll(rightErrors);
+        return errors;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import java.util.Arrays;
+
+/**
+ * A group of documents in an index that are duplicates of each other, see {@link DuplicateDetector}.
+ */
+public class DuplicateCluster
+{
+    private final String key;
+    private final int[] positions;
+
+    /**
+     * Constructor.
+     *
+     * @param key The normalized key that the documents share.
+     * @param positions The positions of the documents in the index, in ascending order.
+     */
+    public DuplicateCluster(String key, int[] positions) {
+        this.key = key;
+        this.positions = positions;
+    }
+
+    /**
+     * Retrieve the normalized key that the documents share.
+     */
+    public String getKey() {
+        return this.key;
+    }
+
+    /**
+     * Retrieve the positions of the documents in the index, in ascending order. The first position is the original,
+     * the others are its duplicates.
+     */
+    public int[] getPositions() {
+        return this.positions.clone();
+    }
+
+    /**
+     * Retrieve the number of documents in the cluster.
+     */
+    public int size() {
+        return this.positions.length;
+    }
+
+    @Override
+    public String toString() {
+        return "%s: %s".formatted(Arrays.toString(this.positions), this.key);
+    }
+}
@@ -0,0 +1,272 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Author;
+import main.model.document.Document;
+import main.model.validation.EnumValidationError;
+import main.model.validation.ValidationErrors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds documents that are duplicates of each other, i.e. documents with the same title, the same author last names and
+ * the same publication year. Case, differences in whitespace, and the order of the authors are ignored. Documents
+ * without a title are never duplicates.
+ *
+ * Instead of comparing every pair of documents, every document is reduced to a 64-bit hash of its normalized key, and
+ * the documents are grouped by hash in an open-addressing table. Only documents that share a hash are compared by
+ * their full key, so the detection runs in linear time.
+ */
+public final class DuplicateDetector
+{
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private DuplicateDetector() {
+    }
+
+    /**
+     * Find the duplicate documents in a list of documents.
+     *
+     * @param documents The documents.
+     * @return The clusters of duplicates, ordered by the position of their first document.
+     */
+    public static List<DuplicateCluster> findDuplicates(List<Document> documents) {
+        int count = documents.size();
+
+        long[] hashes = new long[count];
+        boolean[] skipped = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            Document document = documents.get(i);
+            skipped[i] = isBlank(document.getTitle());
+            hashes[i] = skipped[i] ? 0 : hash(document);
+        }
+
+        // group the positions by hash: the table holds the first position of every hash (plus one, zero means empty),
+        // the other positions with that hash are chained through next (also plus one)
+        int capacity = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+        int[] table = new int[capacity];
+        int[] next = new int[count];
+        int[] tails = new int[count];
+        Arrays.fill(tails, -1);
+
+        for (int i = 0; i < count; i++) {
+            if(skipped[i]) {
+                continue;
+            }
+
+            long hash = hashes[i];
+            int slot = (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+
+            while(true) {
+                int head = table[slot] - 1;
+
+                if(head < 0) {
+                    table[slot] = i + 1;
+                    tails[i] = i;
+                    break;
+                }
+                if(hashes[head] == hash) {
+                    next[tails[head]] = i + 1;
+                    tails[head] = i;
+                    break;
+                }
+                slot = (slot + 1) & (capacity - 1);
+            }
+        }
+
+        List<DuplicateCluster> clusters = new ArrayList<>();
+        for (int head = 0; head < count; head++) {
+            // only the first position of a hash has a tail, and groups of a single document have no next
+            if(tails[head] >= 0 && next[head] != 0) {
+                addClusters(documents, head, next, clusters);
+            }
+        }
+
+        // a hash collision splits a group into several clusters, which may come out of order
+        clusters.sort(Comparator.comparingInt(cluster -> cluster.getPositions()[0]));
+        return clusters;
+    }
+
+    /**
+     * Find the duplicate documents, and report an error for every document that duplicates an earlier document. The
+     * first document of every cluster is not reported, so leaving out the reported documents keeps one of each.
+     *
+     * @param documents The documents.
+     * @param errors The sink that receives the errors.
+     */
+    public static void validate(List<Document> documents, ValidationErrors errors) {
+        for (DuplicateCluster cluster : findDuplicates(documents)) {
+            int[] positions = cluster.getPositions();
+
+            for (int i = 1; i < positions.length; i++) {
+                errors.enter("document", positions[i]);
+                errors.add(EnumValidationError.DOCUMENT_DUPLICATE, positions[0]);
+                errors.leave();
+            }
+        }
+    }
+
+    /**
+     * Retrieve the normalized key of a document: the title, the sorted last names of the authors and the publication
+     * year, in lower case and with all whitespace collapsed to single spaces.
+     */
+    public static String getKey(Document document) {
+        StringBuilder buffer = new StringBuilder();
+
+        List<Author> authors = document.getAuthors();
+        String[] lastNames = new String[authors.size()];
+        for (int i = 0; i < lastNames.length; i++) {
+            buffer.setLength(0);
+            lastNames[i] = normalize(authors.get(i).getLastName(), buffer).toString();
+        }
+        Arrays.sort(lastNames);
+
+        buffer.setLength(0);
+        normalize(document.getTitle(), buffer).append(" | ").append(String.join(", ", lastNames)).append(" | ");
+        if(document.getPublicationYear() != null) {
+            buffer.append(document.getPublicationYear().getValue());
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Compare the documents of a hash group by their keys, and add a cluster for every key with several documents.
+     */
+    private static void addClusters(List<Document> documents, int head, int[] next, List<DuplicateCluster> clusters) {
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int position = head; position >= 0; position = next[position] - 1) {
+            groups.computeIfAbsent(getKey(documents.get(position)), key -> new ArrayList<>()).add(position);
+        }
+
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            if(group.getValue().size() > 1) {
+                clusters.add(new DuplicateCluster(group.getKey(), group.getValue().stream().mapToInt(Integer::intValue).toArray()));
+            }
+        }
+    }
+
+    /**
+     * Compute the hash of the normalized key of a document, without building the key. The hashes of the last names are
+     * added up, so that the order of the authors does not matter.
+     */
+    private static long hash(Document document) {
+        long hash = hashNormalized(document.getTitle());
+
+        List<Author> authors = document.getAuthors();
+        long authorsHash = 0;
+        for (int i = 0; i < authors.size(); i++) {
+            authorsHash += finish(hashNormalized(authors.get(i).getLastName()));
+        }
+
+        hash = (hash ^ authorsHash) * PRIME;
+        hash = (hash ^ authors.size()) * PRIME;
+        int year = (document.getPublicationYear() == null) ? Integer.MIN_VALUE : document.getPublicationYear().getValue();
+        return finish((hash ^ year) * PRIME);
+    }
+
+    /**
+     * Write the lower-case value, with leading and trailing whitespace removed and inner whitespace collapsed to a
+     * single space, to the buffer, replacing its contents. A null value is written as an empty string.
+     */
+    private static StringBuilder normalize(String value, StringBuilder buffer) {
+        buffer.setLength(0);
+        if(value == null) {
+            return buffer;
+        }
+
+        boolean space = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if(Character.isWhitespace(c)) {
+                space = buffer.length() > 0;
+            } else {
+                if(space) {
+                    buffer.append(' ');
+                    space = false;
+                }
+                buffer.append(Character.toLowerCase(c));
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Hash the value as {@link #normalize} would write it, character by character. ASCII characters, which make up
+     * almost all titles and names, skip the general Unicode lookups.
+     */
+    private static long hashNormalized(String value) {
+        long hash = OFFSET_BASIS;
+        if(value == null) {
+            return hash;
+        }
+
+        int length = 0;
+        boolean space = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            boolean whitespace;
+            if(c < 128) {
+                // the ASCII characters for which Character.isWhitespace is true
+                whitespace = c == ' ' || (c >= '\t' && c <= '\r') || (c >= 0x1c && c <= 0x1f);
+                if(c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                }
+            } else {
+                whitespace = Character.isWhitespace(c);
+                c = Character.toLowerCase(c);
+            }
+
+            if(whitespace) {
+                space = length > 0;
+                continue;
+            }
+            if(space) {
+                hash = (hash ^ ' ') * PRIME;
+                length++;
+                space = false;
+            }
+            hash = (hash ^ c) * PRIME;
+            length++;
+        }
+        return (hash ^ length) * PRIME;
+    }
+
+    /**
+     * Spread the bits of a hash, so that sums of hashes and the low bits that select a table slot are well mixed.
+     */
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
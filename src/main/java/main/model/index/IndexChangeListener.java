@@ -0,0 +1,42 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import java.io.IOException;
+
+/**
+ * Receives the changes that an {@link IndexFileWatcher} finds in an index file. The methods are called on the thread
+ * of the watcher.
+ */
+public interface IndexChangeListener
+{
+    /**
+     * Called when the documents in the index file changed.
+     *
+     * @param diff The changes since the previous version of the file.
+     */
+    void indexChanged(IndexDiff diff);
+
+    /**
+     * Called when the new version of the index file could not be read, e.g. because it is invalid. The previous
+     * version stays the reference for the next change.
+     *
+     * @param e The reason why the file could not be read.
+     */
+    void reloadFailed(IOException e);
+}
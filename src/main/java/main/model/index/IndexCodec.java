@@ -0,0 +1,133 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import main.model.document.Document;
+
+/**
+ * Holds the Jackson readers and writers that are used to (de)serialise document indices. The readers and writers are
+ * configured once, and are immutable and thread-safe, so that the introspection of {@link Document} and its fields
+ * only happens once per application run instead of on every read or write.
+ */
+public final class IndexCodec
+{
+    private static final IndexCodec DEFAULT = new IndexCodec();
+
+    private final JsonFactory jsonFactory;
+    private final ObjectReader documentReader;
+    private final ObjectReader indexReader;
+    private final ObjectWriter documentWriter;
+    private final ObjectWriter indexWriter;
+    private final ObjectReader journalRecordReader;
+    private final ObjectWriter journalRecordWriter;
+    private final ObjectReader manifestReader;
+    private final ObjectWriter manifestWriter;
+
+    /**
+     * Constructor. The (de)serialisers for the index classes are resolved eagerly.
+     */
+    private IndexCodec() {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        this.jsonFactory = objectMapper.getFactory();
+        this.documentReader = objectMapper.readerFor(Document.class);
+        this.indexReader = objectMapper.readerFor(DocumentIndex.class);
+        this.documentWriter = objectMapper.writerFor(Document.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.indexWriter = objectMapper.writerFor(DocumentIndex.class).with(SerializationFeature.INDENT_OUTPUT);
+        this.journalRecordReader = objectMapper.readerFor(JournalRecord.class);
+        this.journalRecordWriter = objectMapper.writerFor(JournalRecord.class);
+        this.manifestReader = objectMapper.readerFor(ShardManifest.class);
+        this.manifestWriter = objectMapper.writerFor(ShardManifest.class).with(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Retrieve the codec that is shared by the whole application.
+     */
+    public static IndexCodec getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Retrieve the factory that creates the streaming parsers and generators.
+     */
+    public JsonFactory getJsonFactory() {
+        return this.jsonFactory;
+    }
+
+    /**
+     * Retrieve the reader that decodes a single {@link Document}.
+     */
+    public ObjectReader getDocumentReader() {
+        return this.documentReader;
+    }
+
+    /**
+     * Retrieve the reader that decodes a complete {@link DocumentIndex}.
+     */
+    public ObjectReader getIndexReader() {
+        return this.indexReader;
+    }
+
+    /**
+     * Retrieve the writer that encodes a single {@link Document}. The writer does not indent its output, unless the
+     * generator it writes to has a pretty printer, and it does not flush the generator after every document.
+     */
+    public ObjectWriter getDocumentWriter() {
+        return this.documentWriter;
+    }
+
+    /**
+     * Retrieve the writer that encodes a complete {@link DocumentIndex} in the indented index file format.
+     */
+    public ObjectWriter getIndexWriter() {
+        return this.indexWriter;
+    }
+
+    /**
+     * Retrieve the reader that decodes a line of the change journal.
+     */
+    ObjectReader getJournalRecordReader() {
+        return this.journalRecordReader;
+    }
+
+    /**
+     * Retrieve the writer that encodes a line of the change journal.
+     */
+    ObjectWriter getJournalRecordWriter() {
+        return this.journalRecordWriter;
+    }
+
+    /**
+     * Retrieve the reader that decodes the manifest of a sharded index.
+     */
+    ObjectReader getManifestReader() {
+        return this.manifestReader;
+    }
+
+    /**
+     * Retrieve the writer that encodes the manifest of a sharded index.
+     */
+    ObjectWriter getManifestWriter() {
+        return this.manifestWriter;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Document;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The difference between two versions of an index, as found by {@link IndexFileWatcher}. The old version is turned into
+ * the new version by, in this order:
+ *  - replacing the updated documents, whose positions are the same in both versions,
+ *  - removing {@link #getRemovedCount()} documents at {@link #getPosition()},
+ *  - inserting the inserted documents at {@link #getPosition()}.
+ * At most one of the last two steps does anything.
+ */
+public class IndexDiff
+{
+    private final SortedMap<Integer, Document> updatedDocuments;
+    private final int position;
+    private final int removedCount;
+    private final List<Document> insertedDocuments;
+
+    /**
+     * Constructor.
+     *
+     * @param updatedDocuments The new documents, by position.
+     * @param position The position at which documents are removed or inserted.
+     * @param removedCount The number of documents that are removed.
+     * @param insertedDocuments The documents that are inserted.
+     */
+    IndexDiff(SortedMap<Integer, Document> updatedDocuments, int position, int removedCount, List<Document> insertedDocuments) {
+        this.updatedDocuments = Collections.unmodifiableSortedMap(updatedDocuments);
+        this.position = position;
+        this.removedCount = removedCount;
+        this.insertedDocuments = Collections.unmodifiableList(insertedDocuments);
+    }
+
+    /**
+     * Retrieve the documents that were changed, by position.
+     */
+    public SortedMap<Integer, Document> getUpdatedDocuments() {
+        return this.updatedDocuments;
+    }
+
+    /**
+     * Retrieve the position at which documents were removed or inserted.
+     */
+    public int getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Retrieve the number of documents that were removed.
+     */
+    public int getRemovedCount() {
+        return this.removedCount;
+    }
+
+    /**
+     * Retrieve the documents that were inserted.
+     */
+    public List<Document> getInsertedDocuments() {
+        return this.insertedDocuments;
+    }
+
+    /**
+     * Determine whether the two versions contain the same documents.
+     */
+    public boolean isEmpty() {
+        return this.updatedDocuments.isEmpty() && this.removedCount == 0 && this.insertedDocuments.isEmpty();
+    }
+
+    /**
+     * Turn the old version of the documents into the new version.
+     *
+     * @param documents The documents of the old version, this list is modified.
+     */
+    public void applyTo(List<Document> documents) {
+        for (Map.Entry<Integer, Document> entry : this.updatedDocuments.entrySet()) {
+            documents.set(entry.getKey(), entry.getValue());
+        }
+
+        documents.subList(this.position, this.position + this.removedCount).clear();
+        documents.addAll(this.position, this.insertedDocuments);
+    }
+}
@@ -0,0 +1,365 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import com.fasterxml.jackson.core.JsonParser;
+import main.model.document.Document;
+import main.model.validation.IndexValidationException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Checksum;
+
+/**
+ * Watches an index file for changes made by other programs, e.g. a tool that synchronises the file between machines,
+ * and reports which documents were added, removed or changed.
+ *
+ * The watcher remembers a hash of the raw bytes of every document (see {@link DocumentRanges#hash(int)}). When the
+ * file changes, the new version is only scanned for its document boundaries and hashed. The documents at the start and
+ * end of the index that kept their hash are skipped, and the remaining documents are compared by position. Only the
+ * documents that differ are decoded and validated, so the cost of a reload beyond the scan depends on the size of the
+ * change rather than the size of the index.
+ *
+ * The change journal of the index (see {@link DocumentIndexJournal}) is watched too, and its changes are applied to
+ * the scanned documents, so the watcher reports the same documents as a {@link DocumentIndexReader} that replays the
+ * journal. Documents that the journal adds or updates are hashed after they are decoded.
+ *
+ * To show an index and follow its changes, create the watcher and {@link #start()} it, then read the index with a
+ * {@link DocumentIndexReader}. If {@link DocumentIndexReader#getSourceChecksum()} equals
+ * {@link #getSourceChecksum()}, the reader read the version that the first change is compared to, and no change is
+ * missed. Otherwise the file changed in between, and the index must be read again with a new watcher.
+ */
+public class IndexFileWatcher implements Closeable
+{
+    /**
+     * Time without new events after which a changed file is considered to be completely written, in milliseconds.
+     */
+    private static final long SETTLE_TIME = 200;
+
+    private final Path path;
+    private final IndexChangeListener listener;
+    private final IndexCodec codec = IndexCodec.getDefault();
+
+    private final long sourceChecksum;
+
+    private long[] hashes;
+    private WatchService watchService = null;
+    private Thread thread = null;
+
+    /**
+     * Constructor. The current version of the file becomes the reference for the first change. Only the hashes of the
+     * documents are kept.
+     *
+     * @param indexFile The index file that is watched. This can be the manifest of a sharded index.
+     * @param listener The listener that receives the changes.
+     * @throws IOException If the file could not be read.
+     */
+    public IndexFileWatcher(Path indexFile, IndexChangeListener listener) throws IOException {
+        this.path = indexFile.toAbsolutePath();
+        this.listener = listener;
+
+        Scan scan = this.scan();
+        this.sourceChecksum = scan.sourceChecksum;
+        this.hashes = scan.hashes;
+    }
+
+    /**
+     * Retrieve the checksum of the version of the file, and of its journal, that was current when the watcher was
+     * created, see {@link DocumentIndexReader#getSourceChecksum()}.
+     */
+    public long getSourceChecksum() {
+        return this.sourceChecksum;
+    }
+
+    /**
+     * Start watching the file on a background thread.
+     *
+     * @throws IOException If the directory of the file cannot be watched.
+     */
+    public synchronized void start() throws IOException {
+        if(this.thread != null) {
+            return;
+        }
+
+        this.watchService = this.path.getFileSystem().newWatchService();
+        // replacing the file through a rename shows up as a creation
+        this.path.getParent().register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        this.thread = new Thread(this::watch, "index-watch");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Read the current version of the file and compare it to the previous version. If the file could be read, the
+     * current version becomes the reference for the next change.
+     *
+     * @return The changes since the previous version.
+     * @throws IndexValidationException If any of the changed documents are invalid.
+     * @throws IOException If the file could not be read.
+     */
+    public synchronized IndexDiff checkForChanges() throws IOException {
+        Scan scan = this.scan();
+        long[] oldHashes = this.hashes;
+        long[] newHashes = scan.hashes;
+
+        // skip the documents that did not change at the start and end of the index
+        int common = Math.min(oldHashes.length, newHashes.length);
+        int prefix = 0;
+        while(prefix < common && oldHashes[prefix] == newHashes[prefix]) {
+            prefix++;
+        }
+
+        int suffix = 0;
+        while(suffix < common - prefix && oldHashes[oldHashes.length - 1 - suffix] == newHashes[newHashes.length - 1 - suffix]) {
+            suffix++;
+        }
+
+        int oldCount = oldHashes.length - prefix - suffix;
+        int newCount = newHashes.length - prefix - suffix;
+        int position = prefix + Math.min(oldCount, newCount);
+
+        SortedMap<Integer, Document> updated = new TreeMap<>();
+        List<String> errorMsgs = new ArrayList<>();
+
+        for (int i = prefix; i < position; i++) {
+            if(oldHashes[i] != newHashes[i]) {
+                Document document = scan.decode(i, this.codec);
+                DocumentIndex.validateDocuments(List.of(document), i, errorMsgs);
+                updated.put(i, document);
+            }
+        }
+
+        List<Document> inserted = new ArrayList<>();
+        for (int i = position; i < prefix + newCount; i++) {
+            inserted.add(scan.decode(i, this.codec));
+        }
+        DocumentIndex.validateDocuments(inserted, position, errorMsgs);
+
+        if(!errorMsgs.isEmpty()) {
+            throw new IndexValidationException(errorMsgs);
+        }
+
+        this.hashes = newHashes;
+        return new IndexDiff(updated, position, Math.max(0, oldCount - newCount), inserted);
+    }
+
+    /**
+     * Stop watching the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if(this.watchService != null) {
+            this.watchService.close();
+        }
+        if(this.thread != null) {
+            this.thread.interrupt();
+        }
+    }
+
+    /**
+     * Wait for changes to the file and report them. Runs on the watcher thread.
+     */
+    private void watch() {
+        try {
+            while(true) {
+                if(!this.isIndexChanged(this.watchService.take())) {
+                    continue;
+                }
+
+                // programs often write a file in several steps, wait until the events stop
+                WatchKey key;
+                while((key = this.watchService.poll(SETTLE_TIME, TimeUnit.MILLISECONDS)) != null) {
+                    this.isIndexChanged(key);
+                }
+
+                try {
+                    IndexDiff diff = this.checkForChanges();
+                    if(!diff.isEmpty()) {
+                        this.listener.indexChanged(diff);
+                    }
+                } catch (NoSuchFileException ignored) {
+                    // the file was removed, the next version is compared to the last version that was read
+                } catch (IOException e) {
+                    this.listener.reloadFailed(e);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the watcher was closed
+        }
+    }
+
+    /**
+     * Consume the events of a watch key, and determine whether any of them concern the index file.
+     */
+    private boolean isIndexChanged(WatchKey key) {
+        boolean retval = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if(this.isWatchedFile(event.context())) {
+                retval = true;
+            }
+        }
+
+        key.reset();
+        return retval;
+    }
+
+    /**
+     * Determine whether an event concerns the index file or its journal.
+     */
+    private boolean isWatchedFile(Object context) {
+        return this.path.getFileName().equals(context)
+                || DocumentIndexJournal.getJournalPath(this.path).getFileName().equals(context)
+                || DocumentIndexJournal.getCompactingPath(this.path).getFileName().equals(context);
+    }
+
+    /**
+     * Scan the current version of the file, or of all its shards, for the documents and their hashes, and apply the
+     * journal to them.
+     */
+    private Scan scan() throws IOException {
+        ShardManifest manifest = ShardedIndex.readManifest(this.path);
+        List<Path> files = (manifest == null) ? List.of(this.path) : ShardedIndex.getShardFiles(this.path, manifest);
+
+        List<ByteBuffer> contents = new ArrayList<>(files.size());
+        for (Path file : files) {
+            contents.add(ByteBuffer.wrap(Files.readAllBytes(file)));
+        }
+        long fileChecksum = (manifest == null) ? BinarySnapshot.checksum(contents.get(0).duplicate()) : ShardedIndex.checksum(manifest);
+        Checksum versionChecksum = DocumentIndexJournal.createVersionChecksum(fileChecksum);
+
+        List<DocumentRanges> parts = new ArrayList<>(files.size());
+        int size = 0;
+        for (ByteBuffer content : contents) {
+            DocumentRanges ranges = DocumentRanges.scan(content, this.codec);
+            if(ranges == null) {
+                return this.scanSequentially(contents, versionChecksum);
+            }
+            parts.add(ranges);
+            size += ranges.size();
+        }
+
+        long[] fileHashes = new long[size];
+        int i = 0;
+        for (DocumentRanges ranges : parts) {
+            for (int j = 0; j < ranges.size(); j++) {
+                fileHashes[i++] = ranges.hash(j);
+            }
+        }
+
+        // the documents of the journal are kept decoded, the documents of the file by their position in the file
+        List<Object> documents = null;
+        long[] hashes = fileHashes;
+        if(DocumentIndexJournal.exists(this.path)) {
+            documents = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+                documents.add(j);
+            }
+
+            if(DocumentIndexJournal.replay(this.path, documents, document -> document, versionChecksum)) {
+                hashes = new long[documents.size()];
+                for (int j = 0; j < hashes.length; j++) {
+                    Object document = documents.get(j);
+                    hashes[j] = (document instanceof Integer position) ? fileHashes[position] : DocumentHasher.hash((Document) document);
+                }
+            } else {
+                documents = null;
+            }
+        }
+
+        return new Scan(parts, documents, hashes, versionChecksum.getValue());
+    }
+
+    /**
+     * Decode all documents of a version of the file whose documents cannot be located by their byte offsets (see
+     * {@link DocumentRanges#scan(ByteBuffer, IndexCodec)}), and hash the decoded documents instead of their bytes.
+     */
+    private Scan scanSequentially(List<ByteBuffer> contents, Checksum versionChecksum) throws IOException {
+        List<Object> documents = new ArrayList<>();
+        for (ByteBuffer content : contents) {
+            JsonParser jsonParser = this.codec.getJsonFactory().createParser(content.array(), content.arrayOffset(), content.limit());
+            try (DocumentIndexParser parser = new DocumentIndexParser(jsonParser, this.codec.getDocumentReader())) {
+                while(parser.nextDocumentStart()) {
+                    documents.add(parser.readDocument());
+                }
+            }
+        }
+
+        DocumentIndexJournal.replay(this.path, documents, document -> document, versionChecksum);
+
+        long[] hashes = new long[documents.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = DocumentHasher.hash((Document) documents.get(i));
+        }
+
+        return new Scan(List.of(), documents, hashes, versionChecksum.getValue());
+    }
+
+    /**
+     * The documents of one version of the file, which may be spread over several shards, and of its journal.
+     */
+    private static class Scan
+    {
+        final List<DocumentRanges> parts;
+        // the position in the file or the document of the journal, for every document, or null without a journal
+        final List<Object> documents;
+        final long[] hashes;
+        final long sourceChecksum;
+
+        Scan(List<DocumentRanges> parts, List<Object> documents, long[] hashes, long sourceChecksum) {
+            this.parts = parts;
+            this.documents = documents;
+            this.hashes = hashes;
+            this.sourceChecksum = sourceChecksum;
+        }
+
+        Document decode(int index, IndexCodec codec) throws IOException {
+            if(this.documents != null) {
+                Object document = this.documents.get(index);
+                if(!(document instanceof Integer position)) {
+                    return (Document) document;
+                }
+                index = position;
+            }
+
+            for (DocumentRanges ranges : this.parts) {
+                if(index < ranges.size()) {
+                    return ranges.decode(index, codec);
+                }
+                index -= ranges.size();
+            }
+
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+}
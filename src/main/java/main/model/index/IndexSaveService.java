@@ -0,0 +1,201 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Saves a document index in the background, so that saving never blocks the thread that edits the index (e.g. the
+ * Swing event dispatch thread).
+ *
+ * Editors call {@link #markDirty()} after every change. The first signal schedules a save after the debounce window,
+ * and signals that arrive before that save starts are merged into it. The save runs on a worker thread and writes the
+ * index atomically, through a temporary file that replaces the index file.
+ *
+ * To give the worker a consistent view of the index, editors must hold the write lock of {@link #getLock()} while
+ * they change the index. The worker holds the read lock while it serialises the index. A {@link SnapshotDocumentIndex}
+ * is saved from the snapshot that {@link #markDirty()} takes instead, without the lock, so editors are never blocked by
+ * a save. For such an index, markDirty() must be called on the thread that edits the index.
+ */
+public class IndexSaveService implements Closeable
+{
+    private final DocumentIndex index;
+    private final Path target;
+    private final long debounceNanos;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SaveMetrics metrics = new SaveMetrics();
+    private final ScheduledExecutorService executor;
+
+    private ScheduledFuture<?> pending = null;
+    private volatile IndexSnapshot snapshot = null;
+    private volatile IOException lastError = null;
+    private volatile Consumer<IOException> errorHandler = e -> {};
+
+    /**
+     * Constructor.
+     *
+     * @param index The index that will be saved.
+     * @param target The file that the index is saved to.
+     * @param debounce The time between the first "dirty" signal and the save that includes it.
+     */
+    public IndexSaveService(DocumentIndex index, Path target, Duration debounce) {
+        this.index = index;
+        this.target = target;
+        this.debounceNanos = debounce.toNanos();
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "index-save");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Retrieve the lock that guards the index. Hold the write lock while changing the index.
+     */
+    public ReadWriteLock getLock() {
+        return this.lock;
+    }
+
+    /**
+     * Retrieve the counters of this service.
+     */
+    public SaveMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Set the function that is called on the worker thread when a save fails.
+     */
+    public void setErrorHandler(Consumer<IOException> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Signal that the index was changed and needs to be saved. The snapshot of a {@link SnapshotDocumentIndex} is
+     * taken here, which includes the changes to the documents that were retrieved from it.
+     */
+    public synchronized void markDirty() {
+        if(this.index instanceof SnapshotDocumentIndex snapshotIndex) {
+            this.snapshot = snapshotIndex.snapshot();
+        }
+
+        boolean coalesced = (this.pending != null);
+        this.metrics.recordQueued(coalesced);
+
+        if(!coalesced) {
+            this.pending = this.executor.schedule(this::save, this.debounceNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Save a pending change right away, and wait until all saves have finished.
+     *
+     * @throws IOException If the last save failed.
+     */
+    public void flush() throws IOException {
+        Future<?> future;
+
+        synchronized (this) {
+            if(this.pending != null && this.pending.cancel(false)) {
+                this.pending = null;
+                future = this.executor.submit(this::save);
+            } else {
+                // the single worker thread runs this after the save that is currently running, if any
+                future = this.executor.submit(() -> {});
+            }
+        }
+
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the index to be saved", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+
+        IOException error = this.lastError;
+        if(error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Save pending changes and stop the worker thread.
+     *
+     * @throws IOException If the last save failed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.flush();
+        } finally {
+            this.executor.shutdown();
+        }
+    }
+
+    /**
+     * Write the index to the target file. Runs on the worker thread.
+     */
+    private void save() {
+        synchronized (this) {
+            this.pending = null;
+        }
+
+        // a snapshot does not change while it is written, so it needs no lock
+        DocumentIndex source = this.index;
+        boolean locked = !(source instanceof SnapshotDocumentIndex);
+        if(locked) {
+            this.lock.readLock().lock();
+        } else {
+            source = this.snapshot.toIndex();
+        }
+        long start = System.nanoTime();
+
+        try {
+            DocumentIndexWriter writer = new DocumentIndexWriter(source);
+            writer.setAtomic(true);
+            writer.write(this.target);
+
+            this.metrics.recordWrite(System.nanoTime() - start, true);
+            this.lastError = null;
+        } catch (IOException e) {
+            this.metrics.recordWrite(System.nanoTime() - start, false);
+            this.lastError = e;
+            this.errorHandler.accept(e);
+        } finally {
+            if(locked) {
+                this.lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Document;
+import main.model.document.ImmutableDocument;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable version of the documents of an index. Snapshots share their documents and most of their structure with
+ * the versions they were derived from, see {@link PersistentVector}, so keeping old versions, e.g. for undo, costs
+ * memory in proportion to the changes, and a snapshot can be saved or read on another thread without a lock.
+ *
+ * Not to be confused with {@link BinarySnapshot}, which is a binary copy of an index file that speeds up reading it.
+ */
+public final class IndexSnapshot
+{
+    private static final IndexSnapshot EMPTY = new IndexSnapshot(PersistentVector.empty());
+
+    private final PersistentVector<ImmutableDocument> documents;
+
+    private IndexSnapshot(PersistentVector<ImmutableDocument> documents) {
+        this.documents = documents;
+    }
+
+    /**
+     * Retrieve the snapshot without documents.
+     */
+    public static IndexSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create a snapshot with immutable copies of the documents.
+     */
+    public static IndexSnapshot of(List<Document> documents) {
+        PersistentVector<ImmutableDocument> retval = PersistentVector.empty();
+        for (Document document : documents) {
+            retval = retval.append(ImmutableDocument.of(document));
+        }
+        return new IndexSnapshot(retval);
+    }
+
+    /**
+     * Retrieve the number of documents.
+     */
+    public int size() {
+        return this.documents.size();
+    }
+
+    /**
+     * Retrieve the document at the specified position.
+     */
+    public ImmutableDocument get(int position) {
+        return this.documents.get(position);
+    }
+
+    /**
+     * Retrieve the documents as an unmodifiable list.
+     */
+    public List<ImmutableDocument> getDocuments() {
+        return this.documents.asList();
+    }
+
+    /**
+     * Create a snapshot in which the document at the specified position is replaced. Takes O(log n) time.
+     */
+    public IndexSnapshot set(int position, ImmutableDocument document) {
+        return new IndexSnapshot(this.documents.set(position, document));
+    }
+
+    /**
+     * Create a snapshot with the document added at the end. Takes O(log n) time.
+     */
+    public IndexSnapshot add(ImmutableDocument document) {
+        return new IndexSnapshot(this.documents.append(document));
+    }
+
+    /**
+     * Create a snapshot without the document at the specified position. The documents before the position keep their
+     * place in the tree, which is shared, and the documents after it are appended again. This takes O(log n) time for
+     * the last document and O(n - position) time in general, so removing near the start of a large index is as
+     * expensive as copying it, although the documents themselves are still shared.
+     *
+     * @throws IndexOutOfBoundsException If the position is out of range.
+     */
+    public IndexSnapshot remove(int position) {
+        Objects.checkIndex(position, this.documents.size());
+
+        PersistentVector<ImmutableDocument> retval = this.documents.take(position);
+        for (int i = position + 1; i < this.documents.size(); i++) {
+            retval = retval.append(this.documents.get(i));
+        }
+        return new IndexSnapshot(retval);
+    }
+
+    /**
+     * Create an editable index that starts at this snapshot, e.g. to save the snapshot with a
+     * {@link DocumentIndexWriter}.
+     */
+    public SnapshotDocumentIndex toIndex() {
+        return new SnapshotDocumentIndex(this);
+    }
+}
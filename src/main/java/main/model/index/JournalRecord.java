@@ -0,0 +1,81 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import main.model.document.Document;
+
+/**
+ * A single line of the change journal of an index.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+class JournalRecord
+{
+    /**
+     * The kind of change that is recorded.
+     */
+    enum Operation
+    {
+        /**
+         * A document was inserted at a position.
+         */
+        ADD,
+
+        /**
+         * The document at a position was replaced.
+         */
+        UPDATE,
+
+        /**
+         * The document at a position was removed.
+         */
+        DELETE,
+
+        /**
+         * The preceding records were merged into the index file that has the recorded checksum.
+         */
+        COMMIT
+    }
+
+    @JsonProperty("op")
+    final Operation operation;
+
+    @JsonProperty("position")
+    final Integer position;
+
+    @JsonProperty("document")
+    final Document document;
+
+    @JsonProperty("checksum")
+    final Long checksum;
+
+    @JsonCreator
+    JournalRecord(
+            @JsonProperty("op") Operation operation,
+            @JsonProperty("position") Integer position,
+            @JsonProperty("document") Document document,
+            @JsonProperty("checksum") Long checksum
+    ) {
+        this.operation = operation;
+        this.position = position;
+        this.document = document;
+        this.checksum = checksum;
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Document;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Document index that only knows the byte ranges of its documents when it is opened. A document is decoded when it is
+ * first accessed through {@link #getDocumentList()}, and decoded documents are kept in a bounded least-recently-used
+ * cache.
+ *
+ * Because documents can be evicted from the cache, changes to a document must be stored with
+ * {@link java.util.List#set(int, Object)}; documents that were set explicitly are never evicted. Adding or removing
+ * documents is not supported, use {@link #setDocumentList(java.util.List)} to replace the list as a whole instead.
+ * The documents that the journal of the file changed are kept in memory like documents that were set.
+ *
+ * The byte ranges may lie in a memory mapping of the file, so {@link DocumentIndexWriter} always replaces the file
+ * atomically when the index is written back to it.
+ */
+public class LazyDocumentIndex extends DocumentIndex
+{
+    /**
+     * The default number of decoded documents that are kept in memory.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private final Path sourceFile;
+
+    /**
+     * Constructor.
+     *
+     * @param ranges The byte ranges of the documents.
+     * @param codec The codec that decodes the documents.
+     * @param cacheSize The maximum number of decoded documents that are cached.
+     * @param sourceFile The file that holds the byte ranges, or null if they are kept in memory.
+     */
+    LazyDocumentIndex(DocumentRanges ranges, IndexCodec codec, int cacheSize, Path sourceFile) {
+        this(ranges, codec, cacheSize, sourceFile, null, Map.of());
+    }
+
+    /**
+     * Constructor for a file whose documents were moved or replaced, e.g. by its journal.
+     *
+     * @param ranges The byte ranges of the documents.
+     * @param codec The codec that decodes the documents.
+     * @param cacheSize The maximum number of decoded documents that are cached.
+     * @param sourceFile The file that holds the byte ranges, or null if they are kept in memory.
+     * @param positions For every document of the index, the index of its byte range, or null if the documents are
+     *                  those of the ranges in order.
+     * @param documents The documents that do not come from a byte range, by position.
+     */
+    LazyDocumentIndex(DocumentRanges ranges, IndexCodec codec, int cacheSize, Path sourceFile, int[] positions, Map<Integer, Document> documents) {
+        this.sourceFile = sourceFile;
+        this.setDocumentList(new LazyDocumentList(ranges, codec, cacheSize, positions, documents));
+        // the documents are decoded under the lock of the list, so parallel validation would only contend for it
+        this.setParallelValidation(false);
+    }
+
+    /**
+     * Check whether the documents are decoded from the contents of the specified file.
+     */
+    boolean readsFrom(Path file) throws IOException {
+        return this.sourceFile != null && Files.exists(file) && Files.isSameFile(this.sourceFile, file);
+    }
+
+    /**
+     * List view that decodes the documents on access.
+     */
+    private static class LazyDocumentList extends AbstractList<Document> implements RandomAccess
+    {
+        private final DocumentRanges ranges;
+        private final IndexCodec codec;
+        private final Map<Integer, Document> cache;
+        private final Map<Integer, Document> pinned;
+        private final int[] positions;
+
+        LazyDocumentList(DocumentRanges ranges, IndexCodec codec, int cacheSize, int[] positions, Map<Integer, Document> documents) {
+            this.ranges = ranges;
+            this.codec = codec;
+            this.positions = positions;
+            this.pinned = new HashMap<>(documents);
+            this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Document> eldest) {
+                    return this.size() > cacheSize;
+                }
+            };
+        }
+
+        @Override
+        public synchronized Document get(int index) {
+            if(index < 0 || index >= this.size()) {
+                throw new IndexOutOfBoundsException("Index needs to be between 0 and %d, actual value: %d".formatted(this.size()-1, index));
+            }
+
+            Document document = this.pinned.get(index);
+            if(document != null) {
+                return document;
+            }
+
+            document = this.cache.get(index);
+            if(document == null) {
+                try {
+                    document = this.ranges.decode((this.positions != null) ? this.positions[index] : index, this.codec);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                this.cache.put(index, document);
+            }
+
+            return document;
+        }
+
+        @Override
+        public synchronized Document set(int index, Document document) {
+            Document previous = this.get(index);
+
+            this.cache.remove(index);
+            this.pinned.put(index, document);
+
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return (this.positions != null) ? this.positions.length : this.ranges.size();
+        }
+    }
+}
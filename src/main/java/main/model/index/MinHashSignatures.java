@@ -0,0 +1,200 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * MinHash signatures of documents, stored in a file and keyed by the content hash of each document (see
+ * {@link DocumentHasher}), so that the signatures of unchanged documents are not computed again in a later session.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   magic          8 bytes  "DMMINHSH"
+ *   version        int      version of this layout
+ *   parameters     long     fingerprint of the shingling and hash functions, see {@link NearDuplicateFinder}
+ *   signature size int      number of values per signature
+ *   checksum       long     CRC32 of the payload
+ *   payload        number of signatures (int), their content hashes in ascending order (long), followed by the
+ *                  signatures in the same order (int)
+ * </pre>
+ */
+class MinHashSignatures
+{
+    private static final byte[] MAGIC = "DMMINHSH".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = MAGIC.length + 2 * Integer.BYTES + 2 * Long.BYTES;
+    private static final int CHECKSUM_POSITION = HEADER_SIZE - Long.BYTES;
+
+    private final int signatureSize;
+    private final long[] hashes;
+    private final int[] values;
+
+    /**
+     * Constructor.
+     *
+     * @param signatureSize The number of values per signature.
+     * @param hashes The content hashes of the documents, in ascending order and without duplicates.
+     * @param values The signatures, in the order of the hashes.
+     */
+    MinHashSignatures(int signatureSize, long[] hashes, int[] values) {
+        this.signatureSize = signatureSize;
+        this.hashes = hashes;
+        this.values = values;
+    }
+
+    /**
+     * Check whether the other store holds the signatures of the same documents. The signatures of a document only
+     * depend on its contents, so the stores are then equal.
+     */
+    boolean hasSameDocuments(MinHashSignatures other) {
+        return Arrays.equals(this.hashes, other.hashes);
+    }
+
+    /**
+     * Retrieve the signature of the document with the specified content hash.
+     *
+     * @return The signature, or null if it is not stored.
+     */
+    int[] lookup(long hash) {
+        int index = Arrays.binarySearch(this.hashes, hash);
+        if(index < 0) {
+            return null;
+        }
+
+        int from = index * this.signatureSize;
+        return Arrays.copyOfRange(this.values, from, from + this.signatureSize);
+    }
+
+    /**
+     * Read a signature file.
+     *
+     * @param file The signature file.
+     * @param parameters The fingerprint of the current parameters.
+     * @param signatureSize The current number of values per signature.
+     * @return The signatures, or null if the file does not exist, is corrupt, or was made with other parameters.
+     */
+    static MinHashSignatures read(Path file, long parameters, int signatureSize) throws IOException {
+        // the file is read rather than mapped, since a mapping would keep it from being replaced on some platforms
+        ByteBuffer bytes;
+        try {
+            bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        if(bytes.remaining() < HEADER_SIZE) {
+            return null;
+        }
+
+        byte[] magic = new byte[MAGIC.length];
+        bytes.get(magic);
+        if(!Arrays.equals(magic, MAGIC) || bytes.getInt() != VERSION || bytes.getLong() != parameters || bytes.getInt() != signatureSize) {
+            return null;
+        }
+
+        long checksum = bytes.getLong();
+        CRC32 crc = new CRC32();
+        crc.update(bytes.duplicate());
+        if(crc.getValue() != checksum || bytes.remaining() < Integer.BYTES) {
+            return null;
+        }
+
+        int count = bytes.getInt();
+        if(count < 0 || bytes.remaining() != (long) count * (Long.BYTES + (long) signatureSize * Integer.BYTES)) {
+            return null;
+        }
+
+        long[] hashes = new long[count];
+        bytes.asLongBuffer().get(hashes);
+        bytes.position(bytes.position() + count * Long.BYTES);
+
+        int[] values = new int[count * signatureSize];
+        bytes.asIntBuffer().get(values);
+
+        return new MinHashSignatures(signatureSize, hashes, values);
+    }
+
+    /**
+     * Write the signatures to a temporary file, which then replaces the signature file.
+     *
+     * @param file The signature file.
+     * @param parameters The fingerprint of the parameters with which the signatures were computed.
+     */
+    void write(Path file, long parameters) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC);
+            header.putInt(VERSION);
+            header.putLong(parameters);
+            header.putInt(this.signatureSize);
+            header.putLong(0); // the checksum is filled in once the payload is written
+            header.flip();
+            channel.write(header);
+
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+            buffer.putInt(this.hashes.length);
+            for (long hash : this.hashes) {
+                if(buffer.remaining() < Long.BYTES) {
+                    flush(channel, buffer, crc);
+                }
+                buffer.putLong(hash);
+            }
+            for (int value : this.values) {
+                if(buffer.remaining() < Integer.BYTES) {
+                    flush(channel, buffer, crc);
+                }
+                buffer.putInt(value);
+            }
+            flush(channel, buffer, crc);
+
+            ByteBuffer checksum = ByteBuffer.allocate(Long.BYTES);
+            checksum.putLong(crc.getValue());
+            checksum.flip();
+            channel.write(checksum, CHECKSUM_POSITION);
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Write the contents of the buffer to the channel and the checksum, and clear the buffer.
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,493 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Author;
+import main.model.document.Document;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Finds pairs of documents that are probably near-duplicates, such as "Computing Machinery and Intelligence, Issue
+ * 236" and "Computing Machinery &amp; Intelligence", which the exact keys of {@link DuplicateDetector} do not match.
+ *
+ * Every document is reduced to a set of shingles: the character trigrams of its normalized title and venue, and the
+ * normalized last names of its authors. A MinHash signature of {@code bands * rows} values estimates the Jaccard
+ * similarity of two shingle sets by the fraction of equal values. The signatures are split into bands of rows, and
+ * documents that agree on all rows of at least one band become candidates (locality-sensitive hashing). Only the
+ * candidates are compared, and those with an estimated similarity of at least the threshold are returned. A pair with
+ * similarity s becomes a candidate with probability 1 - (1 - s^rows)^bands, so more bands find more pairs at the
+ * cost of more comparisons, and more rows find fewer.
+ *
+ * Signatures can be stored in a file, keyed by the content hash of each document, so that a later session only
+ * computes the signatures of changed documents.
+ */
+public class NearDuplicateFinder
+{
+    public static final int DEFAULT_BANDS = 16;
+    public static final int DEFAULT_ROWS = 4;
+    public static final double DEFAULT_THRESHOLD = 0.5;
+
+    /**
+     * Band values that are shared by more documents than this are skipped. Such values carry little information, e.g.
+     * documents with very short titles, and comparing all their pairs would be quadratic.
+     */
+    public static final int MAX_BUCKET_SIZE = 500;
+
+    /**
+     * Version of the shingling. This must be increased whenever the shingles of a document change, so that stored
+     * signatures of the old shingles are not reused.
+     */
+    private static final int SHINGLE_VERSION = 1;
+    private static final long SEED = 0x6a09e667f3bcc908L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private static final int FIELD_TITLE = 1;
+    private static final int FIELD_VENUE = 2;
+    private static final int FIELD_AUTHOR = 3;
+
+    private static final String SUFFIX = ".minhash";
+
+    private final int bands;
+    private final int rows;
+    private final int[] seeds;
+
+    private double threshold = DEFAULT_THRESHOLD;
+    private Path signatureFile = null;
+
+    /**
+     * Constructor. Uses {@link #DEFAULT_BANDS} bands of {@link #DEFAULT_ROWS} rows.
+     */
+    public NearDuplicateFinder() {
+        this(DEFAULT_BANDS, DEFAULT_ROWS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param bands The number of bands of the signatures.
+     * @param rows The number of rows per band.
+     */
+    public NearDuplicateFinder(int bands, int rows) {
+        if(bands <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("The number of bands and rows must be positive, got %d and %d".formatted(bands, rows));
+        }
+
+        this.bands = bands;
+        this.rows = rows;
+
+        // hash function i mixes a shingle with seeds[i], see computeSignature
+        SplittableRandom random = new SplittableRandom(SEED);
+        this.seeds = new int[bands * rows];
+        for (int i = 0; i < this.seeds.length; i++) {
+            this.seeds[i] = random.nextInt();
+        }
+    }
+
+    /**
+     * Create a finder with a signature of 64 values whose bands and rows suit the specified threshold: the split whose
+     * candidate probability reaches one half closest below the threshold. The threshold of the finder is set as well.
+     */
+    public static NearDuplicateFinder forThreshold(double threshold) {
+        int bestRows = 1;
+        for (int rows = 1; rows <= 64; rows *= 2) {
+            // the similarity at which a pair becomes a candidate with a probability of about one half
+            double knee = Math.pow(1.0 / (64 / rows), 1.0 / rows);
+            if(knee <= threshold) {
+                bestRows = rows;
+            }
+        }
+
+        NearDuplicateFinder retval = new NearDuplicateFinder(64 / bestRows, bestRows);
+        retval.setThreshold(threshold);
+        return retval;
+    }
+
+    /**
+     * Retrieve the path of the default signature file that belongs to the specified index file.
+     */
+    public static Path getSignatureFile(Path indexFile) {
+        return indexFile.resolveSibling(indexFile.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Set the minimum estimated similarity, between 0 and 1, of the returned pairs. The default is
+     * {@link #DEFAULT_THRESHOLD}.
+     */
+    public void setThreshold(double threshold) {
+        if(threshold < 0 || threshold > 1) {
+            throw new IllegalArgumentException("The threshold must be between 0 and 1, got %f".formatted(threshold));
+        }
+        this.threshold = threshold;
+    }
+
+    /**
+     * Set the file in which the signatures are stored between sessions, or null to not store them. The file is only
+     * rewritten when the documents changed.
+     */
+    public void setSignatureFile(Path signatureFile) {
+        this.signatureFile = signatureFile;
+    }
+
+    /**
+     * Find the pairs of documents that are probably near-duplicates.
+     *
+     * @param documents The documents.
+     * @return The pairs with an estimated similarity of at least the threshold, ordered by their positions.
+     * @throws IOException If the signature file could not be read or written.
+     */
+    public List<NearDuplicatePair> findCandidates(List<Document> documents) throws IOException {
+        return this.findPairs(this.computeSignatures(documents));
+    }
+
+    /**
+     * Compute the MinHash signature of a document.
+     *
+     * @return The signature, or null if the document has no title, venue or authors to compare.
+     */
+    public int[] computeSignature(Document document) {
+        Shingles shingles = new Shingles();
+        shingles.addTrigrams(document.getTitle(), FIELD_TITLE);
+        shingles.addTrigrams(document.getPublicationVenue(), FIELD_VENUE);
+        for (Author author : document.getAuthors()) {
+            shingles.addWord(author.getLastName(), FIELD_AUTHOR);
+        }
+
+        if(shingles.count == 0) {
+            return null;
+        }
+
+        int[] signature = new int[this.seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+
+        // hash function i is the finalizer of MurmurHash3 applied to the shingle xor seeds[i]
+        for (int s = 0; s < shingles.count; s++) {
+            int shingle = shingles.values[s];
+
+            for (int i = 0; i < signature.length; i++) {
+                int value = shingle ^ this.seeds[i];
+                value ^= value >>> 16;
+                value *= 0x85ebca6b;
+                value ^= value >>> 13;
+                value *= 0xc2b2ae35;
+                value ^= value >>> 16;
+                signature[i] = Math.min(signature[i], value);
+            }
+        }
+
+        return signature;
+    }
+
+    /**
+     * Estimate the Jaccard similarity of two documents from their signatures.
+     */
+    public static double similarity(int[] first, int[] second) {
+        int equal = 0;
+        for (int i = 0; i < first.length; i++) {
+            if(first[i] == second[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / first.length;
+    }
+
+    /**
+     * Retrieve the signatures of all documents, from the signature file where possible. The other signatures are
+     * computed in parallel.
+     */
+    int[][] computeSignatures(List<Document> documents) throws IOException {
+        // the documents are collected first, since the list may decode them lazily and is not thread-safe
+        Document[] array = documents.toArray(new Document[0]);
+        int[][] signatures = new int[array.length][];
+
+        if(this.signatureFile == null) {
+            Arrays.parallelSetAll(signatures, i -> this.computeSignature(array[i]));
+            return signatures;
+        }
+
+        long parameters = getParameters();
+        MinHashSignatures stored = MinHashSignatures.read(this.signatureFile, parameters, this.seeds.length);
+
+        long[] hashes = new long[array.length];
+        Arrays.parallelSetAll(hashes, i -> DocumentHasher.hash(array[i]));
+        Arrays.parallelSetAll(signatures, i -> {
+            int[] signature = (stored == null) ? null : stored.lookup(hashes[i]);
+            return (signature != null) ? signature : this.computeSignature(array[i]);
+        });
+
+        MinHashSignatures current = createStore(hashes, signatures);
+        if(stored == null || !stored.hasSameDocuments(current)) {
+            current.write(this.signatureFile, parameters);
+        }
+
+        return signatures;
+    }
+
+    /**
+     * Find the candidate pairs band by band, and keep the pairs with a high enough similarity.
+     */
+    private List<NearDuplicatePair> findPairs(int[][] signatures) {
+        int count = signatures.length;
+        int capacity = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+
+        long[] keys = new long[count];
+        int[] table = new int[capacity];
+        int[] next = new int[count];
+        int[] tails = new int[count];
+        int[] members = new int[MAX_BUCKET_SIZE];
+
+        BitSet[] skipped = new BitSet[this.bands];
+        List<NearDuplicatePair> retval = new ArrayList<>();
+
+        for (int band = 0; band < this.bands; band++) {
+            skipped[band] = new BitSet(count);
+
+            // group the documents by the values of this band, in the same way as DuplicateDetector
+            Arrays.fill(table, 0);
+            Arrays.fill(tails, -1);
+
+            for (int i = 0; i < count; i++) {
+                if(signatures[i] == null) {
+                    continue;
+                }
+
+                long key = this.getBandKey(signatures[i], band);
+                keys[i] = key;
+                next[i] = 0;
+
+                int slot = (int) (key ^ (key >>> 32)) & (capacity - 1);
+                while(true) {
+                    int head = table[slot] - 1;
+
+                    if(head < 0) {
+                        table[slot] = i + 1;
+                        tails[i] = i;
+                        break;
+                    }
+                    if(keys[head] == key) {
+                        next[tails[head]] = i + 1;
+                        tails[head] = i;
+                        break;
+                    }
+                    slot = (slot + 1) & (capacity - 1);
+                }
+            }
+
+            for (int head = 0; head < count; head++) {
+                if(tails[head] < 0 || next[head] == 0) {
+                    continue;
+                }
+
+                int size = 0;
+                for (int position = head; position >= 0 && size <= MAX_BUCKET_SIZE; position = next[position] - 1) {
+                    if(size < MAX_BUCKET_SIZE) {
+                        members[size] = position;
+                    }
+                    size++;
+                }
+                if(size > MAX_BUCKET_SIZE) {
+                    for (int position = head; position >= 0; position = next[position] - 1) {
+                        skipped[band].set(position);
+                    }
+                    continue;
+                }
+
+                for (int a = 0; a < size; a++) {
+                    for (int b = a + 1; b < size; b++) {
+                        int first = members[a];
+                        int second = members[b];
+
+                        // most candidates are not similar, so the cheaper check comes first
+                        double similarity = similarity(signatures[first], signatures[second]);
+                        if(similarity >= this.threshold && !this.isComparedBefore(signatures, skipped, first, second, band)) {
+                            retval.add(new NearDuplicatePair(first, second, similarity));
+                        }
+                    }
+                }
+            }
+        }
+
+        retval.sort(Comparator.comparingInt(NearDuplicatePair::getFirst).thenComparingInt(NearDuplicatePair::getSecond));
+        return retval;
+    }
+
+    /**
+     * Check whether two documents in the same bucket were already compared for an earlier band, which is the case
+     * if they share the key of that band and its bucket was not skipped. This avoids remembering every compared pair.
+     */
+    private boolean isComparedBefore(int[][] signatures, BitSet[] skipped, int first, int second, int band) {
+        for (int earlier = 0; earlier < band; earlier++) {
+            if(!skipped[earlier].get(first)
+                    && this.getBandKey(signatures[first], earlier) == this.getBandKey(signatures[second], earlier)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long getBandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * this.rows; i < (band + 1) * this.rows; i++) {
+            key = (key ^ (signature[i] & 0xffffffffL)) * PRIME;
+        }
+        return key ^ (key >>> 29);
+    }
+
+    /**
+     * Retrieve the fingerprint of the shingling and hash functions, which identifies the signatures in a signature
+     * file. The split into bands does not change the signatures, so it is not part of the fingerprint.
+     */
+    private static long getParameters() {
+        return (SEED ^ SHINGLE_VERSION) * PRIME;
+    }
+
+    /**
+     * Create the signature store for the documents that have a signature.
+     */
+    private MinHashSignatures createStore(long[] hashes, int[][] signatures) {
+        int size = this.seeds.length;
+
+        long[] sorted = new long[hashes.length];
+        int count = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if(signatures[i] != null) {
+                sorted[count++] = hashes[i];
+            }
+        }
+        Arrays.sort(sorted, 0, count);
+
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if(i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        sorted = Arrays.copyOf(sorted, distinct);
+
+        int[] values = new int[distinct * size];
+        for (int i = 0; i < hashes.length; i++) {
+            if(signatures[i] != null) {
+                System.arraycopy(signatures[i], 0, values, Arrays.binarySearch(sorted, hashes[i]) * size, size);
+            }
+        }
+
+        return new MinHashSignatures(size, sorted, values);
+    }
+
+    /**
+     * The shingles of a single document, as 32-bit hashes.
+     */
+    private static class Shingles
+    {
+        private int[] values = new int[64];
+        private int count = 0;
+
+        private char[] text = new char[64];
+        private int length = 0;
+
+        /**
+         * Add the character trigrams of the normalized value. Values shorter than three characters are added whole.
+         */
+        private void addTrigrams(String value, int field) {
+            this.normalize(value);
+
+            if(this.length > 0 && this.length < 3) {
+                this.add(this.hash(field, 0, this.length));
+            }
+            for (int i = 0; i + 3 <= this.length; i++) {
+                this.add(this.hash(field, i, i + 3));
+            }
+        }
+
+        /**
+         * Add the complete normalized value as a single shingle.
+         */
+        private void addWord(String value, int field) {
+            this.normalize(value);
+
+            if(this.length > 0) {
+                this.add(this.hash(field, 0, this.length));
+            }
+        }
+
+        /**
+         * Write the value to the text buffer in lower case, with "&amp;" spelled out as "and", and with every run of
+         * other characters than letters and digits replaced by a single space.
+         */
+        private void normalize(String value) {
+            this.length = 0;
+            if(value == null) {
+                return;
+            }
+
+            boolean space = false;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+
+                if(c == '&') {
+                    this.append(' ', true);
+                    this.append('a', false);
+                    this.append('n', false);
+                    this.append('d', false);
+                    space = true;
+                } else if(Character.isLetterOrDigit(c)) {
+                    this.append(Character.toLowerCase(c), space);
+                    space = false;
+                } else {
+                    space = true;
+                }
+            }
+        }
+
+        private void append(char c, boolean spaceBefore) {
+            if(this.length + 2 > this.text.length) {
+                this.text = Arrays.copyOf(this.text, this.text.length * 2);
+            }
+            if(spaceBefore && this.length > 0) {
+                this.text[this.length++] = ' ';
+            }
+            if(c != ' ') {
+                this.text[this.length++] = c;
+            }
+        }
+
+        private int hash(int field, int from, int to) {
+            int hash = field * 0x9e3779b1;
+            for (int i = from; i < to; i++) {
+                hash = (hash ^ this.text[i]) * 0x01000193;
+            }
+            hash ^= hash >>> 16;
+            hash *= 0x85ebca6b;
+            return hash ^ (hash >>> 13);
+        }
+
+        private void add(int shingle) {
+            if(this.count == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.count * 2);
+            }
+            this.values[this.count++] = shingle;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+/**
+ * Two documents in an index that are probably near-duplicates of each other, see {@link NearDuplicateFinder}.
+ */
+public class NearDuplicatePair
+{
+    private final int first;
+    private final int second;
+    private final double similarity;
+
+    /**
+     * Constructor.
+     *
+     * @param first The position of the first document in the index.
+     * @param second The position of the second document, which is after the first.
+     * @param similarity The estimated similarity of the documents, between 0 and 1.
+     */
+    public NearDuplicatePair(int first, int second, double similarity) {
+        this.first = first;
+        this.second = second;
+        this.similarity = similarity;
+    }
+
+    /**
+     * Retrieve the position of the first document in the index.
+     */
+    public int getFirst() {
+        return this.first;
+    }
+
+    /**
+     * Retrieve the position of the second document in the index, which is after the first.
+     */
+    public int getSecond() {
+        return this.second;
+    }
+
+    /**
+     * Retrieve the estimated similarity of the documents: the Jaccard similarity of their shingles, estimated from
+     * their MinHash signatures.
+     */
+    public double getSimilarity() {
+        return this.similarity;
+    }
+
+    @Override
+    public String toString() {
+        return "(%d, %d): %.2f".formatted(this.first, this.second, this.similarity);
+    }
+}
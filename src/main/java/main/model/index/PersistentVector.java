@@ -0,0 +1,257 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list that shares its structure with the lists it was derived from. The elements are stored in a tree with
+ * 32 children per node, plus a tail array of up to 32 elements that is not yet in the tree. Changing or appending an
+ * element copies only the nodes on the path to that element, so both take O(log32 n) time and every other node is
+ * shared with the previous version, which stays valid.
+ *
+ * @param <T> The type of the elements.
+ */
+public final class PersistentVector<T>
+{
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, new Object[WIDTH], new Object[0]);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Retrieve the empty vector.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentVector<T> empty() {
+        return (PersistentVector<T>) EMPTY;
+    }
+
+    /**
+     * Create a vector with the elements of the list.
+     */
+    public static <T> PersistentVector<T> of(List<? extends T> elements) {
+        PersistentVector<T> retval = empty();
+        for (T element : elements) {
+            retval = retval.append(element);
+        }
+        return retval;
+    }
+
+    /**
+     * Retrieve the number of elements.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Retrieve the element at the specified position.
+     *
+     * @throws IndexOutOfBoundsException If the position is out of range.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int position) {
+        return (T) this.arrayFor(Objects.checkIndex(position, this.size))[position & MASK];
+    }
+
+    /**
+     * Create a vector in which the element at the specified position is replaced.
+     *
+     * @throws IndexOutOfBoundsException If the position is out of range.
+     */
+    public PersistentVector<T> set(int position, T element) {
+        Objects.checkIndex(position, this.size);
+
+        if(position >= this.tailOffset()) {
+            Object[] tail = this.tail.clone();
+            tail[position & MASK] = element;
+            return new PersistentVector<>(this.size, this.shift, this.root, tail);
+        }
+        return new PersistentVector<>(this.size, this.shift, set(this.shift, this.root, position, element), this.tail);
+    }
+
+    /**
+     * Create a vector with the element added at the end.
+     */
+    public PersistentVector<T> append(T element) {
+        // the tail has room
+        if(this.size - this.tailOffset() < WIDTH) {
+            Object[] tail = Arrays.copyOf(this.tail, this.tail.length + 1);
+            tail[this.tail.length] = element;
+            return new PersistentVector<>(this.size + 1, this.shift, this.root, tail);
+        }
+
+        // the full tail moves into the tree, which gets a new level if the root is full
+        Object[] root;
+        int shift = this.shift;
+        if((this.size >>> BITS) > (1 << this.shift)) {
+            root = new Object[WIDTH];
+            root[0] = this.root;
+            root[1] = newPath(this.shift, this.tail);
+            shift += BITS;
+        } else {
+            root = this.pushTail(this.shift, this.root, this.tail);
+        }
+        return new PersistentVector<>(this.size + 1, shift, root, new Object[]{element});
+    }
+
+    /**
+     * Create a vector with only the first elements of this vector. The leaves and nodes that hold those elements are
+     * shared, so this takes O(log32 n) time.
+     *
+     * @param count The number of elements to keep.
+     * @throws IndexOutOfBoundsException If the count is negative or bigger than the size.
+     */
+    public PersistentVector<T> take(int count) {
+        Objects.checkIndex(count, this.size + 1);
+        if(count == this.size) {
+            return this;
+        }
+        if(count == 0) {
+            return empty();
+        }
+
+        // the leaf with the last element that is kept becomes the tail, the leaves before it stay in the tree
+        int tailOffset = ((count - 1) >>> BITS) << BITS;
+        Object[] tail = Arrays.copyOf(this.arrayFor(count - 1), count - tailOffset);
+        if(tailOffset == 0) {
+            return new PersistentVector<>(count, BITS, new Object[WIDTH], tail);
+        }
+
+        Object[] root = trim(this.shift, this.root, tailOffset - 1);
+        int shift = this.shift;
+        while(shift > BITS && root[1] == null) {
+            root = (Object[]) root[0];
+            shift -= BITS;
+        }
+        return new PersistentVector<>(count, shift, root, tail);
+    }
+
+    /**
+     * Retrieve an unmodifiable list view of the vector.
+     */
+    public List<T> asList() {
+        return new VectorList();
+    }
+
+    /**
+     * Retrieve the position of the first element of the tail.
+     */
+    private int tailOffset() {
+        return (this.size < WIDTH) ? 0 : ((this.size - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * Retrieve the leaf array that holds the element at the specified position.
+     */
+    private Object[] arrayFor(int position) {
+        if(position >= this.tailOffset()) {
+            return this.tail;
+        }
+
+        Object[] node = this.root;
+        for (int level = this.shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(position >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private static Object[] set(int level, Object[] node, int position, Object element) {
+        Object[] retval = node.clone();
+        if(level == 0) {
+            retval[position & MASK] = element;
+        } else {
+            int child = (position >>> level) & MASK;
+            retval[child] = set(level - BITS, (Object[]) node[child], position, element);
+        }
+        return retval;
+    }
+
+    /**
+     * Copy the path to the leaf that ends at the specified position, without the nodes after that path.
+     */
+    private static Object[] trim(int level, Object[] node, int last) {
+        int child = (last >>> level) & MASK;
+        Object[] retval = new Object[WIDTH];
+        System.arraycopy(node, 0, retval, 0, child);
+        retval[child] = (level == BITS) ? node[child] : trim(level - BITS, (Object[]) node[child], last);
+        return retval;
+    }
+
+    /**
+     * Copy the path to the last leaf, and store the tail as that leaf.
+     */
+    private Object[] pushTail(int level, Object[] parent, Object[] tail) {
+        int child = ((this.size - 1) >>> level) & MASK;
+        Object[] retval = parent.clone();
+
+        if(level == BITS) {
+            retval[child] = tail;
+        } else {
+            Object[] node = (Object[]) parent[child];
+            retval[child] = (node != null) ? this.pushTail(level - BITS, node, tail) : newPath(level - BITS, tail);
+        }
+        return retval;
+    }
+
+    /**
+     * Create a chain of nodes from the specified level down to the leaf.
+     */
+    private static Object[] newPath(int level, Object[] leaf) {
+        if(level == 0) {
+            return leaf;
+        }
+        Object[] retval = new Object[WIDTH];
+        retval[0] = newPath(level - BITS, leaf);
+        return retval;
+    }
+
+    /**
+     * Unmodifiable list view of the vector.
+     */
+    private class VectorList extends AbstractList<T> implements RandomAccess
+    {
+        @Override
+        public T get(int index) {
+            return PersistentVector.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return PersistentVector.this.size;
+        }
+    }
+}
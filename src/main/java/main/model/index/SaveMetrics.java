@@ -0,0 +1,104 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters that describe the work done by an {@link IndexSaveService}.
+ */
+public class SaveMetrics
+{
+    private final AtomicLong queuedSaves = new AtomicLong();
+    private final AtomicLong coalescedSaves = new AtomicLong();
+    private final AtomicLong completedSaves = new AtomicLong();
+    private final AtomicLong failedSaves = new AtomicLong();
+    private final AtomicLong lastWriteNanos = new AtomicLong();
+    private final AtomicLong maxWriteNanos = new AtomicLong();
+    private final AtomicLong totalWriteNanos = new AtomicLong();
+
+    /**
+     * Retrieve the number of "index dirty" signals that were received.
+     */
+    public long getQueuedSaves() {
+        return this.queuedSaves.get();
+    }
+
+    /**
+     * Retrieve the number of signals that were merged into a save that was already scheduled.
+     */
+    public long getCoalescedSaves() {
+        return this.coalescedSaves.get();
+    }
+
+    /**
+     * Retrieve the number of saves that were written successfully.
+     */
+    public long getCompletedSaves() {
+        return this.completedSaves.get();
+    }
+
+    /**
+     * Retrieve the number of saves that failed.
+     */
+    public long getFailedSaves() {
+        return this.failedSaves.get();
+    }
+
+    /**
+     * Retrieve the duration of the most recent write, in nanoseconds.
+     */
+    public long getLastWriteNanos() {
+        return this.lastWriteNanos.get();
+    }
+
+    /**
+     * Retrieve the duration of the slowest write, in nanoseconds.
+     */
+    public long getMaxWriteNanos() {
+        return this.maxWriteNanos.get();
+    }
+
+    /**
+     * Retrieve the total duration of all writes, in nanoseconds.
+     */
+    public long getTotalWriteNanos() {
+        return this.totalWriteNanos.get();
+    }
+
+    void recordQueued(boolean coalesced) {
+        this.queuedSaves.incrementAndGet();
+        if(coalesced) {
+            this.coalescedSaves.incrementAndGet();
+        }
+    }
+
+    void recordWrite(long nanos, boolean success) {
+        (success ? this.completedSaves : this.failedSaves).incrementAndGet();
+        this.lastWriteNanos.set(nanos);
+        this.maxWriteNanos.accumulateAndGet(nanos, Math::max);
+        this.totalWriteNanos.addAndGet(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return "queued=%d, coalesced=%d, completed=%d, failed=%d, last write=%d ns, max write=%d ns, total write=%d ns".formatted(
+                this.getQueuedSaves(), this.getCoalescedSaves(), this.getCompletedSaves(), this.getFailedSaves(),
+                this.getLastWriteNanos(), this.getMaxWriteNanos(), this.getTotalWriteNanos());
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * Contents of the manifest file of a sharded index. The manifest lists the shard files, in order, that together hold
+ * the documents of the index. Every shard file is an ordinary index file.
+ */
+@JsonPropertyOrder({"shardManifestVersion", "shardSize", "shards"})
+class ShardManifest
+{
+    /**
+     * The first field of every manifest file, which distinguishes a manifest from an ordinary index file.
+     */
+    static final String VERSION_FIELD = "shardManifestVersion";
+
+    static final int VERSION = 1;
+
+    /**
+     * A single shard file.
+     */
+    @JsonPropertyOrder({"file", "documentCount", "checksum"})
+    static class Shard
+    {
+        /**
+         * Name of the shard file, relative to the directory of the manifest.
+         */
+        @JsonProperty("file")
+        final String file;
+
+        @JsonProperty("documentCount")
+        final int documentCount;
+
+        /**
+         * CRC32 of the contents of the shard file.
+         */
+        @JsonProperty("checksum")
+        final long checksum;
+
+        @JsonCreator
+        Shard(
+                @JsonProperty("file") String file,
+                @JsonProperty("documentCount") int documentCount,
+                @JsonProperty("checksum") long checksum
+        ) {
+            this.file = file;
+            this.documentCount = documentCount;
+            this.checksum = checksum;
+        }
+    }
+
+    @JsonProperty(VERSION_FIELD)
+    final int version;
+
+    /**
+     * The maximum number of documents per shard.
+     */
+    @JsonProperty("shardSize")
+    final int shardSize;
+
+    @JsonProperty("shards")
+    final List<Shard> shards;
+
+    @JsonCreator
+    ShardManifest(
+            @JsonProperty(VERSION_FIELD) int version,
+            @JsonProperty("shardSize") int shardSize,
+            @JsonProperty("shards") List<Shard> shards
+    ) {
+        this.version = version;
+        this.shardSize = shardSize;
+        this.shards = (shards == null) ? List.of() : shards;
+    }
+}
@@ -0,0 +1,351 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import main.model.document.Document;
+import main.model.validation.IndexValidationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads and writes sharded indexes. A sharded index consists of a small manifest file (see {@link ShardManifest}) and
+ * a number of shard files in the same directory, named "&lt;manifest&gt;.shard0000", "&lt;manifest&gt;.shard0001", etc.
+ * A shard that is rewritten gets a new generation suffix, e.g. "&lt;manifest&gt;.shard0001.g2", so that the files of
+ * the previous manifest stay intact until the new manifest replaces it.
+ *
+ * The documents are split by position into shards of at most "shardSize" documents, so that the order of the documents
+ * is kept. Every shard is an ordinary index file. The manifest records the CRC32 of every shard, which is used to
+ * detect damaged shards on read and to skip shards that did not change on write.
+ */
+class ShardedIndex
+{
+    private static final String SHARD_SUFFIX = ".shard%04d";
+    private static final String GENERATION_SUFFIX = ".g";
+
+    /**
+     * Read the manifest of a sharded index.
+     *
+     * @param file The index file.
+     * @return The manifest, or null if the file is not the manifest of a sharded index.
+     * @throws IOException If the file is a manifest that could not be read.
+     */
+    static ShardManifest readManifest(Path file) throws IOException {
+        if(!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        IndexCodec codec = IndexCodec.getDefault();
+
+        // a manifest is recognised by its first field, so that ordinary index files are not parsed twice
+        try (JsonParser parser = codec.getJsonFactory().createParser(file.toFile())) {
+            if(parser.nextToken() != JsonToken.START_OBJECT || !ShardManifest.VERSION_FIELD.equals(parser.nextFieldName())) {
+                return null;
+            }
+        } catch (JsonProcessingException e) {
+            // not a manifest; the error is reported when the file is read as an ordinary index
+            return null;
+        }
+
+        ShardManifest manifest = codec.getManifestReader().readValue(file.toFile());
+        if(manifest.version != ShardManifest.VERSION) {
+            throw new IOException("Unsupported shard manifest version %d in \"%s\"".formatted(manifest.version, file));
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Retrieve the paths of the shard files, in order.
+     */
+    static List<Path> getShardFiles(Path manifestFile, ShardManifest manifest) {
+        List<Path> files = new ArrayList<>(manifest.shards.size());
+        for (ShardManifest.Shard shard : manifest.shards) {
+            files.add(manifestFile.resolveSibling(shard.file));
+        }
+        return files;
+    }
+
+    /**
+     * Read and validate the shards of an index in parallel.
+     *
+     * @param manifestFile The manifest file.
+     * @param manifest The contents of the manifest file.
+     * @param pool The pool that reads the shards.
+     * @param validate Whether the documents are validated.
+     * @return The documents of all shards, in order.
+     * @throws IndexValidationException If any of the documents are invalid. The error messages refer to the position
+     *                                  of the documents in the complete index.
+     * @throws IOException If a shard could not be read, or does not match the manifest.
+     */
+    static List<Document> read(Path manifestFile, ShardManifest manifest, ForkJoinPool pool, boolean validate) throws IOException {
+        List<Callable<ShardContent>> tasks = new ArrayList<>(manifest.shards.size());
+
+        int first = 0;
+        for (ShardManifest.Shard shard : manifest.shards) {
+            int offset = first;
+            tasks.add(() -> readShard(manifestFile.resolveSibling(shard.file), shard, validate ? offset : -1));
+            first += shard.documentCount;
+        }
+
+        List<Document> documents = new ArrayList<>(first);
+        List<String> errorMsgs = new ArrayList<>();
+
+        for (Future<ShardContent> future : pool.invokeAll(tasks)) {
+            ShardContent content = getResult(future);
+            documents.addAll(content.documents);
+            errorMsgs.addAll(content.errorMsgs);
+        }
+
+        if(!errorMsgs.isEmpty()) {
+            throw new IndexValidationException(errorMsgs);
+        }
+
+        return documents;
+    }
+
+    /**
+     * Compute a checksum of the shards that a manifest lists. The shard files are never changed once they are written,
+     * and their contents are checked against the manifest when they are read, so the checksum identifies the contents
+     * of the sharded index.
+     */
+    static long checksum(ShardManifest manifest) {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+
+        for (ShardManifest.Shard shard : manifest.shards) {
+            crc.update(shard.file.getBytes(StandardCharsets.UTF_8));
+            buffer.clear();
+            buffer.putLong(shard.checksum).putInt(shard.documentCount).flip();
+            crc.update(buffer);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Write the documents as a sharded index. A shard is only written if its contents changed, and then to a new file,
+     * so that the files of the previous manifest are never changed. The new manifest then replaces the previous one
+     * atomically, after which the shard files that it does not list are removed. If the application stops before the
+     * manifest is replaced, the previous manifest and its shards are still intact, and the next write removes the new
+     * shard files that were left behind.
+     *
+     * @param manifestFile The manifest file.
+     * @param documents The documents of the index.
+     * @param shardSize The maximum number of documents per shard.
+     * @param previous The manifest that is currently stored in the manifest file, or null if there is none.
+     * @throws IOException If something went wrong while writing the files.
+     */
+    static void write(Path manifestFile, List<Document> documents, int shardSize, ShardManifest previous) throws IOException {
+        List<ShardManifest.Shard> shards = new ArrayList<>();
+        int generation = nextGeneration(manifestFile, previous);
+
+        for (int first = 0; first < documents.size(); first += shardSize) {
+            List<Document> part = documents.subList(first, Math.min(first + shardSize, documents.size()));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new DocumentStreamWriter(part.iterator()).write(out);
+            byte[] content = out.toByteArray();
+
+            CRC32 crc = new CRC32();
+            crc.update(content);
+
+            ShardManifest.Shard old = findUnchanged(manifestFile, shards.size(), part.size(), crc.getValue(), content.length, previous);
+            if(old != null) {
+                shards.add(old);
+            } else {
+                String name = getShardName(manifestFile, shards.size(), generation);
+                writeAtomically(manifestFile.resolveSibling(name), content);
+                shards.add(new ShardManifest.Shard(name, part.size(), crc.getValue()));
+            }
+        }
+
+        ShardManifest manifest = new ShardManifest(ShardManifest.VERSION, shardSize, shards);
+        writeAtomically(manifestFile, IndexCodec.getDefault().getManifestWriter().writeValueAsBytes(manifest));
+
+        Set<String> names = new HashSet<>();
+        for (ShardManifest.Shard shard : shards) {
+            names.add(shard.file);
+        }
+        for (Path file : listShardFiles(manifestFile)) {
+            if(!names.contains(file.getFileName().toString())) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Retrieve the name of a shard file.
+     *
+     * @param position The position of the shard in the manifest.
+     * @param generation The generation of the file, 0 for the first write of the index.
+     */
+    private static String getShardName(Path manifestFile, int position, int generation) {
+        String name = manifestFile.getFileName() + SHARD_SUFFIX.formatted(position);
+        return (generation == 0) ? name : name + GENERATION_SUFFIX + generation;
+    }
+
+    /**
+     * Determine the generation of the shard files that the next write creates, which is higher than that of any
+     * shard file of the index, including files that were left behind by an interrupted write.
+     */
+    private static int nextGeneration(Path manifestFile, ShardManifest previous) throws IOException {
+        if(previous == null) {
+            return 0;
+        }
+
+        int retval = 1;
+        for (Path file : listShardFiles(manifestFile)) {
+            String name = file.getFileName().toString();
+            int suffix = name.lastIndexOf(GENERATION_SUFFIX);
+            if(suffix > manifestFile.getFileName().toString().length()) {
+                try {
+                    retval = Math.max(retval, Integer.parseInt(name.substring(suffix + GENERATION_SUFFIX.length())) + 1);
+                } catch (NumberFormatException ignored) {
+                    // not a generation suffix, e.g. a temporary file
+                }
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Retrieve the files next to the manifest whose name starts like that of a shard file.
+     */
+    private static List<Path> listShardFiles(Path manifestFile) throws IOException {
+        String prefix = manifestFile.getFileName() + ".shard";
+        Path directory = manifestFile.toAbsolutePath().getParent();
+
+        List<Path> retval = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, file -> file.getFileName().toString().startsWith(prefix))) {
+            for (Path file : files) {
+                retval.add(manifestFile.resolveSibling(file.getFileName()));
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Find the shard at the same position in the previous manifest, if its file already holds the new contents.
+     *
+     * @return The shard of the previous manifest, or null if the shard has to be written.
+     */
+    private static ShardManifest.Shard findUnchanged(Path manifestFile, int position, int documentCount, long checksum, long size, ShardManifest previous) throws IOException {
+        if(previous == null || position >= previous.shards.size()) {
+            return null;
+        }
+
+        ShardManifest.Shard old = previous.shards.get(position);
+        Path file = manifestFile.resolveSibling(old.file);
+        if(old.checksum != checksum || old.documentCount != documentCount || !Files.isRegularFile(file) || Files.size(file) != size) {
+            return null;
+        }
+        return old;
+    }
+
+    /**
+     * Read, check and validate a single shard.
+     *
+     * @param offset The position of the first document of the shard in the complete index, or -1 if the documents are
+     *               not validated.
+     */
+    private static ShardContent readShard(Path file, ShardManifest.Shard shard, int offset) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        if(crc.getValue() != shard.checksum) {
+            throw new IOException("Shard file \"%s\" does not match the checksum in the manifest".formatted(file));
+        }
+
+        IndexCodec codec = IndexCodec.getDefault();
+        ShardContent retval = new ShardContent(shard.documentCount);
+
+        try (DocumentIndexParser parser = new DocumentIndexParser(codec.getJsonFactory().createParser(content), codec.getDocumentReader())) {
+            Document document;
+            while((document = parser.nextDocument()) != null) {
+                retval.documents.add(document);
+            }
+        }
+
+        if(retval.documents.size() != shard.documentCount) {
+            throw new IOException("Shard file \"%s\" contains %d documents, the manifest lists %d".formatted(
+                    file, retval.documents.size(), shard.documentCount));
+        }
+
+        if(offset >= 0) {
+            DocumentIndex.validateDocuments(retval.documents, offset, retval.errorMsgs);
+        }
+        return retval;
+    }
+
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, content);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ShardContent getResult(Future<ShardContent> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading the shards");
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if(e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * The documents of a single shard and their validation errors.
+     */
+    private static class ShardContent
+    {
+        final List<Document> documents;
+        final List<String> errorMsgs = new ArrayList<>();
+
+        ShardContent(int documentCount) {
+            this.documents = new ArrayList<>(documentCount);
+        }
+    }
+}
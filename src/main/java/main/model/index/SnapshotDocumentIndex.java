@@ -0,0 +1,257 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Document;
+import main.model.document.DocumentChangeListener;
+import main.model.document.ImmutableDocument;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Document index whose documents are kept as an {@link IndexSnapshot}. Every change to the index creates a new
+ * snapshot, which shares the unchanged documents with the previous one, so {@link #snapshot()} returns a consistent
+ * version of the index without copying it. Other threads can read or save that version while the index is being
+ * edited, and an editor can go back to an earlier version with {@link #restore(IndexSnapshot)}.
+ *
+ * The list of {@link #getDocumentList()} behaves like that of an ordinary index: get() returns a mutable
+ * {@link Document}, and changes that are made to it through its setters become part of the next snapshot. Changes
+ * that are made directly to the lists of {@link Document#getAuthors()} or {@link Document#getTags()} are not noticed,
+ * use the setters instead. get() returns the same instance for as long as the caller keeps a reference to it; the
+ * index itself only holds on to the documents that were changed since the last snapshot. The index must be changed,
+ * and snapshots must be taken, on one thread at a time.
+ */
+public class SnapshotDocumentIndex extends DocumentIndex
+{
+    private volatile IndexSnapshot current;
+
+    private SnapshotDocumentList list;
+
+    /**
+     * Constructor for an empty index.
+     */
+    public SnapshotDocumentIndex() {
+        this(IndexSnapshot.empty());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param snapshot The version of the documents that the index starts with.
+     */
+    public SnapshotDocumentIndex(IndexSnapshot snapshot) {
+        this.current = snapshot;
+        this.list = new SnapshotDocumentList();
+        super.setDocumentList(this.list);
+    }
+
+    /**
+     * Replace the documents of the index with immutable copies of the documents.
+     */
+    @Override
+    public void setDocumentList(List<Document> documents) {
+        IndexSnapshot snapshot = IndexSnapshot.of(documents);
+        this.list.reset();
+        this.current = snapshot;
+        this.list = new SnapshotDocumentList();
+        super.setDocumentList(this.list);
+    }
+
+    /**
+     * Retrieve the current version of the documents. The documents that were changed through their setters since the
+     * previous snapshot are copied into the new version first, so this takes time in proportion to the number of
+     * changed documents. Must be called on the thread that changes the index.
+     */
+    public IndexSnapshot snapshot() {
+        this.list.commit();
+        return this.current;
+    }
+
+    /**
+     * Make an earlier version of the documents the current version, e.g. to undo changes. Documents that were
+     * retrieved from the list before are no longer part of the index.
+     */
+    public void restore(IndexSnapshot snapshot) {
+        this.current = Objects.requireNonNull(snapshot);
+        this.list.reset();
+    }
+
+    /**
+     * List view on the current snapshot. The mutable documents that were retrieved from it are only referenced
+     * weakly, until a change to one of them marks its position as dirty.
+     */
+    private class SnapshotDocumentList extends AbstractList<Document> implements RandomAccess
+    {
+        // the retrieved documents, by position
+        private Map<Integer, Entry> entries = new HashMap<>();
+
+        // the retrieved documents that were changed since the last commit, by position
+        private Map<Integer, Document> dirty = new HashMap<>();
+
+        private final ReferenceQueue<Document> collected = new ReferenceQueue<>();
+
+        @Override
+        public Document get(int index) {
+            this.purge();
+            Entry entry = this.entries.get(index);
+            Document document = (entry != null) ? entry.get() : null;
+            if(document == null) {
+                document = this.dirty.get(index);
+            }
+            if(document == null) {
+                document = SnapshotDocumentIndex.this.current.get(index).toDocument();
+                this.attach(index, document);
+            }
+            return document;
+        }
+
+        @Override
+        public Document set(int index, Document document) {
+            Document retval = this.get(index);
+            SnapshotDocumentIndex.this.current = SnapshotDocumentIndex.this.current.set(index, ImmutableDocument.of(document));
+            this.dirty.remove(index);
+            if(retval != document) {
+                this.detach(index);
+                this.attach(index, document);
+            }
+            this.modCount++;
+            return retval;
+        }
+
+        @Override
+        public void add(int index, Document document) {
+            IndexSnapshot snapshot = SnapshotDocumentIndex.this.current;
+            if(index != snapshot.size()) {
+                throw new UnsupportedOperationException("Documents can only be added at the end of a snapshot index");
+            }
+            SnapshotDocumentIndex.this.current = snapshot.add(ImmutableDocument.of(document));
+            this.attach(index, document);
+            this.modCount++;
+        }
+
+        @Override
+        public Document remove(int index) {
+            Document retval = this.get(index);
+            SnapshotDocumentIndex.this.current = SnapshotDocumentIndex.this.current.remove(index);
+            this.detach(index);
+            this.dirty.remove(index);
+
+            // the documents after the removed one move one position to the front
+            Map<Integer, Entry> entries = new HashMap<>();
+            for (Entry entry : this.entries.values()) {
+                if(entry.position > index) {
+                    entry.position--;
+                }
+                entries.put(entry.position, entry);
+            }
+            Map<Integer, Document> dirty = new HashMap<>();
+            for (Map.Entry<Integer, Document> entry : this.dirty.entrySet()) {
+                int position = entry.getKey();
+                dirty.put((position > index) ? position - 1 : position, entry.getValue());
+            }
+            this.entries = entries;
+            this.dirty = dirty;
+            this.modCount++;
+            return retval;
+        }
+
+        @Override
+        public int size() {
+            return SnapshotDocumentIndex.this.current.size();
+        }
+
+        /**
+         * Copy the documents that were changed into the current snapshot.
+         */
+        private void commit() {
+            if(this.dirty.isEmpty()) {
+                return;
+            }
+            IndexSnapshot snapshot = SnapshotDocumentIndex.this.current;
+            for (Map.Entry<Integer, Document> entry : this.dirty.entrySet()) {
+                snapshot = snapshot.set(entry.getKey(), ImmutableDocument.of(entry.getValue()));
+            }
+            SnapshotDocumentIndex.this.current = snapshot;
+            this.dirty = new HashMap<>();
+        }
+
+        /**
+         * Forget the retrieved documents after the snapshot was replaced.
+         */
+        private void reset() {
+            for (Entry entry : this.entries.values()) {
+                Document document = entry.get();
+                if(document != null) {
+                    document.removeChangeListener(entry);
+                }
+            }
+            this.entries = new HashMap<>();
+            this.dirty = new HashMap<>();
+            this.modCount++;
+        }
+
+        private void attach(int position, Document document) {
+            Entry entry = new Entry(position, document, this.collected);
+            document.addChangeListener(entry);
+            this.entries.put(position, entry);
+        }
+
+        private void detach(int position) {
+            Entry entry = this.entries.remove(position);
+            Document document = (entry != null) ? entry.get() : null;
+            if(document != null) {
+                document.removeChangeListener(entry);
+            }
+        }
+
+        // drop the entries of documents that were garbage collected
+        private void purge() {
+            Reference<? extends Document> reference;
+            while ((reference = this.collected.poll()) != null) {
+                Entry entry = (Entry) reference;
+                this.entries.remove(entry.position, entry);
+            }
+        }
+
+        /**
+         * Weak reference to a retrieved document, which marks the position of the document as dirty when it changes.
+         */
+        private class Entry extends WeakReference<Document> implements DocumentChangeListener
+        {
+            private int position;
+
+            private Entry(int position, Document document, ReferenceQueue<Document> queue) {
+                super(document, queue);
+                this.position = position;
+            }
+
+            @Override
+            public void documentChanged(Document document) {
+                SnapshotDocumentList.this.dirty.put(this.position, document);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of a string column: every distinct string gets a code, which is its position in the dictionary.
+ * The code of null is -1.
+ */
+class StringDictionary
+{
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+    private int size = 0;
+
+    /**
+     * Retrieve the code of the value, and add the value to the dictionary if it is new.
+     */
+    int encode(String value) {
+        if(value == null) {
+            return -1;
+        }
+
+        Integer code = this.codes.get(value);
+        if(code == null) {
+            code = this.size;
+            if(this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.values[this.size++] = value;
+            this.codes.put(value, code);
+        }
+        return code;
+    }
+
+    /**
+     * Retrieve the code of the value without adding it.
+     *
+     * @return The code, or -1 if the value is null or not in the dictionary.
+     */
+    int find(String value) {
+        Integer code = (value == null) ? null : this.codes.get(value);
+        return (code != null) ? code : -1;
+    }
+
+    /**
+     * Retrieve the value with the specified code, or null if the code is -1.
+     */
+    String decode(int code) {
+        return (code < 0) ? null : this.values[code];
+    }
+
+    /**
+     * Retrieve the number of distinct values.
+     */
+    int size() {
+        return this.size;
+    }
+}
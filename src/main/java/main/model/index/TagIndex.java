@@ -0,0 +1,237 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Document;
+import main.model.document.TagChangeListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index from tags to the positions of the documents that have them. Every distinct tag gets a code in a dictionary and
+ * a {@link DocumentBitmap} of positions, so that boolean tag queries are bitmap operations, e.g. the documents that
+ * are tagged "a" and "b" but not "c" are {@code allOf("a", "b").andNot(anyOf("c"))}.
+ *
+ * The index registers a {@link TagChangeListener} on each of its documents, so it is updated incrementally when
+ * {@link Document#setTags(List)} is called, until it is closed. Several tag indexes can follow the same documents.
+ * Documents that are added to, replaced in or removed from the list of the index must be passed to
+ * {@link #add(Document)}, {@link #set(int, Document)} and {@link #remove(int)}. The index is not thread-safe.
+ */
+public final class TagIndex implements AutoCloseable
+{
+    private final StringDictionary dictionary = new StringDictionary();
+    private final List<DocumentBitmap> bitmaps = new ArrayList<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final List<PositionListener> listeners = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param documents The documents, whose positions are their positions in the list.
+     */
+    public TagIndex(List<Document> documents) {
+        for (Document document : documents) {
+            this.add(document);
+        }
+    }
+
+    /**
+     * Add a document at the next position.
+     */
+    public void add(Document document) {
+        int position = this.documents.size();
+        this.documents.add(document);
+
+        this.addTags(position, document.getTags());
+        PositionListener listener = new PositionListener(position);
+        this.listeners.add(listener);
+        document.addTagListener(listener);
+    }
+
+    /**
+     * Replace the document at the specified position.
+     */
+    public void set(int position, Document document) {
+        Document previous = this.documents.set(position, document);
+        previous.removeTagListener(this.listeners.get(position));
+
+        this.removeTags(position, previous.getTags(), document.getTags());
+        this.addTags(position, document.getTags());
+        PositionListener listener = new PositionListener(position);
+        this.listeners.set(position, listener);
+        document.addTagListener(listener);
+    }
+
+    /**
+     * Remove the document at the specified position. The documents after it move one position to the front.
+     */
+    public void remove(int position) {
+        Document previous = this.documents.remove(position);
+        previous.removeTagListener(this.listeners.remove(position));
+
+        for (int i = position; i < this.listeners.size(); i++) {
+            this.listeners.get(i).position = i;
+        }
+
+        // the bitmaps are rebuilt from the positions that they hold at or after the removed position
+        for (int code = 0; code < this.bitmaps.size(); code++) {
+            int[] positions = this.bitmaps.get(code).toArray();
+            if(positions.length == 0 || positions[positions.length - 1] < position) {
+                continue;
+            }
+
+            DocumentBitmap bitmap = new DocumentBitmap();
+            for (int p : positions) {
+                if(p != position) {
+                    bitmap.add((p > position) ? p - 1 : p);
+                }
+            }
+            this.bitmaps.set(code, bitmap);
+        }
+    }
+
+    /**
+     * Stop following the tags of the documents.
+     */
+    @Override
+    public void close() {
+        for (int i = 0; i < this.documents.size(); i++) {
+            this.documents.get(i).removeTagListener(this.listeners.get(i));
+        }
+    }
+
+    /**
+     * Retrieve the number of documents in the index.
+     */
+    public int size() {
+        return this.documents.size();
+    }
+
+    /**
+     * Retrieve the tags that at least one document has, in the order in which they were first seen.
+     */
+    public List<String> getTags() {
+        List<String> retval = new ArrayList<>();
+        for (int code = 0; code < this.dictionary.size(); code++) {
+            if(!this.bitmaps.get(code).isEmpty()) {
+                retval.add(this.dictionary.decode(code));
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Retrieve the positions of the documents with the tag.
+     *
+     * @return A copy of the bitmap of the tag, which is empty if no document has the tag.
+     */
+    public DocumentBitmap getDocuments(String tag) {
+        int code = this.dictionary.find(tag);
+        return (code < 0) ? new DocumentBitmap() : this.bitmaps.get(code).copy();
+    }
+
+    /**
+     * Retrieve the positions of the documents that have all the tags. Without tags, every document matches.
+     */
+    public DocumentBitmap allOf(String... tags) {
+        if(tags.length == 0) {
+            return DocumentBitmap.range(this.size());
+        }
+
+        DocumentBitmap[] operands = new DocumentBitmap[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            int code = this.dictionary.find(tags[i]);
+            if(code < 0) {
+                return new DocumentBitmap();
+            }
+            operands[i] = this.bitmaps.get(code);
+        }
+
+        // starting with the smallest bitmap keeps the intermediate results small
+        Arrays.sort(operands, Comparator.comparingInt(DocumentBitmap::cardinality));
+        DocumentBitmap retval = operands[0].copy();
+        for (int i = 1; i < operands.length && !retval.isEmpty(); i++) {
+            retval = retval.and(operands[i]);
+        }
+        return retval;
+    }
+
+    /**
+     * Retrieve the positions of the documents that have at least one of the tags.
+     */
+    public DocumentBitmap anyOf(String... tags) {
+        DocumentBitmap retval = new DocumentBitmap();
+        for (String tag : tags) {
+            int code = this.dictionary.find(tag);
+            if(code >= 0) {
+                retval = retval.or(this.bitmaps.get(code));
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Retrieve the positions of the documents that have none of the tags.
+     */
+    public DocumentBitmap noneOf(String... tags) {
+        return DocumentBitmap.range(this.size()).andNot(this.anyOf(tags));
+    }
+
+    private void addTags(int position, List<String> tags) {
+        for (String tag : tags) {
+            int code = this.dictionary.encode(tag);
+            if(code == this.bitmaps.size()) {
+                this.bitmaps.add(new DocumentBitmap());
+            }
+            this.bitmaps.get(code).add(position);
+        }
+    }
+
+    /**
+     * Remove the position from the bitmaps of the old tags that are not among the new tags.
+     */
+    private void removeTags(int position, List<String> oldTags, List<String> newTags) {
+        for (String tag : oldTags) {
+            int code = this.dictionary.find(tag);
+            if(code >= 0 && !newTags.contains(tag)) {
+                this.bitmaps.get(code).remove(position);
+            }
+        }
+    }
+
+    /**
+     * Updates the bitmaps when the tags of the document at a position change.
+     */
+    private class PositionListener implements TagChangeListener
+    {
+        private int position;
+
+        PositionListener(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public void tagsChanged(Document document, List<String> oldTags, List<String> newTags) {
+            TagIndex.this.removeTags(this.position, oldTags, newTags);
+            TagIndex.this.addTags(this.position, newTags);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.index;
+
+import main.model.document.Document;
+import main.model.validation.ValidationRules;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Validation results of the documents of an index, stored next to the index file and keyed by the content hash of each
+ * document (see {@link DocumentHasher}). When an index is read again, only the documents whose hash is not in the cache
+ * are validated, so reopening a mostly unchanged index skips almost all validation work.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   magic          8 bytes  "DMVALID\n"
+ *   version        int      version of this layout
+ *   rules          long     fingerprint of the validation rules, see {@link ValidationRules#getFingerprint()}
+ *   checksum       long     CRC32 of the payload
+ *   payload        number of valid documents (int), followed by their hashes in ascending order (long),
+ *                  number of invalid documents (int), followed by, for each, the hash (long), the number of error
+ *                  messages (int), and the messages (modified UTF-8)
+ * </pre>
+ */
+class ValidationCache
+{
+    private static final byte[] MAGIC = "DMVALID\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES + 2 * Long.BYTES;
+    private static final int CHECKSUM_POSITION = HEADER_SIZE - Long.BYTES;
+
+    private static final String SUFFIX = ".validation";
+
+    private final long[] validHashes;
+    private final Map<Long, List<String>> invalidDocuments;
+
+    private ValidationCache(long[] validHashes, Map<Long, List<String>> invalidDocuments) {
+        this.validHashes = validHashes;
+        this.invalidDocuments = invalidDocuments;
+    }
+
+    /**
+     * Retrieve the path of the cache that belongs to the specified index file.
+     */
+    static Path getCachePath(Path indexFile) {
+        return indexFile.resolveSibling(indexFile.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Validate the documents of an index, reusing the results in the cache of the index file. Afterwards, the cache is
+     * replaced by the results for these documents, unless nothing changed. A cache that cannot be written is ignored.
+     *
+     * @param indexFile The index file.
+     * @param documents The documents in the index.
+     * @return The error messages, the same as {@link DocumentIndex#validate()} returns.
+     * @throws IOException If the cache could not be read.
+     */
+    static List<String> validate(Path indexFile, List<Document> documents) throws IOException {
+        // results of other rules, e.g. after the rules file was edited, are not reused
+        long rules = ValidationRules.getDefault().getFingerprint();
+        ValidationCache cache = read(getCachePath(indexFile), rules);
+
+        long[] validHashes = new long[documents.size()];
+        int validCount = 0;
+        Map<Long, List<String>> invalidDocuments = new HashMap<>();
+        boolean changed = (cache == null);
+
+        List<String> retval = new ArrayList<>();
+
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            long hash = DocumentHasher.hash(document);
+
+            List<String> errorMsgs = (cache == null) ? null : cache.lookup(hash);
+            if(errorMsgs == null) {
+                errorMsgs = document.validate();
+                changed = true;
+            }
+
+            if(errorMsgs.isEmpty()) {
+                validHashes[validCount++] = hash;
+            } else {
+                invalidDocuments.put(hash, errorMsgs);
+                for (String errorMsg : errorMsgs) {
+                    retval.add(DocumentIndex.formatError(i, errorMsg));
+                }
+            }
+        }
+
+        validHashes = Arrays.copyOf(validHashes, validCount);
+        Arrays.sort(validHashes);
+        validHashes = distinct(validHashes);
+
+        // documents that were removed from the index also change the cache
+        if(!changed && (validHashes.length != cache.validHashes.length || invalidDocuments.size() != cache.invalidDocuments.size())) {
+            changed = true;
+        }
+
+        if(changed) {
+            try {
+                new ValidationCache(validHashes, invalidDocuments).write(getCachePath(indexFile), rules);
+            } catch (IOException ignored) {
+                // the cache only speeds up the next read, e.g. a read-only directory is not an error
+            }
+        }
+
+        return retval;
+    }
+
+    /**
+     * Remove the cache of the specified index file.
+     */
+    static void delete(Path indexFile) throws IOException {
+        Files.deleteIfExists(getCachePath(indexFile));
+    }
+
+    /**
+     * Retrieve the cached error messages of the document with the specified hash.
+     *
+     * @return The error messages, which are empty for a valid document, or null if the document is not in the cache.
+     */
+    private List<String> lookup(long hash) {
+        if(Arrays.binarySearch(this.validHashes, hash) >= 0) {
+            return List.of();
+        }
+        return this.invalidDocuments.get(hash);
+    }
+
+    /**
+     * Read a cache file.
+     *
+     * @return The cache, or null if the file does not exist, is corrupt, or was made by other validation rules.
+     */
+    private static ValidationCache read(Path cacheFile, long rules) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(cacheFile);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        if(bytes.length < HEADER_SIZE) {
+            return null;
+        }
+
+        ByteBuffer header = ByteBuffer.wrap(bytes, 0, HEADER_SIZE);
+        byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if(!Arrays.equals(magic, MAGIC) || header.getInt() != VERSION || header.getLong() != rules) {
+            return null;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+        if(crc.getValue() != header.getLong()) {
+            return null;
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE));
+
+        try {
+            long[] validHashes = new long[in.readInt()];
+            for (int i = 0; i < validHashes.length; i++) {
+                validHashes[i] = in.readLong();
+            }
+
+            int invalidCount = in.readInt();
+            Map<Long, List<String>> invalidDocuments = new HashMap<>();
+            for (int i = 0; i < invalidCount; i++) {
+                long hash = in.readLong();
+                List<String> errorMsgs = new ArrayList<>();
+                for (int messageCount = in.readInt(); messageCount > 0; messageCount--) {
+                    errorMsgs.add(in.readUTF());
+                }
+                invalidDocuments.put(hash, errorMsgs);
+            }
+
+            return new ValidationCache(validHashes, invalidDocuments);
+        } catch (IOException | NegativeArraySizeException e) {
+            // truncated payload
+            return null;
+        }
+    }
+
+    /**
+     * Write the cache to a temporary file, which then replaces the cache file.
+     */
+    private void write(Path cacheFile, long rules) throws IOException {
+        Path temp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC);
+            header.putInt(VERSION);
+            header.putLong(rules);
+            header.putLong(0); // the checksum is filled in once the payload is written
+            header.flip();
+            channel.write(header);
+
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+
+            out.writeInt(this.validHashes.length);
+            for (long hash : this.validHashes) {
+                out.writeLong(hash);
+            }
+
+            out.writeInt(this.invalidDocuments.size());
+            for (Map.Entry<Long, List<String>> entry : this.invalidDocuments.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (String errorMsg : entry.getValue()) {
+                    out.writeUTF(errorMsg);
+                }
+            }
+            out.flush();
+
+            ByteBuffer checksum = ByteBuffer.allocate(Long.BYTES);
+            checksum.putLong(crc.getValue());
+            checksum.flip();
+            channel.write(checksum, CHECKSUM_POSITION);
+        }
+
+        Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Remove the duplicates from a sorted array.
+     */
+    private static long[] distinct(long[] sorted) {
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if(i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+}
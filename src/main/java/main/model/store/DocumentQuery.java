@@ -0,0 +1,132 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.store;
+
+import main.model.document.Document;
+import main.model.document.EnumDocumentType;
+import main.model.document.EnumReadingStatus;
+
+import java.time.Year;
+import java.util.Locale;
+
+/**
+ * Criteria for {@link IndexStore#query(DocumentQuery)}. A document matches if it meets all the criteria that are set;
+ * criteria that are null are ignored, so an empty query matches every document.
+ */
+public class DocumentQuery
+{
+    private String titleContains = null;
+    private Year publicationYear = null;
+    private EnumDocumentType documentType = null;
+    private EnumReadingStatus readingStatus = null;
+    private String tag = null;
+
+    /**
+     * Retrieve the text that the title must contain, ignoring case.
+     */
+    public String getTitleContains() {
+        return this.titleContains;
+    }
+
+    /**
+     * Set the text that the title must contain, ignoring case.
+     */
+    public void setTitleContains(String titleContains) {
+        this.titleContains = titleContains;
+    }
+
+    /**
+     * Retrieve the publication year that the document must have.
+     */
+    public Year getPublicationYear() {
+        return this.publicationYear;
+    }
+
+    /**
+     * Set the publication year that the document must have.
+     */
+    public void setPublicationYear(Year publicationYear) {
+        this.publicationYear = publicationYear;
+    }
+
+    /**
+     * Retrieve the type that the document must have.
+     */
+    public EnumDocumentType getDocumentType() {
+        return this.documentType;
+    }
+
+    /**
+     * Set the type that the document must have.
+     */
+    public void setDocumentType(EnumDocumentType documentType) {
+        this.documentType = documentType;
+    }
+
+    /**
+     * Retrieve the reading status that the document must have.
+     */
+    public EnumReadingStatus getReadingStatus() {
+        return this.readingStatus;
+    }
+
+    /**
+     * Set the reading status that the document must have.
+     */
+    public void setReadingStatus(EnumReadingStatus readingStatus) {
+        this.readingStatus = readingStatus;
+    }
+
+    /**
+     * Retrieve the tag that the document must have.
+     */
+    public String getTag() {
+        return this.tag;
+    }
+
+    /**
+     * Set the tag that the document must have.
+     */
+    public void setTag(String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * Determine whether the document meets all the criteria. Stores that cannot translate the query into their own
+     * query language use this method to filter the documents.
+     */
+    public boolean matches(Document document) {
+        if(this.titleContains != null && (document.getTitle() == null || !document.getTitle().toLowerCase(Locale.ROOT).contains(this.titleContains.toLowerCase(Locale.ROOT)))) {
+            return false;
+        }
+
+        if(this.publicationYear != null && !this.publicationYear.equals(document.getPublicationYear())) {
+            return false;
+        }
+
+        if(this.documentType != null && this.documentType != document.getDocumentType()) {
+            return false;
+        }
+
+        if(this.readingStatus != null && this.readingStatus != document.getReadingStatus()) {
+            return false;
+        }
+
+        return this.tag == null || document.getTags().contains(this.tag);
+    }
+}
@@ -0,0 +1,354 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.store;
+
+import main.model.document.Document;
+import main.model.index.IndexCodec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Store that keeps the documents in an embedded H2 database file. Every document is stored as JSON, together with
+ * indexed columns for the fields that can be queried. Lookups and changes by id go through the primary key B-tree of
+ * the database, so they take O(log n) time, and only the documents that are accessed are loaded into memory.
+ */
+public class H2IndexStore implements IndexStore
+{
+    /**
+     * Provider for files that end in ".mv.db", the extension of H2 database files.
+     */
+    public static class Provider implements IndexStoreProvider
+    {
+        @Override
+        public boolean supports(Path file) {
+            return file.getFileName().toString().toLowerCase().endsWith(FILE_SUFFIX);
+        }
+
+        @Override
+        public IndexStore open(Path file) throws IOException {
+            return new H2IndexStore(file);
+        }
+    }
+
+    private static final String FILE_SUFFIX = ".mv.db";
+
+    private static final List<String> SCHEMA = List.of(
+            "CREATE TABLE IF NOT EXISTS DOCUMENTS (" +
+                    "ID BIGINT PRIMARY KEY, " +
+                    "TITLE VARCHAR, " +
+                    "PUBLICATION_YEAR INTEGER, " +
+                    "DOCUMENT_TYPE VARCHAR(32), " +
+                    "READING_STATUS VARCHAR(32), " +
+                    "CONTENT CHARACTER LARGE OBJECT NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS DOCUMENT_TAGS (" +
+                    "DOCUMENT_ID BIGINT NOT NULL REFERENCES DOCUMENTS(ID) ON DELETE CASCADE, " +
+                    "TAG VARCHAR NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS DOCUMENT_TAGS_TAG ON DOCUMENT_TAGS(TAG)",
+            "CREATE INDEX IF NOT EXISTS DOCUMENTS_PUBLICATION_YEAR ON DOCUMENTS(PUBLICATION_YEAR)",
+            "CREATE INDEX IF NOT EXISTS DOCUMENTS_DOCUMENT_TYPE ON DOCUMENTS(DOCUMENT_TYPE)",
+            "CREATE INDEX IF NOT EXISTS DOCUMENTS_READING_STATUS ON DOCUMENTS(READING_STATUS)"
+    );
+
+    private final Connection connection;
+    private final IndexCodec codec = IndexCodec.getDefault();
+    private long nextId;
+
+    /**
+     * Constructor. A database that does not exist yet is created.
+     *
+     * @param databaseFile The database file, which ends in ".mv.db".
+     * @throws IOException If the path cannot be used in a database URL, or if the database could not be opened.
+     */
+    public H2IndexStore(Path databaseFile) throws IOException {
+        String name = databaseFile.toAbsolutePath().normalize().toString();
+        if(name.toLowerCase().endsWith(FILE_SUFFIX)) {
+            name = name.substring(0, name.length() - FILE_SUFFIX.length());
+        }
+
+        // H2 reads settings such as INIT=RUNSCRIPT from everything after a semicolon in the URL
+        if(name.indexOf(';') >= 0 || name.chars().anyMatch(Character::isISOControl)) {
+            throw new IOException("Cannot open database \"%s\": the path must not contain ';' or control characters".formatted(databaseFile));
+        }
+
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection("jdbc:h2:file:" + name);
+            connection.setAutoCommit(false);
+
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : SCHEMA) {
+                    statement.execute(sql);
+                }
+
+                try (ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(ID), 0) + 1 FROM DOCUMENTS")) {
+                    resultSet.next();
+                    this.nextId = resultSet.getLong(1);
+                }
+            }
+
+            connection.commit();
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw new IOException("Cannot open database \"%s\"".formatted(databaseFile), e);
+        }
+
+        this.connection = connection;
+    }
+
+    @Override
+    public synchronized long count() throws IOException {
+        try (Statement statement = this.connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM DOCUMENTS")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public synchronized Document get(long id) throws IOException {
+        try (PreparedStatement statement = this.connection.prepareStatement("SELECT CONTENT FROM DOCUMENTS WHERE ID = ?")) {
+            statement.setLong(1, id);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? this.decode(resultSet.getString(1)) : null;
+            }
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public synchronized long insert(Document document) throws IOException {
+        long id = this.nextId;
+        this.upsert(id, document);
+        return id;
+    }
+
+    @Override
+    public synchronized void upsert(long id, Document document) throws IOException {
+        try {
+            try (PreparedStatement statement = this.connection.prepareStatement(
+                    "MERGE INTO DOCUMENTS (ID, TITLE, PUBLICATION_YEAR, DOCUMENT_TYPE, READING_STATUS, CONTENT) KEY (ID) VALUES (?, ?, ?, ?, ?, ?)")) {
+                statement.setLong(1, id);
+                statement.setString(2, document.getTitle());
+                if(document.getPublicationYear() == null) {
+                    statement.setNull(3, Types.INTEGER);
+                } else {
+                    statement.setInt(3, document.getPublicationYear().getValue());
+                }
+                statement.setString(4, (document.getDocumentType() == null) ? null : document.getDocumentType().name());
+                statement.setString(5, (document.getReadingStatus() == null) ? null : document.getReadingStatus().name());
+                statement.setString(6, this.codec.getDocumentWriter().writeValueAsString(document));
+                statement.executeUpdate();
+            }
+
+            try (PreparedStatement statement = this.connection.prepareStatement("DELETE FROM DOCUMENT_TAGS WHERE DOCUMENT_ID = ?")) {
+                statement.setLong(1, id);
+                statement.executeUpdate();
+            }
+
+            try (PreparedStatement statement = this.connection.prepareStatement("INSERT INTO DOCUMENT_TAGS (DOCUMENT_ID, TAG) VALUES (?, ?)")) {
+                for (String tag : document.getTags()) {
+                    statement.setLong(1, id);
+                    statement.setString(2, tag);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+
+            this.connection.commit();
+            this.nextId = Math.max(this.nextId, id + 1);
+        } catch (SQLException e) {
+            this.rollback(e);
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public synchronized boolean delete(long id) throws IOException {
+        try (PreparedStatement statement = this.connection.prepareStatement("DELETE FROM DOCUMENTS WHERE ID = ?")) {
+            statement.setLong(1, id);
+            boolean retval = statement.executeUpdate() > 0;
+            this.connection.commit();
+            return retval;
+        } catch (SQLException e) {
+            this.rollback(e);
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public synchronized LongStream ids() throws IOException {
+        try {
+            Statement statement = this.connection.createStatement();
+            ResultSet resultSet = statement.executeQuery("SELECT ID FROM DOCUMENTS ORDER BY ID");
+
+            Spliterator.OfLong spliterator = new Spliterators.AbstractLongSpliterator(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(LongConsumer action) {
+                    try {
+                        if(!resultSet.next()) {
+                            return false;
+                        }
+                        action.accept(resultSet.getLong(1));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new UncheckedIOException(new IOException(e));
+                    }
+                }
+            };
+
+            return StreamSupport.longStream(spliterator, false).onClose(() -> closeQuietly(statement));
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public Stream<StoredDocument> iterate() throws IOException {
+        return this.query(new DocumentQuery());
+    }
+
+    @Override
+    public synchronized Stream<StoredDocument> query(DocumentQuery query) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT ID, CONTENT FROM DOCUMENTS D WHERE TRUE");
+        List<Object> parameters = new ArrayList<>();
+
+        if(query.getTitleContains() != null) {
+            sql.append(" AND LOCATE(LOWER(?), LOWER(TITLE)) > 0");
+            parameters.add(query.getTitleContains());
+        }
+        if(query.getPublicationYear() != null) {
+            sql.append(" AND PUBLICATION_YEAR = ?");
+            parameters.add(query.getPublicationYear().getValue());
+        }
+        if(query.getDocumentType() != null) {
+            sql.append(" AND DOCUMENT_TYPE = ?");
+            parameters.add(query.getDocumentType().name());
+        }
+        if(query.getReadingStatus() != null) {
+            sql.append(" AND READING_STATUS = ?");
+            parameters.add(query.getReadingStatus().name());
+        }
+        if(query.getTag() != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM DOCUMENT_TAGS T WHERE T.DOCUMENT_ID = D.ID AND T.TAG = ?)");
+            parameters.add(query.getTag());
+        }
+        sql.append(" ORDER BY ID");
+
+        try {
+            PreparedStatement statement = this.connection.prepareStatement(sql.toString());
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            ResultSet resultSet = statement.executeQuery();
+
+            Spliterator<StoredDocument> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super StoredDocument> action) {
+                    try {
+                        if(!resultSet.next()) {
+                            return false;
+                        }
+                        action.accept(new StoredDocument(resultSet.getLong(1), H2IndexStore.this.decode(resultSet.getString(2))));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new UncheckedIOException(new IOException(e));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+
+            return StreamSupport.stream(spliterator, false).onClose(() -> closeQuietly(statement));
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Write all committed changes to the database file.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        try (Statement statement = this.connection.createStatement()) {
+            statement.execute("CHECKPOINT");
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Close the database.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            this.connection.close();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private Document decode(String json) throws IOException {
+        return this.codec.getDocumentReader().readValue(json);
+    }
+
+    /**
+     * Undo the current transaction after a failed change. A failure of the rollback is added to the original error.
+     */
+    private void rollback(SQLException cause) {
+        try {
+            this.connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if(closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+            // nothing can be done about a failure to release a resource
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.store;
+
+import main.model.document.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Storage backend of a document index. Every document in a store has an id, which is assigned by the store and never
+ * reused within a session. Stores are opened with {@link IndexStores#open(java.nio.file.Path)}.
+ *
+ * The streams that are returned by a store must be closed after use, e.g. with a try-with-resources statement. Errors
+ * while reading from a stream are reported as {@link UncheckedIOException}.
+ */
+public interface IndexStore extends Closeable
+{
+    /**
+     * Retrieve the number of documents in the store.
+     */
+    long count() throws IOException;
+
+    /**
+     * Retrieve the document with the specified id. The document is a copy, so changes to it are only stored by
+     * {@link #upsert(long, Document)}.
+     *
+     * @return The document, or null if there is no document with the id.
+     */
+    Document get(long id) throws IOException;
+
+    /**
+     * Add a document to the store.
+     *
+     * @return The id of the new document.
+     */
+    long insert(Document document) throws IOException;
+
+    /**
+     * Replace the document with the specified id, or add the document under that id if there is none.
+     */
+    void upsert(long id, Document document) throws IOException;
+
+    /**
+     * Remove the document with the specified id.
+     *
+     * @return Whether there was a document with the id.
+     */
+    boolean delete(long id) throws IOException;
+
+    /**
+     * Retrieve the ids of all documents, in ascending order.
+     */
+    LongStream ids() throws IOException;
+
+    /**
+     * Retrieve all documents, in ascending order of their ids.
+     */
+    Stream<StoredDocument> iterate() throws IOException;
+
+    /**
+     * Retrieve the documents that match the query, in ascending order of their ids.
+     */
+    Stream<StoredDocument> query(DocumentQuery query) throws IOException;
+
+    /**
+     * Make sure that all changes are stored on disk.
+     */
+    void flush() throws IOException;
+}
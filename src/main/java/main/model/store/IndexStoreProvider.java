@@ -0,0 +1,38 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Opens the stores of a single kind. Providers are found with {@link java.util.ServiceLoader}, so a new kind of store
+ * is added by listing its provider in "META-INF/services/main.model.store.IndexStoreProvider".
+ */
+public interface IndexStoreProvider
+{
+    /**
+     * Determine whether this provider handles the specified file, e.g. based on its extension.
+     */
+    boolean supports(Path file);
+
+    /**
+     * Open the store in the specified file. A store that does not exist yet is created.
+     */
+    IndexStore open(Path file) throws IOException;
+}
@@ -0,0 +1,74 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ServiceLoader;
+import java.util.stream.Stream;
+
+/**
+ * Opens index stores through the registered {@link IndexStoreProvider}s.
+ */
+public final class IndexStores
+{
+    private IndexStores() {
+    }
+
+    /**
+     * Open the store in the specified file with the first provider that supports the file.
+     *
+     * @param file The file that holds the store, e.g. "index.json" or "index.mv.db".
+     * @return The opened store.
+     * @throws IOException If no provider supports the file, or if the store could not be opened.
+     */
+    public static IndexStore open(Path file) throws IOException {
+        for (IndexStoreProvider provider : ServiceLoader.load(IndexStoreProvider.class)) {
+            if(provider.supports(file)) {
+                return provider.open(file);
+            }
+        }
+
+        throw new IOException("No index store supports file \"%s\"".formatted(file));
+    }
+
+    /**
+     * Add all documents of one store to another store, e.g. to move an index from a JSON file to a database. The
+     * documents receive new ids in the target store, in the order of their ids in the source store.
+     *
+     * @param source The store that is read.
+     * @param target The store that receives the documents.
+     * @throws IOException If something went wrong while reading or writing the stores.
+     */
+    public static void copy(IndexStore source, IndexStore target) throws IOException {
+        try (Stream<StoredDocument> documents = source.iterate()) {
+            documents.forEach(stored -> {
+                try {
+                    target.insert(stored.getDocument());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        target.flush();
+    }
+}
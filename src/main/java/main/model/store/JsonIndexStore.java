@@ -0,0 +1,170 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.store;
+
+import main.model.document.Document;
+import main.model.document.ImmutableDocument;
+import main.model.index.DocumentIndex;
+import main.model.index.DocumentIndexReader;
+import main.model.index.DocumentIndexWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Store that keeps all documents in memory and saves them to an index file, using {@link DocumentIndexReader} and
+ * {@link DocumentIndexWriter}. The ids are not saved in the file: when the store is opened, the documents are numbered
+ * from 1 in file order, and the documents are saved in the order of their ids.
+ *
+ * Like the other stores, the store keeps its own copies of the documents: the documents that are passed in and handed
+ * out are copies, so a change to them is only stored by {@link #upsert(long, Document)}.
+ */
+public class JsonIndexStore implements IndexStore
+{
+    /**
+     * Provider for files that end in ".json".
+     */
+    public static class Provider implements IndexStoreProvider
+    {
+        @Override
+        public boolean supports(Path file) {
+            return file.getFileName().toString().toLowerCase().endsWith(".json");
+        }
+
+        @Override
+        public IndexStore open(Path file) throws IOException {
+            return new JsonIndexStore(file);
+        }
+    }
+
+    private final Path path;
+    private final NavigableMap<Long, Document> documents = new TreeMap<>();
+    private long nextId = 1;
+    private boolean dirty = false;
+
+    /**
+     * Constructor. A file that does not exist yet is created on the first {@link #flush()}.
+     *
+     * @param indexFile The index file.
+     * @throws IOException If the file could not be read.
+     */
+    public JsonIndexStore(Path indexFile) throws IOException {
+        this.path = indexFile;
+
+        if(Files.exists(indexFile)) {
+            for (Document document : new DocumentIndexReader(indexFile).read().getDocumentList()) {
+                this.documents.put(this.nextId++, document);
+            }
+        } else {
+            this.dirty = true;
+        }
+    }
+
+    @Override
+    public synchronized long count() {
+        return this.documents.size();
+    }
+
+    @Override
+    public synchronized Document get(long id) {
+        Document document = this.documents.get(id);
+        return (document == null) ? null : copy(document);
+    }
+
+    @Override
+    public synchronized long insert(Document document) {
+        long id = this.nextId++;
+        this.documents.put(id, copy(document));
+        this.dirty = true;
+        return id;
+    }
+
+    @Override
+    public synchronized void upsert(long id, Document document) {
+        this.documents.put(id, copy(document));
+        this.nextId = Math.max(this.nextId, id + 1);
+        this.dirty = true;
+    }
+
+    @Override
+    public synchronized boolean delete(long id) {
+        boolean retval = this.documents.remove(id) != null;
+        this.dirty |= retval;
+        return retval;
+    }
+
+    @Override
+    public synchronized LongStream ids() {
+        return LongStream.of(this.documents.keySet().stream().mapToLong(Long::longValue).toArray());
+    }
+
+    @Override
+    public synchronized Stream<StoredDocument> iterate() {
+        return this.query(new DocumentQuery());
+    }
+
+    @Override
+    public synchronized Stream<StoredDocument> query(DocumentQuery query) {
+        // the stream works on a copy, so that the store can be changed while the stream is open
+        ArrayList<StoredDocument> matches = new ArrayList<>();
+        for (Map.Entry<Long, Document> entry : this.documents.entrySet()) {
+            if(query.matches(entry.getValue())) {
+                matches.add(new StoredDocument(entry.getKey(), copy(entry.getValue())));
+            }
+        }
+        return matches.stream();
+    }
+
+    /**
+     * Write the documents to the index file, if anything changed since the last write.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        if(!this.dirty) {
+            return;
+        }
+
+        DocumentIndex index = new DocumentIndex();
+        index.setDocumentList(new ArrayList<>(this.documents.values()));
+
+        DocumentIndexWriter writer = new DocumentIndexWriter(index);
+        writer.setAtomic(true);
+        writer.write(this.path);
+
+        this.dirty = false;
+    }
+
+    /**
+     * Write the changes to the index file.
+     */
+    @Override
+    public void close() throws IOException {
+        this.flush();
+    }
+
+    private static Document copy(Document document) {
+        return ImmutableDocument.of(document).toDocument();
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.store;
+
+import main.model.document.Document;
+import main.model.index.DocumentIndex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * Document index whose documents live in an {@link IndexStore}. Only the ids of the documents are kept in memory, so
+ * the index can be larger than the heap if the store keeps its documents on disk.
+ *
+ * Every call to get() reads the document from the store, and changes to a document are only stored by calling set()
+ * with the changed document. Documents can only be added at the end of the list. Errors of the store are reported as
+ * {@link UncheckedIOException}.
+ */
+public class StoreDocumentIndex extends DocumentIndex
+{
+    private final IndexStore store;
+
+    /**
+     * Constructor.
+     *
+     * @param store The store that holds the documents. The documents are listed in the order of their ids.
+     * @throws IOException If the ids could not be read from the store.
+     */
+    public StoreDocumentIndex(IndexStore store) throws IOException {
+        this.store = store;
+
+        long[] ids;
+        try (LongStream stream = store.ids()) {
+            ids = stream.toArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        this.setDocumentList(new StoreDocumentList(ids));
+        // every document is read from the store, which handles one request at a time
+        this.setParallelValidation(false);
+    }
+
+    /**
+     * Retrieve the store that holds the documents.
+     */
+    public IndexStore getStore() {
+        return this.store;
+    }
+
+    /**
+     * List view on the documents in the store.
+     */
+    private class StoreDocumentList extends AbstractList<Document>
+    {
+        private long[] ids;
+        private int size;
+
+        StoreDocumentList(long[] ids) {
+            this.ids = ids;
+            this.size = ids.length;
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public Document get(int index) {
+            try {
+                return StoreDocumentIndex.this.store.get(this.ids[this.checkIndex(index)]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Document set(int index, Document document) {
+            Document retval = this.get(index);
+
+            try {
+                StoreDocumentIndex.this.store.upsert(this.ids[index], document);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return retval;
+        }
+
+        @Override
+        public void add(int index, Document document) {
+            if(index != this.size) {
+                throw new UnsupportedOperationException("Documents can only be added at the end of a store-backed index");
+            }
+
+            long id;
+            try {
+                id = StoreDocumentIndex.this.store.insert(document);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            if(this.size == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, Math.max(16, this.size * 2));
+            }
+            this.ids[this.size++] = id;
+            this.modCount++;
+        }
+
+        @Override
+        public Document remove(int index) {
+            Document retval = this.get(index);
+
+            try {
+                StoreDocumentIndex.this.store.delete(this.ids[index]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            System.arraycopy(this.ids, index + 1, this.ids, index, this.size - index - 1);
+            this.size--;
+            this.modCount++;
+            return retval;
+        }
+
+        private int checkIndex(int index) {
+            if(index < 0 || index >= this.size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.store;
+
+import main.model.document.Document;
+
+/**
+ * A document together with its id in an {@link IndexStore}.
+ */
+public class StoredDocument
+{
+    private final long id;
+    private final Document document;
+
+    /**
+     * Constructor.
+     *
+     * @param id The id of the document in the store.
+     * @param document The document.
+     */
+    public StoredDocument(long id, Document document) {
+        this.id = id;
+        this.document = document;
+    }
+
+    /**
+     * Retrieve the id of the document in the store.
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * Retrieve the document.
+     */
+    public Document getDocument() {
+        return this.document;
+    }
+}
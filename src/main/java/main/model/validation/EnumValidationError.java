@@ -0,0 +1,98 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.validation;
+
+/**
+ * Enum that lists the reasons why an object can be invalid. Each reason has a message template, which is only
+ * formatted when the message is requested.
+ */
+public enum EnumValidationError implements IValidationError
+{
+    /**
+     * The last name of an author is null.
+     */
+    AUTHOR_LASTNAME_NULL("Lastname must not be 'null'."),
+
+    /**
+     * The last name of an author is an empty string.
+     */
+    AUTHOR_LASTNAME_EMPTY("Lastname must not be empty."),
+
+    /**
+     * A document has no authors.
+     */
+    DOCUMENT_AUTHORS_EMPTY("List of authors must not be empty."),
+
+    /**
+     * The title of a document is null or an empty string.
+     */
+    DOCUMENT_TITLE_EMPTY("Title must not be empty or null."),
+
+    /**
+     * The page count of a document is zero or negative.
+     */
+    DOCUMENT_PAGE_COUNT("Page count must be greater than zero."),
+
+    /**
+     * A document has no document type.
+     */
+    DOCUMENT_TYPE_NULL("Document type must not be null."),
+
+    /**
+     * A document has no reading status.
+     */
+    DOCUMENT_READING_STATUS_NULL("Reading status must not be null."),
+
+    /**
+     * The source location of a document is not a valid URI.
+     */
+    DOCUMENT_SOURCE_LOCATION("Source location must be a valid URI."),
+
+    /**
+     * The notes location of a document is not a valid URI.
+     */
+    DOCUMENT_NOTES_LOCATION("Notes location must be a valid URI."),
+
+    /**
+     * A document duplicates an earlier document in the index. The argument is the position of the earlier document.
+     */
+    DOCUMENT_DUPLICATE("Duplicate of the document at index #%d.");
+
+    private final String template;
+
+    EnumValidationError(String template) {
+        this.template = template;
+    }
+
+    /**
+     * Retrieve the message template, in the format of {@link String#formatted(Object...)}.
+     */
+    public String getTemplate() {
+        return this.template;
+    }
+
+    @Override
+    public String getCode() {
+        return this.name();
+    }
+
+    @Override
+    public String format(Object[] arguments) {
+        return (arguments.length == 0) ? this.template : this.template.formatted(arguments);
+    }
+}
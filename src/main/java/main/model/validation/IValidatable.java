@@ -24,10 +24,22 @@ import java.util.List;
  */
 public interface IValidatable
 {
+    /**
+     * Validate the object, and add the errors to the specified sink. Nested objects are validated in a path segment
+     * of the sink, see {@link ValidationErrors#enter(String, int)}.
+     *
+     * @param errors The sink that receives the errors.
+     */
+    void validate(ValidationErrors errors);
+
     /**
      * Validate the object.
      *
      * @return A list of error messages. Each error message contains a reason why the object is invalid.
      */
-    List<String> validate();
+    default List<String> validate() {
+        ValidationErrors errors = new ValidationErrors();
+        this.validate(errors);
+        return errors.getMessages();
+    }
 }
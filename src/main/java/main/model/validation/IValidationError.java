@@ -0,0 +1,34 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.validation;
+
+/**
+ * Interface for the reasons why an object can be invalid, see {@link ValidationErrors}.
+ */
+public interface IValidationError
+{
+    /**
+     * Retrieve the code that identifies the error, e.g. the name of the rule that reports it.
+     */
+    String getCode();
+
+    /**
+     * Build the message for the specified arguments.
+     */
+    String format(Object[] arguments);
+}
@@ -0,0 +1,193 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.validation;
+
+import main.model.document.Author;
+import main.model.document.Document;
+import main.model.document.EnumDocumentType;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Turns the rules of a rules file into {@link ValidationRule} objects. Every rule checks a single field of a document
+ * or an author. Field values are compared as follows:
+ *  - "required": the value must not be null, an empty string or an empty list,
+ *  - "min" and "max": numbers are compared directly, strings by their length and lists by their size,
+ *  - "pattern": the value, converted to a string, must completely match the regular expression.
+ * Only "required" rejects missing values; the other checks accept null.
+ */
+final class RuleCompiler
+{
+    private static final Map<String, Function<Document, Object>> DOCUMENT_FIELDS = Map.of(
+            "authors", Document::getAuthors,
+            "title", Document::getTitle,
+            "publicationYear", document -> (document.getPublicationYear() == null) ? null : document.getPublicationYear().getValue(),
+            "publicationVenue", Document::getPublicationVenue,
+            "pageCount", Document::getPageCount,
+            "documentType", document -> (document.getDocumentType() == null) ? null : document.getDocumentType().name(),
+            "readingStatus", document -> (document.getReadingStatus() == null) ? null : document.getReadingStatus().name(),
+            "sourceLocation", Document::getSourceLocationText,
+            "notesLocation", Document::getNotesLocationText,
+            "tags", Document::getTags
+    );
+
+    private static final Map<String, Function<Author, Object>> AUTHOR_FIELDS = Map.of(
+            "firstName", Author::getFirstName,
+            "lastName", Author::getLastName
+    );
+
+    private RuleCompiler() {
+    }
+
+    /**
+     * Compile a rule of a rules file.
+     *
+     * @throws IOException If the rule is incomplete, or refers to an unknown target, field or check.
+     */
+    static ValidationRule<?> compile(RuleConfig.Rule rule) throws IOException {
+        if(rule.name == null || rule.target == null || rule.field == null || rule.check == null || rule.message == null) {
+            throw new IOException("Validation rule \"%s\" must have a name, target, field, check and message".formatted(rule.name));
+        }
+
+        Predicate<Object> check = compileCheck(rule);
+        IValidationError error = new RuleMessage(rule.name, rule.message);
+        String definition = "%s.%s %s %s %s: %s".formatted(rule.target, rule.field, rule.check, rule.value, rule.documentTypes, rule.message);
+
+        switch (rule.target) {
+            case "document":
+                Function<Document, Object> documentField = getField(DOCUMENT_FIELDS, rule);
+                Predicate<Document> predicate = document -> check.test(documentField.apply(document));
+
+                if(rule.documentTypes != null) {
+                    EnumSet<EnumDocumentType> types = rule.documentTypes.isEmpty()
+                            ? EnumSet.noneOf(EnumDocumentType.class) : EnumSet.copyOf(rule.documentTypes);
+                    Predicate<Document> unconditional = predicate;
+                    predicate = document -> !types.contains(document.getDocumentType()) || unconditional.test(document);
+                }
+                return new ValidationRule<>(rule.name, Document.class, predicate, error, definition);
+
+            case "author":
+                if(rule.documentTypes != null) {
+                    throw new IOException("Validation rule \"%s\": only document rules can be limited to document types".formatted(rule.name));
+                }
+                Function<Author, Object> authorField = getField(AUTHOR_FIELDS, rule);
+                return new ValidationRule<>(rule.name, Author.class, author -> check.test(authorField.apply(author)), error, definition);
+
+            default:
+                throw new IOException("Validation rule \"%s\": unknown target \"%s\"".formatted(rule.name, rule.target));
+        }
+    }
+
+    private static <T> Function<T, Object> getField(Map<String, Function<T, Object>> fields, RuleConfig.Rule rule) throws IOException {
+        Function<T, Object> field = fields.get(rule.field);
+        if(field == null) {
+            throw new IOException("Validation rule \"%s\": unknown field \"%s\", expected one of %s".formatted(
+                    rule.name, rule.field, fields.keySet()));
+        }
+        return field;
+    }
+
+    private static Predicate<Object> compileCheck(RuleConfig.Rule rule) throws IOException {
+        switch (rule.check) {
+            case "required":
+                return RuleCompiler::isPresent;
+
+            case "min":
+                long min = parseBound(rule);
+                return value -> value == null || measure(value) >= min;
+
+            case "max":
+                long max = parseBound(rule);
+                return value -> value == null || measure(value) <= max;
+
+            case "pattern":
+                if(rule.value == null) {
+                    throw new IOException("Validation rule \"%s\": a pattern check needs a value".formatted(rule.name));
+                }
+                try {
+                    Pattern pattern = Pattern.compile(rule.value);
+                    return value -> value == null || pattern.matcher(value.toString()).matches();
+                } catch (PatternSyntaxException e) {
+                    throw new IOException("Validation rule \"%s\": invalid pattern".formatted(rule.name), e);
+                }
+
+            default:
+                throw new IOException("Validation rule \"%s\": unknown check \"%s\"".formatted(rule.name, rule.check));
+        }
+    }
+
+    private static long parseBound(RuleConfig.Rule rule) throws IOException {
+        try {
+            return Long.parseLong(rule.value);
+        } catch (NumberFormatException e) {
+            throw new IOException("Validation rule \"%s\": a %s check needs an integer value, got \"%s\"".formatted(
+                    rule.name, rule.check, rule.value));
+        }
+    }
+
+    private static boolean isPresent(Object value) {
+        if(value instanceof String string) {
+            return !string.isEmpty();
+        }
+        if(value instanceof Collection<?> collection) {
+            return !collection.isEmpty();
+        }
+        return value != null;
+    }
+
+    private static long measure(Object value) {
+        if(value instanceof Number number) {
+            return number.longValue();
+        }
+        if(value instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        return value.toString().length();
+    }
+
+    /**
+     * The error of a rule from a rules file, whose message is used as is.
+     */
+    private static class RuleMessage implements IValidationError
+    {
+        private final String code;
+        private final String message;
+
+        private RuleMessage(String code, String message) {
+            this.code = code;
+            this.message = message;
+        }
+
+        @Override
+        public String getCode() {
+            return this.code;
+        }
+
+        @Override
+        public String format(Object[] arguments) {
+            return this.message;
+        }
+    }
+}
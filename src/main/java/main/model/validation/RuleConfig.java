@@ -0,0 +1,127 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.validation;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import main.model.document.EnumDocumentType;
+
+import java.util.List;
+
+/**
+ * Contents of a validation rules file, see {@link ValidationRules#load(java.nio.file.Path)}. Example:
+ * <pre>
+ * {
+ *   "disabledRules" : [ "document.pageCount" ],
+ *   "rules" : [ {
+ *     "name" : "paper.venue",
+ *     "target" : "document",
+ *     "field" : "publicationVenue",
+ *     "check" : "required",
+ *     "documentTypes" : [ "PAPER" ],
+ *     "message" : "Papers must have a publication venue."
+ *   }, {
+ *     "name" : "book.pageLimit",
+ *     "target" : "document",
+ *     "field" : "pageCount",
+ *     "check" : "max",
+ *     "value" : 2000,
+ *     "documentTypes" : [ "BOOK" ],
+ *     "message" : "Books must have at most 2000 pages."
+ *   } ]
+ * }
+ * </pre>
+ */
+class RuleConfig
+{
+    /**
+     * A rule that checks a single field.
+     */
+    static class Rule
+    {
+        @JsonProperty("name")
+        final String name;
+
+        /**
+         * The kind of object that is checked: "document" or "author".
+         */
+        @JsonProperty("target")
+        final String target;
+
+        @JsonProperty("field")
+        final String field;
+
+        /**
+         * The check: "required", "min", "max" or "pattern".
+         */
+        @JsonProperty("check")
+        final String check;
+
+        /**
+         * The bound of a "min" or "max" check, or the regular expression of a "pattern" check.
+         */
+        @JsonProperty("value")
+        final String value;
+
+        /**
+         * The document types to which the rule applies, or null if it applies to all documents.
+         */
+        @JsonProperty("documentTypes")
+        final List<EnumDocumentType> documentTypes;
+
+        @JsonProperty("message")
+        final String message;
+
+        @JsonCreator
+        Rule(
+                @JsonProperty("name") String name,
+                @JsonProperty("target") String target,
+                @JsonProperty("field") String field,
+                @JsonProperty("check") String check,
+                @JsonProperty("value") String value,
+                @JsonProperty("documentTypes") List<EnumDocumentType> documentTypes,
+                @JsonProperty("message") String message
+        ) {
+            this.name = name;
+            this.target = target;
+            this.field = field;
+            this.check = check;
+            this.value = value;
+            this.documentTypes = documentTypes;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Names of built-in rules that are not applied.
+     */
+    @JsonProperty("disabledRules")
+    final List<String> disabledRules;
+
+    @JsonProperty("rules")
+    final List<Rule> rules;
+
+    @JsonCreator
+    RuleConfig(
+            @JsonProperty("disabledRules") List<String> disabledRules,
+            @JsonProperty("rules") List<Rule> rules
+    ) {
+        this.disabledRules = (disabledRules == null) ? List.of() : disabledRules;
+        this.rules = (rules == null) ? List.of() : rules;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.validation;
+
+/**
+ * Evaluation statistics of a single validation rule, see {@link ValidationRules#setCollectStatistics(boolean)}.
+ */
+public class RuleStatistics
+{
+    private final String ruleName;
+    private final long evaluations;
+    private final long failures;
+    private final long nanos;
+
+    /**
+     * Constructor.
+     *
+     * @param ruleName The name of the rule.
+     * @param evaluations The number of objects that the rule checked.
+     * @param failures The number of objects that failed the check.
+     * @param nanos The total time spent in the check, in nanoseconds.
+     */
+    public RuleStatistics(String ruleName, long evaluations, long failures, long nanos) {
+        this.ruleName = ruleName;
+        this.evaluations = evaluations;
+        this.failures = failures;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Retrieve the name of the rule.
+     */
+    public String getRuleName() {
+        return this.ruleName;
+    }
+
+    /**
+     * Retrieve the number of objects that the rule checked.
+     */
+    public long getEvaluations() {
+        return this.evaluations;
+    }
+
+    /**
+     * Retrieve the number of objects that failed the check.
+     */
+    public long getFailures() {
+        return this.failures;
+    }
+
+    /**
+     * Retrieve the total time spent in the check, in nanoseconds. This includes the cost of measuring the time, which
+     * is in the order of tens of nanoseconds per evaluation.
+     */
+    public long getNanos() {
+        return this.nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "%s: %d evaluations, %d failures, %d ns".formatted(this.ruleName, this.evaluations, this.failures, this.nanos);
+    }
+}
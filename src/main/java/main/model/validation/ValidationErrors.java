@@ -0,0 +1,263 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.validation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable sink that collects the errors found while validating objects. An error is stored as the path to the
+ * invalid object, an error code and the arguments of the message; the message itself is only built when it is
+ * requested. Entering and leaving a path segment does not allocate, so validating valid objects does not allocate
+ * either.
+ *
+ * The path consists of segments such as "document #3" followed by "author #1". A message is prefixed with
+ * "Invalid document at index #3: Invalid author at index #1: ", the same format that {@link IValidatable#validate()}
+ * has always used.
+ *
+ * A path segment can also carry the location of the object in the input, e.g. the line and column of a document in
+ * the index file, which is then included in the message: "Invalid document at index #3 (line 40, column 5): ".
+ *
+ * A sink is not thread-safe; parallel validation uses a sink per task and merges them with {@link #addAll}.
+ */
+public class ValidationErrors
+{
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private String[] pathNames = new String[4];
+    private int[] pathIndices = new int[4];
+    private int[] pathLines = new int[4];
+    private int[] pathColumns = new int[4];
+    private int depth = 0;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Enter a path segment, e.g. the author at the specified position in a list of authors. Errors that are added
+     * before the matching call to {@link #leave()} are reported for that segment.
+     *
+     * @param name The name of the segment, e.g. "author".
+     * @param index The position of the object.
+     */
+    public void enter(String name, int index) {
+        if(this.depth == this.pathNames.length) {
+            this.pathNames = Arrays.copyOf(this.pathNames, this.depth * 2);
+            this.pathIndices = Arrays.copyOf(this.pathIndices, this.depth * 2);
+            this.pathLines = Arrays.copyOf(this.pathLines, this.depth * 2);
+            this.pathColumns = Arrays.copyOf(this.pathColumns, this.depth * 2);
+        }
+        this.pathNames[this.depth] = name;
+        this.pathIndices[this.depth] = index;
+        this.pathLines[this.depth] = -1;
+        this.pathColumns[this.depth] = -1;
+        this.depth++;
+    }
+
+    /**
+     * Set the location in the input of the object of the path segment that was last entered.
+     *
+     * @param line The line number, starting at 1.
+     * @param column The column number, starting at 1.
+     */
+    public void setLocation(int line, int column) {
+        if(this.depth == 0) {
+            throw new IllegalStateException("No path segment to set the location of.");
+        }
+        this.pathLines[this.depth - 1] = line;
+        this.pathColumns[this.depth - 1] = column;
+    }
+
+    /**
+     * Leave the path segment that was last entered.
+     */
+    public void leave() {
+        if(this.depth == 0) {
+            throw new IllegalStateException("No path segment to leave.");
+        }
+        this.depth--;
+        this.pathNames[this.depth] = null;
+    }
+
+    /**
+     * Add an error for the current path.
+     */
+    public void add(IValidationError error) {
+        this.add(error, NO_ARGUMENTS);
+    }
+
+    /**
+     * Add an error with message arguments for the current path.
+     */
+    public void add(IValidationError error, Object... arguments) {
+        this.entries.add(new Entry(
+                Arrays.copyOf(this.pathNames, this.depth),
+                Arrays.copyOf(this.pathIndices, this.depth),
+                Arrays.copyOf(this.pathLines, this.depth),
+                Arrays.copyOf(this.pathColumns, this.depth),
+                error,
+                arguments
+        ));
+    }
+
+    /**
+     * Add all errors of another sink. Their paths are prefixed with the current path of this sink.
+     */
+    public void addAll(ValidationErrors other) {
+        if(this.depth == 0) {
+            this.entries.addAll(other.entries);
+            return;
+        }
+
+        for (Entry entry : other.entries) {
+            int length = this.depth + entry.pathNames.length;
+            String[] names = Arrays.copyOf(this.pathNames, length);
+            int[] indices = Arrays.copyOf(this.pathIndices, length);
+            int[] lines = Arrays.copyOf(this.pathLines, length);
+            int[] columns = Arrays.copyOf(this.pathColumns, length);
+
+            System.arraycopy(entry.pathNames, 0, names, this.depth, entry.pathNames.length);
+            System.arraycopy(entry.pathIndices, 0, indices, this.depth, entry.pathIndices.length);
+            System.arraycopy(entry.pathLines, 0, lines, this.depth, entry.pathLines.length);
+            System.arraycopy(entry.pathColumns, 0, columns, this.depth, entry.pathColumns.length);
+
+            this.entries.add(new Entry(names, indices, lines, columns, entry.error, entry.arguments));
+        }
+    }
+
+    /**
+     * Remove all errors and path segments, so the sink can be reused.
+     */
+    public void clear() {
+        this.entries.clear();
+        Arrays.fill(this.pathNames, 0, this.depth, null);
+        this.depth = 0;
+    }
+
+    /**
+     * Retrieve the number of errors.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Check whether no errors were added.
+     */
+    public boolean isEmpty() {
+        return this.entries.isEmpty();
+    }
+
+    /**
+     * Retrieve the code of the error at the specified position.
+     */
+    public IValidationError getError(int error) {
+        return this.entries.get(error).error;
+    }
+
+    /**
+     * Retrieve the message arguments of the error at the specified position.
+     */
+    public Object[] getArguments(int error) {
+        return this.entries.get(error).arguments.clone();
+    }
+
+    /**
+     * Retrieve the number of segments in the path of the error at the specified position.
+     */
+    public int getPathLength(int error) {
+        return this.entries.get(error).pathNames.length;
+    }
+
+    /**
+     * Retrieve the name of a segment in the path of the error at the specified position.
+     */
+    public String getPathName(int error, int segment) {
+        return this.entries.get(error).pathNames[segment];
+    }
+
+    /**
+     * Retrieve the index of a segment in the path of the error at the specified position.
+     */
+    public int getPathIndex(int error, int segment) {
+        return this.entries.get(error).pathIndices[segment];
+    }
+
+    /**
+     * Retrieve the line of a segment in the path of the error at the specified position, or -1 if it is not known.
+     */
+    public int getPathLine(int error, int segment) {
+        return this.entries.get(error).pathLines[segment];
+    }
+
+    /**
+     * Retrieve the column of a segment in the path of the error at the specified position, or -1 if it is not known.
+     */
+    public int getPathColumn(int error, int segment) {
+        return this.entries.get(error).pathColumns[segment];
+    }
+
+    /**
+     * Build the message of the error at the specified position, including the path.
+     */
+    public String getMessage(int error) {
+        Entry entry = this.entries.get(error);
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < entry.pathNames.length; i++) {
+            builder.append("Invalid ").append(entry.pathNames[i]).append(" at index #").append(entry.pathIndices[i]);
+            if(entry.pathLines[i] >= 0) {
+                builder.append(" (line ").append(entry.pathLines[i]).append(", column ").append(entry.pathColumns[i]).append(')');
+            }
+            builder.append(": ");
+        }
+
+        return builder.append(entry.error.format(entry.arguments)).toString();
+    }
+
+    /**
+     * Build the messages of all errors, in the order in which they were added.
+     */
+    public List<String> getMessages() {
+        List<String> retval = new ArrayList<>(this.entries.size());
+        for (int i = 0; i < this.entries.size(); i++) {
+            retval.add(this.getMessage(i));
+        }
+        return retval;
+    }
+
+    private static class Entry
+    {
+        private final String[] pathNames;
+        private final int[] pathIndices;
+        private final int[] pathLines;
+        private final int[] pathColumns;
+        private final IValidationError error;
+        private final Object[] arguments;
+
+        private Entry(String[] pathNames, int[] pathIndices, int[] pathLines, int[] pathColumns,
+                      IValidationError error, Object[] arguments) {
+            this.pathNames = pathNames;
+            this.pathIndices = pathIndices;
+            this.pathLines = pathLines;
+            this.pathColumns = pathColumns;
+            this.error = error;
+            this.arguments = arguments;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.validation;
+
+import java.util.function.Predicate;
+
+/**
+ * A single validation rule: a check of one kind of object, and the error that is reported when the check fails. Rules
+ * are combined and compiled by {@link ValidationRules}.
+ *
+ * @param <T> The class of the objects that the rule checks.
+ */
+public class ValidationRule<T>
+{
+    private final String name;
+    private final Class<T> targetClass;
+    private final Predicate<? super T> predicate;
+    private final IValidationError error;
+    private final String definition;
+
+    /**
+     * Constructor.
+     *
+     * @param name The unique name of the rule.
+     * @param targetClass The class of the objects that the rule checks.
+     * @param predicate The check, which returns true for valid objects.
+     * @param error The error that is reported for objects that fail the check.
+     * @param definition A description of what the rule checks. Rules with the same definition must perform the same
+     *                   check, since the definitions identify a set of rules in cached validation results.
+     */
+    public ValidationRule(String name, Class<T> targetClass, Predicate<? super T> predicate, IValidationError error, String definition) {
+        this.name = name;
+        this.targetClass = targetClass;
+        this.predicate = predicate;
+        this.error = error;
+        this.definition = definition;
+    }
+
+    /**
+     * Retrieve the unique name of the rule.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Retrieve the class of the objects that the rule checks.
+     */
+    public Class<T> getTargetClass() {
+        return this.targetClass;
+    }
+
+    /**
+     * Retrieve the check, which returns true for valid objects.
+     */
+    public Predicate<? super T> getPredicate() {
+        return this.predicate;
+    }
+
+    /**
+     * Retrieve the error that is reported for objects that fail the check.
+     */
+    public IValidationError getError() {
+        return this.error;
+    }
+
+    /**
+     * Retrieve the description of what the rule checks.
+     */
+    public String getDefinition() {
+        return this.definition;
+    }
+}
@@ -0,0 +1,380 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model.validation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import main.model.document.Author;
+import main.model.document.Document;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A set of validation rules for documents and their authors. The rules are compiled into flat arrays per class of
+ * object, which are run in order for every object. The rules of a document are run after the rules of its authors, and
+ * the errors of an author are reported in the path segment "author" of the error sink.
+ *
+ * The default rule set, which {@link Document#validate(ValidationErrors)} and {@link Author#validate(ValidationErrors)}
+ * use, consists of the built-in rules (see {@link #getBuiltinRules()}). The application replaces it by the rules of
+ * the file in the system property {@link #RULES_FILE_PROPERTY}, if that is set.
+ */
+public class ValidationRules
+{
+    /**
+     * System property with the path of a rules file that is loaded at startup, see {@link #load(Path)}.
+     */
+    public static final String RULES_FILE_PROPERTY = "documentmanager.validation.rules";
+
+    private static volatile ValidationRules defaultRules = new ValidationRules(getBuiltinRules());
+
+    private final List<ValidationRule<?>> rules;
+    private final CompiledRules<Document> documentRules;
+    private final CompiledRules<Author> authorRules;
+    private final long fingerprint;
+
+    private volatile boolean collectStatistics = false;
+
+    /**
+     * Constructor.
+     *
+     * @param rules The rules, in the order in which they are run. Every rule must check either documents or authors,
+     *              and the names of the rules must be unique.
+     */
+    public ValidationRules(List<ValidationRule<?>> rules) {
+        List<ValidationRule<Document>> documentRules = new ArrayList<>();
+        List<ValidationRule<Author>> authorRules = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+
+        for (ValidationRule<?> rule : rules) {
+            if(!names.add(rule.getName())) {
+                throw new IllegalArgumentException("Duplicate validation rule \"%s\"".formatted(rule.getName()));
+            }
+
+            if(rule.getTargetClass() == Document.class) {
+                documentRules.add(cast(rule));
+            } else if(rule.getTargetClass() == Author.class) {
+                authorRules.add(cast(rule));
+            } else {
+                throw new IllegalArgumentException("Validation rule \"%s\" checks unsupported class %s".formatted(
+                        rule.getName(), rule.getTargetClass().getName()));
+            }
+        }
+
+        this.rules = List.copyOf(rules);
+        this.documentRules = new CompiledRules<>(documentRules);
+        this.authorRules = new CompiledRules<>(authorRules);
+        this.fingerprint = computeFingerprint(this.rules);
+    }
+
+    /**
+     * Retrieve the built-in rules, which are the rules that documents have always been checked with:
+     *  - the last name of an author must not be null,
+     *  - the last name of an author must not be an empty string,
+     *  - the list of authors must not be empty,
+     *  - the title must not be null or an empty string,
+     *  - the page count must be bigger than zero,
+     *  - the document type must not be null,
+     *  - the reading status must not be null.
+     *
+     * The locations of a document are not checked, since that would parse every location while the index is read, see
+     * {@link #getLocationRules()}.
+     *
+     * The definition of a built-in rule must be changed whenever its check changes, so that cached results of the old
+     * check are not reused.
+     */
+    public static List<ValidationRule<?>> getBuiltinRules() {
+        return List.of(
+                new ValidationRule<>("author.lastName.null", Author.class,
+                        author -> author.getLastName() != null,
+                        EnumValidationError.AUTHOR_LASTNAME_NULL, "lastName is not null"),
+                new ValidationRule<>("author.lastName.empty", Author.class,
+                        author -> author.getLastName() == null || !author.getLastName().isEmpty(),
+                        EnumValidationError.AUTHOR_LASTNAME_EMPTY, "lastName is null or not empty"),
+                new ValidationRule<>("document.authors", Document.class,
+                        document -> !document.getAuthors().isEmpty(),
+                        EnumValidationError.DOCUMENT_AUTHORS_EMPTY, "authors is not empty"),
+                new ValidationRule<>("document.title", Document.class,
+                        document -> document.getTitle() != null && !document.getTitle().isEmpty(),
+                        EnumValidationError.DOCUMENT_TITLE_EMPTY, "title is not null and not empty"),
+                new ValidationRule<>("document.pageCount", Document.class,
+                        document -> document.getPageCount() > 0,
+                        EnumValidationError.DOCUMENT_PAGE_COUNT, "pageCount > 0"),
+                new ValidationRule<>("document.documentType", Document.class,
+                        document -> document.getDocumentType() != null,
+                        EnumValidationError.DOCUMENT_TYPE_NULL, "documentType is not null"),
+                new ValidationRule<>("document.readingStatus", Document.class,
+                        document -> document.getReadingStatus() != null,
+                        EnumValidationError.DOCUMENT_READING_STATUS_NULL, "readingStatus is not null")
+        );
+    }
+
+    /**
+     * Retrieve the optional rules that check the syntax of the locations of a document:
+     *  - the source location must be null or a valid URI,
+     *  - the notes location must be null or a valid URI.
+     *
+     * A location that is decoded from an index is only parsed when it is first retrieved (see
+     * {@link Document#setEagerLocationParsing(boolean)}), so an invalid location goes unnoticed until then. Adding these
+     * rules to the built-in rules reports it when the index is validated instead. The rules parse the location through
+     * the document, which keeps the parsed URI, so every location is parsed only once either way.
+     */
+    public static List<ValidationRule<?>> getLocationRules() {
+        return List.of(
+                new ValidationRule<>("document.sourceLocation", Document.class,
+                        document -> isLocation(document::getSourceLocation),
+                        EnumValidationError.DOCUMENT_SOURCE_LOCATION, "sourceLocation is null or a URI"),
+                new ValidationRule<>("document.notesLocation", Document.class,
+                        document -> isLocation(document::getNotesLocation),
+                        EnumValidationError.DOCUMENT_NOTES_LOCATION, "notesLocation is null or a URI")
+        );
+    }
+
+    /**
+     * Load a rules file. The result consists of the built-in rules that the file does not disable, followed by the
+     * rules in the file. See {@link RuleCompiler} for the checks that a file can declare.
+     *
+     * @param file The JSON rules file.
+     * @return The rule set.
+     * @throws IOException If the file could not be read, or if it contains an invalid rule.
+     */
+    public static ValidationRules load(Path file) throws IOException {
+        RuleConfig config = new ObjectMapper().readValue(file.toFile(), RuleConfig.class);
+
+        List<ValidationRule<?>> builtinRules = getBuiltinRules();
+        Set<String> disabled = new HashSet<>(config.disabledRules);
+        for (String name : disabled) {
+            if(builtinRules.stream().noneMatch(rule -> rule.getName().equals(name))) {
+                throw new IOException("Cannot disable unknown built-in validation rule \"%s\"".formatted(name));
+            }
+        }
+
+        List<ValidationRule<?>> rules = new ArrayList<>();
+        for (ValidationRule<?> rule : builtinRules) {
+            if(!disabled.contains(rule.getName())) {
+                rules.add(rule);
+            }
+        }
+        for (RuleConfig.Rule rule : config.rules) {
+            rules.add(RuleCompiler.compile(rule));
+        }
+
+        try {
+            return new ValidationRules(rules);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Retrieve the rule set that documents and authors are validated with.
+     */
+    public static ValidationRules getDefault() {
+        return defaultRules;
+    }
+
+    /**
+     * Set the rule set that documents and authors are validated with.
+     */
+    public static void setDefault(ValidationRules rules) {
+        defaultRules = Objects.requireNonNull(rules);
+    }
+
+    /**
+     * Retrieve the rules, in the order in which they were specified.
+     */
+    public List<ValidationRule<?>> getRules() {
+        return this.rules;
+    }
+
+    /**
+     * Retrieve a 64-bit fingerprint of the names and definitions of the rules. Rule sets with the same fingerprint
+     * perform the same checks.
+     */
+    public long getFingerprint() {
+        return this.fingerprint;
+    }
+
+    /**
+     * Enable or disable collecting statistics. When enabled, the number of evaluations and failures, and the time spent,
+     * is counted per rule. Measuring the time costs more than the built-in checks themselves, so this is disabled by
+     * default.
+     */
+    public void setCollectStatistics(boolean collectStatistics) {
+        this.collectStatistics = collectStatistics;
+    }
+
+    /**
+     * Retrieve the statistics of the document rules followed by those of the author rules.
+     */
+    public List<RuleStatistics> getStatistics() {
+        List<RuleStatistics> retval = new ArrayList<>();
+        this.documentRules.addStatistics(retval);
+        this.authorRules.addStatistics(retval);
+        return retval;
+    }
+
+    /**
+     * Reset the statistics of all rules to zero.
+     */
+    public void resetStatistics() {
+        this.documentRules.resetStatistics();
+        this.authorRules.resetStatistics();
+    }
+
+    /**
+     * Validate a document and its authors.
+     */
+    public void validate(Document document, ValidationErrors errors) {
+        boolean statistics = this.collectStatistics;
+        List<Author> authors = document.getAuthors();
+
+        for (int i = 0; i < authors.size(); i++) {
+            errors.enter("author", i);
+            this.authorRules.apply(authors.get(i), errors, statistics);
+            errors.leave();
+        }
+
+        this.documentRules.apply(document, errors, statistics);
+    }
+
+    /**
+     * Validate an author.
+     */
+    public void validate(Author author, ValidationErrors errors) {
+        this.authorRules.apply(author, errors, this.collectStatistics);
+    }
+
+    /**
+     * Check whether a location can be retrieved, which parses it if it was set as text.
+     */
+    private static boolean isLocation(Supplier<URI> location) {
+        try {
+            location.get();
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ValidationRule<T> cast(ValidationRule<?> rule) {
+        return (ValidationRule<T>) rule;
+    }
+
+    private static long computeFingerprint(List<ValidationRule<?>> rules) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (ValidationRule<?> rule : rules) {
+                digest.update((rule.getName() + '\n' + rule.getDefinition() + '\n').getBytes(StandardCharsets.UTF_8));
+            }
+
+            long retval = 0;
+            for (byte b : digest.digest()) {
+                retval = (retval << 8) | (b & 0xff);
+            }
+            return retval;
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The rules for a single class of objects, as flat arrays. The predicates are kept in a list, since an array of a
+     * generic type can only be created unchecked.
+     */
+    private static class CompiledRules<T>
+    {
+        private final String[] names;
+        private final List<Predicate<? super T>> predicates;
+        private final IValidationError[] errors;
+
+        private final LongAdder[] evaluations;
+        private final LongAdder[] failures;
+        private final LongAdder[] nanos;
+
+        private CompiledRules(List<ValidationRule<T>> rules) {
+            int count = rules.size();
+            this.names = new String[count];
+            this.predicates = new ArrayList<>(count);
+            this.errors = new IValidationError[count];
+            this.evaluations = new LongAdder[count];
+            this.failures = new LongAdder[count];
+            this.nanos = new LongAdder[count];
+
+            for (int i = 0; i < count; i++) {
+                ValidationRule<T> rule = rules.get(i);
+                this.names[i] = rule.getName();
+                this.predicates.add(rule.getPredicate());
+                this.errors[i] = rule.getError();
+                this.evaluations[i] = new LongAdder();
+                this.failures[i] = new LongAdder();
+                this.nanos[i] = new LongAdder();
+            }
+        }
+
+        private void apply(T target, ValidationErrors sink, boolean collectStatistics) {
+            if(!collectStatistics) {
+                for (int i = 0; i < this.predicates.size(); i++) {
+                    if(!this.predicates.get(i).test(target)) {
+                        sink.add(this.errors[i]);
+                    }
+                }
+                return;
+            }
+
+            for (int i = 0; i < this.predicates.size(); i++) {
+                long start = System.nanoTime();
+                boolean valid = this.predicates.get(i).test(target);
+                this.nanos[i].add(System.nanoTime() - start);
+                this.evaluations[i].increment();
+
+                if(!valid) {
+                    this.failures[i].increment();
+                    sink.add(this.errors[i]);
+                }
+            }
+        }
+
+        private void addStatistics(List<RuleStatistics> statistics) {
+            for (int i = 0; i < this.names.length; i++) {
+                statistics.add(new RuleStatistics(this.names[i], this.evaluations[i].sum(), this.failures[i].sum(), this.nanos[i].sum()));
+            }
+        }
+
+        private void resetStatistics() {
+            for (int i = 0; i < this.names.length; i++) {
+                this.evaluations[i].reset();
+                this.failures[i].reset();
+                this.nanos[i].reset();
+            }
+        }
+    }
+}
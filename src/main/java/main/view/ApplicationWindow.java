@@ -17,9 +17,13 @@
 
 package main.view;
 
+import main.model.document.Document;
 import main.model.index.DocumentIndex;
 import main.model.index.DocumentIndexReader;
 import main.model.index.DocumentIndexWriter;
+import main.model.index.IndexChangeListener;
+import main.model.index.IndexDiff;
+import main.model.index.IndexFileWatcher;
 import main.model.validation.IndexValidationException;
 import org.oxbow.swingbits.dialog.task.TaskDialogs;
 
@@ -32,6 +36,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -39,8 +44,15 @@ import java.util.stream.Collectors;
  */
 public class ApplicationWindow
 {
+    /**
+     * Number of times an index file is read when it changes while it is being loaded.
+     */
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
     private final JFrame window;
     private final JTable table;
+    private IndexFileWatcher watcher = null;
+    private IndexChangeListener watchedListener = null;
 
     /**
      * Constructor.
@@ -231,29 +243,123 @@ public class ApplicationWindow
     }
 
     /**
-     * Load the specified index file and use it to populate the table.
+     * Load the specified index file and use it to populate the table. The file is watched from before it is read, and
+     * changes that other programs make to the file or its journal are applied to the table.
      *
      * @param filename The path to the index file.
      */
     private void loadIndexFile(Path filename) {
+        this.stopWatching();
+
         try {
             DocumentIndexReader reader = new DocumentIndexReader(filename);
-            DocumentIndex docIndex = reader.read();
+            reader.setUseSnapshot(Boolean.getBoolean(DocumentIndexReader.SNAPSHOT_PROPERTY));
+            DocumentIndex docIndex = null;
+
+            for (int attempt = 1; docIndex == null; attempt++) {
+                IndexFileWatcher watcher = this.startWatching(filename);
+                DocumentIndex read = reader.read();
+
+                // the watcher reports changes relative to the version it scanned, which must be the version that was read
+                if(watcher == null || watcher.getSourceChecksum() == reader.getSourceChecksum()) {
+                    docIndex = read;
+                } else if(attempt == MAX_LOAD_ATTEMPTS) {
+                    this.stopWatching();
+                    docIndex = read;
+                    TaskDialogs.error(window, "Error while watching file!", "The file kept changing while it was loaded, changes made by other programs will not be shown.");
+                } else {
+                    this.stopWatching();
+                }
+            }
 
             this.window.setTitle("Document Manager -- " + filename.toString());
             this.initialiseTable(docIndex.getDocumentList().stream().map(DocumentView::new).collect(Collectors.toList()));
 
-
         } catch (IndexValidationException e) {
+            this.stopWatching();
             this.initialiseTable(List.of());
             TaskDialogs.error(window, "Error while loading file!", String.join("\n", e.getErrorMessages()));
 
         } catch (IOException e) {
+            this.stopWatching();
             this.initialiseTable(List.of());
             TaskDialogs.showException(e);
         }
     }
 
+    /**
+     * Watch the specified index file, and apply changes that other programs make to the file to the table. The
+     * changes are reported on the event dispatch thread, after the table was populated.
+     *
+     * @return The watcher, or null if the file cannot be watched. The index can still be loaded in that case, it just
+     *         won't follow changes made by other programs.
+     */
+    private IndexFileWatcher startWatching(Path filename) {
+        IndexChangeListener listener = new IndexChangeListener() {
+            @Override
+            public void indexChanged(IndexDiff diff) {
+                SwingUtilities.invokeLater(() -> {
+                    // ignore changes that were reported just before another file was opened
+                    if(watchedListener == this) {
+                        applyDiff((DocumentTableModel) table.getModel(), diff);
+                    }
+                });
+            }
+
+            @Override
+            public void reloadFailed(IOException e) {
+                SwingUtilities.invokeLater(() -> {
+                    if(watchedListener != this) {
+                        return;
+                    }
+                    if(e instanceof IndexValidationException validationException) {
+                        TaskDialogs.error(window, "Error while reloading file!", String.join("\n", validationException.getErrorMessages()));
+                    } else {
+                        TaskDialogs.showException(e);
+                    }
+                });
+            }
+        };
+
+        try {
+            this.watcher = new IndexFileWatcher(filename, listener);
+            this.watchedListener = listener;
+            this.watcher.start();
+            return this.watcher;
+        } catch (IOException e) {
+            this.stopWatching();
+            TaskDialogs.showException(e);
+            return null;
+        }
+    }
+
+    /**
+     * Stop watching the current index file, if any.
+     */
+    private void stopWatching() {
+        if(this.watcher != null) {
+            try {
+                this.watcher.close();
+            } catch (IOException ignored) {
+                // nothing is reported for a file that is no longer shown
+            }
+            this.watcher = null;
+            this.watchedListener = null;
+        }
+    }
+
+    /**
+     * Update only the rows of the table model that changed in the index file.
+     */
+    private void applyDiff(DocumentTableModel model, IndexDiff diff) {
+        for (Map.Entry<Integer, Document> entry : diff.getUpdatedDocuments().entrySet()) {
+            model.setDocument(entry.getKey(), new DocumentView(entry.getValue()));
+        }
+
+        model.removeDocuments(diff.getPosition(), diff.getRemovedCount());
+        model.insertDocuments(diff.getPosition(), diff.getInsertedDocuments().stream().map(DocumentView::new).collect(Collectors.toList()));
+    }
+
     /**
      * Populate the table with the specified document views.
      */
@@ -17,9 +17,12 @@
 
 package main.view;
 
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
 import javax.swing.table.TableModel;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -28,6 +31,7 @@ import java.util.List;
 public class DocumentTableModel implements TableModel
 {
     private final List<DocumentView> documentViews;
+    private final EventListenerList listeners = new EventListenerList();
     private final static List<ColumnInfo<?>> COLUMNS = List.of(
             new ColumnInfo<>("Authors", 0, DocumentView::getAuthors, String.class),
             new ColumnInfo<>("Year", 60, DocumentView::getPublicationYear, String.class),
@@ -46,7 +50,39 @@ public class DocumentTableModel implements TableModel
      * @param documents A list of document views, each view will provide a single row to the table.
      */
     public DocumentTableModel(List<DocumentView> documents) {
-        this.documentViews = documents;
+        this.documentViews = new ArrayList<>(documents);
+    }
+
+    /**
+     * Replace the document view at the specified row.
+     */
+    public void setDocument(int rowIndex, DocumentView document) {
+        this.documentViews.set(rowIndex, document);
+        this.fireTableChanged(new TableModelEvent(this, rowIndex));
+    }
+
+    /**
+     * Insert document views, starting at the specified row.
+     */
+    public void insertDocuments(int rowIndex, List<DocumentView> documents) {
+        if(documents.isEmpty()) {
+            return;
+        }
+
+        this.documentViews.addAll(rowIndex, documents);
+        this.fireTableChanged(new TableModelEvent(this, rowIndex, rowIndex + documents.size() - 1, TableModelEvent.ALL_COLUMNS, TableModelEvent.INSERT));
+    }
+
+    /**
+     * Remove the specified number of document views, starting at the specified row.
+     */
+    public void removeDocuments(int rowIndex, int count) {
+        if(count == 0) {
+            return;
+        }
+
+        this.documentViews.subList(rowIndex, rowIndex + count).clear();
+        this.fireTableChanged(new TableModelEvent(this, rowIndex, rowIndex + count - 1, TableModelEvent.ALL_COLUMNS, TableModelEvent.DELETE));
     }
 
     @Override
@@ -115,11 +151,20 @@ public class DocumentTableModel implements TableModel
 
     @Override
     public void addTableModelListener(TableModelListener l) {
-        // JTable is the listener, do "l.tableChanged(event);"
+        this.listeners.add(TableModelListener.class, l);
     }
 
     @Override
     public void removeTableModelListener(TableModelListener l) {
+        this.listeners.remove(TableModelListener.class, l);
+    }
 
+    /**
+     * Notify the listeners, e.g. the JTable, that some rows changed.
+     */
+    private void fireTableChanged(TableModelEvent event) {
+        for (TableModelListener listener : this.listeners.getListeners(TableModelListener.class)) {
+            listener.tableChanged(event);
+        }
     }
 }
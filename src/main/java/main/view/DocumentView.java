@@ -138,14 +138,23 @@ public class DocumentView
      * Retrieve a URI that points to the location of the contents of the document.
      */
     public URI getSourceFileLink() {
-        return this.document.getSourceLocation();
+        try {
+            return this.document.getSourceLocation();
+        } catch (IllegalArgumentException e) {
+            // an invalid location is reported by validation, and shown as if there was no location
+            return null;
+        }
     }
 
     /**
      * Retrieve a URI that points to the location with notes about the document.
      */
     public URI getNotesFileLink() {
-        return this.document.getNotesLocation();
+        try {
+            return this.document.getNotesLocation();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
 }
@@ -0,0 +1,88 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.document.Author;
+import main.model.document.Document;
+import main.model.index.AuthorIndex;
+import main.model.index.DocumentIndex;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+
+/**
+ * Compares finding the documents and the co-authors of an author by scanning the documents and comparing names, with
+ * the same queries on the posting lists of an {@link AuthorIndex}.
+ */
+public class AuthorIndexBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+
+        DocumentIndex index = BenchmarkSupport.createIndex(documentCount, 8);
+        List<Document> documents = index.getDocumentList();
+        Author author = new Author("Alan", "Turing");
+        System.out.println("index: %d documents".formatted(documentCount));
+
+        AuthorIndex[] authors = new AuthorIndex[1];
+        System.out.println("build postings:       " + millis(median(() -> authors[0] = index.createAuthorIndex(), 1, 5)));
+
+        int[] found = new int[2];
+        System.out.println("documents, scan:      " + millis(median(() -> found[0] = scanDocuments(documents, author), 2, 7)));
+        System.out.println("documents, postings:  " + millis(median(() -> found[1] = authors[0].getDocuments(author).length, 2, 7)));
+        System.out.println("co-authors, scan:     " + millis(median(() -> found[0] = scanCoAuthors(documents, author), 2, 7)));
+        System.out.println("co-authors, postings: " + millis(median(() -> found[1] = authors[0].getCoAuthors(author).length, 2, 7)));
+        System.out.println("documents by the author: %d, co-authors: %d".formatted(authors[0].getDocuments(author).length, found[1]));
+    }
+
+    private static boolean isAuthor(Author candidate, Author author) {
+        return Objects.equals(candidate.getFirstName(), author.getFirstName()) && Objects.equals(candidate.getLastName(), author.getLastName());
+    }
+
+    private static int scanDocuments(List<Document> documents, Author author) {
+        int count = 0;
+        for (Document document : documents) {
+            for (Author candidate : document.getAuthors()) {
+                if(isAuthor(candidate, author)) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int scanCoAuthors(List<Document> documents, Author author) {
+        Set<String> coAuthors = new HashSet<>();
+        for (Document document : documents) {
+            if(document.getAuthors().stream().anyMatch(candidate -> isAuthor(candidate, author))) {
+                for (Author candidate : document.getAuthors()) {
+                    if(!isAuthor(candidate, author)) {
+                        coAuthors.add(candidate.getFirstName() + " " + candidate.getLastName());
+                    }
+                }
+            }
+        }
+        return coAuthors.size();
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.document.Author;
+import main.model.document.Document;
+import main.model.document.EnumDocumentType;
+import main.model.document.EnumReadingStatus;
+import main.model.index.DocumentIndex;
+import main.model.index.DocumentIndexWriter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Helpers that are shared by the benchmarks: generation of synthetic indices and simple latency measurements.
+ */
+public class BenchmarkSupport
+{
+    private static final String[] FIRST_NAMES = {"Alan", "Ada", "Edsger", "Grace", "Donald", "Barbara", "John", "Leslie", "Tony", "Frances"};
+    private static final String[] LAST_NAMES = {"Turing", "Lovelace", "Dijkstra", "Hopper", "Knuth", "Liskov", "McCarthy", "Lamport", "Hoare", "Allen",
+            "Church", "Kleene", "Goedel", "Milner", "Backus", "Naur", "Ritchie", "Thompson", "Kernighan", "Wirth"};
+    private static final String[] WORDS = {"computing", "machinery", "intelligence", "semantics", "programs", "proof", "type", "system", "parallel",
+            "distributed", "algorithm", "analysis", "logic", "lambda", "calculus", "compiler", "memory", "consensus", "graph", "search"};
+    private static final String[] VENUES = {"Mind", "Communications of the ACM", "POPL", "PLDI", "SOSP", "Journal of the ACM", "ICALP", "LICS"};
+    private static final String[] TAGS = {"classic", "to-read", "logic", "systems", "theory", "survey", "favourite", "teaching"};
+
+    /**
+     * Create an index with the specified number of valid, randomly generated documents.
+     *
+     * @param documentCount The number of documents.
+     * @param seed The seed of the random generator, so that runs are reproducible.
+     */
+    public static DocumentIndex createIndex(int documentCount, long seed) {
+        Random random = new Random(seed);
+        List<Document> documents = new ArrayList<>(documentCount);
+
+        for (int i = 0; i < documentCount; i++) {
+            documents.add(createDocument(random));
+        }
+
+        DocumentIndex index = new DocumentIndex();
+        index.setDocumentList(documents);
+        return index;
+    }
+
+    /**
+     * Create a single valid, randomly generated document.
+     */
+    public static Document createDocument(Random random) {
+        Document doc = new Document();
+
+        List<Author> authors = new ArrayList<>();
+        int authorCount = 1 + random.nextInt(3);
+        for (int i = 0; i < authorCount; i++) {
+            authors.add(new Author(pick(random, FIRST_NAMES), pick(random, LAST_NAMES)));
+        }
+        doc.setAuthors(authors);
+
+        StringBuilder title = new StringBuilder();
+        int wordCount = 3 + random.nextInt(6);
+        for (int i = 0; i < wordCount; i++) {
+            title.append(i == 0 ? "" : " ").append(pick(random, WORDS));
+        }
+        doc.setTitle(title.toString());
+
+        doc.setPublicationYear(Year.of(1900 + random.nextInt(125)));
+        doc.setPublicationVenue(pick(random, VENUES));
+        doc.setPageCount(1 + random.nextInt(400));
+        doc.setDocumentType(pick(random, EnumDocumentType.values()));
+        doc.setReadingStatus(pick(random, EnumReadingStatus.values()));
+        doc.setTags(Arrays.asList(pick(random, TAGS), pick(random, TAGS)));
+
+        if(random.nextBoolean()) {
+            doc.setSourceLocation(URI.create("https://example.org/papers/" + random.nextInt(1_000_000) + ".pdf"));
+        }
+
+        return doc;
+    }
+
+    /**
+     * Write a randomly generated index to a temporary file that is deleted when the JVM exits.
+     */
+    public static Path writeTemporaryIndex(int documentCount, long seed) throws IOException {
+        Path file = Files.createTempFile("benchmarkIndex", ".json");
+        file.toFile().deleteOnExit();
+        new DocumentIndexWriter(createIndex(documentCount, seed)).write(file);
+        return file;
+    }
+
+    /**
+     * Action that is measured by a benchmark.
+     */
+    public interface Action
+    {
+        void run() throws Exception;
+    }
+
+    /**
+     * Run the action once and return the elapsed time in nanoseconds.
+     */
+    public static long time(Action action) throws Exception {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Run the action a number of times and return the median elapsed time in nanoseconds.
+     *
+     * @param warmup The number of unmeasured runs.
+     * @param iterations The number of measured runs.
+     */
+    public static long median(Action action, int warmup, int iterations) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            action.run();
+        }
+
+        long[] times = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            times[i] = time(action);
+        }
+
+        Arrays.sort(times);
+        return times[iterations / 2];
+    }
+
+    /**
+     * Format a duration in nanoseconds as milliseconds.
+     */
+    public static String millis(long nanos) {
+        return "%.3f ms".formatted(nanos / 1_000_000.0);
+    }
+
+    /**
+     * Estimate the heap that is in use after a full garbage collection, in bytes.
+     */
+    public static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static <T> T pick(Random random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
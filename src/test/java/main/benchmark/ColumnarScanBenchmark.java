@@ -0,0 +1,100 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.document.Document;
+import main.model.document.EnumDocumentType;
+import main.model.document.EnumReadingStatus;
+import main.model.index.ColumnarDocumentIndex;
+import main.model.index.DocumentIndex;
+import main.model.store.DocumentQuery;
+
+import java.time.Year;
+import java.util.List;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+import static main.benchmark.BenchmarkSupport.usedHeap;
+
+/**
+ * Compares scans over the documents of an index in the object model with the same scans over the columns of a
+ * {@link ColumnarDocumentIndex}: a filter with a {@link DocumentQuery}, a count per reading status, and a sum of page
+ * counts. Also reports the heap that both representations retain.
+ */
+public class ColumnarScanBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long baseline = usedHeap();
+        ColumnarDocumentIndex columns = new ColumnarDocumentIndex(BenchmarkSupport.createIndex(documentCount, 9).getDocumentList());
+        long columnarHeap = usedHeap() - baseline;
+
+        baseline = usedHeap();
+        DocumentIndex objects = BenchmarkSupport.createIndex(documentCount, 9);
+        long objectHeap = usedHeap() - baseline;
+
+        System.out.println("index: %d documents, retained heap: objects %d MB, columns %d MB".formatted(documentCount, objectHeap >> 20, columnarHeap >> 20));
+
+        List<Document> documents = objects.getDocumentList();
+        DocumentQuery query = new DocumentQuery();
+        query.setDocumentType(EnumDocumentType.PAPER);
+        query.setPublicationYear(Year.of(2000));
+
+        long[] result = new long[2];
+        System.out.println("query, objects:      " + millis(median(() -> result[0] = documents.stream().filter(query::matches).count(), 2, 7)));
+        System.out.println("query, columns:      " + millis(median(() -> result[1] = columns.find(query).length, 2, 7)));
+        check(result);
+
+        System.out.println("count, objects:      " + millis(median(() -> result[0] = countFinished(documents), 2, 7)));
+        System.out.println("count, columns:      " + millis(median(() -> result[1] = columns.countByReadingStatus()[EnumReadingStatus.FINISHED.ordinal()], 2, 7)));
+        check(result);
+
+        System.out.println("page count, objects: " + millis(median(() -> result[0] = getPageCountSince(documents, 2000), 2, 7)));
+        System.out.println("page count, columns: " + millis(median(() -> result[1] = columns.getPageCountSince(2000), 2, 7)));
+        check(result);
+
+        System.out.println("build all documents: " + millis(median(() -> columns.getDocumentList().forEach(Document::getTitle), 1, 3)));
+    }
+
+    private static long countFinished(List<Document> documents) {
+        long count = 0;
+        for (Document document : documents) {
+            if(document.getReadingStatus() == EnumReadingStatus.FINISHED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long getPageCountSince(List<Document> documents, int year) {
+        long retval = 0;
+        for (Document document : documents) {
+            if(document.getPublicationYear() != null && document.getPublicationYear().getValue() >= year) {
+                retval += document.getPageCount();
+            }
+        }
+        return retval;
+    }
+
+    private static void check(long[] result) {
+        if(result[0] != result[1]) {
+            throw new IllegalStateException("Different results: %d and %d".formatted(result[0], result[1]));
+        }
+    }
+}
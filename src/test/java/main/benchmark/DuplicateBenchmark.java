@@ -0,0 +1,90 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.document.Author;
+import main.model.document.Document;
+import main.model.index.DocumentIndex;
+import main.model.index.DuplicateCluster;
+import main.model.index.DuplicateDetector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+
+/**
+ * Measures duplicate detection on a large index in which a percentage of the documents are copies of other documents
+ * with a different case, extra whitespace and reversed authors. The hash-based detector is compared with grouping the
+ * documents in a hash map by their normalized key strings.
+ */
+public class DuplicateBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int duplicatePercentage = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        DocumentIndex index = BenchmarkSupport.createIndex(documentCount, 11);
+        List<Document> documents = index.getDocumentList();
+
+        Random random = new Random(13);
+        for (int i = 0; i < documentCount * duplicatePercentage / 100; i++) {
+            documents.set(random.nextInt(documentCount), createCopy(documents.get(random.nextInt(documentCount))));
+        }
+
+        List<DuplicateCluster> clusters = index.findDuplicates();
+        System.out.println("index: %d documents, %d clusters with %d documents".formatted(
+                documentCount, clusters.size(), clusters.stream().mapToInt(DuplicateCluster::size).sum()));
+
+        System.out.println("hashes:      " + millis(median(index::findDuplicates, 3, 7)));
+        System.out.println("key strings: " + millis(median(() -> groupByKey(documents), 3, 7)));
+    }
+
+    private static Document createCopy(Document original) {
+        Document copy = new Document();
+
+        List<Author> authors = new ArrayList<>(original.getAuthors());
+        Collections.reverse(authors);
+        copy.setAuthors(authors);
+
+        copy.setTitle(" " + original.getTitle().toUpperCase().replace(" ", "  ") + " ");
+        copy.setPublicationYear(original.getPublicationYear());
+        copy.setPageCount(original.getPageCount());
+        copy.setDocumentType(original.getDocumentType());
+        copy.setReadingStatus(original.getReadingStatus());
+        return copy;
+    }
+
+    private static int groupByKey(List<Document> documents) {
+        Map<String, List<Integer>> groups = new HashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            groups.computeIfAbsent(DuplicateDetector.getKey(documents.get(i)), key -> new ArrayList<>()).add(i);
+        }
+
+        int retval = 0;
+        for (List<Integer> group : groups.values()) {
+            retval += (group.size() > 1) ? 1 : 0;
+        }
+        return retval;
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import main.model.index.DocumentIndex;
+import main.model.index.IndexCodec;
+import main.model.validation.IndexValidationException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+import static main.benchmark.BenchmarkSupport.time;
+
+/**
+ * Compares the load and save latency of a fresh {@link ObjectMapper} per call (the old behaviour) with the shared
+ * {@link IndexCodec}. Both variants decode and validate the same files and write the same indented output, so they
+ * only differ in the mapper.
+ *
+ * The first call in a JVM is reported as the cold latency. The files are written with a mapper of their own, so the
+ * shared codec is not loaded before it is measured. Because the classes of Jackson and of the model are shared between
+ * the variants, only the variant that runs first gets a truly cold measurement; pass "fresh" or "shared" as the first
+ * argument to run a single variant in its own JVM, e.g. {@code gradle benchmark -Pbenchmark=IndexCodecBenchmark -Pargs=fresh}.
+ */
+public class IndexCodecBenchmark
+{
+    private static final int SMALL_INDEX = 50;
+    private static final int LARGE_INDEX = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        String variant = args.length > 0 ? args[0] : "both";
+
+        Path small = writeFixture(SMALL_INDEX, 1);
+        Path large = writeFixture(LARGE_INDEX, 2);
+        Path target = Files.createTempFile("benchmarkIndexSave", ".json");
+        target.toFile().deleteOnExit();
+
+        if(!variant.equals("shared")) {
+            run("fresh ObjectMapper", small, large, target,
+                    file -> validate(new ObjectMapper().readValue(file.toFile(), DocumentIndex.class)),
+                    (index, file) -> new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), index));
+        }
+
+        if(!variant.equals("fresh")) {
+            run("shared IndexCodec", small, large, target,
+                    file -> validate(IndexCodec.getDefault().getIndexReader().readValue(file.toFile())),
+                    (index, file) -> IndexCodec.getDefault().getIndexWriter().writeValue(file.toFile(), index));
+        }
+    }
+
+    /**
+     * Write a randomly generated index with a mapper that is not shared with either variant.
+     */
+    private static Path writeFixture(int documentCount, long seed) throws Exception {
+        Path file = Files.createTempFile("benchmarkIndex", ".json");
+        file.toFile().deleteOnExit();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), BenchmarkSupport.createIndex(documentCount, seed));
+        return file;
+    }
+
+    /**
+     * Validate a decoded index, as {@link main.model.index.DocumentIndexReader} does.
+     */
+    private static DocumentIndex validate(DocumentIndex index) throws IndexValidationException {
+        List<String> errorMsgs = index.validate();
+        if(!errorMsgs.isEmpty()) {
+            throw new IndexValidationException(errorMsgs);
+        }
+        return index;
+    }
+
+    private interface Load
+    {
+        DocumentIndex load(Path file) throws Exception;
+    }
+
+    private interface Save
+    {
+        void save(DocumentIndex index, Path file) throws Exception;
+    }
+
+    private static void run(String name, Path small, Path large, Path target, Load load, Save save) throws Exception {
+        DocumentIndex[] loaded = new DocumentIndex[1];
+
+        System.out.println("== " + name);
+        System.out.println("cold load (" + SMALL_INDEX + " docs):    " + millis(time(() -> loaded[0] = load.load(small))));
+
+        DocumentIndex smallIndex = loaded[0];
+        DocumentIndex largeIndex = load.load(large);
+
+        System.out.println("cold save (" + SMALL_INDEX + " docs):    " + millis(time(() -> save.save(smallIndex, target))));
+        System.out.println("warm load (" + SMALL_INDEX + " docs):    " + millis(median(() -> load.load(small), 200, 200)));
+        System.out.println("warm save (" + SMALL_INDEX + " docs):    " + millis(median(() -> save.save(smallIndex, target), 200, 200)));
+        System.out.println("warm load (" + LARGE_INDEX + " docs): " + millis(median(() -> load.load(large), 3, 10)));
+        System.out.println("warm save (" + LARGE_INDEX + " docs): " + millis(median(() -> save.save(largeIndex, target), 3, 10)));
+    }
+}
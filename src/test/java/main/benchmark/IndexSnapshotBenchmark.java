@@ -0,0 +1,79 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.document.Document;
+import main.model.document.ImmutableDocument;
+import main.model.index.DocumentIndex;
+import main.model.index.IndexSnapshot;
+import main.model.index.SnapshotDocumentIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+import static main.benchmark.BenchmarkSupport.time;
+import static main.benchmark.BenchmarkSupport.usedHeap;
+
+/**
+ * Compares taking a consistent copy of an index by copying every document with taking a snapshot of a
+ * {@link SnapshotDocumentIndex}, and measures the cost of an edit and the memory that is retained by many versions
+ * that each differ in one document.
+ */
+public class IndexSnapshotBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int versionCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+        DocumentIndex objects = BenchmarkSupport.createIndex(documentCount, 13);
+        System.out.println("index: %d documents".formatted(documentCount));
+
+        SnapshotDocumentIndex[] index = new SnapshotDocumentIndex[1];
+        System.out.println("build snapshot index: " + millis(time(() -> index[0] = IndexSnapshot.of(objects.getDocumentList()).toIndex())));
+
+        List<Document> copy = new ArrayList<>();
+        System.out.println("deep copy:            " + millis(median(() -> {
+            copy.clear();
+            for (Document document : objects.getDocumentList()) {
+                copy.add(ImmutableDocument.of(document).toDocument());
+            }
+        }, 1, 3)));
+        copy.clear();
+        System.out.println("snapshot():           %.6f ms".formatted(median(index[0]::snapshot, 1000, 1001) / 1_000_000.0));
+
+        Random random = new Random(14);
+        List<IndexSnapshot> versions = new ArrayList<>();
+        long baseline = usedHeap();
+        long nanos = time(() -> {
+            for (int i = 0; i < versionCount; i++) {
+                int position = random.nextInt(documentCount);
+                Document document = index[0].getDocumentList().get(position);
+                document.setTitle("Edited title " + i);
+                index[0].getDocumentList().set(position, document);
+                versions.add(index[0].snapshot());
+            }
+        });
+        long retained = usedHeap() - baseline;
+
+        System.out.println("%d edits: %s, %.3f us per edit".formatted(versionCount, millis(nanos), nanos / 1000.0 / versionCount));
+        System.out.println("%d versions retain %d KB, %d bytes per version".formatted(versions.size(), retained >> 10, retained / versions.size()));
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.index.DocumentIndex;
+import main.model.index.DocumentIndexReader;
+import main.model.index.LazyDocumentIndex;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static main.benchmark.BenchmarkSupport.millis;
+import static main.benchmark.BenchmarkSupport.time;
+import static main.benchmark.BenchmarkSupport.usedHeap;
+
+/**
+ * Compares the time until the first document is available, and the heap that is retained afterwards, for a regular
+ * read and a lazy read.
+ */
+public class LazyIndexBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+
+        Path file = BenchmarkSupport.writeTemporaryIndex(documentCount, 5);
+        System.out.println("index: %d documents, %d MB".formatted(documentCount, Files.size(file) / (1024 * 1024)));
+
+        DocumentIndex[] index = new DocumentIndex[1];
+        long baseline = usedHeap();
+
+        long eager = time(() -> {
+            index[0] = new DocumentIndexReader(file).read();
+            index[0].getDocumentList().get(0);
+        });
+        System.out.println("regular read: first row after %s, retained heap %d MB".formatted(millis(eager), (usedHeap() - baseline) / (1024 * 1024)));
+
+        index[0] = null;
+        baseline = usedHeap();
+
+        long lazy = time(() -> {
+            index[0] = new DocumentIndexReader(file).readLazy(LazyDocumentIndex.DEFAULT_CACHE_SIZE);
+            index[0].getDocumentList().get(0);
+        });
+        System.out.println("lazy read:    first row after %s, retained heap %d MB".formatted(millis(lazy), (usedHeap() - baseline) / (1024 * 1024)));
+    }
+}
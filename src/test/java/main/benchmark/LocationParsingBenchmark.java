@@ -0,0 +1,65 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.document.Document;
+import main.model.index.DocumentIndex;
+import main.model.index.DocumentIndexReader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+import static main.benchmark.BenchmarkSupport.usedHeap;
+
+/**
+ * Compares reading an index in which half of the documents have a source location, with the locations parsed while
+ * the index is decoded and with the parsing deferred until a location is retrieved. Reports the read time and the heap
+ * that the index retains.
+ */
+public class LocationParsingBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+
+        Path file = BenchmarkSupport.writeTemporaryIndex(documentCount, 12);
+        System.out.println("index: %d documents, %d MB".formatted(documentCount, Files.size(file) >> 20));
+
+        Document.setEagerLocationParsing(true);
+        System.out.println("eager: read %s, retained heap %d MB".formatted(millis(median(() -> new DocumentIndexReader(file).read(), 2, 5)), measure(file) >> 20));
+
+        Document.setEagerLocationParsing(false);
+        System.out.println("lazy:  read %s, retained heap %d MB".formatted(millis(median(() -> new DocumentIndexReader(file).read(), 2, 5)), measure(file) >> 20));
+    }
+
+    /**
+     * Read the index and return the heap that it retains, in bytes.
+     */
+    private static long measure(Path file) throws Exception {
+        long baseline = usedHeap();
+        DocumentIndex index = new DocumentIndexReader(file).read();
+        long retained = usedHeap() - baseline;
+
+        // keep the index reachable until the heap has been measured
+        if(index.getDocumentList().isEmpty()) {
+            System.out.println("empty index");
+        }
+        return retained;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.index.DocumentIndexReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+import static main.benchmark.BenchmarkSupport.time;
+
+/**
+ * Compares reading a large index through a buffered stream with reading it from a memory-mapped file.
+ *
+ * Cold page cache measurements require that the page cache can be dropped through "/proc/sys/vm/drop_caches", which
+ * is only possible on Linux when running as root. Otherwise only the warm measurements are reported.
+ */
+public class MemoryMapBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+
+        Path file = BenchmarkSupport.writeTemporaryIndex(documentCount, 3);
+        System.out.println("index: %d documents, %d MB".formatted(documentCount, Files.size(file) / (1024 * 1024)));
+
+        BenchmarkSupport.Action streamed = () -> read(file, Long.MAX_VALUE);
+        BenchmarkSupport.Action mapped = () -> read(file, 0);
+
+        // the warm runs come first, so that the cold runs measure the page cache and not the JIT compiler
+        System.out.println("warm, buffered stream: " + millis(median(streamed, 2, 5)));
+        System.out.println("warm, memory-mapped:   " + millis(median(mapped, 2, 5)));
+
+        if(dropPageCache()) {
+            System.out.println("cold, buffered stream: " + millis(time(streamed)));
+            dropPageCache();
+            System.out.println("cold, memory-mapped:   " + millis(time(mapped)));
+        } else {
+            System.out.println("cold measurements skipped, cannot drop the page cache");
+        }
+    }
+
+    private static void read(Path file, long memoryMapThreshold) throws IOException {
+        DocumentIndexReader reader = new DocumentIndexReader(file);
+        reader.setMemoryMapThreshold(memoryMapThreshold);
+        reader.read();
+    }
+
+    /**
+     * Try to evict the file contents from the page cache.
+     *
+     * @return Whether the page cache was dropped.
+     */
+    private static boolean dropPageCache() {
+        try {
+            new ProcessBuilder("sync").inheritIO().start().waitFor();
+            Files.writeString(Path.of("/proc/sys/vm/drop_caches"), "1");
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.document.Author;
+import main.model.document.Document;
+import main.model.index.NearDuplicateFinder;
+import main.model.index.NearDuplicatePair;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static main.benchmark.BenchmarkSupport.millis;
+import static main.benchmark.BenchmarkSupport.time;
+
+/**
+ * Measures near-duplicate detection on documents with random titles, of which a percentage are edited copies of other
+ * documents. Reports the time to compute the signatures, to reuse them from the signature file, and to find the pairs
+ * with locality-sensitive hashing, next to comparing all pairs of a sample of the documents.
+ */
+public class NearDuplicateBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int copyPercentage = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        Random random = new Random(17);
+        List<Document> documents = new ArrayList<>(documentCount);
+        for (int i = 0; i < documentCount; i++) {
+            documents.add(createDocument(random));
+        }
+        for (int i = 0; i < documentCount * copyPercentage / 100; i++) {
+            documents.set(random.nextInt(documentCount), createCopy(documents.get(random.nextInt(documentCount)), random));
+        }
+
+        Path signatureFile = Files.createTempDirectory("nearDuplicates").resolve("index.json.minhash");
+        signatureFile.toFile().deleteOnExit();
+
+        NearDuplicateFinder finder = new NearDuplicateFinder();
+        System.out.println("index: %d documents, %d%% copies".formatted(documentCount, copyPercentage));
+        System.out.println("signatures, no file:  " + millis(time(() -> finder.findCandidates(documents))));
+
+        finder.setSignatureFile(signatureFile);
+        System.out.println("signatures, written:  " + millis(time(() -> finder.findCandidates(documents))));
+
+        List<NearDuplicatePair> pairs = new ArrayList<>();
+        System.out.println("signatures, reused:   " + millis(time(() -> pairs.addAll(finder.findCandidates(documents)))));
+        System.out.println("pairs found: %d, signature file: %d MB".formatted(pairs.size(), Files.size(signatureFile) >> 20));
+
+        int sample = Math.min(documentCount, 20_000);
+        int[][] signatures = new int[sample][];
+        for (int i = 0; i < sample; i++) {
+            signatures[i] = finder.computeSignature(documents.get(i));
+        }
+        long nanos = time(() -> {
+            int similar = 0;
+            for (int i = 0; i < sample; i++) {
+                for (int j = i + 1; j < sample; j++) {
+                    similar += NearDuplicateFinder.similarity(signatures[i], signatures[j]) >= NearDuplicateFinder.DEFAULT_THRESHOLD ? 1 : 0;
+                }
+            }
+            System.out.println("all pairs of %d documents: %d similar".formatted(sample, similar));
+        });
+        double scale = Math.pow((double) documentCount / sample, 2);
+        System.out.println("all pairs: %s, extrapolated to the index: %.0f s".formatted(millis(nanos), nanos * scale / 1e9));
+    }
+
+    private static Document createDocument(Random random) {
+        Document document = new Document();
+
+        StringBuilder title = new StringBuilder();
+        for (int word = 3 + random.nextInt(6); word > 0; word--) {
+            title.append(title.length() == 0 ? "" : " ").append(randomWord(random));
+        }
+        document.setTitle(title.toString());
+        document.setAuthors(List.of(new Author(randomWord(random), randomWord(random))));
+        document.setPublicationVenue(randomWord(random));
+        return document;
+    }
+
+    /**
+     * Copy a document, with a word added to the title and the case changed.
+     */
+    private static Document createCopy(Document original, Random random) {
+        Document copy = new Document();
+        copy.setTitle(original.getTitle().toUpperCase() + ", issue " + random.nextInt(500));
+        copy.setAuthors(original.getAuthors());
+        copy.setPublicationVenue(original.getPublicationVenue());
+        return copy;
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[3 + random.nextInt(7)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.index.DocumentIndexReader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+
+/**
+ * Compares sequential reading with parallel reading on pools of increasing size.
+ */
+public class ParallelReadBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+
+        Path file = BenchmarkSupport.writeTemporaryIndex(documentCount, 4);
+        System.out.println("index: %d documents, %d MB".formatted(documentCount, Files.size(file) / (1024 * 1024)));
+
+        System.out.println("sequential:           " + millis(median(() -> new DocumentIndexReader(file).read(), 2, 5)));
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+
+            BenchmarkSupport.Action parallel = () -> {
+                DocumentIndexReader reader = new DocumentIndexReader(file);
+                reader.setParallel(true);
+                reader.setForkJoinPool(pool);
+                reader.read();
+            };
+
+            System.out.println("parallel, %2d threads: %s".formatted(threads, millis(median(parallel, 2, 5))));
+            pool.shutdown();
+        }
+    }
+}
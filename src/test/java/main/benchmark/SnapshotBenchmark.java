@@ -0,0 +1,49 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.index.DocumentIndexReader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+
+/**
+ * Compares reading an index from its JSON file with reading it from its binary snapshot.
+ */
+public class SnapshotBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+
+        Path file = BenchmarkSupport.writeTemporaryIndex(documentCount, 6);
+        Path snapshot = file.resolveSibling(file.getFileName() + ".snapshot");
+        snapshot.toFile().deleteOnExit();
+
+        System.out.println("JSON:     " + millis(median(() -> new DocumentIndexReader(file).read(), 2, 5)));
+
+        DocumentIndexReader reader = new DocumentIndexReader(file);
+        reader.setUseSnapshot(true);
+        reader.read();
+
+        System.out.println("snapshot: " + millis(median(reader::read, 2, 5)));
+        System.out.println("sizes: JSON %d MB, snapshot %d MB".formatted(Files.size(file) / (1024 * 1024), Files.size(snapshot) / (1024 * 1024)));
+    }
+}
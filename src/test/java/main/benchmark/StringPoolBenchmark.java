@@ -0,0 +1,70 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.document.StringPool;
+import main.model.index.DocumentIndex;
+import main.model.index.DocumentIndexReader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+import static main.benchmark.BenchmarkSupport.usedHeap;
+
+/**
+ * Compares the heap that is retained by a decoded index, and the time to read it, without and with the string pool
+ * that shares author names, venues and tags between documents.
+ */
+public class StringPoolBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+
+        Path file = BenchmarkSupport.writeTemporaryIndex(documentCount, 7);
+        System.out.println("index: %d documents, %d MB".formatted(documentCount, Files.size(file) / (1024 * 1024)));
+
+        StringPool pool = StringPool.getDefault();
+        pool.setMaxSize(0);
+        long unpooled = measure(file);
+        System.out.println("without pool: read %s, retained heap %d MB".formatted(millis(median(() -> new DocumentIndexReader(file).read(), 1, 3)), unpooled >> 20));
+
+        pool.setMaxSize(StringPool.DEFAULT_MAX_SIZE);
+        pool.clear();
+        long pooled = measure(file);
+        System.out.println("with pool:    read %s, retained heap %d MB".formatted(millis(median(() -> new DocumentIndexReader(file).read(), 1, 3)), pooled >> 20));
+        System.out.println("saved: %d MB (%.1f%%), pooled strings: %d, hits: %d".formatted((unpooled - pooled) >> 20,
+                100.0 * (unpooled - pooled) / unpooled, pool.size(), pool.getHits()));
+    }
+
+    /**
+     * Read the index and return the heap that it retains, in bytes.
+     */
+    private static long measure(Path file) throws Exception {
+        long baseline = usedHeap();
+        DocumentIndex index = new DocumentIndexReader(file).read();
+        long retained = usedHeap() - baseline;
+
+        // keep the index reachable until the heap has been measured
+        if(index.getDocumentList().isEmpty()) {
+            System.out.println("empty index");
+        }
+        return retained;
+    }
+}
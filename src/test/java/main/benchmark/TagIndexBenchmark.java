@@ -0,0 +1,79 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.document.Document;
+import main.model.index.DocumentIndex;
+import main.model.index.TagIndex;
+
+import java.util.List;
+import java.util.Random;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+import static main.benchmark.BenchmarkSupport.time;
+import static main.benchmark.BenchmarkSupport.usedHeap;
+
+/**
+ * Compares the boolean tag query "classic and logic, but not survey" as a scan over the tag lists of the documents
+ * with the same query on the bitmaps of a {@link TagIndex}, and measures how long incremental updates take.
+ */
+public class TagIndexBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        DocumentIndex index = BenchmarkSupport.createIndex(documentCount, 10);
+        List<Document> documents = index.getDocumentList();
+        System.out.println("index: %d documents".formatted(documentCount));
+
+        TagIndex[] tags = new TagIndex[1];
+        long baseline = usedHeap();
+        System.out.println("build tag index:  " + millis(time(() -> tags[0] = index.createTagIndex())));
+        System.out.println("tag index heap:   %d MB".formatted((usedHeap() - baseline) >> 20));
+
+        long[] result = new long[2];
+        System.out.println("query, scan:      " + millis(median(() -> result[0] = scan(documents), 2, 7)));
+        System.out.println("query, bitmaps:   " + millis(median(() -> result[1] = tags[0].allOf("classic", "logic").andNot(tags[0].anyOf("survey")).cardinality(), 20, 21)));
+        if(result[0] != result[1]) {
+            throw new IllegalStateException("Different results: %d and %d".formatted(result[0], result[1]));
+        }
+        System.out.println("matching documents: %d".formatted(result[1]));
+
+        Random random = new Random(11);
+        int updates = 100_000;
+        long nanos = time(() -> {
+            for (int i = 0; i < updates; i++) {
+                documents.get(random.nextInt(documentCount)).setTags(List.of("classic", "updated"));
+            }
+        });
+        System.out.println("%d setTags calls: %s".formatted(updates, millis(nanos)));
+        tags[0].close();
+    }
+
+    private static long scan(List<Document> documents) {
+        long count = 0;
+        for (Document document : documents) {
+            List<String> tags = document.getTags();
+            if(tags.contains("classic") && tags.contains("logic") && !tags.contains("survey")) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.document.Document;
+import main.model.index.DocumentIndex;
+import main.model.validation.ValidationErrors;
+
+import java.lang.management.ManagementFactory;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+
+/**
+ * Measures the allocation rate of validation with the list-based API and with a reused error sink, on a valid index
+ * and on an index in which every document is invalid. Validation is sequential, so all allocations happen on the
+ * current thread.
+ */
+public class ValidationAllocationBenchmark
+{
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        DocumentIndex valid = BenchmarkSupport.createIndex(documentCount, 7);
+        valid.setParallelValidation(false);
+
+        DocumentIndex invalid = BenchmarkSupport.createIndex(documentCount, 7);
+        invalid.setParallelValidation(false);
+        for (Document document : invalid.getDocumentList()) {
+            document.setPageCount(0);
+        }
+
+        System.out.println("index: %d documents".formatted(documentCount));
+        run("valid", valid);
+        run("invalid", invalid);
+    }
+
+    private static void run(String name, DocumentIndex index) throws Exception {
+        ValidationErrors errors = new ValidationErrors();
+        BenchmarkSupport.Action list = index::validate;
+        BenchmarkSupport.Action sink = () -> {
+            errors.clear();
+            index.validate(errors);
+        };
+
+        System.out.println("%-8s list: %s, %s".formatted(name, millis(median(list, 3, 7)), allocated(list, index)));
+        System.out.println("%-8s sink: %s, %s".formatted(name, millis(median(sink, 3, 7)), allocated(sink, index)));
+    }
+
+    private static String allocated(BenchmarkSupport.Action action, DocumentIndex index) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(threadId);
+        action.run();
+        long bytes = THREADS.getThreadAllocatedBytes(threadId) - before;
+
+        return "%.1f MB allocated, %.1f bytes/document".formatted(bytes / 1e6, (double) bytes / index.getDocumentList().size());
+    }
+}
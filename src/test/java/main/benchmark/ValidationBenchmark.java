@@ -0,0 +1,64 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.index.DocumentIndex;
+import main.model.validation.RuleStatistics;
+import main.model.validation.ValidationRules;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+
+/**
+ * Compares sequential validation with parallel validation on pools of increasing size, and prints the time spent in
+ * each validation rule.
+ */
+public class ValidationBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        DocumentIndex index = BenchmarkSupport.createIndex(documentCount, 5);
+        System.out.println("index: %d documents".formatted(documentCount));
+
+        index.setParallelValidation(false);
+        System.out.println("sequential:           " + millis(median(index::validate, 3, 7)));
+
+        ValidationRules rules = ValidationRules.getDefault();
+        rules.setCollectStatistics(true);
+        rules.resetStatistics();
+        System.out.println("sequential, timed:    " + millis(median(index::validate, 0, 1)));
+        for (RuleStatistics statistics : rules.getStatistics()) {
+            System.out.println("  " + statistics);
+        }
+        rules.setCollectStatistics(false);
+
+        index.setParallelValidation(true);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            index.setValidationPool(pool);
+
+            System.out.println("parallel, %2d threads: %s".formatted(threads, millis(median(index::validate, 3, 7))));
+            pool.shutdown();
+        }
+    }
+}
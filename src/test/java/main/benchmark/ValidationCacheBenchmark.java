@@ -0,0 +1,65 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.benchmark;
+
+import main.model.index.DocumentIndex;
+import main.model.index.DocumentIndexReader;
+import main.model.index.DocumentIndexWriter;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static main.benchmark.BenchmarkSupport.median;
+import static main.benchmark.BenchmarkSupport.millis;
+import static main.benchmark.BenchmarkSupport.time;
+
+/**
+ * Compares reading an index with full validation to reading it with a warm validation cache, both for an unchanged
+ * index and for an index in which a few documents changed since the previous read.
+ */
+public class ValidationCacheBenchmark
+{
+    public static void main(String[] args) throws Exception {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int changedCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        Path file = BenchmarkSupport.writeTemporaryIndex(documentCount, 6);
+        DocumentIndex index = new DocumentIndexReader(file).read();
+        index.setParallelValidation(false);
+        System.out.println("index: %d documents".formatted(documentCount));
+
+        System.out.println("validate() only:             " + millis(median(index::validate, 3, 7)));
+        System.out.println("read, no cache:              " + millis(median(() -> new DocumentIndexReader(file).read(), 2, 5)));
+
+        DocumentIndexReader cached = new DocumentIndexReader(file);
+        cached.setUseValidationCache(true);
+        System.out.println("read, warm cache, unchanged: " + millis(median(cached::read, 2, 5)));
+
+        long[] times = new long[7];
+        for (int round = 0; round < times.length; round++) {
+            for (int i = 0; i < changedCount; i++) {
+                index.getDocumentList().get((i * 7919 + round) % documentCount).setTitle("Changed title %d %d".formatted(round, i));
+            }
+            new DocumentIndexWriter(index).write(file);
+
+            times[round] = time(cached::read);
+        }
+        Arrays.sort(times);
+        System.out.println("read, warm cache, %d changed: %s".formatted(changedCount, millis(times[times.length / 2])));
+    }
+}
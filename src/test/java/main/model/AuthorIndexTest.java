@@ -0,0 +1,103 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model;
+
+import main.model.document.Author;
+import main.model.document.AuthorRegistry;
+import main.model.document.Document;
+import main.model.index.AuthorIndex;
+import main.model.index.DocumentIndex;
+import main.model.index.DocumentIndexReader;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests for {@link AuthorRegistry} and {@link AuthorIndex}.
+ */
+public class AuthorIndexTest
+{
+    private static Document createDocument(Author... authors) {
+        Document retval = new Document();
+        retval.setTitle("Title");
+        retval.setAuthors(List.of(authors));
+        return retval;
+    }
+
+    /**
+     * Test that every distinct pair of names gets one shared instance and one ID.
+     */
+    @Test
+    void testRegistry() {
+        AuthorRegistry registry = new AuthorRegistry();
+
+        Author turing = registry.register("Alan", " Turing ");
+        assertSame(turing, registry.register(new Author("Alan", "Turing")));
+        assertEquals(0, registry.getId(new Author("Alan", "Turing")));
+
+        Author anonymous = registry.register(null, "Turing");
+        assertNotEquals(turing, anonymous);
+        assertEquals(1, registry.getId(anonymous));
+        assertSame(anonymous, registry.getAuthor(1));
+        assertEquals(2, registry.size());
+        assertEquals(-1, registry.getId(new Author("Ada", "Lovelace")));
+
+        for (int i = 0; i < 200; i++) {
+            Author author = registry.register("First", "Last " + i);
+            assertSame(author, registry.getAuthor(i + 2));
+        }
+
+        // every author index has its own registry, with only the authors of its documents
+        List<Document> documents = List.of(createDocument(new Author("Alan", "Turing")), createDocument(new Author("Alan", "Turing")));
+        AuthorIndex first = new AuthorIndex(documents);
+        AuthorIndex second = new AuthorIndex(List.of(createDocument(new Author("Ada", "Lovelace"))));
+        assertEquals(1, first.getRegistry().size());
+        assertEquals(-1, second.getRegistry().getId(new Author("Alan", "Turing")));
+        assertArrayEquals(new int[]{0, 1}, first.getDocuments(new Author("Alan", "Turing")));
+    }
+
+    /**
+     * Test the documents and co-authors of an author in the test index.
+     */
+    @Test
+    void testPostings() throws Exception {
+        DocumentIndex index = new DocumentIndexReader(DocumentIndexReaderTest.getFile("correctFile.json")).read();
+        index.getDocumentList().add(createDocument(new Author("John", "Doe"), new Author("Jane", "Doe"), new Author("John", "Doe")));
+
+        AuthorIndex authors = index.createAuthorIndex();
+        AuthorRegistry registry = authors.getRegistry();
+        int john = registry.getId(new Author("John", "Doe"));
+        int jane = registry.getId(new Author("Jane", "Doe"));
+        int peter = registry.getId(new Author("Peter", "Selie"));
+
+        assertArrayEquals(new int[]{0, 6}, authors.getDocuments(new Author("John", "Doe")));
+        assertArrayEquals(new int[]{2, 6}, authors.getDocuments(jane));
+        assertEquals(1, authors.getDocumentCount(peter));
+        assertArrayEquals(new int[]{john, jane}, authors.getAuthorIds(6));
+
+        int[] expected = {Math.min(peter, jane), Math.max(peter, jane)};
+        assertArrayEquals(expected, authors.getCoAuthors(john));
+        assertArrayEquals(new int[]{6}, authors.getSharedDocuments(john, jane));
+        assertArrayEquals(new int[0], authors.getDocuments(new Author("Unknown", "Author")));
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model;
+
+import main.model.document.Author;
+import main.model.document.Document;
+import main.model.document.EnumDocumentType;
+import main.model.document.EnumReadingStatus;
+import main.model.index.DocumentIndex;
+import main.model.index.DocumentIndexJournal;
+import main.model.index.DocumentIndexReader;
+import main.model.index.DocumentIndexWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link DocumentIndexJournal}.
+ */
+public class DocumentIndexJournalTest
+{
+    /**
+     * Retrieve a Path object that points to the file with the specified filename located in the resources folder.
+     */
+    public static Path getFile(String filename) throws URISyntaxException {
+        return Path.of(DocumentIndexReaderTest.class.getClassLoader().getResource(filename).toURI());
+    }
+
+    /**
+     * Create a copy of the index with contents in a new temporary directory.
+     */
+    private Path copyIndex() throws Exception {
+        Path file = Files.createTempDirectory("journal").resolve("index.json");
+        Files.copy(getFile("correctFile.json"), file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    private Document createDocument(String title) {
+        Document doc = new Document();
+        doc.setAuthors(List.of(new Author("Alan", "Turing")));
+        doc.setTitle(title);
+        doc.setPageCount(22);
+        doc.setDocumentType(EnumDocumentType.PAPER);
+        doc.setReadingStatus(EnumReadingStatus.NOT_STARTED);
+        return doc;
+    }
+
+    /**
+     * Apply the same changes that are recorded by {@link #recordChanges(DocumentIndexJournal)} and check the result.
+     */
+    private void checkChanges(DocumentIndex index) {
+        List<Document> docs = index.getDocumentList();
+
+        assertEquals(6, docs.size());
+        assertEquals("New first title", docs.get(0).getTitle());
+        assertEquals("Changed title", docs.get(1).getTitle());
+        assertEquals("Another title", docs.get(2).getTitle());
+        assertEquals("Final Title", docs.get(5).getTitle());
+    }
+
+    private void recordChanges(DocumentIndexJournal journal) throws Exception {
+        journal.recordUpdate(0, createDocument("Changed title"));
+        journal.recordDelete(5);
+        journal.recordAdd(0, createDocument("New first title"));
+    }
+
+    /**
+     * Test that the changes in the journal are applied when the index is read.
+     */
+    @Test
+    public void testReplay() throws Exception {
+        Path file = copyIndex();
+
+        try (DocumentIndexJournal journal = new DocumentIndexJournal(file)) {
+            recordChanges(journal);
+        }
+
+        checkChanges(new DocumentIndexReader(file).read());
+
+        DocumentIndexReader withoutJournal = new DocumentIndexReader(file);
+        withoutJournal.setReplayJournal(false);
+        assertEquals("Some title", withoutJournal.read().getDocumentList().get(0).getTitle());
+        try (Stream<Document> stream = withoutJournal.stream()) {
+            assertEquals("Some title", stream.findFirst().orElseThrow().getTitle());
+        }
+    }
+
+    /**
+     * Test that the lazy, columnar and streaming ways of reading the index also apply the changes in the journal.
+     */
+    @Test
+    public void testReplayWithoutReadingAll() throws Exception {
+        Path file = copyIndex();
+
+        try (DocumentIndexJournal journal = new DocumentIndexJournal(file)) {
+            recordChanges(journal);
+        }
+
+        DocumentIndexReader reader = new DocumentIndexReader(file);
+        checkChanges(reader.readLazy(2));
+        checkChanges(reader.readColumnar());
+
+        DocumentIndex streamed = new DocumentIndex();
+        try (Stream<Document> stream = reader.stream()) {
+            streamed.setDocumentList(stream.collect(Collectors.toList()));
+        }
+        checkChanges(streamed);
+    }
+
+    /**
+     * Test that an incomplete last record, e.g. after a crash, is ignored and overwritten by the next record.
+     */
+    @Test
+    public void testIncompleteRecord() throws Exception {
+        Path file = copyIndex();
+        Path journalFile = file.resolveSibling("index.json.journal");
+
+        try (DocumentIndexJournal journal = new DocumentIndexJournal(file)) {
+            journal.recordUpdate(0, createDocument("Changed title"));
+            journal.recordDelete(5);
+        }
+
+        Files.writeString(journalFile, "{\"op\":\"DEL", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        assertEquals(5, new DocumentIndexReader(file).read().getDocumentList().size());
+
+        try (DocumentIndexJournal journal = new DocumentIndexJournal(file)) {
+            journal.recordAdd(0, createDocument("New first title"));
+        }
+
+        checkChanges(new DocumentIndexReader(file).read());
+    }
+
+    /**
+     * Test that compaction merges the journal into the index file.
+     */
+    @Test
+    public void testCompaction() throws Exception {
+        Path file = copyIndex();
+
+        try (DocumentIndexJournal journal = new DocumentIndexJournal(file)) {
+            journal.setCompactionThreshold(3);
+            recordChanges(journal);
+            journal.startCompaction().get();
+        }
+
+        assertFalse(Files.exists(file.resolveSibling("index.json.journal.compacting")));
+        assertEquals(0, Files.size(file.resolveSibling("index.json.journal")));
+
+        DocumentIndexReader withoutJournal = new DocumentIndexReader(file);
+        withoutJournal.setReplayJournal(false);
+        checkChanges(withoutJournal.read());
+    }
+
+    /**
+     * Test that a compaction that was interrupted after the index file was replaced does not apply the changes twice.
+     */
+    @Test
+    public void testCommittedCompaction() throws Exception {
+        Path file = copyIndex();
+        Path journalFile = file.resolveSibling("index.json.journal");
+        Path compactingFile = file.resolveSibling("index.json.journal.compacting");
+
+        try (DocumentIndexJournal journal = new DocumentIndexJournal(file)) {
+            recordChanges(journal);
+        }
+        byte[] records = Files.readAllBytes(journalFile);
+
+        try (DocumentIndexJournal journal = new DocumentIndexJournal(file)) {
+            journal.startCompaction().get();
+        }
+
+        // simulate a crash right before the compacting file was deleted
+        Files.write(compactingFile, records);
+        Files.writeString(compactingFile, commitRecord(file), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        checkChanges(new DocumentIndexReader(file).read());
+    }
+
+    /**
+     * Test that a failed compaction is reported once, is not restarted by later records, and is retried by an explicit
+     * compaction.
+     */
+    @Test
+    public void testFailedCompaction() throws Exception {
+        Path file = Files.createTempDirectory("journal").resolve("index.json");
+        DocumentIndexWriter writer = new DocumentIndexWriter(new DocumentIndexReader(getFile("correctFile.json")).read());
+        writer.setShardSize(2);
+        writer.write(file);
+
+        List<IOException> errors = new CopyOnWriteArrayList<>();
+
+        try (DocumentIndexJournal journal = new DocumentIndexJournal(file)) {
+            journal.setErrorHandler(errors::add);
+            journal.setCompactionThreshold(2);
+
+            journal.recordUpdate(0, createDocument("Changed title"));
+            journal.recordUpdate(1, createDocument("Another title"));
+            waitForCompaction(journal);
+            assertNotNull(journal.getCompactionError());
+
+            for (int i = 0; i < 5; i++) {
+                journal.recordUpdate(2, createDocument("Title " + i));
+            }
+            assertEquals(1, errors.size());
+
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> journal.startCompaction().get());
+            assertInstanceOf(IOException.class, thrown.getCause());
+            assertEquals(2, errors.size());
+        }
+
+        // the changes are still replayed
+        List<Document> docs = new DocumentIndexReader(file).read().getDocumentList();
+        assertEquals("Changed title", docs.get(0).getTitle());
+        assertEquals("Title 4", docs.get(2).getTitle());
+    }
+
+    /**
+     * Wait until the compaction that is running, if any, has finished.
+     */
+    private void waitForCompaction(DocumentIndexJournal journal) throws Exception {
+        for (int i = 0; i < 1000 && journal.getCompactionError() == null; i++) {
+            Thread.sleep(5);
+        }
+    }
+
+    private String commitRecord(Path file) throws Exception {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(file));
+        return "{\"op\":\"COMMIT\",\"checksum\":%d}\n".formatted(crc.getValue());
+    }
+}
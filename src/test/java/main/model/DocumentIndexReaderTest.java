@@ -20,21 +20,46 @@ package main.model;
 import main.model.document.Document;
 import main.model.document.EnumDocumentType;
 import main.model.document.EnumReadingStatus;
+import main.model.document.ImmutableDocument;
+import main.model.document.StringPool;
+import main.model.index.ColumnarDocumentIndex;
 import main.model.index.DocumentIndex;
 import main.model.index.DocumentIndexReader;
+import main.model.index.DocumentIndexWriter;
+import main.model.index.DocumentIterator;
+import main.model.index.LazyDocumentIndex;
+import main.model.store.DocumentQuery;
+import main.model.validation.EnumValidationError;
+import main.model.validation.IndexValidationException;
+import main.model.validation.ValidationRule;
+import main.model.validation.ValidationRules;
+import main.view.DocumentView;
 
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.time.Year;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Tests for {@link DocumentIndexReader}, {@link Document}, and {@link DocumentIndex}.
@@ -193,6 +218,41 @@ public class DocumentIndexReaderTest
         });
     }
 
+    /**
+     * Test that an invalid location is kept as text and only rejected when it is retrieved, that the location rules
+     * report it as a validation error, and that the view shows it as a missing location.
+     */
+    @Test
+    void testLazyLocations() throws Exception {
+        Path file = Files.createTempDirectory("lazyLocations").resolve("index.json");
+        Files.writeString(file, Files.readString(getFile("correctFile.json")).replace("\"ABCDEF\"", "\"has space^bad\""));
+
+        Document document = new DocumentIndexReader(file).read().getDocumentList().get(1);
+        assertEquals("has space^bad", document.getSourceLocationText());
+        Assertions.assertThrows(IllegalArgumentException.class, document::getSourceLocation);
+        assertNull(new DocumentView(document).getSourceFileLink());
+        assertNull(ImmutableDocument.of(document).getSourceLocation());
+        assertEquals("has space^bad", ImmutableDocument.of(document).getSourceLocationText());
+
+        List<ValidationRule<?>> rules = new ArrayList<>(ValidationRules.getBuiltinRules());
+        rules.addAll(ValidationRules.getLocationRules());
+        ValidationRules previous = ValidationRules.getDefault();
+        ValidationRules.setDefault(new ValidationRules(rules));
+        try {
+            assertEquals(List.of(EnumValidationError.DOCUMENT_SOURCE_LOCATION.getTemplate()), document.validate());
+            Assertions.assertThrows(IndexValidationException.class, () -> new DocumentIndexReader(file).read());
+        } finally {
+            ValidationRules.setDefault(previous);
+        }
+
+        Document.setEagerLocationParsing(true);
+        try {
+            Assertions.assertThrows(UncheckedIOException.class, () -> new DocumentIndexReader(file).readLazy(16).getDocumentList().get(1));
+        } finally {
+            Document.setEagerLocationParsing(false);
+        }
+    }
+
     /**
      * Test that IOException is thrown in case the file does not exist.
      */
@@ -203,4 +263,454 @@ public class DocumentIndexReaderTest
             DocumentIndex index = reader.read();
         });
     }
+
+    /**
+     * Test that streaming the documents yields the same documents, in the same order, as reading the whole index.
+     */
+    @Test
+    void testStreamDocuments() throws Exception {
+        DocumentIndexReader reader = new DocumentIndexReader(getFile("correctFile.json"));
+
+        List<Document> docs;
+        try (Stream<Document> stream = reader.stream()) {
+            docs = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(6, docs.size());
+
+        this.testCorrectContentsIndex_0(docs.get(0));
+        this.testCorrectContentsIndex_1(docs.get(1));
+        this.testCorrectContentsIndex_2(docs.get(2));
+        this.testCorrectContentsIndex_3(docs.get(3));
+        this.testCorrectContentsIndex_4(docs.get(4));
+        this.testCorrectContentsIndex_5(docs.get(5));
+    }
+
+    /**
+     * Test that an empty index yields no documents when streamed.
+     */
+    @Test
+    void testIterateEmptyIndex() throws Exception {
+        DocumentIndexReader reader = new DocumentIndexReader(getFile("emptyIndex.json"));
+
+        try (DocumentIterator iterator = reader.iterator()) {
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    /**
+     * Test that parse errors while iterating are reported as {@link UncheckedIOException}.
+     */
+    @Test
+    void testIterateUnknownField() throws Exception {
+        DocumentIndexReader reader = new DocumentIndexReader(getFile("redundantField.json"));
+
+        try (DocumentIterator iterator = reader.iterator()) {
+            Assertions.assertThrows(UncheckedIOException.class, iterator::hasNext);
+        }
+    }
+
+    /**
+     * Test that reading a memory-mapped file yields the same documents as reading it through a stream.
+     */
+    @Test
+    void testMemoryMappedRead() throws Exception {
+        DocumentIndexReader reader = new DocumentIndexReader(getFile("correctFile.json"));
+        reader.setMemoryMapThreshold(0);
+        DocumentIndex index = reader.read();
+
+        assertEquals(6, index.getDocumentList().size());
+
+        this.testCorrectContentsIndex_0(index.getDocumentList().get(0));
+        this.testCorrectContentsIndex_3(index.getDocumentList().get(3));
+        this.testCorrectContentsIndex_5(index.getDocumentList().get(5));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> reader.setMemoryMapThreshold(-1));
+    }
+
+    /**
+     * Test that a file in UTF-16, whose documents have no byte offsets, is read correctly in parallel and lazily.
+     */
+    @Test
+    void testUtf16Read() throws Exception {
+        Path file = Files.createTempFile("index", ".json");
+        Files.writeString(file, Files.readString(getFile("correctFile.json")), StandardCharsets.UTF_16);
+
+        DocumentIndexReader reader = new DocumentIndexReader(file);
+        reader.setParallel(true);
+        List<Document> parallel = reader.read().getDocumentList();
+        List<Document> lazy = new DocumentIndexReader(file).readLazy(2).getDocumentList();
+
+        assertEquals(6, parallel.size());
+        assertEquals(6, lazy.size());
+        for (List<Document> documents : List.of(parallel, lazy)) {
+            this.testCorrectContentsIndex_0(documents.get(0));
+            this.testCorrectContentsIndex_3(documents.get(3));
+            this.testCorrectContentsIndex_5(documents.get(5));
+        }
+    }
+
+    /**
+     * Test that reading in parallel yields the same documents, in the same order, as reading sequentially.
+     */
+    @Test
+    void testParallelRead() throws Exception {
+        for (long threshold : new long[]{0, Long.MAX_VALUE}) {
+            DocumentIndexReader reader = new DocumentIndexReader(getFile("correctFile.json"));
+            reader.setParallel(true);
+            reader.setMemoryMapThreshold(threshold);
+            DocumentIndex index = reader.read();
+
+            assertEquals(6, index.getDocumentList().size());
+
+            this.testCorrectContentsIndex_0(index.getDocumentList().get(0));
+            this.testCorrectContentsIndex_1(index.getDocumentList().get(1));
+            this.testCorrectContentsIndex_2(index.getDocumentList().get(2));
+            this.testCorrectContentsIndex_3(index.getDocumentList().get(3));
+            this.testCorrectContentsIndex_4(index.getDocumentList().get(4));
+            this.testCorrectContentsIndex_5(index.getDocumentList().get(5));
+        }
+    }
+
+    /**
+     * Test that errors in parallel mode are reported as {@link IOException}.
+     */
+    @Test
+    void testParallelReadErrors() {
+        for (String filename : List.of("redundantField.json", "incorrectSyntax.json")) {
+            Assertions.assertThrows(IOException.class, () -> {
+                DocumentIndexReader reader = new DocumentIndexReader(getFile(filename));
+                reader.setParallel(true);
+                reader.read();
+            });
+        }
+    }
+
+    /**
+     * Test that a lazy index decodes the same documents as a regular read, also when documents are evicted.
+     */
+    @Test
+    void testLazyRead() throws Exception {
+        DocumentIndexReader reader = new DocumentIndexReader(getFile("correctFile.json"));
+        LazyDocumentIndex index = reader.readLazy(2);
+
+        assertEquals(6, index.getDocumentList().size());
+        assertTrue(index.validate().isEmpty());
+
+        this.testCorrectContentsIndex_0(index.getDocumentList().get(0));
+        this.testCorrectContentsIndex_1(index.getDocumentList().get(1));
+        this.testCorrectContentsIndex_2(index.getDocumentList().get(2));
+        this.testCorrectContentsIndex_3(index.getDocumentList().get(3));
+        this.testCorrectContentsIndex_4(index.getDocumentList().get(4));
+        this.testCorrectContentsIndex_5(index.getDocumentList().get(5));
+
+        // the most recently used documents are cached
+        assertSame(index.getDocumentList().get(5), index.getDocumentList().get(5));
+    }
+
+    /**
+     * Test that a lazy index over a memory mapping of its file can be written back to that file.
+     */
+    @Test
+    void testLazyWriteToSource() throws Exception {
+        Path file = Files.createTempDirectory("lazyWrite").resolve("index.json");
+        Files.copy(getFile("correctFile.json"), file);
+        DocumentIndexReader reader = new DocumentIndexReader(file);
+        reader.setMemoryMapThreshold(0);
+        LazyDocumentIndex index = reader.readLazy(1);
+
+        Document changed = index.getDocumentList().get(0);
+        changed.setTitle("Changed title");
+        index.getDocumentList().set(0, changed);
+        new DocumentIndexWriter(index).write(file);
+
+        DocumentIndex saved = new DocumentIndexReader(file).read();
+        assertEquals("Changed title", saved.getDocumentList().get(0).getTitle());
+        this.testCorrectContentsIndex_1(saved.getDocumentList().get(1));
+        this.testCorrectContentsIndex_5(saved.getDocumentList().get(5));
+        this.testCorrectContentsIndex_3(index.getDocumentList().get(3));
+    }
+
+    /**
+     * Test that author names, venues and tags that repeat across documents share a single instance, both when the
+     * index is decoded from JSON and from a snapshot, and that a full pool no longer adds strings.
+     */
+    @Test
+    void testStringPool() throws Exception {
+        Path dir = Files.createTempDirectory("stringPool");
+        Path file = dir.resolve("index.json");
+        Files.copy(getFile("correctFile.json"), file, StandardCopyOption.REPLACE_EXISTING);
+
+        DocumentIndexReader reader = new DocumentIndexReader(file);
+        reader.setUseSnapshot(true);
+
+        for (int read = 0; read < 2; read++) {
+            List<Document> documents = reader.read().getDocumentList();
+
+            assertSame(documents.get(0).getAuthors().get(1).getLastName(), documents.get(2).getAuthors().get(0).getLastName());
+            assertSame(documents.get(0).getTags().get(0), documents.get(4).getTags().get(0));
+            assertSame(documents.get(1).getPublicationVenue(), reader.read().getDocumentList().get(1).getPublicationVenue());
+        }
+
+        StringPool pool = new StringPool(1);
+        String first = pool.intern(new String("first"));
+        assertSame(first, pool.intern(new String("first")));
+        String second = new String("second");
+        assertSame(second, pool.intern(second));
+        assertFalse(second == pool.intern(new String("second")), "full pool");
+        assertEquals(1, pool.size());
+        assertEquals(1, pool.getHits());
+    }
+
+    /**
+     * Test that a columnar index holds the same documents as the file, that queries on the columns agree with
+     * {@link DocumentQuery#matches(Document)}, and that changed and added documents are stored.
+     */
+    @Test
+    void testColumnarRead() throws Exception {
+        ColumnarDocumentIndex index = new DocumentIndexReader(getFile("correctFile.json")).readColumnar();
+
+        assertEquals(6, index.getDocumentList().size());
+        assertTrue(index.validate().isEmpty());
+        this.testCorrectContentsIndex_0(index.getDocumentList().get(0));
+        this.testCorrectContentsIndex_1(index.getDocumentList().get(1));
+        this.testCorrectContentsIndex_2(index.getDocumentList().get(2));
+        this.testCorrectContentsIndex_3(index.getDocumentList().get(3));
+        this.testCorrectContentsIndex_4(index.getDocumentList().get(4));
+        this.testCorrectContentsIndex_5(index.getDocumentList().get(5));
+
+        DocumentQuery query = new DocumentQuery();
+        query.setTag("tag1");
+        assertArrayEquals(new int[]{0, 4}, index.find(query));
+        query.setTag("unknown tag");
+        assertArrayEquals(new int[0], index.find(query));
+
+        DocumentIndex objects = new DocumentIndexReader(getFile("correctFile.json")).read();
+        for (EnumReadingStatus status : EnumReadingStatus.values()) {
+            DocumentQuery statusQuery = new DocumentQuery();
+            statusQuery.setReadingStatus(status);
+            int[] expected = IntStream.range(0, 6).filter(i -> statusQuery.matches(objects.getDocumentList().get(i))).toArray();
+            assertArrayEquals(expected, index.find(statusQuery), status.name());
+            assertEquals(expected.length, index.countByReadingStatus()[status.ordinal()], status.name());
+        }
+
+        Document changed = index.getDocumentList().get(1);
+        changed.setPageCount(1234);
+        changed.setTags(List.of("changed"));
+        index.getDocumentList().set(1, changed);
+        index.getDocumentList().add(index.getDocumentList().get(0));
+
+        assertEquals(1234, index.getPageCount(1));
+        assertEquals(List.of("changed"), index.getDocumentList().get(1).getTags());
+        assertEquals(7, index.size());
+        this.testCorrectContentsIndex_0(index.getDocumentList().get(6));
+        this.testCorrectContentsIndex_2(index.getDocumentList().get(2));
+    }
+
+    /**
+     * Test that documents that are set on a lazy index survive eviction from the cache.
+     */
+    @Test
+    void testLazySet() throws Exception {
+        DocumentIndexReader reader = new DocumentIndexReader(getFile("correctFile.json"));
+        LazyDocumentIndex index = reader.readLazy(1);
+
+        Document doc = index.getDocumentList().get(0);
+        doc.setReadingStatus(EnumReadingStatus.ON_HOLD);
+        index.getDocumentList().set(0, doc);
+
+        for (Document other : index.getDocumentList()) {
+            other.getTitle();
+        }
+
+        assertSame(doc, index.getDocumentList().get(0));
+        assertEquals(EnumReadingStatus.ON_HOLD, index.getDocumentList().get(0).getReadingStatus());
+    }
+
+    /**
+     * Test that reading with snapshots enabled creates a snapshot, that the snapshot is used for the next read, and
+     * that an outdated snapshot is not used.
+     */
+    @Test
+    void testSnapshotRead() throws Exception {
+        Path dir = Files.createTempDirectory("snapshotRead");
+        Path file = dir.resolve("index.json");
+        Path snapshot = dir.resolve("index.json.snapshot");
+        Files.copy(getFile("correctFile.json"), file, StandardCopyOption.REPLACE_EXISTING);
+
+        DocumentIndexReader reader = new DocumentIndexReader(file);
+        reader.setUseSnapshot(true);
+
+        reader.read();
+        assertTrue(Files.exists(snapshot), "snapshot created");
+
+        DocumentIndex fromSnapshot = reader.read();
+        assertEquals(6, fromSnapshot.getDocumentList().size());
+        this.testCorrectContentsIndex_0(fromSnapshot.getDocumentList().get(0));
+        this.testCorrectContentsIndex_1(fromSnapshot.getDocumentList().get(1));
+        this.testCorrectContentsIndex_2(fromSnapshot.getDocumentList().get(2));
+        this.testCorrectContentsIndex_3(fromSnapshot.getDocumentList().get(3));
+        this.testCorrectContentsIndex_4(fromSnapshot.getDocumentList().get(4));
+        this.testCorrectContentsIndex_5(fromSnapshot.getDocumentList().get(5));
+
+        // replace the JSON with an empty index, but keep the snapshot of the old contents
+        byte[] oldSnapshot = Files.readAllBytes(snapshot);
+        new DocumentIndexWriter(new DocumentIndex()).write(file);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        Files.write(snapshot, oldSnapshot);
+
+        assertEquals(0, reader.read().getDocumentList().size(), "outdated snapshot is not used");
+
+        // a corrupt snapshot is not used either
+        byte[] corrupt = Files.readAllBytes(snapshot);
+        corrupt[corrupt.length - 1] ^= 1;
+        Files.write(snapshot, corrupt);
+
+        assertEquals(0, reader.read().getDocumentList().size(), "corrupt snapshot is not used");
+
+        // an edit that keeps the size and the modification time is detected as well
+        Files.copy(getFile("correctFile.json"), file, StandardCopyOption.REPLACE_EXISTING);
+        reader.read();
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.writeString(file, Files.readString(file).replace("\"ABCDEF\"", "\"ABCDEG\""));
+        Files.setLastModifiedTime(file, modified);
+        assertEquals("ABCDEG", reader.read().getDocumentList().get(1).getSourceLocationText(), "same-size edit is detected");
+    }
+
+    /**
+     * Test that a sharded index is read in the original order, both as a whole and through an iterator, and that
+     * validation errors refer to the position of the document in the complete index.
+     */
+    @Test
+    void testShardedRead() throws Exception {
+        Path file = Files.createTempDirectory("shardedRead").resolve("index.json");
+        DocumentIndex original = new DocumentIndexReader(getFile("correctFile.json")).read();
+
+        DocumentIndexWriter writer = new DocumentIndexWriter(original);
+        writer.setShardSize(4);
+        writer.write(file);
+
+        assertTrue(Files.exists(file.resolveSibling("index.json.shard0000")));
+        assertTrue(Files.exists(file.resolveSibling("index.json.shard0001")));
+
+        DocumentIndex index = new DocumentIndexReader(file).read();
+        assertEquals(6, index.getDocumentList().size());
+        this.testCorrectContentsIndex_0(index.getDocumentList().get(0));
+        this.testCorrectContentsIndex_1(index.getDocumentList().get(1));
+        this.testCorrectContentsIndex_2(index.getDocumentList().get(2));
+        this.testCorrectContentsIndex_3(index.getDocumentList().get(3));
+        this.testCorrectContentsIndex_4(index.getDocumentList().get(4));
+        this.testCorrectContentsIndex_5(index.getDocumentList().get(5));
+
+        try (Stream<Document> stream = new DocumentIndexReader(file).stream()) {
+            List<String> titles = stream.map(Document::getTitle).collect(Collectors.toList());
+            assertEquals(index.getDocumentList().stream().map(Document::getTitle).collect(Collectors.toList()), titles);
+        }
+
+        // an invalid document in the second shard
+        original.getDocumentList().get(5).setPageCount(0);
+        new DocumentIndexWriter(original).write(file);
+
+        IndexValidationException e = Assertions.assertThrows(IndexValidationException.class, () -> new DocumentIndexReader(file).read());
+        assertEquals(List.of("Invalid document at index #5: Page count must be greater than zero."), e.getErrorMessages());
+    }
+
+    /**
+     * Test that the validation cache reports the same errors as a full validation, and that it is only rewritten when
+     * the documents change.
+     */
+    @Test
+    void testValidationCache() throws Exception {
+        Path file = Files.createTempDirectory("validationCache").resolve("index.json");
+        Path cache = file.resolveSibling("index.json.validation");
+
+        DocumentIndex index = new DocumentIndexReader(getFile("correctFile.json")).read();
+        index.getDocumentList().get(3).setPageCount(0);
+        new DocumentIndexWriter(index).write(file);
+
+        DocumentIndexReader reader = new DocumentIndexReader(file);
+        reader.setUseValidationCache(true);
+
+        List<String> expected = List.of("Invalid document at index #3: Page count must be greater than zero.");
+        assertEquals(expected, Assertions.assertThrows(IndexValidationException.class, reader::read).getErrorMessages());
+        assertTrue(Files.exists(cache), "cache created");
+
+        // an unchanged index does not rewrite the cache, and gets its errors from the cache
+        FileTime old = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(cache, old);
+        assertEquals(expected, Assertions.assertThrows(IndexValidationException.class, reader::read).getErrorMessages());
+        assertEquals(old, Files.getLastModifiedTime(cache));
+
+        // a changed document is validated again
+        index.getDocumentList().get(3).setPageCount(12);
+        new DocumentIndexWriter(index).write(file);
+        assertEquals(6, reader.read().getDocumentList().size());
+        assertFalse(old.equals(Files.getLastModifiedTime(cache)), "cache updated");
+
+        // a corrupt cache is ignored
+        byte[] corrupt = Files.readAllBytes(cache);
+        corrupt[corrupt.length - 1] ^= 1;
+        Files.write(cache, corrupt);
+        assertEquals(6, reader.read().getDocumentList().size());
+
+        // "A?" and "B " have the same length and String.hashCode(), but only the first is a valid URI
+        List<ValidationRule<?>> rules = new ArrayList<>(ValidationRules.getBuiltinRules());
+        rules.addAll(ValidationRules.getLocationRules());
+        ValidationRules previous = ValidationRules.getDefault();
+        ValidationRules.setDefault(new ValidationRules(rules));
+        try {
+            index.getDocumentList().get(3).setSourceLocationText("A?");
+            new DocumentIndexWriter(index).write(file);
+            assertEquals(6, reader.read().getDocumentList().size());
+            index.getDocumentList().get(3).setSourceLocationText("B ");
+            new DocumentIndexWriter(index).write(file);
+            assertEquals(List.of("Invalid document at index #3: Source location must be a valid URI."),
+                    Assertions.assertThrows(IndexValidationException.class, reader::read).getErrorMessages());
+        } finally {
+            ValidationRules.setDefault(previous);
+        }
+    }
+
+    /**
+     * Test that a sequential read validates the documents while parsing: the errors contain the location of the
+     * invalid documents, the error limit stops reading, and lenient mode leaves out the invalid documents.
+     */
+    @Test
+    void testStreamingValidation() throws Exception {
+        Path file = Files.createTempDirectory("streamingValidation").resolve("index.json");
+
+        DocumentIndex original = new DocumentIndexReader(getFile("correctFile.json")).read();
+        original.getDocumentList().get(2).setPageCount(0);
+        original.getDocumentList().get(4).setTitle("");
+        original.getDocumentList().get(4).setPageCount(-3);
+        new DocumentIndexWriter(original).write(file);
+
+        DocumentIndexReader reader = new DocumentIndexReader(file);
+        List<String> expected = List.of(
+                "Invalid document at index #2 (line 33, column 6): Page count must be greater than zero.",
+                "Invalid document at index #4 (line 61, column 6): Title must not be empty or null.",
+                "Invalid document at index #4 (line 61, column 6): Page count must be greater than zero."
+        );
+        assertEquals(expected, Assertions.assertThrows(IndexValidationException.class, reader::read).getErrorMessages());
+
+        reader.setMaxErrors(2);
+        assertEquals(expected.subList(0, 2), Assertions.assertThrows(IndexValidationException.class, reader::read).getErrorMessages());
+
+        reader.setMaxErrors(10);
+        reader.setLenient(true);
+        DocumentIndex index = reader.read();
+        assertEquals(4, index.getDocumentList().size());
+        assertEquals(original.getDocumentList().get(3).getTitle(), index.getDocumentList().get(2).getTitle());
+        assertEquals(expected, reader.getSkippedErrors());
+
+        // lenient mode still fails when the error limit is reached
+        reader.setMaxErrors(3);
+        Assertions.assertThrows(IndexValidationException.class, reader::read);
+
+        // a parallel read validates afterwards, with the same limit and lenient mode
+        reader.setParallel(true);
+        reader.setMaxErrors(10);
+        assertEquals(4, reader.read().getDocumentList().size());
+        assertEquals("Invalid document at index #2: Page count must be greater than zero.", reader.getSkippedErrors().get(0));
+    }
 }
@@ -17,20 +17,32 @@
 
 package main.model;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import main.model.document.Document;
 import main.model.index.DocumentIndex;
 import main.model.index.DocumentIndexReader;
 import main.model.index.DocumentIndexWriter;
+import main.model.index.DocumentStreamWriter;
 import org.junit.jupiter.api.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 
 import java.io.File;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.FileUtils;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
  * Unit tests for {@link DocumentIndexWriter}.
  */
@@ -89,4 +101,92 @@ public class DocumentIndexWriterTest
 
         JSONAssert.assertEquals("Compare index without contents", expectedJson, actualJson, false);
     }
+
+    /**
+     * In this test we check that the streaming writer produces exactly the same bytes as serialising the whole index
+     * with an indenting {@link ObjectMapper}, both for an index with contents and for an empty index.
+     */
+    @Test
+    public void testStreamingOutputIsByteCompatible() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+        for (DocumentIndex index : List.of(new DocumentIndexReader(getFile("correctFile.json")).read(), new DocumentIndex())) {
+            File file = File.createTempFile("IndexWriteStreaming", "");
+            file.deleteOnExit();
+
+            new DocumentIndexWriter(index).write(file.toPath());
+
+            assertArrayEquals(objectMapper.writeValueAsBytes(index), Files.readAllBytes(file.toPath()));
+        }
+    }
+
+    /**
+     * In this test we stream the documents from one file into another without building the index in memory.
+     */
+    @Test
+    public void testStreamingCopy() throws Exception {
+        File file = File.createTempFile("IndexWriteStreamingCopy", "");
+        file.deleteOnExit();
+
+        try (Stream<Document> documents = new DocumentIndexReader(getFile("correctFile.json")).stream()) {
+            new DocumentStreamWriter(documents).write(file.toPath());
+        }
+
+        String expectedJson = FileUtils.readFileToString(getFile("correctFile.json").toFile(), Charset.defaultCharset());
+        String actualJson = FileUtils.readFileToString(file, Charset.defaultCharset());
+
+        JSONAssert.assertEquals("Compare streamed copy", expectedJson, actualJson, false);
+    }
+
+    /**
+     * In this test we write a sharded index twice, and check that the second write only replaces the shard that
+     * contains the changed document, by writing it to a new file.
+     */
+    @Test
+    public void testShardedWriteOnlyRewritesChangedShards() throws Exception {
+        Path file = Files.createTempDirectory("IndexWriteSharded").resolve("index.json");
+        DocumentIndex index = new DocumentIndexReader(getFile("correctFile.json")).read();
+
+        DocumentIndexWriter writer = new DocumentIndexWriter(index);
+        writer.setShardSize(2);
+        writer.write(file);
+
+        List<Path> shards = List.of(file.resolveSibling("index.json.shard0000"), file.resolveSibling("index.json.shard0001"), file.resolveSibling("index.json.shard0002"));
+        FileTime old = FileTime.fromMillis(0);
+        for (Path shard : shards) {
+            Files.setLastModifiedTime(shard, old);
+        }
+
+        // the shard size is taken from the existing manifest
+        index.getDocumentList().get(3).setTitle("Changed title");
+        new DocumentIndexWriter(index).write(file);
+
+        // the files of the previous manifest are never overwritten, so a crash before the manifest is replaced leaves
+        // a readable index
+        Path changed = file.resolveSibling("index.json.shard0001.g1");
+        assertEquals(old, Files.getLastModifiedTime(shards.get(0)));
+        assertFalse(Files.exists(shards.get(1)));
+        assertTrue(Files.exists(changed));
+        assertEquals(old, Files.getLastModifiedTime(shards.get(2)));
+
+        assertEquals("Changed title", new DocumentIndexReader(file).read().getDocumentList().get(3).getTitle());
+
+        // a shard file that was left behind by an interrupted write is not reused, and is removed
+        Path leftover = file.resolveSibling("index.json.shard0000.g2");
+        Files.writeString(leftover, "[]");
+        index.getDocumentList().get(0).setTitle("Changed first title");
+        new DocumentIndexWriter(index).write(file);
+        assertFalse(Files.exists(leftover));
+        assertFalse(Files.exists(shards.get(0)));
+        assertTrue(Files.exists(file.resolveSibling("index.json.shard0000.g3")));
+        assertEquals("Changed first title", new DocumentIndexReader(file).read().getDocumentList().get(0).getTitle());
+
+        // shards that are no longer needed are removed
+        index.getDocumentList().subList(2, 6).clear();
+        new DocumentIndexWriter(index).write(file);
+
+        assertFalse(Files.exists(changed));
+        assertFalse(Files.exists(shards.get(2)));
+        assertEquals(2, new DocumentIndexReader(file).read().getDocumentList().size());
+    }
 }
@@ -0,0 +1,249 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model;
+
+import main.model.document.Document;
+import main.model.index.DocumentIndex;
+import main.model.index.DocumentIndexJournal;
+import main.model.index.DocumentIndexReader;
+import main.model.index.DocumentIndexWriter;
+import main.model.index.DocumentStreamWriter;
+import main.model.index.IndexChangeListener;
+import main.model.index.IndexDiff;
+import main.model.index.IndexFileWatcher;
+import main.model.validation.IndexValidationException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link IndexFileWatcher}.
+ */
+public class IndexFileWatcherTest
+{
+    private static final IndexChangeListener IGNORE = new IndexChangeListener() {
+        @Override
+        public void indexChanged(IndexDiff diff) {
+        }
+
+        @Override
+        public void reloadFailed(IOException e) {
+        }
+    };
+
+    /**
+     * Retrieve a Path object that points to the file with the specified filename located in the resources folder.
+     */
+    public static Path getFile(String filename) throws URISyntaxException {
+        return Path.of(DocumentIndexReaderTest.class.getClassLoader().getResource(filename).toURI());
+    }
+
+    private static List<String> titles(List<Document> documents) {
+        return documents.stream().map(Document::getTitle).collect(Collectors.toList());
+    }
+
+    /**
+     * Test that only the changed documents are reported, and that applying the reported changes to the old documents
+     * gives the new documents.
+     */
+    @Test
+    public void testDiff() throws Exception {
+        Path file = Files.createTempDirectory("watch").resolve("index.json");
+        DocumentIndex index = new DocumentIndexReader(getFile("correctFile.json")).read();
+        new DocumentIndexWriter(index).write(file);
+
+        List<Document> shown = new ArrayList<>(new DocumentIndexReader(file).read().getDocumentList());
+
+        try (IndexFileWatcher watcher = new IndexFileWatcher(file, IGNORE)) {
+            assertTrue(watcher.checkForChanges().isEmpty(), "unchanged file");
+
+            // change a single document
+            index.getDocumentList().get(2).setTitle("Changed title");
+            new DocumentIndexWriter(index).write(file);
+
+            IndexDiff diff = watcher.checkForChanges();
+            assertEquals(List.of(2), new ArrayList<>(diff.getUpdatedDocuments().keySet()));
+            assertEquals(0, diff.getRemovedCount());
+            assertTrue(diff.getInsertedDocuments().isEmpty());
+            diff.applyTo(shown);
+            assertEquals(titles(index.getDocumentList()), titles(shown));
+
+            // insert a document in the middle
+            index.getDocumentList().add(3, index.getDocumentList().get(0));
+            new DocumentIndexWriter(index).write(file);
+
+            diff = watcher.checkForChanges();
+            assertTrue(diff.getUpdatedDocuments().isEmpty());
+            assertEquals(3, diff.getPosition());
+            assertEquals(1, diff.getInsertedDocuments().size());
+            diff.applyTo(shown);
+            assertEquals(titles(index.getDocumentList()), titles(shown));
+
+            // remove two documents
+            index.getDocumentList().subList(0, 2).clear();
+            new DocumentIndexWriter(index).write(file);
+
+            diff = watcher.checkForChanges();
+            assertTrue(diff.getUpdatedDocuments().isEmpty());
+            assertEquals(0, diff.getPosition());
+            assertEquals(2, diff.getRemovedCount());
+            diff.applyTo(shown);
+            assertEquals(titles(index.getDocumentList()), titles(shown));
+        }
+    }
+
+    /**
+     * Test that an invalid change is reported, and that the next change is compared to the last valid version.
+     */
+    @Test
+    public void testInvalidChange() throws Exception {
+        Path file = Files.createTempDirectory("watch").resolve("index.json");
+        DocumentIndex index = new DocumentIndexReader(getFile("correctFile.json")).read();
+        new DocumentIndexWriter(index).write(file);
+
+        try (IndexFileWatcher watcher = new IndexFileWatcher(file, IGNORE)) {
+            index.getDocumentList().get(4).setPageCount(0);
+            new DocumentIndexWriter(index).write(file);
+
+            IndexValidationException e = Assertions.assertThrows(IndexValidationException.class, watcher::checkForChanges);
+            assertEquals(List.of("Invalid document at index #4: Page count must be greater than zero."), e.getErrorMessages());
+
+            index.getDocumentList().get(4).setPageCount(12);
+            new DocumentIndexWriter(index).write(file);
+
+            assertEquals(List.of(4), new ArrayList<>(watcher.checkForChanges().getUpdatedDocuments().keySet()));
+        }
+    }
+
+    /**
+     * Test that changes recorded in the journal are reported, and that the watcher follows the same documents as a
+     * reader that replays the journal.
+     */
+    @Test
+    public void testJournalChange() throws Exception {
+        Path file = Files.createTempDirectory("watch").resolve("index.json");
+        DocumentIndex index = new DocumentIndexReader(getFile("correctFile.json")).read();
+        new DocumentIndexWriter(index).write(file);
+
+        try (DocumentIndexJournal journal = new DocumentIndexJournal(file)) {
+            Document document = index.getDocumentList().get(1);
+            document.setTitle("Journal title");
+            journal.recordUpdate(1, document);
+        }
+
+        try (IndexFileWatcher watcher = new IndexFileWatcher(file, IGNORE)) {
+            DocumentIndexReader reader = new DocumentIndexReader(file);
+            List<Document> shown = new ArrayList<>(reader.read().getDocumentList());
+            assertEquals(watcher.getSourceChecksum(), reader.getSourceChecksum());
+            assertEquals("Journal title", shown.get(1).getTitle());
+
+            try (DocumentIndexJournal journal = new DocumentIndexJournal(file)) {
+                journal.recordDelete(0);
+            }
+
+            IndexDiff diff = watcher.checkForChanges();
+            assertEquals(0, diff.getPosition());
+            assertEquals(1, diff.getRemovedCount());
+            diff.applyTo(shown);
+            assertEquals(titles(new DocumentIndexReader(file).read().getDocumentList()), titles(shown));
+        }
+    }
+
+    /**
+     * Test that every way of reading a version of an index gives the checksum of the watcher that scanned it, and
+     * that a change between creating the watcher and reading the index gives a different checksum.
+     */
+    @Test
+    public void testSourceChecksum() throws Exception {
+        Path directory = Files.createTempDirectory("watch");
+        Path file = directory.resolve("index.json");
+        DocumentIndex index = new DocumentIndexReader(getFile("correctFile.json")).read();
+        new DocumentIndexWriter(index).write(file);
+
+        try (IndexFileWatcher watcher = new IndexFileWatcher(file, IGNORE)) {
+            // the first snapshot read writes the snapshot, the second one reads it
+            for (int i = 0; i < 5; i++) {
+                DocumentIndexReader reader = new DocumentIndexReader(file);
+                reader.setParallel(i == 1);
+                reader.setMemoryMapThreshold(i == 2 ? 0 : Long.MAX_VALUE);
+                reader.setUseSnapshot(i >= 3);
+                reader.read();
+                assertEquals(watcher.getSourceChecksum(), reader.getSourceChecksum(), "read #" + i);
+            }
+            assertTrue(Files.exists(directory.resolve("index.json.snapshot")));
+
+            index.getDocumentList().get(3).setTitle("Changed title");
+            new DocumentIndexWriter(index).write(file);
+
+            DocumentIndexReader reader = new DocumentIndexReader(file);
+            reader.read();
+            assertNotEquals(watcher.getSourceChecksum(), reader.getSourceChecksum());
+        }
+
+        Path manifest = directory.resolve("sharded.json");
+        DocumentIndexWriter writer = new DocumentIndexWriter(index);
+        writer.setShardSize(4);
+        writer.write(manifest);
+
+        try (IndexFileWatcher watcher = new IndexFileWatcher(manifest, IGNORE)) {
+            DocumentIndexReader reader = new DocumentIndexReader(manifest);
+            reader.read();
+            assertEquals(watcher.getSourceChecksum(), reader.getSourceChecksum());
+        }
+    }
+
+    /**
+     * Test that changes to a file in UTF-16, whose documents have no byte offsets, are reported.
+     */
+    @Test
+    public void testUtf16Change() throws Exception {
+        Path file = Files.createTempDirectory("watch").resolve("index.json");
+        String json = Files.readString(getFile("correctFile.json"));
+        Files.writeString(file, json, StandardCharsets.UTF_16);
+
+        try (IndexFileWatcher watcher = new IndexFileWatcher(file, IGNORE)) {
+            DocumentIndexReader reader = new DocumentIndexReader(file);
+            List<Document> shown = new ArrayList<>(reader.read().getDocumentList());
+            assertEquals(watcher.getSourceChecksum(), reader.getSourceChecksum());
+
+            DocumentIndex index = new DocumentIndexReader(file).read();
+            index.getDocumentList().get(2).setTitle("Changed title");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new DocumentStreamWriter(index.getDocumentList().iterator()).write(out);
+            Files.writeString(file, out.toString(StandardCharsets.UTF_8), StandardCharsets.UTF_16);
+
+            IndexDiff diff = watcher.checkForChanges();
+            assertEquals(List.of(2), new ArrayList<>(diff.getUpdatedDocuments().keySet()));
+            diff.applyTo(shown);
+            assertEquals(titles(index.getDocumentList()), titles(shown));
+        }
+    }
+}
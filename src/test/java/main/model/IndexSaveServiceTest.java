@@ -0,0 +1,109 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model;
+
+import main.model.index.DocumentIndex;
+import main.model.index.DocumentIndexReader;
+import main.model.index.IndexSaveService;
+import main.model.index.SaveMetrics;
+import main.model.index.SnapshotDocumentIndex;
+import org.junit.jupiter.api.Test;
+
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Tests for {@link IndexSaveService}.
+ */
+public class IndexSaveServiceTest
+{
+    /**
+     * Retrieve a Path object that points to the file with the specified filename located in the resources folder.
+     */
+    public static Path getFile(String filename) throws URISyntaxException {
+        return Path.of(DocumentIndexReaderTest.class.getClassLoader().getResource(filename).toURI());
+    }
+
+    /**
+     * A burst of changes results in a single save, which contains the last change.
+     */
+    @Test
+    public void testCoalescing() throws Exception {
+        DocumentIndex index = new DocumentIndexReader(getFile("correctFile.json")).read();
+        Path file = Files.createTempDirectory("save").resolve("index.json");
+
+        try (IndexSaveService saver = new IndexSaveService(index, file, Duration.ofMinutes(1))) {
+            for(int i = 0; i < 10; i++) {
+                saver.getLock().writeLock().lock();
+                try {
+                    index.getDocumentList().get(0).setTitle("Title " + i);
+                } finally {
+                    saver.getLock().writeLock().unlock();
+                }
+                saver.markDirty();
+            }
+
+            saver.flush();
+
+            SaveMetrics metrics = saver.getMetrics();
+            assertEquals(10, metrics.getQueuedSaves());
+            assertEquals(9, metrics.getCoalescedSaves());
+            assertEquals(1, metrics.getCompletedSaves());
+            assertEquals(0, metrics.getFailedSaves());
+        }
+
+        DocumentIndex saved = new DocumentIndexReader(file).read();
+        assertEquals("Title 9", saved.getDocumentList().get(0).getTitle());
+        assertEquals(index.getDocumentList().size(), saved.getDocumentList().size());
+        assertFalse(Files.exists(file.resolveSibling("index.json.tmp")));
+    }
+
+    /**
+     * An index that keeps snapshots is saved from its current snapshot, without waiting for an editor that holds the
+     * write lock.
+     */
+    @Test
+    public void testSnapshotSave() throws Exception {
+        SnapshotDocumentIndex index = new SnapshotDocumentIndex();
+        index.setDocumentList(new DocumentIndexReader(getFile("correctFile.json")).read().getDocumentList());
+        Path file = Files.createTempDirectory("snapshotSave").resolve("index.json");
+
+        try (IndexSaveService saver = new IndexSaveService(index, file, Duration.ofMinutes(1))) {
+            saver.getLock().writeLock().lock();
+            try {
+                index.getDocumentList().get(0).setTitle("Changed title");
+                saver.markDirty();
+
+                // the worker does not need the read lock, so the save finishes while the write lock is held
+                saver.flush();
+            } finally {
+                saver.getLock().writeLock().unlock();
+            }
+            assertEquals(1, saver.getMetrics().getCompletedSaves());
+        }
+
+        DocumentIndex saved = new DocumentIndexReader(file).read();
+        assertEquals("Changed title", saved.getDocumentList().get(0).getTitle());
+        assertEquals(6, saved.getDocumentList().size());
+    }
+}
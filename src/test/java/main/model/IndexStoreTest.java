@@ -0,0 +1,155 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model;
+
+import main.model.document.Document;
+import main.model.index.DocumentIndexReader;
+import main.model.store.DocumentQuery;
+import main.model.store.H2IndexStore;
+import main.model.store.IndexStore;
+import main.model.store.IndexStores;
+import main.model.store.JsonIndexStore;
+import main.model.store.StoreDocumentIndex;
+import main.model.store.StoredDocument;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Year;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link IndexStore} implementations.
+ */
+public class IndexStoreTest
+{
+    /**
+     * Retrieve a Path object that points to the file with the specified filename located in the resources folder.
+     */
+    public static Path getFile(String filename) throws URISyntaxException {
+        return Path.of(DocumentIndexReaderTest.class.getClassLoader().getResource(filename).toURI());
+    }
+
+    private static List<String> titles(Stream<StoredDocument> documents) {
+        try (documents) {
+            return documents.map(stored -> stored.getDocument().getTitle()).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Run the same operations on a store, reopen it, and check that the changes were kept.
+     */
+    private void checkStore(Path file) throws Exception {
+        List<String> expectedTitles = new DocumentIndexReader(getFile("correctFile.json")).read().getDocumentList()
+                .stream().map(Document::getTitle).collect(Collectors.toList());
+
+        try (IndexStore source = new JsonIndexStore(getFile("correctFile.json")); IndexStore store = IndexStores.open(file)) {
+            IndexStores.copy(source, store);
+
+            assertEquals(6, store.count());
+            assertEquals(expectedTitles, titles(store.iterate()));
+
+            // the store hands out copies, so a change is only kept by upsert
+            Document doc = store.get(2);
+            doc.setTitle("Changed title");
+            doc.setTags(List.of("changed"));
+            assertEquals(expectedTitles.get(1), store.get(2).getTitle());
+            store.upsert(2, doc);
+            doc.setTitle("Not stored");
+            assertEquals("Changed title", store.get(2).getTitle());
+
+            assertTrue(store.delete(4));
+            assertFalse(store.delete(4));
+            assertNull(store.get(4));
+        }
+
+        try (IndexStore store = IndexStores.open(file)) {
+            assertEquals(5, store.count());
+            assertEquals("Changed title", store.get(2).getTitle());
+
+            DocumentQuery byTag = new DocumentQuery();
+            byTag.setTag("changed");
+            assertEquals(List.of("Changed title"), titles(store.query(byTag)));
+
+            DocumentQuery byTitle = new DocumentQuery();
+            byTitle.setTitleContains("CHANGED");
+            assertEquals(List.of("Changed title"), titles(store.query(byTitle)));
+
+            for (Document doc : new DocumentIndexReader(getFile("correctFile.json")).read().getDocumentList()) {
+                DocumentQuery query = new DocumentQuery();
+                query.setDocumentType(doc.getDocumentType());
+                query.setReadingStatus(doc.getReadingStatus());
+                query.setPublicationYear(doc.getPublicationYear());
+
+                try (Stream<StoredDocument> matches = store.query(query)) {
+                    assertTrue(matches.allMatch(stored -> query.matches(stored.getDocument())));
+                }
+            }
+
+            // a store-backed index appends new documents to the store
+            StoreDocumentIndex index = new StoreDocumentIndex(store);
+            assertEquals(5, index.getDocumentList().size());
+            assertTrue(index.validate().isEmpty());
+
+            Document added = index.getDocumentList().get(0);
+            added.setTitle("Appended title");
+            added.setPublicationYear(Year.of(1999));
+            index.getDocumentList().add(added);
+            index.getDocumentList().remove(0);
+
+            assertEquals(5, store.count());
+            List<String> titles = titles(store.iterate());
+            assertEquals("Appended title", titles.get(titles.size() - 1));
+        }
+    }
+
+    @Test
+    public void testJsonStore() throws Exception {
+        Path file = Files.createTempDirectory("store").resolve("index.json");
+        this.checkStore(file);
+
+        // the file is an ordinary index file
+        assertEquals(5, new DocumentIndexReader(file).read().getDocumentList().size());
+    }
+
+    @Test
+    public void testH2Store() throws Exception {
+        Path file = Files.createTempDirectory("store").resolve("index.mv.db");
+        this.checkStore(file);
+
+        try (IndexStore store = IndexStores.open(file)) {
+            assertInstanceOf(H2IndexStore.class, store);
+        }
+
+        // settings cannot be injected into the database URL through the path
+        Path injected = file.resolveSibling("index;INIT=RUNSCRIPT FROM 'evil.sql'.mv.db");
+        assertThrows(IOException.class, () -> new H2IndexStore(injected));
+        assertFalse(Files.exists(injected));
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model;
+
+import main.model.document.Author;
+import main.model.document.Document;
+import main.model.index.NearDuplicateFinder;
+import main.model.index.NearDuplicatePair;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link NearDuplicateFinder}.
+ */
+public class NearDuplicateFinderTest
+{
+    private static Document createDocument(String title, String lastName, String venue) {
+        Document retval = new Document();
+        retval.setTitle(title);
+        retval.setAuthors(List.of(new Author(null, lastName)));
+        retval.setPublicationVenue(venue);
+        return retval;
+    }
+
+    private static List<Document> getDocuments() {
+        return new ArrayList<>(List.of(
+                createDocument("Computing Machinery and Intelligence, Issue 236", "Turing", "Mind"),
+                createDocument("On Computable Numbers, with an Application to the Entscheidungsproblem", "Turing", "Proceedings of the London Mathematical Society"),
+                createDocument("A Relational Model of Data for Large Shared Data Banks", "Codd", "Communications of the ACM"),
+                createDocument("Computing Machinery & Intelligence", "Turing", "Mind"),
+                createDocument("Go To Statement Considered Harmful", "Dijkstra", "Communications of the ACM")
+        ));
+    }
+
+    /**
+     * Only the two variants of the same paper are reported.
+     */
+    @Test
+    public void testFindCandidates() throws Exception {
+        List<NearDuplicatePair> pairs = new NearDuplicateFinder().findCandidates(getDocuments());
+
+        assertEquals(1, pairs.size());
+        assertEquals(0, pairs.get(0).getFirst());
+        assertEquals(3, pairs.get(0).getSecond());
+        assertTrue(pairs.get(0).getSimilarity() >= NearDuplicateFinder.DEFAULT_THRESHOLD, pairs.get(0).toString());
+
+        // a document without anything to compare has no signature
+        assertNull(new NearDuplicateFinder().computeSignature(new Document()));
+
+        // a threshold above the similarity of the pair leaves nothing
+        NearDuplicateFinder strict = NearDuplicateFinder.forThreshold(0.95);
+        assertEquals(List.of(), strict.findCandidates(getDocuments()));
+    }
+
+    /**
+     * The signatures are stored, and the file is only rewritten when the documents change.
+     */
+    @Test
+    public void testSignatureFile() throws Exception {
+        Path file = Files.createTempDirectory("minhash").resolve("index.json.minhash");
+        List<Document> documents = getDocuments();
+
+        NearDuplicateFinder finder = new NearDuplicateFinder();
+        finder.setSignatureFile(file);
+
+        String expected = finder.findCandidates(documents).toString();
+        assertTrue(Files.exists(file), "signature file created");
+
+        FileTime old = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(file, old);
+        assertEquals(expected, finder.findCandidates(documents).toString());
+        assertEquals(old, Files.getLastModifiedTime(file));
+
+        documents.set(2, createDocument("The Art of Computer Programming", "Knuth", "Addison-Wesley"));
+        assertEquals(expected, finder.findCandidates(documents).toString());
+        assertNotEquals(old, Files.getLastModifiedTime(file));
+
+        // a corrupt file is ignored and replaced
+        byte[] corrupt = Files.readAllBytes(file);
+        corrupt[corrupt.length - 1] ^= 1;
+        Files.write(file, corrupt);
+        assertEquals(expected, finder.findCandidates(documents).toString());
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model;
+
+import main.model.document.Document;
+import main.model.document.EnumReadingStatus;
+import main.model.document.ImmutableDocument;
+import main.model.index.DocumentIndex;
+import main.model.index.DocumentIndexReader;
+import main.model.index.DocumentIndexWriter;
+import main.model.index.IndexSnapshot;
+import main.model.index.PersistentVector;
+import main.model.index.SnapshotDocumentIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests for {@link PersistentVector}, {@link IndexSnapshot} and {@link SnapshotDocumentIndex}.
+ */
+public class SnapshotTest
+{
+    /**
+     * Test that a vector with enough elements for three levels behaves like a list, and that earlier versions do not
+     * change.
+     */
+    @Test
+    void testPersistentVector() {
+        Random random = new Random(5);
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<Integer> expected = new ArrayList<>();
+
+        List<PersistentVector<Integer>> versions = new ArrayList<>();
+        List<List<Integer>> expectedVersions = new ArrayList<>();
+
+        for (int i = 0; i < 40_000; i++) {
+            vector = vector.append(i);
+            expected.add(i);
+
+            if(i % 3 == 0) {
+                int position = random.nextInt(expected.size());
+                vector = vector.set(position, -i);
+                expected.set(position, -i);
+            }
+            if(i % 997 == 0) {
+                versions.add(vector);
+                expectedVersions.add(new ArrayList<>(expected));
+            }
+        }
+
+        assertEquals(expected, vector.asList());
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(expectedVersions.get(i), versions.get(i).asList(), "version " + i);
+        }
+
+        // a shortened vector can grow again, across the boundaries of leaves and levels
+        for (int count : new int[]{0, 1, 31, 32, 33, 1023, 1024, 1025, 1056, 1057, 33_000}) {
+            PersistentVector<Integer> shortened = vector.take(count);
+            assertEquals(expected.subList(0, count), shortened.asList(), "take " + count);
+
+            List<Integer> grown = new ArrayList<>(expected.subList(0, count));
+            for (int i = 0; i < 2_000; i++) {
+                shortened = shortened.append(i);
+                grown.add(i);
+            }
+            assertEquals(grown, shortened.asList(), "take %d and append".formatted(count));
+        }
+        assertEquals(expected, vector.asList());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> PersistentVector.empty().get(0));
+    }
+
+    /**
+     * Test that a snapshot does not see later changes, that unchanged documents are shared between versions, and that
+     * an earlier version can be restored and written.
+     */
+    @Test
+    void testSnapshotIndex() throws Exception {
+        DocumentIndex original = new DocumentIndexReader(DocumentIndexReaderTest.getFile("correctFile.json")).read();
+        SnapshotDocumentIndex index = IndexSnapshot.of(original.getDocumentList()).toIndex();
+        IndexSnapshot before = index.snapshot();
+
+        Document document = index.getDocumentList().get(2);
+        document.setReadingStatus(EnumReadingStatus.ON_HOLD);
+        index.getDocumentList().set(2, document);
+        index.getDocumentList().add(original.getDocumentList().get(0));
+        index.getDocumentList().remove(1);
+
+        IndexSnapshot after = index.snapshot();
+        assertEquals(6, before.size());
+        assertEquals(6, after.size());
+        assertEquals(original.getDocumentList().get(2).getReadingStatus(), before.get(2).getReadingStatus());
+        assertEquals(EnumReadingStatus.ON_HOLD, after.get(1).getReadingStatus());
+        assertSame(before.get(0), after.get(0));
+        assertSame(before.get(3), after.get(2));
+
+        ImmutableDocument renamed = after.get(0).withTitle("Renamed");
+        assertEquals("Renamed", renamed.getTitle());
+        assertEquals(after.get(0).getTags(), renamed.getTags());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> renamed.getTags().add("tag"));
+
+        Path file = Files.createTempDirectory("snapshotIndex").resolve("index.json");
+        new DocumentIndexWriter(after.toIndex()).write(file);
+        DocumentIndex saved = new DocumentIndexReader(file).read();
+        assertEquals(6, saved.getDocumentList().size());
+        assertEquals(EnumReadingStatus.ON_HOLD, saved.getDocumentList().get(1).getReadingStatus());
+
+        // undo
+        index.restore(before);
+        assertEquals(6, index.getDocumentList().size());
+        assertEquals(original.getDocumentList().get(1).getTitle(), index.getDocumentList().get(1).getTitle());
+    }
+
+    /**
+     * Test that a document that is changed in place, as with an ordinary index, is part of the next snapshot, and that
+     * iterators fail fast when the snapshot of the index is replaced.
+     */
+    @Test
+    void testInPlaceChanges() throws Exception {
+        DocumentIndex original = new DocumentIndexReader(DocumentIndexReaderTest.getFile("correctFile.json")).read();
+        SnapshotDocumentIndex index = IndexSnapshot.of(original.getDocumentList()).toIndex();
+        IndexSnapshot before = index.snapshot();
+
+        Document document = index.getDocumentList().get(4);
+        assertSame(document, index.getDocumentList().get(4));
+        document.setTitle("Changed in place");
+        index.getDocumentList().remove(0);
+        assertSame(document, index.getDocumentList().get(3));
+
+        IndexSnapshot after = index.snapshot();
+        assertEquals("Changed in place", after.get(3).getTitle());
+        assertEquals(original.getDocumentList().get(4).getTitle(), before.get(4).getTitle());
+        assertSame(after, index.snapshot());
+
+        Iterator<Document> iterator = index.getDocumentList().iterator();
+        iterator.next();
+        index.restore(before);
+        Assertions.assertThrows(ConcurrentModificationException.class, iterator::next);
+        assertEquals(original.getDocumentList().get(4).getTitle(), index.getDocumentList().get(4).getTitle());
+
+        Iterator<Document> second = index.getDocumentList().iterator();
+        second.next();
+        index.getDocumentList().set(0, original.getDocumentList().get(5));
+        Assertions.assertThrows(ConcurrentModificationException.class, second::next);
+    }
+
+    /**
+     * Test that only the documents that were changed through their setters are copied into the next snapshot, also
+     * when the caller no longer holds on to them.
+     */
+    @Test
+    void testDirtyTracking() throws Exception {
+        DocumentIndex original = new DocumentIndexReader(DocumentIndexReaderTest.getFile("correctFile.json")).read();
+        SnapshotDocumentIndex index = IndexSnapshot.of(original.getDocumentList()).toIndex();
+        IndexSnapshot before = index.snapshot();
+
+        // reading every document changes nothing
+        for (Document document : index.getDocumentList()) {
+            document.getTitle();
+        }
+        assertSame(before, index.snapshot());
+
+        index.getDocumentList().get(1).setTitle("Changed and dropped");
+        System.gc();
+        Document kept = index.getDocumentList().get(3);
+        kept.setPageCount(42);
+        IndexSnapshot after = index.snapshot();
+        assertEquals("Changed and dropped", after.get(1).getTitle());
+        assertEquals(42, after.get(3).getPageCount());
+        assertSame(before.get(0), after.get(0));
+        assertSame(before.get(2), after.get(2));
+        assertSame(after, index.snapshot());
+
+        // a document that was committed is tracked again after the commit
+        kept.setPageCount(43);
+        index.getDocumentList().remove(0);
+        assertEquals(43, index.snapshot().get(2).getPageCount());
+
+        // a document that was replaced is no longer part of the index
+        index.getDocumentList().set(2, original.getDocumentList().get(0));
+        kept.setPageCount(44);
+        assertEquals(original.getDocumentList().get(0).getTitle(), index.snapshot().get(2).getTitle());
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ *   Copyright (C) 2022  Kasper Engelen
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package main.model;
+
+import main.model.document.Document;
+import main.model.index.DocumentBitmap;
+import main.model.index.DocumentIndex;
+import main.model.index.DocumentIndexReader;
+import main.model.index.TagIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link DocumentBitmap} and {@link TagIndex}.
+ */
+public class TagIndexTest
+{
+    /**
+     * Test the bitmap operations against {@link BitSet}, for sparse chunks, dense chunks, and chunks that change from
+     * one to the other.
+     */
+    @Test
+    void testBitmap() {
+        Random random = new Random(3);
+        int size = 3 * 65536 + 100;
+
+        for (int round = 0; round < 5; round++) {
+            BitSet[] expected = {new BitSet(), new BitSet()};
+            DocumentBitmap[] bitmaps = {new DocumentBitmap(), new DocumentBitmap()};
+
+            for (int b = 0; b < 2; b++) {
+                // the first chunk becomes dense, the others stay sparse
+                int count = 2000 + random.nextInt(20000);
+                for (int i = 0; i < count; i++) {
+                    int position = (i % 2 == 0) ? random.nextInt(65536) : random.nextInt(size);
+                    assertEquals(!expected[b].get(position), bitmaps[b].add(position));
+                    expected[b].set(position);
+                }
+                for (int i = 0; i < count / 2; i++) {
+                    int position = random.nextInt(65536);
+                    assertEquals(expected[b].get(position), bitmaps[b].remove(position));
+                    expected[b].clear(position);
+                }
+                assertEquals(expected[b].cardinality(), bitmaps[b].cardinality());
+                assertArrayEquals(expected[b].stream().toArray(), bitmaps[b].toArray());
+            }
+
+            BitSet and = (BitSet) expected[0].clone();
+            and.and(expected[1]);
+            BitSet or = (BitSet) expected[0].clone();
+            or.or(expected[1]);
+            BitSet andNot = (BitSet) expected[0].clone();
+            andNot.andNot(expected[1]);
+
+            assertArrayEquals(and.stream().toArray(), bitmaps[0].and(bitmaps[1]).toArray(), "and");
+            assertArrayEquals(or.stream().toArray(), bitmaps[0].or(bitmaps[1]).toArray(), "or");
+            assertArrayEquals(andNot.stream().toArray(), bitmaps[0].andNot(bitmaps[1]).toArray(), "andNot");
+            assertEquals(size - expected[0].cardinality(), DocumentBitmap.range(size).andNot(bitmaps[0]).cardinality());
+        }
+
+        assertEquals(65536 + 5, DocumentBitmap.range(65536 + 5).cardinality());
+        assertFalse(DocumentBitmap.range(70).contains(70));
+        assertTrue(DocumentBitmap.range(70).contains(69));
+    }
+
+    /**
+     * Test boolean tag queries on the test index, and that the index follows changes to the tags.
+     */
+    @Test
+    void testTagQueries() throws Exception {
+        DocumentIndex index = new DocumentIndexReader(DocumentIndexReaderTest.getFile("correctFile.json")).read();
+        TagIndex tags = index.createTagIndex();
+
+        assertEquals(List.of("tag1", "tag2", "third tag", "too", "many", "tags", "2nd tag", "A", "B", "C", "D"), tags.getTags());
+        assertArrayEquals(new int[]{0, 4}, tags.getDocuments("tag1").toArray());
+        assertArrayEquals(new int[]{0}, tags.allOf("tag1", "tag2").toArray());
+        assertArrayEquals(new int[]{0, 2, 4}, tags.anyOf("tag1", "many", "unknown").toArray());
+        assertArrayEquals(new int[]{1, 3, 5}, tags.noneOf("tag1", "many").toArray());
+        assertArrayEquals(new int[]{4}, tags.allOf("tag1").andNot(tags.anyOf("tag2")).toArray());
+        assertTrue(tags.allOf("tag1", "unknown").isEmpty());
+
+        Document document = index.getDocumentList().get(1);
+        document.setTags(List.of("tag1", "new"));
+        index.getDocumentList().get(0).setTags(List.of("tag2"));
+        assertArrayEquals(new int[]{1, 4}, tags.getDocuments("tag1").toArray());
+        assertArrayEquals(new int[]{1}, tags.getDocuments("new").toArray());
+        assertFalse(tags.getTags().contains("third tag"));
+
+        Document replacement = new Document();
+        replacement.setTags(List.of("replaced"));
+        index.getDocumentList().set(1, replacement);
+        tags.set(1, replacement);
+        assertArrayEquals(new int[]{4}, tags.getDocuments("tag1").toArray());
+
+        // the replaced document and closed indexes are no longer followed
+        document.setTags(List.of("tag1"));
+        tags.close();
+        replacement.setTags(List.of());
+        assertArrayEquals(new int[]{4}, tags.getDocuments("tag1").toArray());
+        assertArrayEquals(new int[]{1}, tags.getDocuments("replaced").toArray());
+    }
+
+    /**
+     * Test that several tag indexes follow the same documents, and that removing a document shifts the positions of
+     * the documents after it.
+     */
+    @Test
+    void testRemoveAndSeveralIndexes() throws Exception {
+        DocumentIndex index = new DocumentIndexReader(DocumentIndexReaderTest.getFile("correctFile.json")).read();
+        TagIndex first = index.createTagIndex();
+        TagIndex second = index.createTagIndex();
+
+        Document removed = index.getDocumentList().remove(0);
+        first.remove(0);
+        assertEquals(5, first.size());
+        assertArrayEquals(new int[]{3}, first.getDocuments("tag1").toArray());
+        assertArrayEquals(new int[]{1}, first.getDocuments("many").toArray());
+        assertFalse(first.getTags().contains("tag2"));
+
+        // both indexes follow the documents until they are closed, the removed document is no longer followed by the
+        // index that removed it
+        index.getDocumentList().get(0).setTags(List.of("tag1"));
+        removed.setTags(List.of("removed"));
+        assertArrayEquals(new int[]{0, 3}, first.getDocuments("tag1").toArray());
+        assertArrayEquals(new int[]{1, 4}, second.getDocuments("tag1").toArray());
+        assertTrue(first.getDocuments("removed").isEmpty());
+        assertArrayEquals(new int[]{0}, second.getDocuments("removed").toArray());
+
+        second.close();
+        index.getDocumentList().get(1).setTags(List.of("tag1"));
+        assertArrayEquals(new int[]{0, 1, 3}, first.getDocuments("tag1").toArray());
+        assertArrayEquals(new int[]{1, 4}, second.getDocuments("tag1").toArray());
+    }
+}
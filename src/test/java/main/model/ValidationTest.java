@@ -19,16 +19,28 @@ package main.model;
 
 import main.model.document.*;
 import main.model.index.DocumentIndex;
+import main.model.index.DuplicateCluster;
+import main.model.validation.EnumValidationError;
 import main.model.validation.IValidatable;
+import main.model.validation.RuleStatistics;
+import main.model.validation.ValidationErrors;
+import main.model.validation.ValidationRules;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Tests of the classes that implement {@link IValidatable#validate()}.
@@ -80,6 +92,19 @@ public class ValidationTest
         return retval;
     }
 
+    public Document getValidDoc()
+    {
+        Document retval = new Document();
+
+        retval.setAuthors(List.of(new Author("Peter", "Selie")));
+        retval.setTitle("Some title");
+        retval.setPageCount(10);
+        retval.setDocumentType(EnumDocumentType.PAPER);
+        retval.setReadingStatus(EnumReadingStatus.NOT_STARTED);
+
+        return retval;
+    }
+
     public DocumentIndex getDocumentIndex() throws URISyntaxException {
         DocumentIndex retval = new DocumentIndex();
         retval.setDocumentList(List.of(getDoc0(), getDoc1()));
@@ -110,4 +135,153 @@ public class ValidationTest
             assertEquals(expectedMessages.get(i), errorMessages.get(i), "message " + (i+1));
         }
     }
+
+    /**
+     * Validate a large index, with invalid documents spread over it, in parallel and sequentially. Both modes must
+     * report the same messages in the same order.
+     */
+    @Test
+    public void testParallelValidation() throws URISyntaxException {
+        List<Document> documents = new ArrayList<>();
+        Document valid = getValidDoc();
+
+        for (int i = 0; i < 10_000; i++) {
+            if(i % 997 == 0) {
+                documents.add(getDoc0());
+            } else if(i % 1009 == 0) {
+                documents.add(getDoc1());
+            } else {
+                documents.add(valid);
+            }
+        }
+
+        DocumentIndex index = new DocumentIndex();
+        index.setDocumentList(documents);
+
+        List<String> parallelMessages = index.validate();
+
+        index.setParallelValidation(false);
+        List<String> sequentialMessages = index.validate();
+
+        assertEquals(11 * 5 + 9 * 4, sequentialMessages.size(), "number of error messages");
+        assertEquals(sequentialMessages, parallelMessages);
+        assertEquals("Invalid document at index #9970: Reading status must not be null.", sequentialMessages.get(sequentialMessages.size() - 1));
+    }
+
+    /**
+     * Validate into a reusable error sink. The sink must hold the codes and paths of the errors, and build the same
+     * messages as the list-based API.
+     */
+    @Test
+    public void testErrorSink() throws URISyntaxException {
+        DocumentIndex index = getDocumentIndex();
+        ValidationErrors errors = new ValidationErrors();
+
+        index.validate(errors);
+
+        assertEquals(index.validate(), errors.getMessages());
+        assertEquals(EnumValidationError.AUTHOR_LASTNAME_NULL, errors.getError(1));
+        assertEquals(2, errors.getPathLength(1));
+        assertEquals("document", errors.getPathName(1, 0));
+        assertEquals(0, errors.getPathIndex(1, 0));
+        assertEquals("author", errors.getPathName(1, 1));
+        assertEquals(1, errors.getPathIndex(1, 1));
+        assertEquals(EnumValidationError.DOCUMENT_TYPE_NULL, errors.getError(8));
+        assertEquals(1, errors.getPathIndex(8, 0));
+
+        // a valid document adds nothing to a cleared sink
+        errors.clear();
+        getValidDoc().validate(errors);
+        assertTrue(errors.isEmpty());
+
+        // errors of another sink are nested under the current path
+        ValidationErrors nested = new ValidationErrors();
+        getDoc1().validate(nested);
+        errors.enter("document", 42);
+        errors.addAll(nested);
+        errors.leave();
+        assertEquals(4, errors.size());
+        assertEquals("Invalid document at index #42: List of authors must not be empty.", errors.getMessage(0));
+    }
+
+    /**
+     * Load a rules file with a disabled built-in rule and rules for specific document types, and check the errors and
+     * the statistics of the rules.
+     */
+    @Test
+    public void testRulesFile() throws Exception {
+        ValidationRules rules = ValidationRules.load(getFile("validationRules.json"));
+        rules.setCollectStatistics(true);
+
+        Document paper = getValidDoc();
+        paper.setAuthors(List.of(new Author("peter", "Selie")));
+        paper.setReadingStatus(null);
+
+        Document book = getValidDoc();
+        book.setDocumentType(EnumDocumentType.BOOK);
+        book.setPageCount(2500);
+
+        ValidationErrors errors = new ValidationErrors();
+        errors.enter("document", 0);
+        rules.validate(paper, errors);
+        errors.leave();
+        errors.enter("document", 1);
+        rules.validate(book, errors);
+        errors.leave();
+
+        List<String> expectedMessages = List.of(
+                "Invalid document at index #0: Invalid author at index #0: First names must start with a capital.",
+                "Invalid document at index #0: Papers must have a publication venue.",
+                "Invalid document at index #1: Books must have at most 2000 pages."
+        );
+        assertEquals(expectedMessages, errors.getMessages());
+        assertEquals("paper.venue", errors.getError(1).getCode());
+
+        RuleStatistics pageLimit = rules.getStatistics().stream()
+                .filter(statistics -> statistics.getRuleName().equals("book.pageLimit"))
+                .findFirst().orElseThrow();
+        assertEquals(2, pageLimit.getEvaluations());
+        assertEquals(1, pageLimit.getFailures());
+
+        assertNotEquals(ValidationRules.getDefault().getFingerprint(), rules.getFingerprint());
+
+        IOException e = Assertions.assertThrows(IOException.class, () -> ValidationRules.load(getFile("invalidValidationRules.json")));
+        assertTrue(e.getMessage().contains("colour"), e.getMessage());
+    }
+
+    /**
+     * Find duplicates that differ in case, whitespace and the order of the authors, but not documents that differ in
+     * their year or have no title.
+     */
+    @Test
+    public void testDuplicates() {
+        Document original = getValidDoc();
+        original.setAuthors(List.of(new Author("Peter", "Selie"), new Author("John", "Doe")));
+        original.setPublicationYear(Year.of(2009));
+
+        Document copy = getValidDoc();
+        copy.setAuthors(List.of(new Author("J.", "doe"), new Author("P.", "SELIE")));
+        copy.setTitle("  some   TITLE ");
+        copy.setPublicationYear(Year.of(2009));
+
+        Document otherYear = getValidDoc();
+        otherYear.setAuthors(original.getAuthors());
+        otherYear.setPublicationYear(Year.of(2010));
+
+        Document untitled = getValidDoc();
+        untitled.setTitle(" ");
+
+        DocumentIndex index = new DocumentIndex();
+        index.setDocumentList(List.of(untitled, original, otherYear, untitled, copy, original));
+
+        List<DuplicateCluster> clusters = index.findDuplicates();
+        assertEquals(1, clusters.size());
+        assertEquals(List.of(1, 4, 5), Arrays.stream(clusters.get(0).getPositions()).boxed().collect(Collectors.toList()));
+        assertEquals("some title | doe, selie | 2009", clusters.get(0).getKey());
+
+        index.setCheckDuplicates(true);
+        List<String> errorMessages = index.validate();
+        assertEquals("Invalid document at index #4: Duplicate of the document at index #1.", errorMessages.get(errorMessages.size() - 2));
+        assertEquals("Invalid document at index #5: Duplicate of the document at index #1.", errorMessages.get(errorMessages.size() - 1));
+    }
 }
@@ -22,9 +22,11 @@ import main.view.DocumentTableModel;
 import main.view.DocumentView;
 import org.junit.jupiter.api.Test;
 
+import javax.swing.event.TableModelEvent;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.Year;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -190,4 +192,34 @@ public class ViewTest
             }
         }
     }
+
+    /**
+     * Test that changing rows of the table model notifies the listeners of exactly those rows.
+     */
+    @Test
+    void testTableModelEvents() throws Exception {
+        DocumentTableModel tableModel = new DocumentTableModel(List.of(new DocumentView(createDocument0()), new DocumentView(createDocument1())));
+
+        List<TableModelEvent> events = new ArrayList<>();
+        tableModel.addTableModelListener(events::add);
+
+        tableModel.setDocument(1, new DocumentView(createDocument2()));
+        tableModel.insertDocuments(2, List.of(new DocumentView(createDocument3()), new DocumentView(createDocument4())));
+        tableModel.removeDocuments(0, 1);
+
+        assertEquals(3, tableModel.getRowCount(), "tableModel.getRowCount");
+        assertEquals("Third title", tableModel.getValueAt(0, 2));
+        assertEquals("Final Title", tableModel.getValueAt(2, 2));
+
+        assertEquals(3, events.size());
+        assertEquals(TableModelEvent.UPDATE, events.get(0).getType());
+        assertEquals(1, events.get(0).getFirstRow());
+        assertEquals(1, events.get(0).getLastRow());
+        assertEquals(TableModelEvent.INSERT, events.get(1).getType());
+        assertEquals(2, events.get(1).getFirstRow());
+        assertEquals(3, events.get(1).getLastRow());
+        assertEquals(TableModelEvent.DELETE, events.get(2).getType());
+        assertEquals(0, events.get(2).getFirstRow());
+        assertEquals(0, events.get(2).getLastRow());
+    }
 }